@@ -29,14 +29,25 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-oauth2-client")
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
+    // 見積の L1 キャッシュ（バージョンは Spring Boot の依存管理に従う）
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.springframework.session:spring-session-data-redis")
     implementation("org.apache.poi:poi-ooxml:5.2.5")
+    // Parquet（分析用エクスポート）。Hadoop はシェーディング済みクライアントのみ使用
+    implementation("org.apache.parquet:parquet-hadoop:1.14.1")
+    implementation("org.apache.hadoop:hadoop-client-api:3.3.6")
+    runtimeOnly("org.apache.hadoop:hadoop-client-runtime:3.3.6")
     implementation ("io.jsonwebtoken:jjwt-api:0.12.6")
     runtimeOnly ("io.jsonwebtoken:jjwt-impl:0.12.6")
     runtimeOnly ("io.jsonwebtoken:jjwt-jackson:0.12.6")
     implementation("com.nimbusds:nimbus-jose-jwt:9.37")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.security:spring-security-test")
+    // 読み書き振り分けのテストで primary / レプリカの代わりに使う
+    testRuntimeOnly("com.h2database:h2")
+    // S3（MinIO）・Redis を使う結合テスト。Docker が無い環境ではスキップする
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:minio")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     // AWS S3
     implementation(platform("software.amazon.awssdk:bom:2.25.55"))
@@ -0,0 +1,137 @@
+package com.capgemini.estimate.poc.estimate_api.common.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV/TSV を 1 行ずつ読み出すリーダ（{@link DelimitedWriter} の対）。
+ *
+ * <p>再利用する char バッファから 1 文字ずつ解釈するため、ファイル全体や行全体を事前に読み込まない。
+ * メモリ使用量はバッファと読み出し中の 1 レコード分に収まる。
+ *
+ * <p>クォート規則は RFC 4180 に従う: {@code "} で囲まれたフィールドは区切り文字・改行を含んでよく、
+ * {@code ""} は {@code "} 1 文字として扱う。行末は CRLF / LF のどちらも受け付ける。先頭の BOM は読み飛ばす。
+ *
+ * <p>スレッドセーフではない。
+ */
+public final class DelimitedReader implements Closeable {
+
+  private static final int EOF = -1;
+
+  private final Reader in;
+  private final char delimiter;
+  private final char[] buffer;
+  private int position;
+  private int limit;
+  private boolean started;
+  private long line = 1;
+
+  /**
+   * @param in 入力元
+   * @param delimiter 区切り文字（{@code ','} / {@code '\t'}）
+   * @param bufferSize バッファサイズ（文字数）
+   */
+  public DelimitedReader(Reader in, char delimiter, int bufferSize) {
+    if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+      throw new IllegalArgumentException("区切り文字にダブルクォート・改行は使用できません。");
+    }
+    this.in = in;
+    this.delimiter = delimiter;
+    this.buffer = new char[Math.max(bufferSize, 16)];
+  }
+
+  /**
+   * 次の 1 レコードを読み出す。
+   *
+   * @return フィールドの一覧。入力の終端に達した場合は null
+   * @throws IOException 読み出しに失敗した場合、またはクォートが閉じられないまま終端に達した場合
+   */
+  public List<String> next() throws IOException {
+    if (!started) {
+      started = true;
+      if (peek() == '\uFEFF') {
+        position++;
+      }
+    }
+    if (peek() == EOF) {
+      return null;
+    }
+
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (true) {
+      int c = read();
+      if (quoted) {
+        if (c == EOF) {
+          throw new IOException(line + " 行目: クォートが閉じられていません。");
+        }
+        if (c == '"') {
+          if (peek() == '"') {
+            position++;
+            field.append('"');
+          } else {
+            quoted = false;
+          }
+        } else {
+          if (c == '\n') {
+            line++;
+          }
+          field.append((char) c);
+        }
+        continue;
+      }
+      if (c == EOF || c == '\n' || c == '\r') {
+        if (c == '\r' && peek() == '\n') {
+          position++;
+        }
+        if (c != EOF) {
+          line++;
+        }
+        fields.add(field.toString());
+        return fields;
+      }
+      if (c == delimiter) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '"' && field.isEmpty()) {
+        quoted = true;
+      } else {
+        field.append((char) c);
+      }
+    }
+  }
+
+  /** 次に {@link #next()} が読み出すレコードの開始行番号（1 始まり、クォート内の改行も数える）。 */
+  public long line() {
+    return line;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private int read() throws IOException {
+    int c = peek();
+    if (c != EOF) {
+      position++;
+    }
+    return c;
+  }
+
+  private int peek() throws IOException {
+    if (position == limit) {
+      limit = in.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return EOF;
+      }
+    }
+    return buffer[position];
+  }
+}
@@ -0,0 +1,136 @@
+package com.capgemini.estimate.poc.estimate_api.common.csv;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSV/TSV を 1 フィールドずつ書き出すライタ。
+ *
+ * <p>再利用する char バッファへ直接書き込み、満杯になった時だけ下位の {@link Writer} へ吐き出す。
+ * エスケープは文字単位で判定しながらバッファへ写すため、フィールドごとの文字列生成（replace 等）は行わない。
+ *
+ * <p>クォート規則は RFC 4180 に従う: 区切り文字・ダブルクォート・改行を含む値のみ {@code "} で囲み、
+ * 値中の {@code "} は {@code ""} に置き換える。行末は CRLF。null は空フィールドとして出力する。
+ *
+ * <p>スレッドセーフではない。
+ */
+public final class DelimitedWriter implements Flushable {
+
+  private final Writer out;
+  private final char delimiter;
+  private final char[] buffer;
+  private int position;
+  private boolean firstField = true;
+
+  /**
+   * @param out 出力先
+   * @param delimiter 区切り文字（{@code ','} / {@code '\t'}）
+   * @param bufferSize バッファサイズ（文字数）
+   */
+  public DelimitedWriter(Writer out, char delimiter, int bufferSize) {
+    if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+      throw new IllegalArgumentException("区切り文字にダブルクォート・改行は使用できません。");
+    }
+    this.out = out;
+    this.delimiter = delimiter;
+    this.buffer = new char[Math.max(bufferSize, 16)];
+  }
+
+  /** 文字列フィールドを書き出す。 */
+  public void field(String value) throws IOException {
+    separator();
+    if (value == null) {
+      return;
+    }
+    int length = value.length();
+    if (!needsQuote(value, length)) {
+      for (int i = 0; i < length; i++) {
+        put(value.charAt(i));
+      }
+      return;
+    }
+    put('"');
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        put('"');
+      }
+      put(c);
+    }
+    put('"');
+  }
+
+  /** 整数フィールドを書き出す（Integer の文字列化を介さずバッファへ直接桁を書く）。 */
+  public void field(Integer value) throws IOException {
+    separator();
+    if (value == null) {
+      return;
+    }
+    long v = value;
+    if (v < 0) {
+      put('-');
+      v = -v;
+    }
+    if (v == 0) {
+      put('0');
+      return;
+    }
+    // int の最大桁数は 10
+    long divisor = 1_000_000_000L;
+    while (divisor > v) {
+      divisor /= 10;
+    }
+    while (divisor > 0) {
+      put((char) ('0' + (v / divisor)));
+      v %= divisor;
+      divisor /= 10;
+    }
+  }
+
+  /** 行を終える（CRLF）。 */
+  public void endRow() throws IOException {
+    put('\r');
+    put('\n');
+    firstField = true;
+  }
+
+  /** バッファの内容を下位の Writer へ書き出して flush する。 */
+  @Override
+  public void flush() throws IOException {
+    drain();
+    out.flush();
+  }
+
+  private boolean needsQuote(String value, int length) {
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c == delimiter || c == '"' || c == '\r' || c == '\n') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void separator() throws IOException {
+    if (firstField) {
+      firstField = false;
+    } else {
+      put(delimiter);
+    }
+  }
+
+  private void put(char c) throws IOException {
+    if (position == buffer.length) {
+      drain();
+    }
+    buffer[position++] = c;
+  }
+
+  private void drain() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.capgemini.estimate.poc.estimate_api.common.id;
+
+/**
+ * 主キーの採番。
+ *
+ * <p>実装は {@code app.id.generator} で選択する（{@code config.IdGeneratorConfig}）。いずれも正規形の UUID 文字列
+ * （小文字・ハイフン区切り 36 文字）を返すため、方式を切り替えても既存の id はそのまま使える。
+ *
+ * <p>DB には正規形の文字列をそのまま {@code VARCHAR2(36)} で保存する。
+ */
+public interface IdGenerator {
+
+  /** 新しい id を返す。スレッドセーフであること。 */
+  String next();
+}
@@ -0,0 +1,12 @@
+package com.capgemini.estimate.poc.estimate_api.common.id;
+
+import java.util.UUID;
+
+/** ランダムな UUID（バージョン 4）。挿入位置が索引全体に散るため、大量登録には {@link UuidV7Generator} を使う。 */
+public class RandomUuidGenerator implements IdGenerator {
+
+  @Override
+  public String next() {
+    return UUID.randomUUID().toString();
+  }
+}
@@ -0,0 +1,77 @@
+package com.capgemini.estimate.poc.estimate_api.common.pagination;
+
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidPageCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * キーセットページングのカーソル（不透明な文字列）のエンコード/デコード。
+ *
+ * <p>カーソルには直前ページ最終行のソートキー値を並べて入れる（例: {@code [id]}、{@code [totalAmount, id]}）。
+ * 値は長さ付きで連結してから URL セーフな Base64（パディングなし）にするため、値にどの文字が含まれてもよい。
+ * null は長さ {@code -1} で表す。先頭のバージョン番号が異なるカーソルは不正として扱う。
+ */
+public final class PageCursor {
+
+  private static final String VERSION = "1";
+
+  private PageCursor() {}
+
+  /** ソートキー値の並びをカーソル文字列にする。 */
+  public static String encode(List<String> values) {
+    StringBuilder sb = new StringBuilder(VERSION).append(':');
+    for (String value : values) {
+      if (value == null) {
+        sb.append("-1:");
+      } else {
+        sb.append(value.length()).append(':').append(value);
+      }
+    }
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * カーソル文字列をソートキー値の並びに戻す。
+   *
+   * @param cursor {@link #encode(List)} で生成した文字列
+   * @param expectedSize 期待する値の個数
+   * @throws InvalidPageCursorException 形式が不正、または値の個数が異なる場合
+   */
+  public static List<String> decode(String cursor, int expectedSize) {
+    String decoded;
+    try {
+      decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidPageCursorException(cursor);
+    }
+    if (!decoded.startsWith(VERSION + ":")) {
+      throw new InvalidPageCursorException(cursor);
+    }
+
+    List<String> values = new ArrayList<>(expectedSize);
+    int position = VERSION.length() + 1;
+    try {
+      while (position < decoded.length()) {
+        int colon = decoded.indexOf(':', position);
+        int length = Integer.parseInt(decoded.substring(position, colon));
+        position = colon + 1;
+        if (length < 0) {
+          values.add(null);
+          continue;
+        }
+        values.add(decoded.substring(position, position + length));
+        position += length;
+      }
+    } catch (RuntimeException e) {
+      throw new InvalidPageCursorException(cursor);
+    }
+    if (values.size() != expectedSize) {
+      throw new InvalidPageCursorException(cursor);
+    }
+    return values;
+  }
+}
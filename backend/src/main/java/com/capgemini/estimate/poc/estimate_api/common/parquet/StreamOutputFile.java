@@ -0,0 +1,79 @@
+package com.capgemini.estimate.poc.estimate_api.common.parquet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+/**
+ * 任意の {@link OutputStream} を Parquet の {@link OutputFile} として扱うアダプタ。
+ *
+ * <p>Parquet は書き込み位置（フッタに記録するオフセット）さえ分かれば追記のみで書けるため、
+ * HTTP レスポンスや S3 マルチパートアップロードへ直接出力できる。
+ * 下位ストリームのクローズは呼び出し側の責務とし、ここでは flush のみ行う。
+ */
+public class StreamOutputFile implements OutputFile {
+
+  private final OutputStream out;
+
+  public StreamOutputFile(OutputStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public PositionOutputStream create(long blockSizeHint) {
+    return new CountingPositionOutputStream(out);
+  }
+
+  @Override
+  public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+    return create(blockSizeHint);
+  }
+
+  @Override
+  public boolean supportsBlockSize() {
+    return false;
+  }
+
+  @Override
+  public long defaultBlockSize() {
+    return 0;
+  }
+
+  private static final class CountingPositionOutputStream extends PositionOutputStream {
+
+    private final OutputStream out;
+    private long position;
+
+    CountingPositionOutputStream(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      position += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
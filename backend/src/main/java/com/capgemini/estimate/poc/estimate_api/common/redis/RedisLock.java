@@ -0,0 +1,47 @@
+package com.capgemini.estimate.poc.estimate_api.common.redis;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * レプリカ間の排他に使う Redis ロック（{@code SET NX PX}）。
+ *
+ * <p>取得時に払い出したトークンと一致する場合のみ解放するため、TTL 切れ後に他者が取り直したロックを誤って消さない。
+ */
+@Component
+public class RedisLock {
+
+  private static final DefaultRedisScript<Long> UNLOCK_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+
+  public RedisLock(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * ロックの取得を試みる。
+   *
+   * @param key ロックキー
+   * @param ttl ロックの有効期限（保持者が落ちた場合の自動解放まで）
+   * @return 取得できた場合は解放用トークン、既に保持されていれば null
+   */
+  public String tryLock(String key, Duration ttl) {
+    String token = UUID.randomUUID().toString();
+    return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl))
+        ? token
+        : null;
+  }
+
+  /** 自分が保持しているロックを解放する。 */
+  public void unlock(String key, String token) {
+    redisTemplate.execute(UNLOCK_SCRIPT, List.of(key), token);
+  }
+}
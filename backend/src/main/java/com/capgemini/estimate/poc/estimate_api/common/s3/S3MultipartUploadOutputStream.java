@@ -0,0 +1,195 @@
+package com.capgemini.estimate.poc.estimate_api.common.s3;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * S3 へマルチパートアップロードで書き込む {@link OutputStream}。
+ *
+ * <p>書き込まれたデータはパートサイズ分だけバッファし、満杯になるたびに UploadPart を発行する。
+ * そのため保持するメモリはパート 1 つ分に限られ、オブジェクト全体をヒープに載せることはない。
+ * 1 パートに満たないまま {@link #close()} された場合は通常の PutObject で送信する。
+ *
+ * <p>書き込み途中で失敗した場合は {@link #abort()} を呼び出し、未完了のアップロードを破棄すること（{@link #close()}
+ * 自体の失敗時は close の中で破棄する）。
+ */
+public class S3MultipartUploadOutputStream extends OutputStream {
+
+  /** S3 のマルチパートで許可される最小パートサイズ（最終パートを除く） */
+  public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+  private final S3Client s3Client;
+  private final String bucket;
+  private final String key;
+  private final String contentType;
+  private final byte[] buffer;
+  private final List<CompletedPart> parts = new ArrayList<>();
+
+  private int position;
+  private String uploadId;
+  /** 書き込みを受け付けない（close / abort 済み） */
+  private boolean closed;
+  /** アップロードを完了または破棄した */
+  private boolean finished;
+
+  /**
+   * @param s3Client S3 クライアント
+   * @param bucket 出力先バケット
+   * @param key 出力先オブジェクトキー
+   * @param contentType オブジェクトの Content-Type
+   * @param partSize パートサイズ（バイト）。{@link #MIN_PART_SIZE} 未満は不可
+   */
+  public S3MultipartUploadOutputStream(
+      S3Client s3Client, String bucket, String key, String contentType, int partSize) {
+    if (partSize < MIN_PART_SIZE) {
+      throw new IllegalArgumentException("パートサイズは 5MiB 以上で指定してください。");
+    }
+    this.s3Client = s3Client;
+    this.bucket = bucket;
+    this.key = key;
+    this.contentType = contentType;
+    this.buffer = new byte[partSize];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (position == buffer.length) {
+      flushPart();
+    }
+    buffer[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      if (position == buffer.length) {
+        flushPart();
+      }
+      int n = Math.min(len, buffer.length - position);
+      System.arraycopy(b, off, buffer, position, n);
+      position += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * 書き込みを確定し、アップロードを完了させる。
+   *
+   * <p>残りのパートの送信や完了に失敗した場合は、マルチパートアップロードを破棄してから例外を投げる（バケットに未完了の
+   * アップロードを残さない）。
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    if (uploadId == null) {
+      s3Client.putObject(
+          PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(),
+          currentPart());
+      finished = true;
+      return;
+    }
+
+    try {
+      if (position > 0) {
+        uploadPart();
+      }
+      s3Client.completeMultipartUpload(
+          CompleteMultipartUploadRequest.builder()
+              .bucket(bucket)
+              .key(key)
+              .uploadId(uploadId)
+              .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+              .build());
+    } catch (RuntimeException e) {
+      try {
+        abort();
+      } catch (RuntimeException abortFailure) {
+        e.addSuppressed(abortFailure);
+      }
+      throw e;
+    }
+    finished = true;
+  }
+
+  /** 未完了のマルチパートアップロードを破棄する。完了済み・破棄済み・未開始の場合は何もしない。 */
+  public void abort() {
+    closed = true;
+    if (finished) {
+      return;
+    }
+    finished = true;
+
+    if (uploadId != null) {
+      s3Client.abortMultipartUpload(
+          AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+    }
+  }
+
+  /** 送信済みのバイト数（バッファ中の未送信分を含む）。 */
+  public long getBytesWritten() {
+    return (long) parts.size() * buffer.length + position;
+  }
+
+  private void flushPart() {
+    if (uploadId == null) {
+      uploadId =
+          s3Client
+              .createMultipartUpload(
+                  CreateMultipartUploadRequest.builder()
+                      .bucket(bucket)
+                      .key(key)
+                      .contentType(contentType)
+                      .build())
+              .uploadId();
+    }
+    uploadPart();
+  }
+
+  private void uploadPart() {
+    int partNumber = parts.size() + 1;
+    String eTag =
+        s3Client
+            .uploadPart(
+                UploadPartRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) position)
+                    .build(),
+                currentPart())
+            .eTag();
+    parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+    position = 0;
+  }
+
+  /** バッファ中のデータをコピーせずに送信用ボディとして包む（送信完了までバッファは再利用しない）。 */
+  private RequestBody currentPart() {
+    return RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, position), position);
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("ストリームは既にクローズされています。");
+    }
+  }
+}
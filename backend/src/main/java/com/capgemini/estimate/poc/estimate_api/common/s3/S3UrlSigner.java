@@ -4,13 +4,20 @@ import java.net.URL;
 import java.time.Duration;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 /**
  * Amazon S3 向けの署名付きURLを生成する共通コンポーネント。
  *
  * <p>呼び出し時に必ず {@link PresignedUrlOptions} でバケット名と有効期限を指定します。
+ *
+ * <p>アップロード用（PUT / マルチパートの UploadPart）の URL も生成できます。マルチパートアップロードの開始・完了は
+ * アップロード ID とパート一覧をサーバ側で管理するため、署名 URL ではなく S3Client で行います。
  */
 @Component
 public class S3UrlSigner {
@@ -48,4 +55,60 @@ public class S3UrlSigner {
 
     return presigner.presignGetObject(presign).url();
   }
+
+  /**
+   * 指定されたバケットとオブジェクトキーに対する S3 の署名付き PUT URL を生成する。
+   *
+   * <p>クライアントは同じ {@code Content-Type} ヘッダを付けて PUT する必要があります。
+   *
+   * @param objectKey アップロード先のオブジェクトキー
+   * @param contentType アップロードするファイルの Content-Type（null の場合は署名に含めない）
+   * @param options バケット名と有効期限（分）を含むオプション
+   * @return 生成された署名付き URL
+   */
+  public URL generatePresignedPutUrl(
+      String objectKey, String contentType, PresignedUrlOptions options) {
+    PutObjectRequest put =
+        PutObjectRequest.builder()
+            .bucket(options.bucket())
+            .key(objectKey)
+            .contentType(contentType)
+            .build();
+
+    PutObjectPresignRequest presign =
+        PutObjectPresignRequest.builder()
+            .signatureDuration(Duration.ofMinutes(options.expiryMinutes()))
+            .putObjectRequest(put)
+            .build();
+
+    return presigner.presignPutObject(presign).url();
+  }
+
+  /**
+   * マルチパートアップロードの 1 パート分の署名付き PUT URL（UploadPart）を生成する。
+   *
+   * @param objectKey アップロード先のオブジェクトキー
+   * @param uploadId CreateMultipartUpload で払い出されたアップロード ID
+   * @param partNumber パート番号（1〜10000）
+   * @param options バケット名と有効期限（分）を含むオプション
+   * @return 生成された署名付き URL。レスポンスの ETag ヘッダを CompleteMultipartUpload で使用する
+   */
+  public URL generatePresignedUploadPartUrl(
+      String objectKey, String uploadId, int partNumber, PresignedUrlOptions options) {
+    UploadPartRequest part =
+        UploadPartRequest.builder()
+            .bucket(options.bucket())
+            .key(objectKey)
+            .uploadId(uploadId)
+            .partNumber(partNumber)
+            .build();
+
+    UploadPartPresignRequest presign =
+        UploadPartPresignRequest.builder()
+            .signatureDuration(Duration.ofMinutes(options.expiryMinutes()))
+            .uploadPartRequest(part)
+            .build();
+
+    return presigner.presignUploadPart(presign).url();
+  }
 }
@@ -0,0 +1,49 @@
+package com.capgemini.estimate.poc.estimate_api.common.search;
+
+import java.text.Normalizer;
+
+/**
+ * 検索用の文字列正規化。
+ *
+ * <ul>
+ *   <li>NFKC（全角英数字・半角カナ等の幅の違いを吸収）
+ *   <li>英字の小文字化
+ *   <li>カタカナをひらがなに寄せる（「サーバ」と「さーば」を同一視）
+ *   <li>空白の連続を 1 つの半角空白にまとめ、前後の空白を除く
+ * </ul>
+ */
+public final class JapaneseTextNormalizer {
+
+  private static final char KATAKANA_FIRST = 'ァ';
+  private static final char KATAKANA_LAST = 'ヶ';
+  private static final int KATAKANA_TO_HIRAGANA = 0x60;
+
+  private JapaneseTextNormalizer() {}
+
+  /** 正規化した文字列を返す（null は空文字列）。 */
+  public static String normalize(String text) {
+    if (text == null || text.isEmpty()) {
+      return "";
+    }
+    String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC);
+    StringBuilder sb = new StringBuilder(nfkc.length());
+    boolean pendingSpace = false;
+    for (int i = 0; i < nfkc.length(); i++) {
+      char c = nfkc.charAt(i);
+      if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+        pendingSpace = sb.length() > 0;
+        continue;
+      }
+      if (pendingSpace) {
+        sb.append(' ');
+        pendingSpace = false;
+      }
+      if (c >= KATAKANA_FIRST && c <= KATAKANA_LAST) {
+        sb.append((char) (c - KATAKANA_TO_HIRAGANA));
+      } else {
+        sb.append(Character.toLowerCase(c));
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,45 @@
+package com.capgemini.estimate.poc.estimate_api.common.search;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 文字 2-gram への分割。
+ *
+ * <p>{@link JapaneseTextNormalizer} で正規化済みの文字列を空白で語に分け、語ごとに隣り合う 2 文字（コードポイント単位）を
+ * 取り出す。1 文字の語はその 1 文字をトークンとする。語をまたぐ 2-gram は作らない。
+ */
+public final class NgramTokenizer {
+
+  private NgramTokenizer() {}
+
+  /** 重複を除いたトークン（出現順）。 */
+  public static Set<String> tokens(String normalized) {
+    Set<String> tokens = new LinkedHashSet<>();
+    for (String word : normalized.split(" ")) {
+      addTokens(word, tokens);
+    }
+    return tokens;
+  }
+
+  /** 1 語のトークン。 */
+  public static Set<String> wordTokens(String word) {
+    Set<String> tokens = new LinkedHashSet<>();
+    addTokens(word, tokens);
+    return tokens;
+  }
+
+  private static void addTokens(String word, Set<String> tokens) {
+    if (word.isEmpty()) {
+      return;
+    }
+    int[] codePoints = word.codePoints().toArray();
+    if (codePoints.length == 1) {
+      tokens.add(word);
+      return;
+    }
+    for (int i = 0; i + 1 < codePoints.length; i++) {
+      tokens.add(new String(codePoints, i, 2));
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.capgemini.estimate.poc.estimate_api.common.search;
+
+import java.util.Arrays;
+
+/**
+ * 昇順の文書番号の列を、差分 + 可変長整数（7 ビットずつ、上位ビットが継続フラグ）で詰めて保持する。
+ *
+ * <p>番号が密な列では 1 件あたり 1 バイト程度になる。追加は末尾のみ（直前より大きい番号）。スレッドセーフではない。
+ */
+public final class PostingList {
+
+  private byte[] bytes = new byte[4];
+  private int length;
+  private int size;
+  private int last = -1;
+
+  /** 末尾に追加する。 */
+  public void add(int docId) {
+    if (docId <= last) {
+      throw new IllegalArgumentException("docId must be increasing: " + docId + " <= " + last);
+    }
+    int delta = docId - last;
+    last = docId;
+    size++;
+    if (length + 5 > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+    }
+    while ((delta & ~0x7F) != 0) {
+      bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+      delta >>>= 7;
+    }
+    bytes[length++] = (byte) delta;
+  }
+
+  /** 件数。 */
+  public int size() {
+    return size;
+  }
+
+  /** 符号化後のバイト数。 */
+  public int byteSize() {
+    return length;
+  }
+
+  /** 文書番号を昇順で返す。 */
+  public int[] toArray() {
+    int[] result = new int[size];
+    int pos = 0;
+    int value = -1;
+    for (int i = 0; i < size; i++) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[pos++];
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      value += delta;
+      result[i] = value;
+    }
+    return result;
+  }
+
+  /** 昇順の 2 つの列の共通部分。 */
+  public static int[] intersect(int[] a, int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        result[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, n);
+  }
+
+  /** 昇順の 2 つの列の和（重複なし）。 */
+  public static int[] union(int[] a, int[] b) {
+    int[] result = new int[a.length + b.length];
+    int n = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length || j < b.length) {
+      if (j >= b.length || (i < a.length && a[i] < b[j])) {
+        result[n++] = a[i++];
+      } else if (i >= a.length || b[j] < a[i]) {
+        result[n++] = b[j++];
+      } else {
+        result[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, n);
+  }
+}
@@ -0,0 +1,173 @@
+package com.capgemini.estimate.poc.estimate_api.common.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 重いエクスポート・インポート系エンドポイントの同時実行数を制限するバルクヘッド（Pod 単位）。
+ * <p>
+ * - 同時実行枠: {@code app.export.bulkhead.max-concurrent}
+ * - 枠が空くまでの待機: 最大 {@code max-queue} 件まで、各 {@code max-wait} だけ待つ
+ * - 待機列が満杯、または待機がタイムアウトした場合は 429 + {@code Retry-After} を即時に返す
+ * - StreamingResponseBody 等の非同期処理では、非同期処理の完了（完了/エラー/タイムアウト）時に枠を返却する
+ * <p>
+ * エクスポートが Tomcat スレッドと Hikari コネクションを食い潰さないようにし、通常の CRUD の遅延を安定させる。
+ * 使用中の枠数・待機数・拒否数は Micrometer の {@code export.bulkhead.*} として公開する。
+ */
+@Component
+public class ExportBulkheadFilter extends OncePerRequestFilter {
+
+  private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+  private final List<String> paths;
+  private final int maxConcurrent;
+  private final int maxQueue;
+  private final Duration maxWait;
+  private final long retryAfterSeconds;
+
+  private final Semaphore permits;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final Counter rejected;
+
+  public ExportBulkheadFilter(
+      MeterRegistry meterRegistry,
+      @Value("${app.export.bulkhead.paths:/api/estimates/download,/api/estimates/download/**,/api/estimates/export.*,/api/estimates/exports/parquet,/api/estimates/import}")
+          List<String> paths,
+      @Value("${app.export.bulkhead.max-concurrent:2}") int maxConcurrent,
+      @Value("${app.export.bulkhead.max-queue:4}") int maxQueue,
+      @Value("${app.export.bulkhead.max-wait:PT2S}") Duration maxWait,
+      @Value("${app.export.bulkhead.retry-after-seconds:10}") long retryAfterSeconds) {
+    this.paths = paths;
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueue = maxQueue;
+    this.maxWait = maxWait;
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.permits = new Semaphore(maxConcurrent, true);
+
+    Gauge.builder("export.bulkhead.permits.in.use", permits, p -> maxConcurrent - p.availablePermits())
+        .description("使用中のエクスポート実行枠")
+        .register(meterRegistry);
+    Gauge.builder("export.bulkhead.queue.depth", waiting, AtomicInteger::get)
+        .description("実行枠の空き待ちをしているリクエスト数")
+        .register(meterRegistry);
+    this.rejected =
+        Counter.builder("export.bulkhead.rejected")
+            .description("429 で拒否したリクエスト数")
+            .register(meterRegistry);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return paths.stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path));
+  }
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!acquire()) {
+      reject(response);
+      return;
+    }
+
+    AtomicBoolean released = new AtomicBoolean();
+    Runnable release =
+        () -> {
+          if (released.compareAndSet(false, true)) {
+            permits.release();
+          }
+        };
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new ReleasingListener(release));
+      } else {
+        release.run();
+      }
+    }
+  }
+
+  private boolean acquire() {
+    if (permits.tryAcquire()) {
+      return true;
+    }
+    if (waiting.incrementAndGet() > maxQueue) {
+      waiting.decrementAndGet();
+      return false;
+    }
+    try {
+      return permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private void reject(HttpServletResponse response) throws IOException {
+    rejected.increment();
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+    response.setCharacterEncoding("UTF-8");
+    response
+        .getWriter()
+        .write(
+            "{\"type\":\"/problem/export-busy\",\"title\":\"エクスポートが混み合っています。\",\"status\":429,"
+                + "\"detail\":\"Retry after "
+                + retryAfterSeconds
+                + " seconds.\"}");
+  }
+
+  /** 非同期処理の終了時に実行枠を返却するリスナ。 */
+  private record ReleasingListener(Runnable release) implements AsyncListener {
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release.run();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release.run();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release.run();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // 再度 startAsync された場合も同じリスナで終了を待つ
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.capgemini.estimate.poc.estimate_api.common.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * ローカルファイルを HTTP レスポンスとして送出する共通コンポーネント。
+ *
+ * <p>対応する条件付き/部分リクエスト:
+ * <ul>
+ *   <li>{@code If-None-Match}: ETag 一致で 304</li>
+ *   <li>{@code Range}（単一範囲のみ）: 206 + {@code Content-Range}。範囲外は 416。複数範囲は全体を 200 で返す</li>
+ *   <li>{@code If-Range}: ETag 不一致なら Range を無視して全体を返す</li>
+ * </ul>
+ *
+ * <p>本文は Tomcat の sendfile が使える場合はそれに委ね（カーネル内でコピーされ JVM を経由しない）、
+ * 使えない場合（TLS 終端など）は {@link FileChannel#transferTo} でレスポンスへ転送する。
+ */
+@Component
+public class FileRangeResponder {
+
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  /**
+   * ファイルを送出する。
+   *
+   * @param request リクエスト
+   * @param response レスポンス
+   * @param file 送出するファイル
+   * @param eTag 強い ETag（引用符込み）
+   * @param contentType Content-Type
+   * @param downloadFileName Content-Disposition のファイル名
+   */
+  public void send(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Path file,
+      String eTag,
+      String contentType,
+      String downloadFileName)
+      throws IOException {
+    long length = Files.size(file);
+
+    response.setHeader(HttpHeaders.ETAG, eTag);
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+    if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+      return;
+    }
+
+    response.setContentType(contentType);
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + downloadFileName);
+
+    long start = 0;
+    long end = length - 1;
+    String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (rangeHeader != null && (ifRange == null || ifRange.equals(eTag))) {
+      List<HttpRange> ranges;
+      try {
+        ranges = HttpRange.parseRanges(rangeHeader);
+      } catch (IllegalArgumentException e) {
+        ranges = List.of();
+      }
+      if (ranges.size() == 1) {
+        HttpRange range = ranges.get(0);
+        try {
+          start = range.getRangeStart(length);
+          end = range.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+          response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+          response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+          return;
+        }
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+      }
+    }
+
+    long count = end - start + 1;
+    response.setContentLengthLong(count);
+
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, end + 1);
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+      long position = start;
+      long remaining = count;
+      while (remaining > 0) {
+        long transferred = channel.transferTo(position, remaining, target);
+        position += transferred;
+        remaining -= transferred;
+      }
+    }
+  }
+
+  private boolean matches(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String value = candidate.trim();
+      if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
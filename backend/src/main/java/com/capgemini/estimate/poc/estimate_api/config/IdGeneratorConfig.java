@@ -0,0 +1,24 @@
+package com.capgemini.estimate.poc.estimate_api.config;
+
+import com.capgemini.estimate.poc.estimate_api.common.id.IdGenerator;
+import com.capgemini.estimate.poc.estimate_api.common.id.RandomUuidGenerator;
+import com.capgemini.estimate.poc.estimate_api.common.id.UuidV7Generator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 主キーの採番方式。{@code app.id.generator} に {@code uuidv7}（既定、時刻順）または {@code random}（UUID v4）を指定する。
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+  @Bean
+  public IdGenerator idGenerator(@Value("${app.id.generator:uuidv7}") String generator) {
+    return switch (generator) {
+      case "uuidv7" -> new UuidV7Generator();
+      case "random" -> new RandomUuidGenerator();
+      default -> throw new IllegalStateException("unknown app.id.generator: " + generator);
+    };
+  }
+}
@@ -0,0 +1,21 @@
+package com.capgemini.estimate.poc.estimate_api.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * アプリ共通の ObjectMapper の設定クラス。
+ *
+ * <p>{@code @JsonFilter} の付いたクラス（{@code Estimate}）は、レスポンスでフィルタを指定しない限り全項目を書き出す
+ * （キャッシュ・イベントなど、レスポンス以外での直列化も同じ）。
+ */
+@Configuration
+public class JacksonConfig {
+
+  @Bean
+  public Jackson2ObjectMapperBuilderCustomizer lenientFilterProvider() {
+    return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+  }
+}
@@ -0,0 +1,66 @@
+package com.capgemini.estimate.poc.estimate_api.config;
+
+import com.capgemini.estimate.poc.estimate_api.auth.CookieUtil;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.datasource.ReadWriteRoutingDataSource;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.datasource.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * primary とリードレプリカの 2 つのコネクションプールを作り、{@link ReadWriteRoutingDataSource} で振り分ける設定クラス。
+ *
+ * <p>{@code app.datasource.replica.enabled=true} の場合のみ有効。無効の場合は Spring Boot の既定どおり
+ * {@code spring.datasource} の 1 プールですべてを処理する。primary は {@code spring.datasource(.hikari)}、レプリカは
+ * {@code app.datasource.replica}（Hikari のプロパティ名）で設定する。プールごとのメトリクスは {@code hikaricp.*}
+ * （pool=primary / replica）として公開される。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("app.datasource.replica")
+  public HikariDataSource replicaDataSource() {
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  /** Doma とトランザクションマネージャが使う DataSource。 */
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      MeterRegistry meterRegistry) {
+    return new ReadWriteRoutingDataSource(primary, replica, meterRegistry).lazy();
+  }
+
+  /** 書き込み後 {@code app.datasource.read-your-writes-window} の間、同じクライアントの読み取りを primary へ送る。 */
+  @Bean
+  public ReadYourWritesFilter readYourWritesFilter(
+      @Value("${app.datasource.read-your-writes-window:PT5S}") Duration window,
+      CookieUtil cookieUtil) {
+    return new ReadYourWritesFilter(window, cookieUtil);
+  }
+}
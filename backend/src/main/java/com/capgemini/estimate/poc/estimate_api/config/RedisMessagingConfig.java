@@ -0,0 +1,36 @@
+package com.capgemini.estimate.poc.estimate_api.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Redis Pub/Sub の購読コンテナを提供する設定クラス。
+ *
+ * <p>レプリカ間の通知（キャッシュ無効化など）に使用する。購読するチャネルは各コンポーネントが
+ * {@link RedisMessageListenerContainer#addMessageListener} で登録する。
+ *
+ * <p>受信したメッセージは 1 スレッドで順に受け手へ渡す（既定ではメッセージごとに別スレッドとなり、変更通知の順序が
+ * 入れ替わるため）。このスレッドはすべてのチャネルで共有するため、受け手はメッセージを自分専用の executor に渡すだけにし、
+ * 処理はそちらで行うこと（例: 変更の配信が遅れても、キャッシュの無効化を待たせない）。
+ */
+@Configuration
+public class RedisMessagingConfig {
+
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory connectionFactory) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(1);
+    executor.setMaxPoolSize(1);
+    executor.setDaemon(true);
+    executor.setThreadNamePrefix("redis-subscriber-");
+    executor.initialize();
+    container.setTaskExecutor(executor);
+    return container;
+  }
+}
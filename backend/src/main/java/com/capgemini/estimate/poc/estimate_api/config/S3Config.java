@@ -1,5 +1,7 @@
 package com.capgemini.estimate.poc.estimate_api.config;
 
+import java.net.URI;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,17 +9,25 @@ import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 /**
  * S3アクセスに必要なクライアントを提供する設定クラス。
  * Presigner は署名付きURLの生成に使用します。
+ *
+ * <p>{@code app.s3.endpoint} を指定した場合は、そのエンドポイント（MinIO / LocalStack 等のローカル代替）へ
+ * パススタイルで接続します。未指定時は AWS の S3 を使用します。
  */
 @Configuration
 public class S3Config {
 
     private static final Region REGION = Region.AP_NORTHEAST_1;
 
+    /** ローカル代替 S3 のエンドポイント（空なら AWS） */
+    @Value("${app.s3.endpoint:}")
+    private String endpoint;
+
     /** 資格情報プロバイダ（共通） */
     @Bean
     public AwsCredentialsProvider awsCredentialsProvider() {
@@ -28,19 +38,30 @@ public class S3Config {
     @Bean
     @ConditionalOnMissingBean(S3Client.class)
     public S3Client s3Client(AwsCredentialsProvider credentialsProvider) {
-        return S3Client.builder()
+        var builder = S3Client.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(REGION)
-                .build();
+                .region(REGION);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint)).serviceConfiguration(pathStyle());
+        }
+        return builder.build();
     }
 
     /** 署名URL生成専用のS3Presigner Bean定義 */
     @Bean
     @ConditionalOnMissingBean(S3Presigner.class)
     public S3Presigner s3Presigner(AwsCredentialsProvider credentialsProvider) {
-        return S3Presigner.builder()
+        var builder = S3Presigner.builder()
                 .credentialsProvider(credentialsProvider)
-                .region(REGION)
-                .build();
+                .region(REGION);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint)).serviceConfiguration(pathStyle());
+        }
+        return builder.build();
+    }
+
+    /** ローカル代替 S3 はバーチャルホスト形式に対応しないため、パススタイルを強制する */
+    private S3Configuration pathStyle() {
+        return S3Configuration.builder().pathStyleAccessEnabled(true).build();
     }
 }
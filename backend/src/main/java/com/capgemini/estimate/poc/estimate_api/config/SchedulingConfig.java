@@ -0,0 +1,13 @@
+package com.capgemini.estimate.poc.estimate_api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * {@code @Scheduled} による定期ジョブを有効化する設定クラス。
+ *
+ * <p>ジョブは全レプリカで起動されるため、1 回だけ実行したい処理は各ジョブ側で Redis ロックを取得すること。
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
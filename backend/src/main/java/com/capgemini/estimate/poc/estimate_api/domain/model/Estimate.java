@@ -1,13 +1,50 @@
 package com.capgemini.estimate.poc.estimate_api.domain.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.seasar.doma.Column;
 import org.seasar.doma.Entity;
 import org.seasar.doma.Id;
 import org.seasar.doma.Metamodel;
+import org.seasar.doma.Transient;
+import org.seasar.doma.Version;
 
+/** 見積。JSON は {@code fields=} の指定があればその項目だけを書き出す（{@link EstimateField}）。 */
 @Entity(metamodel = @Metamodel())
+@JsonFilter(EstimateField.FILTER_ID)
 public class Estimate {
   @Id public String id;
   public String title;
   public String customerName;
+  /** 合計金額。明細がある見積では明細の金額の合計（明細の変更時に差分で更新する） */
   public Integer totalAmount;
+  /** 最終更新日時（リポジトリが insert/update 時に設定する） */
+  public LocalDateTime updatedAt;
+  /** 楽観ロック用のバージョン（登録時 1、更新のたびに 1 増える。ETag に使用する） */
+  @Version public Long version;
+  /** 変更番号（差分同期の順序。DB のシーケンスからリポジトリがコミット直前に振るため、insert/update の対象にしない） */
+  @Column(insertable = false, updatable = false)
+  @JsonIgnore
+  public Long changeSeq;
+  /** 明細（明細付きで読み込んだ場合のみ設定する） */
+  @Transient
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public List<EstimateItem> items;
+
+  /** 全項目を複写する（キャッシュやイベントに渡した値が呼び出し元の変更を受けないようにする）。 */
+  public Estimate copy() {
+    Estimate copy = new Estimate();
+    copy.id = id;
+    copy.title = title;
+    copy.customerName = customerName;
+    copy.totalAmount = totalAmount;
+    copy.updatedAt = updatedAt;
+    copy.version = version;
+    copy.changeSeq = changeSeq;
+    copy.items = items == null ? null : List.copyOf(items);
+    return copy;
+  }
 }
@@ -0,0 +1,34 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * 一括処理の 1 操作。
+ *
+ * @param op 操作種別
+ * @param id 対象の見積ID（UPDATE / DELETE で必須。CREATE では無視して採番する）
+ * @param title タイトル（CREATE / UPDATE で必須）
+ * @param customerName 顧客名
+ * @param totalAmount 合計金額
+ * @param version 期待するバージョン（UPDATE / DELETE。null なら現在のバージョンを対象にする）
+ */
+public record EstimateBatchOperation(
+    Op op, String id, String title, String customerName, Integer totalAmount, Long version) {
+
+  public enum Op {
+    CREATE,
+    UPDATE,
+    DELETE
+  }
+
+  /** 見積に変換する（CREATE の場合 id とバージョンは設定しない）。 */
+  public Estimate toEstimate() {
+    Estimate estimate = new Estimate();
+    if (op != Op.CREATE) {
+      estimate.id = id;
+      estimate.version = version;
+    }
+    estimate.title = title;
+    estimate.customerName = customerName;
+    estimate.totalAmount = totalAmount;
+    return estimate;
+  }
+}
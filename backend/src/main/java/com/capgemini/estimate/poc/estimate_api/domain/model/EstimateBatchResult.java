@@ -0,0 +1,41 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * 一括処理の結果。
+ *
+ * @param committed 書き込みを確定したか（検証エラーがある場合は何も書き込まず false）
+ * @param items 操作ごとの結果（リクエストと同じ順序）
+ */
+public record EstimateBatchResult(boolean committed, List<Item> items) {
+
+  public enum Status {
+    /** 反映した */
+    OK,
+    /** UPDATE / DELETE の対象が存在しなかった */
+    NOT_FOUND,
+    /** UPDATE / DELETE の対象のバージョンが指定と異なっていた */
+    CONFLICT,
+    /** 入力が不正なため実行しなかった */
+    INVALID,
+    /** 他の操作の検証エラーにより実行しなかった */
+    SKIPPED
+  }
+
+  /**
+   * @param index リクエスト内の位置（0 始まり）
+   * @param op 操作種別
+   * @param id 対象の見積ID（CREATE は採番した id）
+   * @param status 結果
+   * @param version 反映後のバージョン（CREATE / UPDATE が OK の場合のみ）
+   * @param message エラー内容（INVALID の場合のみ）
+   */
+  public record Item(
+      int index,
+      EstimateBatchOperation.Op op,
+      String id,
+      Status status,
+      Long version,
+      String message) {}
+}
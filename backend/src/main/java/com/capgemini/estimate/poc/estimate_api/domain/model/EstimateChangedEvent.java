@@ -0,0 +1,38 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * 見積の書き込みを通知するイベント（{@code EstimateRepositoryImpl} が書き込みのたびに発行する）。
+ *
+ * <p>受け手は {@code @TransactionalEventListener} でコミット後に処理する（ロールバックした書き込みは届かない）。
+ * トランザクション外の書き込みでは {@code fallbackExecution = true} の受け手に即時に届く。
+ *
+ * @param type 書き込みの種類（1 つのイベントに含まれる見積はすべて同じ種類）
+ * @param saved 登録・更新後の見積（複製。受け手ごとに書き換えないこと）
+ * @param deletedIds 削除した見積の id
+ */
+public record EstimateChangedEvent(Type type, List<Estimate> saved, List<String> deletedIds) {
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  public static EstimateChangedEvent created(List<Estimate> estimates) {
+    return new EstimateChangedEvent(Type.CREATED, copies(estimates), List.of());
+  }
+
+  public static EstimateChangedEvent updated(List<Estimate> estimates) {
+    return new EstimateChangedEvent(Type.UPDATED, copies(estimates), List.of());
+  }
+
+  public static EstimateChangedEvent deleted(List<String> ids) {
+    return new EstimateChangedEvent(Type.DELETED, List.of(), List.copyOf(ids));
+  }
+
+  private static List<Estimate> copies(List<Estimate> estimates) {
+    return estimates.stream().map(Estimate::copy).toList();
+  }
+}
@@ -0,0 +1,22 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * 差分同期の結果（GET /api/estimates/changes）。
+ *
+ * <p>登録・更新された見積と削除された見積を、変更番号（DB のシーケンス）の順に最大 limit 件返す。1 回のレスポンスには
+ * 同じ id を 1 回だけ（後の変更のみ）含め、直前の同期と重なる行は返さないため、クライアントはそのまま適用すればよい。
+ *
+ * @param estimates 登録・更新された見積
+ * @param deleted 削除された見積
+ * @param next 次回の {@code since}
+ * @param hasMore true なら続きがある（{@code next} ですぐに続きを取得する）
+ * @param reset true なら {@code since} が古すぎて差分を返せない（{@code since} なしで全件を取り直す）
+ */
+public record EstimateChanges(
+    List<Estimate> estimates,
+    List<EstimateTombstone> deleted,
+    String next,
+    boolean hasMore,
+    boolean reset) {}
@@ -0,0 +1,73 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidFieldsException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * {@code fields=} で指定できる見積の項目（JSON の項目名で指定する）。
+ *
+ * <p>指定された項目だけを DB から読み（id は常に含む）、JSON にもそれだけを書き出す。
+ */
+public enum EstimateField {
+  ID("id"),
+  TITLE("title"),
+  CUSTOMER_NAME("customerName"),
+  TOTAL_AMOUNT("totalAmount"),
+  UPDATED_AT("updatedAt"),
+  VERSION("version");
+
+  /** {@link Estimate} の {@code @JsonFilter} の id */
+  public static final String FILTER_ID = "estimateFields";
+
+  private final String jsonName;
+
+  EstimateField(String jsonName) {
+    this.jsonName = jsonName;
+  }
+
+  public String jsonName() {
+    return jsonName;
+  }
+
+  /**
+   * {@code fields=} の値（カンマ区切り）を解釈する。
+   *
+   * @return 指定された項目。未指定・空なら null（全項目）
+   * @throws InvalidFieldsException 知らない項目名を含む場合
+   */
+  public static Set<EstimateField> parse(String fields) {
+    if (fields == null || fields.isBlank()) {
+      return null;
+    }
+    Set<EstimateField> result = EnumSet.noneOf(EstimateField.class);
+    for (String name : fields.split(",")) {
+      String trimmed = name.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      result.add(ofJsonName(trimmed));
+    }
+    return result.isEmpty() ? null : result;
+  }
+
+  private static EstimateField ofJsonName(String name) {
+    for (EstimateField field : values()) {
+      if (field.jsonName.equals(name)) {
+        return field;
+      }
+    }
+    throw new InvalidFieldsException(name);
+  }
+
+  /** ソート列に対応する項目（キーセットページングのカーソルに必要）。 */
+  public static EstimateField of(EstimateSortKey sort) {
+    return switch (sort) {
+      case ID -> ID;
+      case TITLE -> TITLE;
+      case CUSTOMER_NAME -> CUSTOMER_NAME;
+      case TOTAL_AMOUNT -> TOTAL_AMOUNT;
+      case UPDATED_AT -> UPDATED_AT;
+    };
+  }
+}
@@ -0,0 +1,32 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * 見積一覧の絞り込み条件。null の項目は条件に含めない。
+ *
+ * @param customerNamePrefix 顧客名の前方一致
+ * @param titleKeyword タイトルの部分一致
+ * @param minTotalAmount 合計金額の下限（以上）
+ * @param maxTotalAmount 合計金額の上限（以下）
+ */
+public record EstimateFilter(
+    String customerNamePrefix, String titleKeyword, Integer minTotalAmount, Integer maxTotalAmount) {
+
+  /** 条件なし */
+  public static final EstimateFilter NONE = new EstimateFilter(null, null, null, null);
+
+  public EstimateFilter {
+    customerNamePrefix = blankToNull(customerNamePrefix);
+    titleKeyword = blankToNull(titleKeyword);
+  }
+
+  public boolean isEmpty() {
+    return customerNamePrefix == null
+        && titleKeyword == null
+        && minTotalAmount == null
+        && maxTotalAmount == null;
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+}
@@ -0,0 +1,25 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * 見積インポートの結果。
+ *
+ * @param totalRows 読み込んだデータ行数（ヘッダ・空行を除く）
+ * @param imported 登録・更新した行数
+ * @param failed 検証エラー・書き込みの失敗で取り込まなかった行数
+ * @param errors 行ごとのエラー（先頭から最大 {@code app.import.max-errors} 件）
+ * @param errorsTruncated エラーが上限を超えて省略された場合 true
+ */
+public record EstimateImportResult(
+    long totalRows, long imported, long failed, List<RowError> errors, boolean errorsTruncated) {
+
+  /**
+   * 1 行分のエラー（検証エラー、または行を含むバッチの書き込みの失敗）。
+   *
+   * @param sheet シート名（CSV の場合は null）
+   * @param row 行番号（1 始まり、ヘッダ行を含めて数える）
+   * @param message エラー内容
+   */
+  public record RowError(String sheet, long row, String message) {}
+}
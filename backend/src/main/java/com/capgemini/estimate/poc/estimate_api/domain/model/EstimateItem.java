@@ -0,0 +1,22 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+import org.seasar.doma.Metamodel;
+import org.seasar.doma.Version;
+
+/** 見積の明細行。 */
+@Entity(metamodel = @Metamodel())
+public class EstimateItem {
+  @Id public String id;
+  public String estimateId;
+  /** 表示順 */
+  public Integer lineNo;
+  public String description;
+  public Integer quantity;
+  public Integer unitPrice;
+  /** 金額（quantity × unitPrice。リポジトリが設定する） */
+  public Integer amount;
+  /** 楽観ロック用のバージョン */
+  @Version public Long version;
+}
@@ -0,0 +1,24 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * 明細の変更（PATCH /api/estimates/{id}/items）。1 トランザクションで反映する。
+ *
+ * @param add 追加する明細（id は採番する）
+ * @param update 更新する明細（id 必須。version があればそのバージョンの場合のみ更新する）
+ * @param delete 削除する明細（id 必須。version は update と同じ）
+ */
+public record EstimateItemChanges(
+    List<EstimateItem> add, List<EstimateItem> update, List<EstimateItem> delete) {
+
+  public EstimateItemChanges {
+    add = add == null ? List.of() : add;
+    update = update == null ? List.of() : update;
+    delete = delete == null ? List.of() : delete;
+  }
+
+  public boolean isEmpty() {
+    return add.isEmpty() && update.isEmpty() && delete.isEmpty();
+  }
+}
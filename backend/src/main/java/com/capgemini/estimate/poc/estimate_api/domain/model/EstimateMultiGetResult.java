@@ -0,0 +1,11 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * id を指定した一括取得の結果。
+ *
+ * @param items 見つかった見積（指定した id の順。重複した id は 1 件にまとめる）
+ * @param missing 見つからなかった id（指定した順）
+ */
+public record EstimateMultiGetResult(List<Estimate> items, List<String> missing) {}
@@ -0,0 +1,12 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * 見積一覧の 1 ページ。
+ *
+ * @param items ページ内の見積
+ * @param next 次ページのカーソル（最終ページは null）
+ * @param total 総件数（要求された場合のみ。データバージョン単位のキャッシュ値）
+ */
+public record EstimatePage(List<Estimate> items, String next, Long total) {}
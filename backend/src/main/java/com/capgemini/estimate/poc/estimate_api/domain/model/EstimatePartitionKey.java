@@ -0,0 +1,9 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/** 分割エクスポートのパーティションキー。 */
+public enum EstimatePartitionKey {
+  /** 顧客名の順に件数がほぼ均等になるよう分割（1 社の見積は 1 ファイルに収まる） */
+  CUSTOMER,
+  /** 見積ID の範囲で件数がほぼ均等になるよう分割 */
+  ID_RANGE
+}
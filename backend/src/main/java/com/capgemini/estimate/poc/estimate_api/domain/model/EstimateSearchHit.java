@@ -0,0 +1,9 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * 全文検索の 1 件。
+ *
+ * @param estimate 見積
+ * @param score 一致度（大きいほど上位。タイトルでの一致・前方一致・文字列全体に占める割合で決まる）
+ */
+public record EstimateSearchHit(Estimate estimate, double score) {}
@@ -0,0 +1,14 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * 見積一覧で指定できるソート列（ホワイトリスト）。
+ *
+ * <p>どの列でも id を第 2 キーにして順序を一意にする。各列には {@code (列, id)} の複合索引がある。
+ */
+public enum EstimateSortKey {
+  ID,
+  TITLE,
+  CUSTOMER_NAME,
+  TOTAL_AMOUNT,
+  UPDATED_AT
+}
@@ -0,0 +1,32 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 見積の集計値（GET /api/estimates/stats）。
+ *
+ * @param count 件数
+ * @param totalAmount 合計金額の総和（未設定は 0 として扱う）
+ * @param minTotalAmount 合計金額の最小値（金額の設定された見積が無ければ null）
+ * @param maxTotalAmount 合計金額の最大値（同上）
+ * @param topCustomers 合計金額の総和が大きい顧客（降順）
+ * @param reconciledAt DB の全件集計と最後に突き合わせた日時
+ */
+public record EstimateStats(
+    long count,
+    long totalAmount,
+    Integer minTotalAmount,
+    Integer maxTotalAmount,
+    List<CustomerTotal> topCustomers,
+    Instant reconciledAt) {
+
+  /**
+   * 顧客ごとの集計。
+   *
+   * @param customerName 顧客名（null は顧客名未設定の見積）
+   * @param count 件数
+   * @param totalAmount 合計金額の総和
+   */
+  public record CustomerTotal(String customerName, long count, long totalAmount) {}
+}
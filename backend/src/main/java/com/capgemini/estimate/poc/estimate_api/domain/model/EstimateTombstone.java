@@ -0,0 +1,20 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDateTime;
+import org.seasar.doma.Column;
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+import org.seasar.doma.Metamodel;
+
+/** 削除した見積の記録（差分同期で削除を伝えるため、{@code app.changes.tombstone-retention} の間だけ保持する）。 */
+@Entity(metamodel = @Metamodel())
+public class EstimateTombstone {
+  @Id public String id;
+  /** 削除日時 */
+  public LocalDateTime deletedAt;
+  /** 変更番号（{@link Estimate#changeSeq} と同じシーケンス） */
+  @Column(insertable = false, updatable = false)
+  @JsonIgnore
+  public Long changeSeq;
+}
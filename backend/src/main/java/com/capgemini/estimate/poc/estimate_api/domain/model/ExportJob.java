@@ -0,0 +1,33 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.time.Instant;
+
+/**
+ * 非同期エクスポートジョブの状態。
+ *
+ * @param id ジョブID
+ * @param status 処理状態
+ * @param rows 書き込み済み行数
+ * @param totalRows 対象行数（処理開始前は null）
+ * @param objectKey 出力先オブジェクトキー（完了時のみ）
+ * @param error 失敗理由（失敗時のみ）
+ * @param createdAt 受付日時
+ * @param updatedAt 最終更新日時
+ */
+public record ExportJob(
+    String id,
+    Status status,
+    long rows,
+    Long totalRows,
+    String objectKey,
+    String error,
+    Instant createdAt,
+    Instant updatedAt) {
+
+  public enum Status {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+  }
+}
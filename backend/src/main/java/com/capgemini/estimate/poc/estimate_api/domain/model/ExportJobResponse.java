@@ -0,0 +1,13 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * エクスポートジョブ照会のレスポンス。完了時のみ {@code url} に署名付き URL を設定する。
+ */
+public record ExportJobResponse(
+    String id, ExportJob.Status status, long rows, Long totalRows, String url, String error) {
+
+  public static ExportJobResponse of(ExportJob job, String url) {
+    return new ExportJobResponse(
+        job.id(), job.status(), job.rows(), job.totalRows(), url, job.error());
+  }
+}
@@ -0,0 +1,9 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * Parquet 出力（POST /api/estimates/exports/parquet）のレスポンス。
+ *
+ * @param key 出力先オブジェクトキー
+ * @param url 署名付き GET URL
+ */
+public record ParquetExportResponse(String key, String url) {}
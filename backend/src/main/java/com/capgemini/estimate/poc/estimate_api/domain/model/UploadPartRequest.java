@@ -0,0 +1,8 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * アップロード済みパートの登録リクエスト。
+ *
+ * @param eTag UploadPart のレスポンスヘッダ {@code ETag} の値
+ */
+public record UploadPartRequest(String eTag) {}
@@ -0,0 +1,4 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/** マルチパートアップロード 1 パート分の署名付き URL。 */
+public record UploadPartResponse(int partNumber, String url) {}
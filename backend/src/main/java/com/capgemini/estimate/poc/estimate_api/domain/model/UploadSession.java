@@ -0,0 +1,46 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.time.Instant;
+import java.util.SortedMap;
+
+/**
+ * S3 への直接アップロードのセッション。
+ *
+ * @param id セッションID
+ * @param owner 開始したユーザー（認証主体名）
+ * @param objectKey アップロード先のオブジェクトキー
+ * @param contentType Content-Type
+ * @param size 申告されたファイルサイズ（バイト）
+ * @param mode 単一 PUT かマルチパートか
+ * @param uploadId マルチパートのアップロード ID（単一 PUT の場合は null）
+ * @param partSize 1 パートのサイズ（最終パートを除く）
+ * @param partCount パート数（単一 PUT の場合は 1）
+ * @param parts 登録済みのパート番号と ETag
+ * @param status 状態
+ * @param createdAt 開始日時
+ */
+public record UploadSession(
+    String id,
+    String owner,
+    String objectKey,
+    String contentType,
+    long size,
+    Mode mode,
+    String uploadId,
+    long partSize,
+    int partCount,
+    SortedMap<Integer, String> parts,
+    Status status,
+    Instant createdAt) {
+
+  public enum Mode {
+    SINGLE,
+    MULTIPART
+  }
+
+  public enum Status {
+    UPLOADING,
+    COMPLETED,
+    ABORTED
+  }
+}
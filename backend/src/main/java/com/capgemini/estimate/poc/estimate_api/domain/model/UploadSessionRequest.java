@@ -0,0 +1,10 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+/**
+ * アップロードセッション開始のリクエスト。
+ *
+ * @param fileName ファイル名（オブジェクトキーの末尾に使用する）
+ * @param contentType Content-Type
+ * @param size ファイルサイズ（バイト）
+ */
+public record UploadSessionRequest(String fileName, String contentType, long size) {}
@@ -0,0 +1,32 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import java.util.List;
+
+/**
+ * アップロードセッションのレスポンス。
+ *
+ * <p>単一 PUT の場合のみ {@code url} に署名付き PUT URL を設定する。マルチパートの場合はパートごとに
+ * {@code GET /api/uploads/{id}/parts/{partNumber}} で URL を取得する。
+ */
+public record UploadSessionResponse(
+    String id,
+    String objectKey,
+    UploadSession.Mode mode,
+    long partSize,
+    int partCount,
+    List<Integer> uploadedParts,
+    UploadSession.Status status,
+    String url) {
+
+  public static UploadSessionResponse of(UploadSession session, String url) {
+    return new UploadSessionResponse(
+        session.id(),
+        session.objectKey(),
+        session.mode(),
+        session.partSize(),
+        session.partCount(),
+        List.copyOf(session.parts().keySet()),
+        session.status(),
+        url);
+  }
+}
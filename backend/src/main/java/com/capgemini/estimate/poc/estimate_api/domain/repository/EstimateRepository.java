@@ -1,18 +1,204 @@
 package com.capgemini.estimate.poc.estimate_api.domain.repository;
 
 import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItemChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateTombstone;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface EstimateRepository {
   List<Estimate> selectAll();
 
+  /** 全件を {@code fields} の列だけ読む（id は常に読む。null なら全項目）。 */
+  List<Estimate> selectAll(Set<EstimateField> fields);
+
+  /**
+   * 全件をカーソルで逐次読み出し、{@code streamMapper} に渡す。
+   *
+   * <p>Stream はこのメソッドの呼び出し中のみ有効で、終了時に JDBC リソースは解放される。
+   */
+  <R> R streamAll(Function<Stream<Estimate>, R> streamMapper);
+
+  /**
+   * 顧客名が [{@code fromInclusive}, {@code toExclusive}) の見積を顧客名・id 順に読み出す。null の端は無制限で、
+   * 上端が無制限の範囲には顧客名未設定の見積も含める。
+   *
+   * @param scn 読み出す時点（{@link #currentScn()}）。null なら現在の内容
+   */
+  <R> R streamByCustomerRange(
+      String fromInclusive,
+      String toExclusive,
+      Long scn,
+      Function<Stream<Estimate>, R> streamMapper);
+
+  /**
+   * id が [{@code fromInclusive}, {@code toExclusive}) の見積を id 順に読み出す。null の端は無制限。
+   *
+   * @param scn 読み出す時点（{@link #currentScn()}）。null なら現在の内容
+   */
+  <R> R streamByIdRange(
+      String fromInclusive,
+      String toExclusive,
+      Long scn,
+      Function<Stream<Estimate>, R> streamMapper);
+
+  /**
+   * 現在の SCN。複数の接続で並列に読み出しても同じ時点の内容になるよう、フラッシュバック問い合わせの時点に使う。
+   * フラッシュバック問い合わせが使えない DB では null。
+   */
+  Long currentScn();
+
+  /**
+   * 差分同期用。変更番号（{@code changeSeq}）が ({@code afterSeq}, {@code toSeqInclusive}] の見積を変更番号順に最大
+   * {@code limit} 件返す。
+   *
+   * @param afterSeq 下限（この値は含まない。先頭からなら 0）
+   */
+  List<Estimate> selectChangedBetween(long afterSeq, long toSeqInclusive, int limit);
+
+  /** {@link #selectChangedBetween} の削除版。変更番号順に最大 {@code limit} 件返す。 */
+  List<EstimateTombstone> selectTombstonesChangedBetween(
+      long afterSeq, long toSeqInclusive, int limit);
+
+  /**
+   * 差分同期で読んでよい変更番号の上限。この値以下の番号が振られた書き込みはすべてコミット済みのため、上限までを読めば
+   * コミットの順序が前後しても取りこぼさない。
+   */
+  long settledChangeSeq();
+
+  /** {@code before} より前に削除された記録を消す。 */
+  int purgeTombstones(LocalDateTime before);
+
+  /**
+   * 顧客名の順に件数がほぼ均等な {@code partitions} 個の範囲に分ける境界値を返す（最大 {@code partitions - 1} 個、昇順）。
+   * 同じ顧客の見積が 2 つの範囲に分かれることはない。顧客名未設定の見積は数えない。
+   */
+  List<String> selectCustomerBoundaries(int partitions);
+
+  /**
+   * 件数がほぼ均等な {@code partitions} 個の id 範囲に分ける境界値を返す（最大 {@code partitions - 1} 個、昇順）。
+   */
+  List<String> selectIdBoundaries(int partitions);
+
+  /**
+   * キーセットページング。{@code filter} に合う見積を {@code sort}（同値は id）順に並べ、{@code after} より後ろを
+   * 最大 {@code limit} 件返す。
+   *
+   * <p>{@code (ソート列, id)} の複合索引の範囲走査で読むため、ページの位置に関係なく一定のコストで取得できる。
+   * null のソート値は Oracle の既定どおり昇順では末尾、降順では先頭に並ぶ。
+   *
+   * @param after 直前ページの最終行（ソート列と id のみ参照する。先頭ページは null）
+   * @param fields 読む項目（id とソート列は常に読む。null なら全項目）
+   */
+  List<Estimate> selectPage(
+      EstimateFilter filter,
+      EstimateSortKey sort,
+      boolean descending,
+      Estimate after,
+      int limit,
+      Set<EstimateField> fields);
+
+  /** {@code filter} に合う件数。 */
+  long count(EstimateFilter filter);
+
   Estimate selectById(String id);
 
+  /**
+   * id を指定してまとめて読む（IN リストの上限ごとに 1 回の SELECT）。
+   *
+   * @return 見つかった見積（id をキーにする。存在しない id は含まない）
+   */
+  Map<String, Estimate> selectByIds(Collection<String> ids);
+
+  /** 明細（表示順）付きで 1 件読む（見積と明細を結合した 1 回の SELECT）。存在しなければ null。 */
+  Estimate selectWithItems(String id);
+
+  /**
+   * 明細を追加・更新・削除し、見積の合計金額に差分を加える（1 トランザクション）。
+   *
+   * <p>読むのは見積と、更新・削除する明細のみで、明細の件数によらず変更した行数に比例するコストで済む。見積のバージョンを
+   * 1 増やすため、同じ見積の明細を同時に変更した場合は後の方が競合になる。
+   *
+   * @param expectedVersion 期待する見積のバージョン（null なら無条件）
+   * @return 更新後の見積（明細は含まない）
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateNotFoundException 見積が存在しない場合
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException 見積・明細のバージョンが
+   *     異なる、または更新・削除する明細が存在しない場合
+   */
+  Estimate applyItemChanges(String estimateId, Long expectedVersion, EstimateItemChanges changes);
+
+  long count();
+
+  /** {@link #count()} をデータバージョン単位でキャッシュした値。書き込み後の最初の呼び出しで数え直す。 */
+  long cachedCount();
+
+  /** データバージョン。insert/update/delete のたびに増加する。 */
+  long dataVersion();
+
+  /** 登録する。id を採番し、バージョンは 1 になる。 */
   void insert(Estimate estimate);
 
-  void delete(String id);
+  /**
+   * まとめて登録・更新する（id が既存なら更新、無ければ登録）。
+   *
+   * <p>既存行のバージョンを 1 回の IN 検索で読み、更新・登録をそれぞれ JDBC バッチで送る。id が null の見積には
+   * 新しい id を採番する。
+   *
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException
+   *     再試行しても他の更新と競合した場合
+   */
+  void upsertAll(List<Estimate> estimates);
+
+  /**
+   * 1 文の条件付き DELETE で削除し、差分同期用に削除の記録を残す。
+   *
+   * @param expectedVersion 期待するバージョン（null なら無条件）
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateNotFoundException 存在しない場合
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException バージョンが異なる場合
+   */
+  void delete(String id, Long expectedVersion);
 
+  /**
+   * 1 文の条件付き UPDATE で更新し、バージョンを 1 進める。
+   *
+   * <p>{@code estimate.version} が null でなければ、そのバージョンの場合のみ更新する。成功時は
+   * {@code estimate.version} を更新後の値にする（無条件更新の場合は null のまま）。明細のある見積の合計金額は
+   * {@link #applyItemChanges} で集計した値のため更新せず、{@code estimate.totalAmount} を保存されている値にする。
+   *
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateNotFoundException 存在しない場合
+   * @throws com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException バージョンが異なる場合
+   */
   void update(Estimate estimate);
+
+  /** まとめて登録する（JDBC バッチ）。id が null の見積には採番して設定する。 */
+  void insertAll(List<Estimate> estimates);
+
+  /**
+   * id とバージョンを条件にまとめて更新する（JDBC バッチ）。
+   *
+   * <p>明細のある見積の合計金額は入力値で上書きせず、{@code totalAmount} を保存されている値にする（{@link #update} と同じ）。
+   *
+   * @return 見積ごとの更新件数（0 は対象なし、またはバージョン不一致）
+   */
+  int[] updateAll(List<Estimate> estimates);
+
+  /**
+   * id とバージョンを条件にまとめて削除し、削除できた見積の記録を残す（JDBC バッチ）。
+   *
+   * @return 見積ごとの削除件数（0 は対象なし、またはバージョン不一致）
+   */
+  int[] deleteAll(List<Estimate> keys);
+
+  /** 指定 id の現在のバージョン（存在しない id は含まない）。 */
+  Map<String, Long> selectVersions(Collection<String> ids);
 }
@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class EstimateConflictException extends RuntimeException {
+  public EstimateConflictException(String message) {
+    super(message);
+  }
+}
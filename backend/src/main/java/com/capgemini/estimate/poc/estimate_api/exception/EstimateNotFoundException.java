@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class EstimateNotFoundException extends RuntimeException {
+  public EstimateNotFoundException(String id) {
+    super("Estimate not found: " + id);
+  }
+}
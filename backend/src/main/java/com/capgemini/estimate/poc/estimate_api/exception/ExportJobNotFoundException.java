@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class ExportJobNotFoundException extends RuntimeException {
+  public ExportJobNotFoundException(String jobId) {
+    super("Export job not found: " + jobId);
+  }
+}
@@ -0,0 +1,19 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+import java.time.Duration;
+
+/** 他のレプリカが生成中のエクスポートが、待ち時間内に出来上がらなかった場合の例外。 */
+public class ExportNotReadyException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public ExportNotReadyException(String fileName, Duration retryAfter) {
+    super("Export is still being rendered by another replica: " + fileName);
+    this.retryAfter = retryAfter;
+  }
+
+  /** 再試行までの目安。 */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
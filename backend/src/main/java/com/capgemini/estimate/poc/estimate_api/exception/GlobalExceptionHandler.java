@@ -1,10 +1,13 @@
 package com.capgemini.estimate.poc.estimate_api.exception;
 
 import java.net.URI;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -26,4 +29,143 @@ public class GlobalExceptionHandler {
     pd.setType(URI.create("/problem/user-not-found"));
     return pd;
   }
+
+  @ExceptionHandler(ExportJobNotFoundException.class)
+  public ProblemDetail handleExportJobNotFound(ExportJobNotFoundException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.NOT_FOUND);
+    pd.setTitle("エクスポートジョブが見つかりません。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/export-job-not-found"));
+    return pd;
+  }
+
+  @ExceptionHandler(InvalidImportFileException.class)
+  public ProblemDetail handleInvalidImportFile(InvalidImportFileException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("インポートファイルの形式が不正です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/invalid-import-file"));
+    return pd;
+  }
+
+  @ExceptionHandler(UploadSessionNotFoundException.class)
+  public ProblemDetail handleUploadSessionNotFound(UploadSessionNotFoundException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.NOT_FOUND);
+    pd.setTitle("アップロードセッションが見つかりません。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/upload-session-not-found"));
+    return pd;
+  }
+
+  @ExceptionHandler(UploadSessionConflictException.class)
+  public ProblemDetail handleUploadSessionConflict(UploadSessionConflictException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+    pd.setTitle("アップロードセッションの状態と矛盾する操作です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/upload-session-conflict"));
+    return pd;
+  }
+
+  @ExceptionHandler(InvalidUploadRequestException.class)
+  public ProblemDetail handleInvalidUploadRequest(InvalidUploadRequestException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("アップロードの指定が不正です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/invalid-upload-request"));
+    return pd;
+  }
+
+  @ExceptionHandler(InvalidPageCursorException.class)
+  public ProblemDetail handleInvalidPageCursor(InvalidPageCursorException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("ページカーソルが不正です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/invalid-page-cursor"));
+    return pd;
+  }
+
+  @ExceptionHandler(InvalidFieldsException.class)
+  public ProblemDetail handleInvalidFields(InvalidFieldsException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("fields の指定が不正です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/invalid-fields"));
+    return pd;
+  }
+
+  @ExceptionHandler(InvalidIdsException.class)
+  public ProblemDetail handleInvalidIds(InvalidIdsException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("ids の指定が不正です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/invalid-ids"));
+    return pd;
+  }
+
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  public ProblemDetail handleArgumentTypeMismatch(MethodArgumentTypeMismatchException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("パラメータの形式が不正です。");
+    pd.setDetail(ex.getName() + ": " + ex.getValue());
+    pd.setType(URI.create("/problem/invalid-parameter"));
+    return pd;
+  }
+
+  @ExceptionHandler(EstimateNotFoundException.class)
+  public ProblemDetail handleEstimateNotFound(EstimateNotFoundException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.NOT_FOUND);
+    pd.setTitle("見積が見つかりません。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/estimate-not-found"));
+    return pd;
+  }
+
+  @ExceptionHandler(InvalidEstimateItemException.class)
+  public ProblemDetail handleInvalidEstimateItem(InvalidEstimateItemException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+    pd.setTitle("明細の指定が不正です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/invalid-estimate-item"));
+    return pd;
+  }
+
+  @ExceptionHandler(EstimateConflictException.class)
+  public ProblemDetail handleEstimateConflict(EstimateConflictException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.PRECONDITION_FAILED);
+    pd.setTitle("見積は他の更新により変更されています。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/estimate-conflict"));
+    return pd;
+  }
+
+  @ExceptionHandler(SearchDisabledException.class)
+  public ProblemDetail handleSearchDisabled(SearchDisabledException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.NOT_FOUND);
+    pd.setTitle("全文検索は無効です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/search-disabled"));
+    return pd;
+  }
+
+  @ExceptionHandler(StatsNotReadyException.class)
+  public ResponseEntity<ProblemDetail> handleStatsNotReady(StatsNotReadyException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+    pd.setTitle("集計値を準備中です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/stats-not-ready"));
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+        .body(pd);
+  }
+
+  @ExceptionHandler(ExportNotReadyException.class)
+  public ResponseEntity<ProblemDetail> handleExportNotReady(ExportNotReadyException ex) {
+    ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+    pd.setTitle("エクスポートを生成中です。");
+    pd.setDetail(ex.getMessage());
+    pd.setType(URI.create("/problem/export-not-ready"));
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+        .body(pd);
+  }
 }
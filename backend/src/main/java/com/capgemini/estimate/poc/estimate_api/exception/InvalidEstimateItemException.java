@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class InvalidEstimateItemException extends RuntimeException {
+  public InvalidEstimateItemException(String message) {
+    super(message);
+  }
+}
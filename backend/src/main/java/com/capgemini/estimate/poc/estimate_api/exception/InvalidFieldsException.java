@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+  public InvalidFieldsException(String field) {
+    super("Unknown field: " + field);
+  }
+}
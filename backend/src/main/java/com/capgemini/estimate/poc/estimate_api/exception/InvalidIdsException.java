@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class InvalidIdsException extends RuntimeException {
+  public InvalidIdsException(String message) {
+    super(message);
+  }
+}
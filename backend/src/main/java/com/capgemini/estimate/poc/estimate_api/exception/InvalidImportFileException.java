@@ -0,0 +1,11 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class InvalidImportFileException extends RuntimeException {
+  public InvalidImportFileException(String message) {
+    super(message);
+  }
+
+  public InvalidImportFileException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class InvalidPageCursorException extends RuntimeException {
+  public InvalidPageCursorException(String cursor) {
+    super("Invalid page cursor: " + cursor);
+  }
+}
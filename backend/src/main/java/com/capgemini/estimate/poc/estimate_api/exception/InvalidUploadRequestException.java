@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class InvalidUploadRequestException extends RuntimeException {
+  public InvalidUploadRequestException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+/** 全文検索が無効（{@code app.search.enabled=false}）の場合の例外。 */
+public class SearchDisabledException extends RuntimeException {
+  public SearchDisabledException() {
+    super("Estimate search is disabled (app.search.enabled=false)");
+  }
+}
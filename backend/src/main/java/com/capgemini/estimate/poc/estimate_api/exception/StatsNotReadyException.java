@@ -0,0 +1,19 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+import java.time.Duration;
+
+/** 集計値がまだ一度も作られていない（初回の再集計が終わっていない）場合の例外。 */
+public class StatsNotReadyException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public StatsNotReadyException(Duration retryAfter) {
+    super("Estimate stats are not ready yet; the first reconciliation has not finished");
+    this.retryAfter = retryAfter;
+  }
+
+  /** 再試行までの目安（再集計の有無を確かめる間隔）。 */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class UploadSessionConflictException extends RuntimeException {
+  public UploadSessionConflictException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,7 @@
+package com.capgemini.estimate.poc.estimate_api.exception;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+  public UploadSessionNotFoundException(String sessionId) {
+    super("Upload session not found: " + sessionId);
+  }
+}
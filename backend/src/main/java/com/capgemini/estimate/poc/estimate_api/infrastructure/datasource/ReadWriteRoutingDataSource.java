@@ -0,0 +1,86 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 読み取り専用トランザクション（{@code @Transactional(readOnly = true)}）をリードレプリカへ、それ以外を primary へ送る
+ * DataSource。
+ *
+ * <p>接続先はコネクション取得時に決まる。トランザクション開始時点では読み取り専用かどうかがまだ設定されていないため、
+ * {@link LazyConnectionDataSourceProxy} で包み、最初の SQL の実行まで取得を遅らせて使う（{@link #lazy()}）。
+ * トランザクション外の SQL は常に primary。
+ *
+ * <p>{@link #pinToPrimary()} したスレッドでは読み取り専用でも primary を使う（書き込み直後の読み取りを
+ * レプリカの遅延から守るため）。振り分けの件数は {@code datasource.routing}（target, reason）として公開する。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  private enum Target {
+    PRIMARY,
+    REPLICA
+  }
+
+  private static final ThreadLocal<Boolean> PINNED = ThreadLocal.withInitial(() -> false);
+
+  private final Counter readWrite;
+  private final Counter readYourWrites;
+  private final Counter readOnly;
+
+  public ReadWriteRoutingDataSource(
+      DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+    setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+    this.readWrite = counter(meterRegistry, "primary", "read-write");
+    this.readYourWrites = counter(meterRegistry, "primary", "read-your-writes");
+    this.readOnly = counter(meterRegistry, "replica", "read-only");
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String target, String reason) {
+    return Counter.builder("datasource.routing")
+        .description("コネクションの振り分け件数")
+        .tag("target", target)
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  /** 最初の SQL の実行までコネクションの取得を遅らせるプロキシで包んだものを返す。 */
+  public DataSource lazy() {
+    return new LazyConnectionDataSourceProxy(this);
+  }
+
+  /** 現在のスレッドの読み取りを primary に固定する。{@link #unpin()} で解除する。 */
+  public static void pinToPrimary() {
+    PINNED.set(true);
+  }
+
+  public static void unpin() {
+    PINNED.remove();
+  }
+
+  /** 現在のスレッドの読み取りが primary に固定されているか。 */
+  public static boolean isPinnedToPrimary() {
+    return PINNED.get();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      readWrite.increment();
+      return Target.PRIMARY;
+    }
+    if (PINNED.get()) {
+      readYourWrites.increment();
+      return Target.PRIMARY;
+    }
+    readOnly.increment();
+    return Target.REPLICA;
+  }
+}
@@ -0,0 +1,91 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.datasource;
+
+import com.capgemini.estimate.poc.estimate_api.auth.CookieUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 書き込んだ直後のクライアントの読み取りを primary へ送るフィルタ（read-your-writes）。
+ *
+ * <p>書き込み系のメソッド（POST / PUT / PATCH / DELETE）を受けたら、{@code window} 後までの時刻を入れた Cookie
+ * （{@value #COOKIE_NAME}）を返す。この Cookie が期限内のリクエストは {@link ReadWriteRoutingDataSource#pinToPrimary()}
+ * して処理するため、レプリカの遅延で自分の書き込みが見えなくなることがない。Cookie を改ざんされても primary
+ * に読み取りが寄るだけである。
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  static final String COOKIE_NAME = "rw_until";
+
+  private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+  private final Duration window;
+  private final CookieUtil cookieUtil;
+
+  public ReadYourWritesFilter(Duration window, CookieUtil cookieUtil) {
+    this.window = window;
+    this.cookieUtil = cookieUtil;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    return window.isZero() || !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain)
+      throws ServletException, IOException {
+    long now = System.currentTimeMillis();
+    if (WRITE_METHODS.contains(request.getMethod())) {
+      // 処理後ではレスポンスが確定していることがあるため、先に付ける
+      ResponseCookie cookie =
+          ResponseCookie.from(COOKIE_NAME, Long.toString(now + window.toMillis()))
+              .httpOnly(true)
+              .secure(cookieUtil.isSecureCookie())
+              .sameSite("Lax")
+              .path("/api")
+              .maxAge(Duration.ofSeconds(Math.max(1, window.toSeconds())))
+              .build();
+      response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+    if (!pinnedUntilAfter(request, now)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    ReadWriteRoutingDataSource.pinToPrimary();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReadWriteRoutingDataSource.unpin();
+    }
+  }
+
+  private static boolean pinnedUntilAfter(HttpServletRequest request, long now) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return false;
+    }
+    for (Cookie cookie : cookies) {
+      if (COOKIE_NAME.equals(cookie.getName())) {
+        try {
+          return Long.parseLong(cookie.getValue()) > now;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,66 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import com.capgemini.estimate.poc.estimate_api.common.redis.RedisLock;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateCsvSnapshotUseCase;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * CSV スナップショットの定期発行。
+ *
+ * <p>差分は {@code app.csv.snapshot.delta-interval} ごと、全件（コンパクション）は {@code app.csv.snapshot.full-cron} で発行する。
+ * 全レプリカで起動されるが、Redis ロックにより同時に実行されるのは 1 レプリカのみ。
+ *
+ * <p>ロックは差分と全件で別にする（共有すると、長時間かかる全件の実行中に差分が丸ごと読み飛ばされ、
+ * 逆に差分の実行中に日次の全件が 1 日分失われる）。両者が並行してもハイウォーターマークが戻るだけで、
+ * 次の差分が重複して出力されるにとどまり、行の取りこぼしは起きない。
+ */
+@Component
+@ConditionalOnProperty(name = "app.csv.snapshot.enabled", havingValue = "true")
+public class EstimateCsvSnapshotScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateCsvSnapshotScheduler.class);
+
+  static final String DELTA_LOCK_KEY = "csv:snapshot:lock:delta";
+  static final String FULL_LOCK_KEY = "csv:snapshot:lock:full";
+  private static final Duration LOCK_TTL = Duration.ofMinutes(30);
+
+  private final EstimateCsvSnapshotUseCase snapshotUseCase;
+  private final RedisLock redisLock;
+
+  public EstimateCsvSnapshotScheduler(EstimateCsvSnapshotUseCase snapshotUseCase, RedisLock redisLock) {
+    this.snapshotUseCase = snapshotUseCase;
+    this.redisLock = redisLock;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.csv.snapshot.delta-interval:PT5M}",
+      initialDelayString = "${app.csv.snapshot.initial-delay:PT1M}")
+  void publishDelta() {
+    runExclusive("delta", DELTA_LOCK_KEY, snapshotUseCase::publishDelta);
+  }
+
+  @Scheduled(cron = "${app.csv.snapshot.full-cron:0 0 2 * * *}", zone = "Asia/Tokyo")
+  void publishFullSnapshot() {
+    runExclusive("full", FULL_LOCK_KEY, snapshotUseCase::publishFullSnapshot);
+  }
+
+  private void runExclusive(String kind, String lockKey, Runnable job) {
+    String token = redisLock.tryLock(lockKey, LOCK_TTL);
+    if (token == null) {
+      log.debug("csv snapshot ({}) skipped: running on another replica", kind);
+      return;
+    }
+    try {
+      job.run();
+    } catch (Exception e) {
+      log.warn("csv snapshot ({}) failed", kind, e);
+    } finally {
+      redisLock.unlock(lockKey, token);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateExportJobUseCase;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * エクスポートジョブのワーカープール。
+ *
+ * <p>レプリカごとに固定数（{@code app.export.jobs.worker-threads}）のスレッドを起動し、各スレッドが
+ * Redis Stream のコンシューマとしてジョブを 1 件ずつ処理する。同時実行数はスレッド数で頭打ちになるため、
+ * 処理能力はレプリカ数に比例して伸び、Tomcat のリクエストスレッドは消費しない。
+ *
+ * <p>処理中は {@code app.export.jobs.lease-ttl} の 1/3 間隔でハートビートを送り、ストリーム上の配信
+ * （{@link ExportJobQueue#touch}）とジョブの実行権（{@link ExportJobStore#tryLease}）を延長する。処理が
+ * {@code reclaim-after} より長くかかっても他のワーカーには引き継がれず、引き継がれるのはワーカーが落ちた場合だけになる。
+ * 引き継いだジョブを他のワーカーがまだ実行している場合は、ACK せずにペンディングのまま残す。
+ *
+ * <p>グレースフルシャットダウン時は新規取得を止め、処理中のジョブの完了を待つ。
+ */
+@Component
+public class EstimateExportWorker implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateExportWorker.class);
+
+  private static final Duration POLL_BLOCK = Duration.ofSeconds(5);
+
+  private final ExportJobQueue jobQueue;
+  private final ExportJobStore jobStore;
+  private final EstimateExportJobUseCase jobUseCase;
+  private final int workerThreads;
+  private final Duration reclaimAfter;
+  private final String consumerPrefix;
+
+  private volatile boolean running;
+  private ExecutorService executor;
+  private ScheduledExecutorService heartbeat;
+
+  public EstimateExportWorker(
+      ExportJobQueue jobQueue,
+      ExportJobStore jobStore,
+      EstimateExportJobUseCase jobUseCase,
+      @Value("${app.export.jobs.worker-threads:2}") int workerThreads,
+      @Value("${app.export.jobs.reclaim-after:15m}") Duration reclaimAfter) {
+    this.jobQueue = jobQueue;
+    this.jobStore = jobStore;
+    this.jobUseCase = jobUseCase;
+    this.workerThreads = workerThreads;
+    this.reclaimAfter = reclaimAfter;
+    this.consumerPrefix = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  @Override
+  public void start() {
+    if (workerThreads <= 0) {
+      log.info("export workers disabled on this replica");
+      return;
+    }
+    jobQueue.ensureGroup();
+    running = true;
+
+    AtomicInteger seq = new AtomicInteger();
+    executor =
+        Executors.newFixedThreadPool(
+            workerThreads, r -> new Thread(r, "export-worker-" + seq.incrementAndGet()));
+    heartbeat =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "export-heartbeat");
+              thread.setDaemon(true);
+              return thread;
+            });
+    for (int i = 0; i < workerThreads; i++) {
+      String consumerName = consumerPrefix + "-" + i;
+      executor.submit(() -> loop(consumerName));
+    }
+    log.info("export workers started: threads={} consumer={}", workerThreads, consumerPrefix);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    } finally {
+      heartbeat.shutdownNow();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void loop(String consumerName) {
+    while (running) {
+      try {
+        ExportJobQueue.Message message = jobQueue.claimStale(consumerName, reclaimAfter);
+        if (message == null) {
+          message = jobQueue.poll(consumerName, POLL_BLOCK);
+        }
+        if (message == null) {
+          continue;
+        }
+        if (process(consumerName, message)) {
+          jobQueue.ack(message);
+        }
+      } catch (Exception e) {
+        log.warn("export worker error: consumer={}", consumerName, e);
+        sleepQuietly();
+      }
+    }
+  }
+
+  /** ハートビートを送りながらジョブを実行する。他のワーカーが実行中であれば false。 */
+  private boolean process(String consumerName, ExportJobQueue.Message message) {
+    long interval = Math.max(1, jobStore.leaseTtl().toMillis() / 3);
+    ScheduledFuture<?> beat =
+        heartbeat.scheduleAtFixedRate(
+            () -> keepAlive(consumerName, message), interval, interval, TimeUnit.MILLISECONDS);
+    try {
+      return jobUseCase.run(message.jobId(), consumerName);
+    } finally {
+      beat.cancel(false);
+    }
+  }
+
+  private void keepAlive(String consumerName, ExportJobQueue.Message message) {
+    try {
+      jobQueue.touch(consumerName, message);
+      if (!jobStore.tryLease(message.jobId(), consumerName)) {
+        log.warn("export job lease lost: consumer={} jobId={}", consumerName, message.jobId());
+      }
+    } catch (Exception e) {
+      // 例外で定期実行が止まらないよう握りつぶし、次の周期で再試行する
+      log.warn("export heartbeat failed: consumer={}", consumerName, e);
+    }
+  }
+
+  private void sleepQuietly() {
+    try {
+      Thread.sleep(POLL_BLOCK.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "unknown";
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import com.capgemini.estimate.poc.estimate_api.common.redis.RedisLock;
+import com.capgemini.estimate.poc.estimate_api.exception.ExportNotReadyException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * データバージョン単位でエクスポート生成物をキャッシュする。
+ *
+ * <p>生成物はローカルディスク（{@code app.export.artifact-cache.dir}）に {@code {name}-v{version}{suffix}} として保持する。
+ * 同一バージョンの生成は Redis ロック（{@code export:artifact:lock:{name}:{version}}）で全レプリカを通じて 1 回に限定し、
+ * 生成したレプリカが S3 にも置くことで、他のレプリカは再生成せずにダウンロードしてローカルへ配置する。
+ * 他のレプリカの生成を {@code app.export.artifact-cache.wait-timeout} まで待っても出来上がらなければ、
+ * {@link ExportNotReadyException}（503 + {@code Retry-After}）とする。
+ */
+@Component
+public class ExportArtifactCache {
+
+  private static final Logger log = LoggerFactory.getLogger(ExportArtifactCache.class);
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+
+  /** 古いバージョンのファイルは、配信中の可能性を考慮してこの時間が経過してから削除する */
+  private static final Duration STALE_FILE_GRACE = Duration.ofHours(1);
+
+  private final RedisLock redisLock;
+  private final S3Client s3Client;
+  private final Path cacheDir;
+  private final String bucketName;
+  private final Duration lockTtl;
+  private final Duration waitTimeout;
+  private final Duration retryAfter;
+
+  public ExportArtifactCache(
+      RedisLock redisLock,
+      S3Client s3Client,
+      @Value("${app.export.artifact-cache.dir:${java.io.tmpdir}/estimate-exports}") Path cacheDir,
+      @Value("${app.export.bucket-name:${app.csv.bucket-name}}") String bucketName,
+      @Value("${app.export.artifact-cache.lock-ttl:10m}") Duration lockTtl,
+      @Value("${app.export.artifact-cache.wait-timeout:5m}") Duration waitTimeout,
+      @Value("${app.export.artifact-cache.retry-after:30s}") Duration retryAfter) {
+    this.redisLock = redisLock;
+    this.s3Client = s3Client;
+    this.cacheDir = cacheDir;
+    this.bucketName = bucketName;
+    this.lockTtl = lockTtl;
+    this.waitTimeout = waitTimeout;
+    this.retryAfter = retryAfter;
+  }
+
+  /** 生成物を書き出す処理。 */
+  @FunctionalInterface
+  public interface Renderer {
+    void render(OutputStream out) throws IOException;
+  }
+
+  /**
+   * 指定バージョンの生成物のローカルパスを返す。無ければ生成（または他レプリカの生成物を取得）する。
+   *
+   * @param name 生成物の名前（例: {@code estimates}）
+   * @param version データバージョン
+   * @param suffix 拡張子（例: {@code .xlsx}）
+   * @param renderer 生成処理（ロックを取得したレプリカでのみ呼ばれる）
+   * @return ローカルディスク上のファイル
+   * @throws ExportNotReadyException 他のレプリカの生成が待ち時間内に終わらなかった場合
+   */
+  public Path getOrCreate(String name, long version, String suffix, Renderer renderer) {
+    String fileName = name + "-v" + version + suffix;
+    Path local = cacheDir.resolve(fileName);
+    if (Files.exists(local)) {
+      return local;
+    }
+
+    String objectKey = "exports/artifacts/" + fileName;
+    String lockKey = "export:artifact:lock:" + name + ":" + version;
+    Instant deadline = Instant.now().plus(waitTimeout);
+
+    try {
+      Files.createDirectories(cacheDir);
+      while (Instant.now().isBefore(deadline)) {
+        if (Files.exists(local) || download(objectKey, local)) {
+          return local;
+        }
+        String token = redisLock.tryLock(lockKey, lockTtl);
+        if (token != null) {
+          try {
+            render(local, objectKey, renderer);
+            purgeStale(name, suffix, fileName);
+            return local;
+          } finally {
+            redisLock.unlock(lockKey, token);
+          }
+        }
+        Thread.sleep(POLL_INTERVAL.toMillis());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("エクスポートの待機が中断されました。", e);
+    }
+    throw new ExportNotReadyException(fileName, retryAfter);
+  }
+
+  private void render(Path local, String objectKey, Renderer renderer) throws IOException {
+    Path tmp = Files.createTempFile(cacheDir, "render-", ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        renderer.render(out);
+      }
+      s3Client.putObject(
+          PutObjectRequest.builder().bucket(bucketName).key(objectKey).build(),
+          RequestBody.fromFile(tmp));
+      Files.move(tmp, local, StandardCopyOption.ATOMIC_MOVE);
+      log.info("export artifact rendered: {} ({} bytes)", local.getFileName(), Files.size(local));
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /** 他レプリカが生成済みであれば S3 から取得してローカルに配置する。 */
+  private boolean download(String objectKey, Path local) throws IOException {
+    Path tmp = cacheDir.resolve("download-" + UUID.randomUUID() + ".tmp");
+    try {
+      s3Client.getObject(
+          GetObjectRequest.builder().bucket(bucketName).key(objectKey).build(),
+          ResponseTransformer.toFile(tmp));
+      Files.move(tmp, local, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    } catch (NoSuchKeyException e) {
+      return false;
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private void purgeStale(String name, String suffix, String currentFileName) {
+    Instant threshold = Instant.now().minus(STALE_FILE_GRACE);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, name + "-v*" + suffix)) {
+      for (Path file : files) {
+        if (!file.getFileName().toString().equals(currentFileName)
+            && Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+          Files.deleteIfExists(file);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("failed to purge stale export artifacts", e);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * エクスポートジョブのキュー（Redis Stream + コンシューマグループ）。
+ *
+ * <p>ストリーム {@code export:jobs} に {@code jobId} を積み、グループ {@code export-workers} の各コンシューマ
+ * （各レプリカの各ワーカースレッド）が 1 件ずつ取り出す。処理完了後に ACK するまではペンディングとして残るため、
+ * 処理中にレプリカが落ちた場合も {@link #claimStale} で他のワーカーが引き継げる。
+ */
+@Component
+public class ExportJobQueue {
+
+  private static final Logger log = LoggerFactory.getLogger(ExportJobQueue.class);
+
+  static final String STREAM_KEY = "export:jobs";
+  static final String GROUP = "export-workers";
+  private static final String FIELD_JOB_ID = "jobId";
+
+  private final StringRedisTemplate redisTemplate;
+
+  public ExportJobQueue(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  /** ストリームとコンシューマグループを作成する（既に存在する場合は何もしない）。 */
+  public void ensureGroup() {
+    try {
+      redisTemplate.execute(
+          (RedisCallback<Object>)
+              (RedisConnection connection) ->
+                  connection
+                      .streamCommands()
+                      .xGroupCreate(
+                          STREAM_KEY.getBytes(StandardCharsets.UTF_8),
+                          GROUP,
+                          ReadOffset.from("0"),
+                          true));
+    } catch (DataAccessException e) {
+      // BUSYGROUP（作成済み）は正常系
+      log.debug("export consumer group already exists: {}", e.getMessage());
+    }
+  }
+
+  /** ジョブをキューへ投入する。 */
+  public void enqueue(String jobId) {
+    redisTemplate.opsForStream().add(STREAM_KEY, Map.of(FIELD_JOB_ID, jobId));
+  }
+
+  /**
+   * 未配信のジョブを 1 件取り出す。キューが空の場合は {@code block} の間待機する。
+   *
+   * @return 取り出したメッセージ。タイムアウト時は null
+   */
+  public Message poll(String consumerName, Duration block) {
+    List<MapRecord<String, Object, Object>> records =
+        redisTemplate
+            .opsForStream()
+            .read(
+                Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(1).block(block),
+                StreamOffset.create(STREAM_KEY, ReadOffset.lastConsumed()));
+    if (records == null || records.isEmpty()) {
+      return null;
+    }
+    MapRecord<String, Object, Object> record = records.get(0);
+    return new Message(record.getId(), (String) record.getValue().get(FIELD_JOB_ID));
+  }
+
+  /**
+   * 他のコンシューマが {@code minIdle} 以上 ACK していないジョブを自分に付け替えて 1 件返す。
+   *
+   * @return 引き継いだメッセージ。無ければ null
+   */
+  public Message claimStale(String consumerName, Duration minIdle) {
+    var pending = redisTemplate.opsForStream().pending(STREAM_KEY, GROUP, Range.unbounded(), 10);
+    for (PendingMessage message : pending) {
+      if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) {
+        continue;
+      }
+      List<MapRecord<String, Object, Object>> claimed =
+          redisTemplate
+              .opsForStream()
+              .claim(STREAM_KEY, GROUP, consumerName, minIdle, message.getId());
+      if (!claimed.isEmpty()) {
+        MapRecord<String, Object, Object> record = claimed.get(0);
+        return new Message(record.getId(), (String) record.getValue().get(FIELD_JOB_ID));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 処理中のメッセージを自分に付け替え直し、アイドル時間を 0 に戻す。
+   *
+   * <p>実行中のワーカーが定期的に呼ぶことで、処理に {@code minIdle} 以上かかっても {@link #claimStale} で
+   * 他のワーカーに引き継がれない。
+   */
+  public void touch(String consumerName, Message message) {
+    redisTemplate
+        .opsForStream()
+        .claim(STREAM_KEY, GROUP, consumerName, Duration.ZERO, message.recordId());
+  }
+
+  /** 処理完了を通知する。 */
+  public void ack(Message message) {
+    redisTemplate.opsForStream().acknowledge(STREAM_KEY, GROUP, message.recordId());
+  }
+
+  /** キューから取り出したジョブ。 */
+  public record Message(RecordId recordId, String jobId) {}
+}
@@ -0,0 +1,164 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.ExportJob;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * エクスポートジョブの状態を Redis に保持するストア。
+ *
+ * <p>キー構造: {@code export:job:{id}}（Hash）。どのレプリカからも参照できるよう、状態はすべて Redis に置く。
+ * 有効期限（TTL）は受付から 1 日。
+ *
+ * <p>実行中のジョブは {@code export:job:{id}:owner} に実行しているワーカー（コンシューマ名）を置く。期限
+ * （{@code app.export.jobs.lease-ttl}）は実行中のワーカーが延長し続けるため、期限が切れるのはワーカーが落ちた場合だけになる。
+ */
+@Component
+public class ExportJobStore {
+
+  private static final Duration JOB_TTL = Duration.ofDays(1);
+
+  /** 未保持（期限切れを含む）なら取得し、自分が保持していれば期限を延ばす。他者が保持していれば 0 を返す。 */
+  private static final DefaultRedisScript<Long> LEASE_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local owner = redis.call('GET', KEYS[1])
+          if owner and owner ~= ARGV[1] then
+            return 0
+          end
+          redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+          return 1
+          """,
+          Long.class);
+
+  private static final DefaultRedisScript<Long> RELEASE_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('GET', KEYS[1]) == ARGV[1] then
+            return redis.call('DEL', KEYS[1])
+          end
+          return 0
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final Duration leaseTtl;
+
+  public ExportJobStore(
+      StringRedisTemplate redisTemplate,
+      @Value("${app.export.jobs.lease-ttl:1m}") Duration leaseTtl) {
+    this.redisTemplate = redisTemplate;
+    this.leaseTtl = leaseTtl;
+  }
+
+  private String jobKey(String id) {
+    return "export:job:" + id;
+  }
+
+  private String ownerKey(String id) {
+    return "export:job:" + id + ":owner";
+  }
+
+  /** 実行権の期限。実行中のワーカーはこれより短い間隔で {@link #tryLease} を呼んで延長する。 */
+  public Duration leaseTtl() {
+    return leaseTtl;
+  }
+
+  /**
+   * ジョブの実行権を取得する。既に自分が保持していれば期限を延ばす。
+   *
+   * @param id ジョブID
+   * @param owner 実行するワーカー（コンシューマ名）
+   * @return 取得・延長できた場合は true、他のワーカーが保持している場合は false
+   */
+  public boolean tryLease(String id, String owner) {
+    Long result =
+        redisTemplate.execute(
+            LEASE_SCRIPT, List.of(ownerKey(id)), owner, String.valueOf(leaseTtl.toMillis()));
+    return result != null && result == 1L;
+  }
+
+  /** 自分が保持している実行権を手放す。 */
+  public void releaseLease(String id, String owner) {
+    redisTemplate.execute(RELEASE_SCRIPT, List.of(ownerKey(id)), owner);
+  }
+
+  /** QUEUED 状態でジョブを登録する。 */
+  public ExportJob create(String id) {
+    String now = String.valueOf(Instant.now().toEpochMilli());
+    Map<String, String> values = new HashMap<>();
+    values.put("status", ExportJob.Status.QUEUED.name());
+    values.put("rows", "0");
+    values.put("createdAt", now);
+    values.put("updatedAt", now);
+
+    redisTemplate.opsForHash().putAll(jobKey(id), values);
+    redisTemplate.expire(jobKey(id), JOB_TTL);
+    return find(id);
+  }
+
+  public void markRunning(String id, long totalRows) {
+    Map<String, String> values = new HashMap<>();
+    values.put("status", ExportJob.Status.RUNNING.name());
+    values.put("totalRows", String.valueOf(totalRows));
+    update(id, values);
+  }
+
+  public void updateProgress(String id, long rows) {
+    update(id, Map.of("rows", String.valueOf(rows)));
+  }
+
+  public void markSucceeded(String id, String objectKey, long rows) {
+    Map<String, String> values = new HashMap<>();
+    values.put("status", ExportJob.Status.SUCCEEDED.name());
+    values.put("rows", String.valueOf(rows));
+    values.put("objectKey", objectKey);
+    update(id, values);
+  }
+
+  public void markFailed(String id, String error) {
+    Map<String, String> values = new HashMap<>();
+    values.put("status", ExportJob.Status.FAILED.name());
+    values.put("error", error == null ? "unknown" : error);
+    update(id, values);
+  }
+
+  /**
+   * ジョブ状態を取得する。
+   *
+   * @param id ジョブID
+   * @return ジョブ状態。存在しない（期限切れを含む）場合は null
+   */
+  public ExportJob find(String id) {
+    Map<Object, Object> values = redisTemplate.opsForHash().entries(jobKey(id));
+    if (values.isEmpty()) {
+      return null;
+    }
+    return new ExportJob(
+        id,
+        ExportJob.Status.valueOf((String) values.get("status")),
+        Long.parseLong((String) values.getOrDefault("rows", "0")),
+        values.containsKey("totalRows") ? Long.parseLong((String) values.get("totalRows")) : null,
+        (String) values.get("objectKey"),
+        (String) values.get("error"),
+        toInstant(values.get("createdAt")),
+        toInstant(values.get("updatedAt")));
+  }
+
+  private void update(String id, Map<String, String> values) {
+    Map<String, String> withTimestamp = new HashMap<>(values);
+    withTimestamp.put("updatedAt", String.valueOf(Instant.now().toEpochMilli()));
+    redisTemplate.opsForHash().putAll(jobKey(id), withTimestamp);
+  }
+
+  private Instant toInstant(Object epochMillis) {
+    return epochMillis == null ? null : Instant.ofEpochMilli(Long.parseLong((String) epochMillis));
+  }
+}
@@ -0,0 +1,502 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItemChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateTombstone;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link EstimateRepositoryImpl} に 2 段の読み取りキャッシュを被せるデコレータ。対象は {@code selectById} と
+ * {@code selectByIds} のみ。
+ *
+ * <ul>
+ *   <li>L1: プロセス内の Caffeine（件数上限 + 書き込み後の有効期限）。同じ id のミスが同時に起きても
+ *       ロードは 1 回だけ行い、他のスレッドはその結果を待つ（single-flight）
+ *   <li>L2: Redis（{@code estimate:cache:{id}} に JSON）。レプリカ間で共有する
+ * </ul>
+ * 書き込み時は L2 のキーを削除し、{@code estimate:cache:invalidate} チャネルへ id を発行する。各レプリカは
+ * 受信した id を専用の 1 スレッドで L1 から破棄する（購読スレッドは他のチャネルと共有のため、そこでは処理しない）。
+ *
+ * <p>L2 のミス時は DB を読む前にキーへ予約（{@code lease:...}、{@code app.cache.estimate.l2-lease-ttl}）を置き、
+ * 読み終えた時点で予約が残っている場合だけ値に置き換える。DB を読んでいる間に書き込みがコミットされると、
+ * その削除で予約も消えるため、読み出した古い値が書き込み後の L2 に残ることはない。予約中のキーを読んだ他のスレッドは
+ * DB から読むが、L2 には書き込まない。
+ *
+ * <p>L1 のヒット率・ロード時間・追い出し数は Micrometer の {@code cache.*}（name=estimates）、
+ * L2 のヒット/ミスは {@code estimate.cache.l2.requests} として公開する。
+ */
+@Primary
+@Repository
+public class CachingEstimateRepository implements EstimateRepository {
+
+  private static final Logger log = LoggerFactory.getLogger(CachingEstimateRepository.class);
+
+  static final String INVALIDATE_CHANNEL = "estimate:cache:invalidate";
+
+  /** 全件無効化の通知 */
+  private static final String INVALIDATE_ALL = "*";
+
+  /** 1 回の通知に載せる id の上限。超える場合は全件無効化にする */
+  private static final int MAX_IDS_PER_MESSAGE = 1000;
+
+  /** L2 の埋め込み予約の値の接頭辞（JSON は "{" で始まるため、キャッシュした値と区別できる） */
+  private static final String LEASE_PREFIX = "lease:";
+
+  /**
+   * 予約が自分のもののまま残っているキーだけを値に置き換える（空文字なら予約を消す）。
+   * KEYS: L2 のキー、ARGV[1]: 予約、ARGV[2]: 有効期限（ミリ秒）、ARGV[3..]: KEYS と同じ順の JSON
+   */
+  private static final DefaultRedisScript<Long> FILL_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local filled = 0
+          for i, key in ipairs(KEYS) do
+            if redis.call('GET', key) == ARGV[1] then
+              local json = ARGV[i + 2]
+              if json == '' then
+                redis.call('DEL', key)
+              else
+                redis.call('SET', key, json, 'PX', ARGV[2])
+                filled = filled + 1
+              end
+            end
+          end
+          return filled
+          """,
+          Long.class);
+
+  private final EstimateRepositoryImpl delegate;
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final Duration l2Ttl;
+  private final Duration leaseTtl;
+  private final Cache<String, Optional<Estimate>> l1;
+  private final Counter l2Hits;
+  private final Counter l2Misses;
+  private final ExecutorService invalidationExecutor =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread thread = new Thread(r, "estimate-cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public CachingEstimateRepository(
+      EstimateRepositoryImpl delegate,
+      StringRedisTemplate redisTemplate,
+      ObjectMapper objectMapper,
+      RedisMessageListenerContainer listenerContainer,
+      MeterRegistry meterRegistry,
+      @Value("${app.cache.estimate.l1-max-size:10000}") long l1MaxSize,
+      @Value("${app.cache.estimate.l1-ttl:PT1M}") Duration l1Ttl,
+      @Value("${app.cache.estimate.l2-ttl:PT10M}") Duration l2Ttl,
+      @Value("${app.cache.estimate.l2-lease-ttl:PT10S}") Duration leaseTtl) {
+    this.delegate = delegate;
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.l2Ttl = l2Ttl;
+    this.leaseTtl = leaseTtl;
+    this.l1 =
+        Caffeine.newBuilder()
+            .maximumSize(l1MaxSize)
+            .expireAfterWrite(l1Ttl)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, l1, "estimates");
+    this.l2Hits =
+        Counter.builder("estimate.cache.l2.requests").tag("result", "hit").register(meterRegistry);
+    this.l2Misses =
+        Counter.builder("estimate.cache.l2.requests").tag("result", "miss").register(meterRegistry);
+
+    listenerContainer.addMessageListener(
+        (message, pattern) -> {
+          String body = new String(message.getBody(), StandardCharsets.UTF_8);
+          invalidationExecutor.execute(() -> onInvalidate(body));
+        },
+        new ChannelTopic(INVALIDATE_CHANNEL));
+  }
+
+  @PreDestroy
+  void shutdown() {
+    invalidationExecutor.shutdownNow();
+  }
+
+  @Override
+  public Estimate selectById(String id) {
+    // Caffeine の get はキー単位で排他されるため、同時ミスでもロードは 1 回
+    // キャッシュ中のインスタンスを呼び出し側に書き換えられないよう、複製して返す
+    return l1.get(id, this::load).map(Estimate::copy).orElse(null);
+  }
+
+  private Optional<Estimate> load(String id) {
+    String key = l2Key(id);
+    Estimate cached = parse(id, redisTemplate.opsForValue().get(key));
+    if (cached != null) {
+      l2Hits.increment();
+      return Optional.of(cached);
+    }
+    l2Misses.increment();
+
+    // DB を読む前に予約を置き、読み終えた時点で予約が残っている場合だけ値に置き換える。
+    // 読んでいる間に書き込み側が DEL すれば予約ごと消えるため、読み出した古い値は書き込まれない
+    String lease = LEASE_PREFIX + UUID.randomUUID();
+    boolean leased =
+        Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, lease, leaseTtl));
+    Estimate estimate = delegate.selectById(id);
+    if (leased) {
+      fill(lease, Map.of(key, json(id, estimate)));
+    }
+    return Optional.ofNullable(estimate);
+  }
+
+  @Override
+  public Map<String, Estimate> selectByIds(Collection<String> ids) {
+    // L1 のヒット以外は、L2 の MGET 1 回と DB の IN 検索でまとめて読む
+    Map<String, Estimate> found = new HashMap<>();
+    l1.getAll(ids, this::loadAll)
+        .forEach((id, estimate) -> estimate.ifPresent(e -> found.put(id, e.copy())));
+    return found;
+  }
+
+  private Map<String, Optional<Estimate>> loadAll(Set<? extends String> ids) {
+    List<String> keys = List.copyOf(ids);
+    Map<String, Optional<Estimate>> loaded = new HashMap<>();
+    List<String> cachedValues =
+        redisTemplate
+            .opsForValue()
+            .multiGet(keys.stream().map(CachingEstimateRepository::l2Key).toList());
+    List<String> misses = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      Estimate estimate = parse(keys.get(i), cachedValues == null ? null : cachedValues.get(i));
+      if (estimate != null) {
+        l2Hits.increment();
+        loaded.put(keys.get(i), Optional.of(estimate));
+      } else {
+        l2Misses.increment();
+        misses.add(keys.get(i));
+      }
+    }
+    if (misses.isEmpty()) {
+      return loaded;
+    }
+
+    // load と同じく DB を読む前に予約を置く（SET NX をパイプラインで 1 往復にまとめる）
+    String lease = LEASE_PREFIX + UUID.randomUUID();
+    byte[] leaseBytes = lease.getBytes(StandardCharsets.UTF_8);
+    List<Object> leased =
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  for (String id : misses) {
+                    connection
+                        .stringCommands()
+                        .set(
+                            l2Key(id).getBytes(StandardCharsets.UTF_8),
+                            leaseBytes,
+                            Expiration.from(leaseTtl),
+                            RedisStringCommands.SetOption.ifAbsent());
+                  }
+                  return null;
+                });
+
+    Map<String, Estimate> fromDb = delegate.selectByIds(misses);
+    Map<String, String> toFill = new LinkedHashMap<>();
+    for (int i = 0; i < misses.size(); i++) {
+      String id = misses.get(i);
+      Estimate estimate = fromDb.get(id);
+      loaded.put(id, Optional.ofNullable(estimate));
+      if (Boolean.TRUE.equals(leased.get(i))) {
+        toFill.put(l2Key(id), json(id, estimate));
+      }
+    }
+    if (!toFill.isEmpty()) {
+      fill(lease, toFill);
+    }
+    return loaded;
+  }
+
+  /** L2 の値を読む。未設定・予約中・読めない値は null（ミス）。 */
+  private Estimate parse(String id, String cached) {
+    if (cached == null || cached.startsWith(LEASE_PREFIX)) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(cached, Estimate.class);
+    } catch (JsonProcessingException e) {
+      log.warn("Discarding unreadable cache entry for estimate {}", id, e);
+      return null;
+    }
+  }
+
+  /** L2 に書き込む JSON。見つからない・書き出せない場合は空文字（予約の解放のみ行う）。 */
+  private String json(String id, Estimate estimate) {
+    if (estimate == null) {
+      return "";
+    }
+    try {
+      return objectMapper.writeValueAsString(estimate);
+    } catch (JsonProcessingException e) {
+      log.warn("Failed to cache estimate {}", id, e);
+      return "";
+    }
+  }
+
+  /** 予約が残っているキーだけを値に置き換える（キーと JSON の組を 1 回のスクリプトで処理する）。 */
+  private void fill(String lease, Map<String, String> jsonByKey) {
+    List<String> keys = new ArrayList<>(jsonByKey.size());
+    List<String> args = new ArrayList<>(jsonByKey.size() + 2);
+    args.add(lease);
+    args.add(String.valueOf(l2Ttl.toMillis()));
+    jsonByKey.forEach(
+        (key, json) -> {
+          keys.add(key);
+          args.add(json);
+        });
+    redisTemplate.execute(FILL_SCRIPT, keys, args.toArray());
+  }
+
+  @Override
+  public void insert(Estimate estimate) {
+    delegate.insert(estimate);
+    invalidate(List.of(estimate.id));
+  }
+
+  @Override
+  public void upsertAll(List<Estimate> estimates) {
+    delegate.upsertAll(estimates);
+    invalidate(estimates.stream().map(e -> e.id).toList());
+  }
+
+  @Override
+  public void delete(String id, Long expectedVersion) {
+    delegate.delete(id, expectedVersion);
+    invalidate(List.of(id));
+  }
+
+  @Override
+  public void update(Estimate estimate) {
+    delegate.update(estimate);
+    invalidate(List.of(estimate.id));
+  }
+
+  @Override
+  public void insertAll(List<Estimate> estimates) {
+    delegate.insertAll(estimates);
+    invalidate(estimates.stream().map(e -> e.id).toList());
+  }
+
+  @Override
+  public int[] updateAll(List<Estimate> estimates) {
+    int[] counts = delegate.updateAll(estimates);
+    invalidate(estimates.stream().map(e -> e.id).toList());
+    return counts;
+  }
+
+  @Override
+  public Estimate applyItemChanges(
+      String estimateId, Long expectedVersion, EstimateItemChanges changes) {
+    Estimate updated = delegate.applyItemChanges(estimateId, expectedVersion, changes);
+    invalidate(List.of(estimateId));
+    return updated;
+  }
+
+  @Override
+  public int[] deleteAll(List<Estimate> keys) {
+    int[] counts = delegate.deleteAll(keys);
+    invalidate(keys.stream().map(e -> e.id).toList());
+    return counts;
+  }
+
+  /**
+   * L2 を削除してから全レプリカ（自分を含む）へ L1 の破棄を通知する。
+   *
+   * <p>トランザクション中は、コミット前に読まれた古い値がキャッシュに戻らないよう、コミット後にもう一度行う。
+   */
+  private void invalidate(List<String> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    evict(ids);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evict(ids);
+            }
+          });
+    }
+  }
+
+  private void evict(List<String> ids) {
+    redisTemplate.delete(ids.stream().map(CachingEstimateRepository::l2Key).toList());
+    String message = ids.size() > MAX_IDS_PER_MESSAGE ? INVALIDATE_ALL : String.join(",", ids);
+    l1.invalidateAll(ids);
+    redisTemplate.convertAndSend(INVALIDATE_CHANNEL, message);
+  }
+
+  private void onInvalidate(String message) {
+    if (INVALIDATE_ALL.equals(message)) {
+      l1.invalidateAll();
+    } else {
+      l1.invalidateAll(List.of(message.split(",")));
+    }
+  }
+
+  private static String l2Key(String id) {
+    return "estimate:cache:" + id;
+  }
+
+  // 以下はキャッシュ対象外のため、そのまま委譲する
+
+  @Override
+  public Estimate selectWithItems(String id) {
+    return delegate.selectWithItems(id);
+  }
+
+  @Override
+  public List<Estimate> selectAll() {
+    return delegate.selectAll();
+  }
+
+  @Override
+  public List<Estimate> selectAll(Set<EstimateField> fields) {
+    return delegate.selectAll(fields);
+  }
+
+  @Override
+  public <R> R streamAll(Function<Stream<Estimate>, R> streamMapper) {
+    return delegate.streamAll(streamMapper);
+  }
+
+  @Override
+  public <R> R streamByCustomerRange(
+      String fromInclusive,
+      String toExclusive,
+      Long scn,
+      Function<Stream<Estimate>, R> streamMapper) {
+    return delegate.streamByCustomerRange(fromInclusive, toExclusive, scn, streamMapper);
+  }
+
+  @Override
+  public <R> R streamByIdRange(
+      String fromInclusive,
+      String toExclusive,
+      Long scn,
+      Function<Stream<Estimate>, R> streamMapper) {
+    return delegate.streamByIdRange(fromInclusive, toExclusive, scn, streamMapper);
+  }
+
+  @Override
+  public Long currentScn() {
+    return delegate.currentScn();
+  }
+
+  @Override
+  public List<String> selectCustomerBoundaries(int partitions) {
+    return delegate.selectCustomerBoundaries(partitions);
+  }
+
+  @Override
+  public List<String> selectIdBoundaries(int partitions) {
+    return delegate.selectIdBoundaries(partitions);
+  }
+
+  @Override
+  public List<Estimate> selectPage(
+      EstimateFilter filter,
+      EstimateSortKey sort,
+      boolean descending,
+      Estimate after,
+      int limit,
+      Set<EstimateField> fields) {
+    return delegate.selectPage(filter, sort, descending, after, limit, fields);
+  }
+
+  @Override
+  public long count(EstimateFilter filter) {
+    return delegate.count(filter);
+  }
+
+  @Override
+  public long count() {
+    return delegate.count();
+  }
+
+  @Override
+  public long cachedCount() {
+    return delegate.cachedCount();
+  }
+
+  @Override
+  public Map<String, Long> selectVersions(Collection<String> ids) {
+    return delegate.selectVersions(ids);
+  }
+
+  @Override
+  public long dataVersion() {
+    return delegate.dataVersion();
+  }
+
+  @Override
+  public List<Estimate> selectChangedBetween(long afterSeq, long toSeqInclusive, int limit) {
+    return delegate.selectChangedBetween(afterSeq, toSeqInclusive, limit);
+  }
+
+  @Override
+  public List<EstimateTombstone> selectTombstonesChangedBetween(
+      long afterSeq, long toSeqInclusive, int limit) {
+    return delegate.selectTombstonesChangedBetween(afterSeq, toSeqInclusive, limit);
+  }
+
+  @Override
+  public long settledChangeSeq() {
+    return delegate.settledChangeSeq();
+  }
+
+  @Override
+  public int purgeTombstones(LocalDateTime before) {
+    return delegate.purgeTombstones(before);
+  }
+}
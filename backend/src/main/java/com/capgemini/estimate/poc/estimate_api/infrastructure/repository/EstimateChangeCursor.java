@@ -0,0 +1,106 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateTombstone;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 変更番号（{@code change_seq}）で前回以降の登録・更新・削除を読み進める。メモリ上に estimate の写しを持つ
+ * コンポーネント（スナップショット・検索索引）が、全件の読み直しの後に差分だけを取り込むために使う。
+ *
+ * <p>読むのは {@link EstimateRepository#settledChangeSeq()} までのため、コミットの順序が前後しても取りこぼさない。
+ * 削除は削除の記録（estimate_tombstone）から読むため、件数の比較では気付けない「削除と同数の登録」も反映できる。
+ * スレッドセーフではない（呼び出し側で排他すること）。
+ */
+public class EstimateChangeCursor {
+
+  /** 差分。同じ id は最後の変更だけを含む。 */
+  public record Changes(List<Estimate> saved, List<String> deletedIds) {
+    public boolean isEmpty() {
+      return saved.isEmpty() && deletedIds.isEmpty();
+    }
+  }
+
+  private final EstimateRepository repository;
+  private final int batchSize;
+
+  /** 読み終えた変更番号（全件の読み直し前は -1） */
+  private long position = -1;
+
+  public EstimateChangeCursor(EstimateRepository repository, int batchSize) {
+    this.repository = repository;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * 全件を読み直す直前に呼ぶ。この時点で確定済みの変更は全件の読み出しに含まれるため、以降の差分はここから読む
+   * （読み出し中の変更は次の {@link #poll()} で重ねて返る）。
+   */
+  public void reset() {
+    position = repository.settledChangeSeq();
+  }
+
+  /** {@link #reset()} 済みか。 */
+  public boolean isPositioned() {
+    return position >= 0;
+  }
+
+  /** 前回以降に確定した変更を返し、読んだ位置を進める。 */
+  public Changes poll() {
+    if (!isPositioned()) {
+      throw new IllegalStateException("reset() を先に呼んでください");
+    }
+    long upper = repository.settledChangeSeq();
+    if (upper <= position) {
+      return new Changes(List.of(), List.of());
+    }
+    // id ごとに変更番号の最も大きい変更（登録・更新なら Estimate、削除なら null）
+    Map<String, Long> latestSeq = new HashMap<>();
+    Map<String, Estimate> latest = new HashMap<>();
+    long after = position;
+    while (true) {
+      List<Estimate> rows = repository.selectChangedBetween(after, upper, batchSize);
+      for (Estimate row : rows) {
+        if (latestSeq.merge(row.id, row.changeSeq, Math::max).equals(row.changeSeq)) {
+          latest.put(row.id, row);
+        }
+      }
+      if (rows.size() < batchSize) {
+        break;
+      }
+      after = rows.get(rows.size() - 1).changeSeq;
+    }
+    after = position;
+    while (true) {
+      List<EstimateTombstone> tombstones =
+          repository.selectTombstonesChangedBetween(after, upper, batchSize);
+      for (EstimateTombstone tombstone : tombstones) {
+        if (latestSeq.merge(tombstone.id, tombstone.changeSeq, Math::max)
+            .equals(tombstone.changeSeq)) {
+          latest.put(tombstone.id, null);
+        }
+      }
+      if (tombstones.size() < batchSize) {
+        break;
+      }
+      after = tombstones.get(tombstones.size() - 1).changeSeq;
+    }
+    position = upper;
+
+    List<Estimate> saved = new ArrayList<>();
+    List<String> deletedIds = new ArrayList<>();
+    latest.forEach(
+        (id, estimate) -> {
+          if (estimate == null) {
+            deletedIds.add(id);
+          } else {
+            saved.add(estimate);
+          }
+        });
+    return new Changes(saved, deletedIds);
+  }
+}
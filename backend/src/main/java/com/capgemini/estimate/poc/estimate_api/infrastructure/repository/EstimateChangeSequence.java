@@ -0,0 +1,175 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.builder.SelectBuilder;
+import org.seasar.doma.jdbc.builder.UpdateBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 変更番号（estimate / estimate_tombstone の {@code change_seq}、DB のシーケンス {@code estimate_change_seq}）。
+ *
+ * <p>差分同期は変更番号の順に読むため、各レプリカの時計（{@code updated_at}）のずれに影響されない。番号は
+ * {@link EstimateRepositoryImpl} が書き込んだ行に対してコミット直前にまとめて採番する（トランザクション外では書き込みの直後）。
+ * 採番からコミットまでは一瞬のため、「{@code app.changes.settle-lag} より前に取った番号」未満の行はすべてコミット済みとみなせる。
+ * この番号を {@link #settled()} で返し、差分同期の読み出しの上限にする（コミット順と採番順が前後しても取りこぼさない）。
+ */
+@Component
+public class EstimateChangeSequence {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateChangeSequence.class);
+
+  /** Oracle の IN リストに指定できる要素数の上限 */
+  private static final int MAX_IN_LIST = 1000;
+
+  private final Config config;
+  private final Duration settleLag;
+
+  /** 定期的に取った番号（古い順）。{@code settleLag} を過ぎた最新の 1 件より古いものは捨てる */
+  private final Deque<Sample> samples = new ArrayDeque<>();
+
+  private record Sample(long nanoTime, long value) {}
+
+  public EstimateChangeSequence(
+      Config config, @Value("${app.changes.settle-lag:PT2S}") Duration settleLag) {
+    this.config = config;
+    this.settleLag = settleLag;
+  }
+
+  /** 見積の変更を記録する（コミット直前、トランザクション外では即時に変更番号を振る）。 */
+  public void estimatesChanged(Collection<String> ids) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      pending().estimates.addAll(ids);
+    } else {
+      stamp("estimate", List.copyOf(ids));
+    }
+  }
+
+  /** 削除の記録の変更を記録する。 */
+  public void tombstonesChanged(Collection<String> ids) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      pending().tombstones.addAll(ids);
+    } else {
+      stamp("estimate_tombstone", List.copyOf(ids));
+    }
+  }
+
+  /**
+   * コミット済みとみなせる変更番号の上限（この値未満の行は読み出し時点ですべてコミット済み）。
+   *
+   * <p>起動直後で {@code settleLag} より前の番号がまだ無い場合は、最も古い番号が条件を満たすまで待つ。
+   */
+  public long settled() {
+    if (settleLag.isZero()) {
+      return next();
+    }
+    Sample oldest;
+    synchronized (samples) {
+      if (samples.isEmpty()) {
+        samples.addLast(new Sample(System.nanoTime(), next()));
+      }
+      long threshold = System.nanoTime() - settleLag.toNanos();
+      Sample settled = null;
+      for (Sample sample : samples) {
+        if (sample.nanoTime() - threshold > 0) {
+          break;
+        }
+        settled = sample;
+      }
+      if (settled != null) {
+        return settled.value();
+      }
+      oldest = samples.getFirst();
+    }
+    try {
+      Thread.sleep(Duration.ofNanos(oldest.nanoTime() + settleLag.toNanos() - System.nanoTime()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("変更番号の確定待ちが中断されました", e);
+    }
+    return oldest.value();
+  }
+
+  /** 番号を定期的に取っておく（{@link #settled()} が DB を待たずに返せるように）。 */
+  @Scheduled(fixedDelayString = "${app.changes.sample-interval:PT1S}")
+  void sample() {
+    try {
+      long value = next();
+      long now = System.nanoTime();
+      synchronized (samples) {
+        samples.addLast(new Sample(now, value));
+        long threshold = now - settleLag.toNanos();
+        // settleLag を過ぎたものは最新の 1 件だけ残す
+        while (true) {
+          Sample first = samples.pollFirst();
+          Sample second = samples.peekFirst();
+          if (second == null || second.nanoTime() - threshold > 0) {
+            samples.addFirst(first);
+            break;
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to sample estimate change sequence", e);
+    }
+  }
+
+  /** シーケンスの次の値。 */
+  long next() {
+    return SelectBuilder.newInstance(config)
+        .sql("SELECT estimate_change_seq.NEXTVAL FROM DUAL")
+        .getScalarSingleResult(Long.class);
+  }
+
+  /** このトランザクションで書き込んだ id（初回に同期処理を登録する）。 */
+  private Pending pending() {
+    Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      pending = new Pending();
+      TransactionSynchronizationManager.bindResource(this, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    return pending;
+  }
+
+  /** トランザクション中に書き込んだ id。コミット直前に変更番号を振る。 */
+  private final class Pending implements TransactionSynchronization {
+    final Set<String> estimates = new LinkedHashSet<>();
+    final Set<String> tombstones = new LinkedHashSet<>();
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      // 削除 → 再登録の順に適用されるよう、削除の記録を先に振る
+      stamp("estimate_tombstone", List.copyOf(tombstones));
+      stamp("estimate", List.copyOf(estimates));
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(EstimateChangeSequence.this);
+    }
+  }
+
+  private void stamp(String table, List<String> ids) {
+    for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+      List<String> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+      UpdateBuilder.newInstance(config)
+          .sql("UPDATE " + table + " SET change_seq = estimate_change_seq.NEXTVAL WHERE id IN (")
+          .params(String.class, chunk)
+          .sql(")")
+          .execute();
+    }
+  }
+}
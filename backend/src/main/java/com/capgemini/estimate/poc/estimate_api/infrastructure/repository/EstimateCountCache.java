@@ -0,0 +1,55 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * estimate テーブルの総件数のキャッシュ（Redis）。
+ *
+ * <p>キー: {@code estimate:total-count:v{データバージョン}}。書き込みのたびにデータバージョンが進むため、
+ * 明示的な削除をしなくても次の参照で数え直される（古いキーは TTL で消える）。
+ *
+ * <p>件数は呼び出し元のトランザクションを中断して primary で数える。読み取り専用トランザクション（リードレプリカ）で
+ * 数えると、レプリカの遅延で古い件数が新しいバージョンのキーに TTL の間残ってしまうため。
+ */
+@Component
+public class EstimateCountCache {
+
+  private static final Duration TTL = Duration.ofHours(1);
+
+  private final StringRedisTemplate redisTemplate;
+  private final EstimateDataVersion dataVersion;
+  private final TransactionTemplate onPrimary;
+
+  public EstimateCountCache(
+      StringRedisTemplate redisTemplate,
+      EstimateDataVersion dataVersion,
+      PlatformTransactionManager transactionManager) {
+    this.redisTemplate = redisTemplate;
+    this.dataVersion = dataVersion;
+    this.onPrimary = new TransactionTemplate(transactionManager);
+    this.onPrimary.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+  }
+
+  /**
+   * 現在のデータバージョンの件数を返す。キャッシュに無ければ {@code counter} で（primary で）数えて保存する。
+   *
+   * <p>数えている間に書き込みがあった場合でも、結果は数え始めたバージョンのキーにしか保存しないため、
+   * 新しいバージョンに古い件数が残ることはない。
+   */
+  public long get(LongSupplier counter) {
+    String key = "estimate:total-count:v" + dataVersion.current();
+    String cached = redisTemplate.opsForValue().get(key);
+    if (cached != null) {
+      return Long.parseLong(cached);
+    }
+    long count = onPrimary.execute(status -> counter.getAsLong());
+    redisTemplate.opsForValue().set(key, String.valueOf(count), TTL);
+    return count;
+  }
+}
@@ -0,0 +1,50 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * estimate テーブルのデータバージョン（Redis のカウンタ）。
+ *
+ * <p>キー: {@code estimate:data-version}。{@link EstimateRepositoryImpl} が insert/update/delete のたびに
+ * INCR するため、値が同じであれば全レプリカで同一内容とみなせる。生成物（エクスポートファイル等）のキャッシュキーに使う。
+ */
+@Component
+public class EstimateDataVersion {
+
+  private static final String KEY = "estimate:data-version";
+
+  private final StringRedisTemplate redisTemplate;
+
+  public EstimateDataVersion(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  /** 現在のバージョン。未初期化なら 0。 */
+  public long current() {
+    String value = redisTemplate.opsForValue().get(KEY);
+    return value == null ? 0L : Long.parseLong(value);
+  }
+
+  /**
+   * バージョンを進める。
+   *
+   * <p>トランザクション中はコミット後に進める（コミット前に進めると、新しいバージョンで古い内容がキャッシュされるため）。
+   * ロールバックした場合は進めない。
+   */
+  public void bump() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              redisTemplate.opsForValue().increment(KEY);
+            }
+          });
+      return;
+    }
+    redisTemplate.opsForValue().increment(KEY);
+  }
+}
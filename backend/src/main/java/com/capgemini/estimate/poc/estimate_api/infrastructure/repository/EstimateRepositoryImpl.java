@@ -1,19 +1,84 @@
 package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
 
+import static org.seasar.doma.jdbc.criteria.expression.Expressions.add;
+import static org.seasar.doma.jdbc.criteria.expression.Expressions.count;
+
+import com.capgemini.estimate.poc.estimate_api.common.id.IdGenerator;
 import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItem;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItemChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItem_;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateTombstone;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateTombstone_;
 import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate_;
 import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException;
+import com.capgemini.estimate.poc.estimate_api.exception.EstimateNotFoundException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidEstimateItemException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.builder.SelectBuilder;
 import org.seasar.doma.jdbc.criteria.QueryDsl;
+import org.seasar.doma.jdbc.criteria.declaration.WhereDeclaration;
+import org.seasar.doma.jdbc.criteria.metamodel.PropertyMetamodel;
+import org.seasar.doma.jdbc.criteria.option.LikeOption;
+import org.seasar.doma.jdbc.dialect.OracleDialect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class EstimateRepositoryImpl implements EstimateRepository {
+  /** ストリーム読み出し時のフェッチサイズ（Oracle JDBC の既定 10 行では往復が多すぎるため） */
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  /** Oracle の IN リストに指定できる要素数の上限 */
+  private static final int MAX_IN_LIST = 1000;
+
   private final QueryDsl queryDsl;
+  private final Config config;
+  private final EstimateDataVersion dataVersion;
+  private final EstimateCountCache countCache;
+  private final IdGenerator idGenerator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EstimateChangeSequence changeSequence;
 
-  public EstimateRepositoryImpl(QueryDsl queryDsl) {
+  /** insertAll / updateAll / deleteAll で 1 回の JDBC バッチにまとめる行数 */
+  private final int batchSize;
+
+  public EstimateRepositoryImpl(
+      QueryDsl queryDsl,
+      Config config,
+      EstimateDataVersion dataVersion,
+      EstimateCountCache countCache,
+      IdGenerator idGenerator,
+      ApplicationEventPublisher eventPublisher,
+      EstimateChangeSequence changeSequence,
+      @Value("${app.batch.jdbc-batch-size:100}") int batchSize) {
     this.queryDsl = queryDsl;
+    this.config = config;
+    this.dataVersion = dataVersion;
+    this.countCache = countCache;
+    this.idGenerator = idGenerator;
+    this.eventPublisher = eventPublisher;
+    this.changeSequence = changeSequence;
+    this.batchSize = batchSize;
   }
 
   @Override
@@ -23,31 +88,631 @@ public class EstimateRepositoryImpl implements EstimateRepository {
     return queryDsl.from(e).fetch();
   }
 
+  @Override
+  public List<Estimate> selectAll(Set<EstimateField> fields) {
+    if (fields == null) {
+      return selectAll();
+    }
+    var e = new Estimate_();
+
+    return queryDsl.from(e).selectTo(e, columns(e, fields)).fetch();
+  }
+
+  @Override
+  public <R> R streamAll(Function<Stream<Estimate>, R> streamMapper) {
+    var e = new Estimate_();
+
+    return queryDsl
+        .from(e, settings -> settings.setFetchSize(STREAM_FETCH_SIZE))
+        .mapStream(streamMapper);
+  }
+
+  @Override
+  public <R> R streamByCustomerRange(
+      String fromInclusive,
+      String toExclusive,
+      Long scn,
+      Function<Stream<Estimate>, R> streamMapper) {
+    SelectBuilder builder = selectEstimates(scn).sql(" WHERE 1 = 1");
+    if (fromInclusive != null && toExclusive == null) {
+      // 顧客名未設定（null は最大値として並ぶ）は最後の範囲に含める
+      builder
+          .sql(" AND (customer_name >= ")
+          .param(String.class, fromInclusive)
+          .sql(" OR customer_name IS NULL)");
+    } else if (fromInclusive != null) {
+      builder.sql(" AND customer_name >= ").param(String.class, fromInclusive);
+    }
+    if (toExclusive != null) {
+      builder.sql(" AND customer_name < ").param(String.class, toExclusive);
+    }
+    return builder.sql(" ORDER BY customer_name, id").streamEntity(Estimate.class, streamMapper);
+  }
+
+  @Override
+  public <R> R streamByIdRange(
+      String fromInclusive,
+      String toExclusive,
+      Long scn,
+      Function<Stream<Estimate>, R> streamMapper) {
+    SelectBuilder builder = selectEstimates(scn).sql(" WHERE 1 = 1");
+    if (fromInclusive != null) {
+      builder.sql(" AND id >= ").param(String.class, fromInclusive);
+    }
+    if (toExclusive != null) {
+      builder.sql(" AND id < ").param(String.class, toExclusive);
+    }
+    return builder.sql(" ORDER BY id").streamEntity(Estimate.class, streamMapper);
+  }
+
+  /**
+   * estimate の全列を読む SELECT。フラッシュバック問い合わせ（{@code AS OF SCN}）は Criteria API で書けないため SQL で組み立てる。
+   */
+  private SelectBuilder selectEstimates(Long scn) {
+    SelectBuilder builder =
+        SelectBuilder.newInstance(config)
+            .sql("SELECT id, title, customer_name, total_amount, updated_at, version, change_seq")
+            .sql(" FROM estimate");
+    if (scn != null) {
+      builder.sql(" AS OF SCN ").param(Long.class, scn);
+    }
+    return builder.fetchSize(STREAM_FETCH_SIZE);
+  }
+
+  @Override
+  public Long currentScn() {
+    if (!(config.getDialect() instanceof OracleDialect)) {
+      return null;
+    }
+    return SelectBuilder.newInstance(config)
+        .sql("SELECT DBMS_FLASHBACK.GET_SYSTEM_CHANGE_NUMBER FROM DUAL")
+        .getScalarSingleResult(Long.class);
+  }
+
+  @Override
+  public List<Estimate> selectChangedBetween(long afterSeq, long toSeqInclusive, int limit) {
+    var e = new Estimate_();
+
+    // estimate_change_seq_ix の範囲走査
+    return queryDsl
+        .from(e)
+        .where(
+            c -> {
+              c.gt(e.changeSeq, afterSeq);
+              c.le(e.changeSeq, toSeqInclusive);
+            })
+        .orderBy(c -> c.asc(e.changeSeq))
+        .limit(limit)
+        .fetch();
+  }
+
+  @Override
+  public List<EstimateTombstone> selectTombstonesChangedBetween(
+      long afterSeq, long toSeqInclusive, int limit) {
+    var t = new EstimateTombstone_();
+
+    // estimate_tombstone_change_seq_ix の範囲走査
+    return queryDsl
+        .from(t)
+        .where(
+            c -> {
+              c.gt(t.changeSeq, afterSeq);
+              c.le(t.changeSeq, toSeqInclusive);
+            })
+        .orderBy(c -> c.asc(t.changeSeq))
+        .limit(limit)
+        .fetch();
+  }
+
+  @Override
+  public long settledChangeSeq() {
+    return changeSequence.settled();
+  }
+
+  @Override
+  public int purgeTombstones(LocalDateTime before) {
+    var t = new EstimateTombstone_();
+
+    return queryDsl.delete(t).where(c -> c.lt(t.deletedAt, before)).execute();
+  }
+
+  /** 削除の記録を残す（同じ id が再登録後に再び削除された場合は日時を更新する）。 */
+  private void recordTombstones(List<String> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    List<EstimateTombstone> tombstones = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      EstimateTombstone tombstone = new EstimateTombstone();
+      tombstone.id = id;
+      tombstone.deletedAt = now;
+      tombstones.add(tombstone);
+    }
+    var t = new EstimateTombstone_();
+
+    queryDsl
+        .insert(t, settings -> settings.setBatchSize(batchSize))
+        .batch(tombstones)
+        .onDuplicateKeyUpdate()
+        .execute();
+    changeSequence.tombstonesChanged(ids);
+  }
+
+  @Override
+  public List<String> selectCustomerBoundaries(int partitions) {
+    if (partitions <= 1) {
+      return List.of();
+    }
+    // 各バケットの先頭の顧客名。件数の多い顧客が複数のバケットにまたがると先頭が重なるため、先頭のバケットと同じ
+    // 顧客名・重複を除いて境界にする（範囲は顧客の途中で切れない）
+    List<String> firsts =
+        SelectBuilder.newInstance(config)
+            .sql("SELECT MIN(customer_name) FROM (")
+            .sql("SELECT customer_name,")
+            .sql(" NTILE(" + partitions + ") OVER (ORDER BY customer_name) AS bucket")
+            .sql(" FROM estimate WHERE customer_name IS NOT NULL")
+            .sql(") t GROUP BY bucket ORDER BY bucket")
+            .getScalarResultList(String.class);
+    if (firsts.isEmpty()) {
+      return List.of();
+    }
+    return firsts.stream().skip(1).filter(name -> !name.equals(firsts.get(0))).distinct().toList();
+  }
+
+  @Override
+  public List<String> selectIdBoundaries(int partitions) {
+    if (partitions <= 1) {
+      return List.of();
+    }
+    // 主キー索引の順に partitions 個のバケットへ振り分け、2 番目以降のバケットの先頭 id だけを返す
+    return SelectBuilder.newInstance(config)
+        .sql("SELECT MIN(id) FROM (")
+        .sql("SELECT id, NTILE(" + partitions + ") OVER (ORDER BY id) AS bucket FROM estimate")
+        .sql(") t WHERE bucket > 1 GROUP BY bucket ORDER BY bucket")
+        .getScalarResultList(String.class);
+  }
+
   @Override
   public void insert(Estimate estimate) {
-    estimate.id = UUID.randomUUID().toString();
+    estimate.id = idGenerator.next();
+    estimate.updatedAt = LocalDateTime.now();
+    estimate.version = null;
     var e = new Estimate_();
 
     queryDsl.insert(e).single(estimate).execute();
+    estimate.version = 1L;
+    changeSequence.estimatesChanged(List.of(estimate.id));
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.created(List.of(estimate)));
+  }
+
+  @Override
+  @Transactional
+  public void upsertAll(List<Estimate> estimates) {
+    if (estimates.isEmpty()) {
+      return;
+    }
+    // MERGE ではバージョンの検査・加算ができないため、既存行は更新・それ以外は登録に振り分ける
+    for (int attempt = 0; ; attempt++) {
+      Map<String, Long> versions =
+          selectVersions(estimates.stream().map(x -> x.id).filter(Objects::nonNull).toList());
+      List<Estimate> updates = new ArrayList<>();
+      List<Estimate> inserts = new ArrayList<>();
+      for (Estimate estimate : estimates) {
+        Long version = estimate.id == null ? null : versions.get(estimate.id);
+        if (version == null) {
+          inserts.add(estimate);
+        } else {
+          estimate.version = version;
+          updates.add(estimate);
+        }
+      }
+      int[] counts = updateAll(updates);
+      if (Arrays.stream(counts).noneMatch(c -> c == 0)) {
+        insertAll(inserts);
+        return;
+      }
+      if (attempt > 0) {
+        throw new EstimateConflictException("取り込み中に他の更新と競合しました。");
+      }
+      // 読み出しと更新の間に他の更新が入った。更新できた行は対象から外してやり直す
+      List<Estimate> remaining = new ArrayList<>(inserts);
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          remaining.add(updates.get(i));
+        }
+      }
+      estimates = remaining;
+    }
   }
 
   @Override
-  public void delete(String id) {
+  @Transactional
+  public void delete(String id, Long expectedVersion) {
     var e = new Estimate_();
 
-    var estimate = queryDsl.from(e).where(c -> c.eq(e.id, id)).fetchOne();
-    queryDsl.delete(e).single(estimate).execute();
+    int count =
+        queryDsl
+            .delete(e)
+            .where(
+                c -> {
+                  c.eq(e.id, id);
+                  if (expectedVersion != null) {
+                    c.eq(e.version, expectedVersion);
+                  }
+                })
+            .execute();
+    if (count == 0) {
+      throw notUpdated(id);
+    }
+    recordTombstones(List.of(id));
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.deleted(List.of(id)));
   }
 
   @Override
   public void update(Estimate estimate) {
     var e = new Estimate_();
+    var i = new EstimateItem_();
+    LocalDateTime now = LocalDateTime.now();
+
+    // 1 文で検査と更新を行う: UPDATE ... SET VERSION = VERSION + 1 WHERE ID = ? [AND VERSION = ?]
+    // 明細のある見積の合計金額は明細から集計した値のため、明細が無い場合だけ入力値で更新する
+    int count =
+        queryDsl
+            .update(e)
+            .set(
+                c -> {
+                  c.value(e.title, estimate.title);
+                  c.value(e.customerName, estimate.customerName);
+                  c.value(e.totalAmount, estimate.totalAmount);
+                  c.value(e.updatedAt, now);
+                  c.value(e.version, add(e.version, 1L));
+                })
+            .where(
+                c -> {
+                  c.eq(e.id, estimate.id);
+                  if (estimate.version != null) {
+                    c.eq(e.version, estimate.version);
+                  }
+                  c.notExists(c.from(i).where(c2 -> c2.eq(i.estimateId, e.id)));
+                })
+            .execute();
+    boolean itemized = false;
+    if (count == 0) {
+      count =
+          queryDsl
+              .update(e)
+              .set(
+                  c -> {
+                    c.value(e.title, estimate.title);
+                    c.value(e.customerName, estimate.customerName);
+                    c.value(e.updatedAt, now);
+                    c.value(e.version, add(e.version, 1L));
+                  })
+              .where(
+                  c -> {
+                    c.eq(e.id, estimate.id);
+                    if (estimate.version != null) {
+                      c.eq(e.version, estimate.version);
+                    }
+                    c.exists(c.from(i).where(c2 -> c2.eq(i.estimateId, e.id)));
+                  })
+              .execute();
+      itemized = count != 0;
+    }
+    if (count == 0) {
+      throw notUpdated(estimate.id);
+    }
+    changeSequence.estimatesChanged(List.of(estimate.id));
+    if (itemized) {
+      estimate.totalAmount = selectById(estimate.id).totalAmount;
+    }
+    estimate.updatedAt = now;
+    estimate.version = estimate.version == null ? null : estimate.version + 1;
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.updated(List.of(estimate)));
+  }
+
+  /** 条件付き更新・削除の件数が 0 だった理由を判定する（失敗時のみ 1 回余分に読む）。 */
+  private RuntimeException notUpdated(String id) {
+    if (selectById(id) == null) {
+      return new EstimateNotFoundException(id);
+    }
+    return new EstimateConflictException("見積が他の更新により変更されています: " + id);
+  }
+
+  @Override
+  public List<Estimate> selectPage(
+      EstimateFilter filter,
+      EstimateSortKey sort,
+      boolean descending,
+      Estimate after,
+      int limit,
+      Set<EstimateField> fields) {
+    var e = new Estimate_();
+
+    var query =
+        queryDsl
+            .from(e)
+            .where(
+                c -> {
+                  filter(c, e, filter);
+                  if (after != null) {
+                    c.and(() -> after(c, e, sort, descending, after));
+                  }
+                })
+            .orderBy(
+                c -> {
+                  PropertyMetamodel<?> column = sortColumn(e, sort);
+                  if (descending) {
+                    c.desc(column);
+                    if (column != e.id) {
+                      c.desc(e.id);
+                    }
+                  } else {
+                    c.asc(column);
+                    if (column != e.id) {
+                      c.asc(e.id);
+                    }
+                  }
+                })
+            .limit(limit);
+    if (fields == null) {
+      return query.fetch();
+    }
+    // 指定された項目とソート列（カーソル用）だけを SELECT する
+    Set<EstimateField> selected = EnumSet.noneOf(EstimateField.class);
+    selected.addAll(fields);
+    selected.add(EstimateField.of(sort));
+    return query.selectTo(e, columns(e, selected)).fetch();
+  }
+
+  /** {@code selectTo} に渡す列（id は selectTo が常に含めるため除く）。 */
+  private static PropertyMetamodel<?>[] columns(Estimate_ e, Set<EstimateField> fields) {
+    return fields.stream()
+        .filter(field -> field != EstimateField.ID)
+        .map(field -> column(e, field))
+        .toArray(PropertyMetamodel<?>[]::new);
+  }
+
+  private static PropertyMetamodel<?> column(Estimate_ e, EstimateField field) {
+    return switch (field) {
+      case ID -> e.id;
+      case TITLE -> e.title;
+      case CUSTOMER_NAME -> e.customerName;
+      case TOTAL_AMOUNT -> e.totalAmount;
+      case UPDATED_AT -> e.updatedAt;
+      case VERSION -> e.version;
+    };
+  }
+
+  @Override
+  public long count(EstimateFilter filter) {
+    var e = new Estimate_();
+
+    Long total = queryDsl.from(e).where(c -> filter(c, e, filter)).select(count()).fetchOne();
+    return total == null ? 0L : total;
+  }
+
+  /** 絞り込み条件。顧客名は前方一致・金額は範囲のため、それぞれの索引の範囲走査になる。 */
+  private static void filter(WhereDeclaration c, Estimate_ e, EstimateFilter filter) {
+    if (filter.customerNamePrefix() != null) {
+      c.like(e.customerName, filter.customerNamePrefix(), LikeOption.prefix());
+    }
+    if (filter.titleKeyword() != null) {
+      c.like(e.title, filter.titleKeyword(), LikeOption.infix());
+    }
+    if (filter.minTotalAmount() != null) {
+      c.ge(e.totalAmount, filter.minTotalAmount());
+    }
+    if (filter.maxTotalAmount() != null) {
+      c.le(e.totalAmount, filter.maxTotalAmount());
+    }
+  }
+
+  /** {@code (ソート列, id)} が {@code after} より後ろの行。 */
+  private static void after(
+      WhereDeclaration c, Estimate_ e, EstimateSortKey sort, boolean descending, Estimate after) {
+    switch (sort) {
+      case ID -> idAfter(c, e, descending, after.id);
+      case TITLE -> keyAfter(c, e, e.title, after.title, descending, after.id);
+      case CUSTOMER_NAME -> keyAfter(c, e, e.customerName, after.customerName, descending, after.id);
+      case TOTAL_AMOUNT -> keyAfter(c, e, e.totalAmount, after.totalAmount, descending, after.id);
+      case UPDATED_AT -> keyAfter(c, e, e.updatedAt, after.updatedAt, descending, after.id);
+    }
+  }
+
+  /**
+   * 複合キーの「後ろ」の条件。Oracle では null が最大値として並ぶため、昇順では null 群が末尾、降順では先頭になる。
+   */
+  private static <T> void keyAfter(
+      WhereDeclaration c,
+      Estimate_ e,
+      PropertyMetamodel<T> column,
+      T value,
+      boolean descending,
+      String id) {
+    if (value == null) {
+      // null 群の中では id 順。昇順なら null 群が最後なので、その残りだけ
+      c.isNull(column);
+      c.and(() -> idAfter(c, e, descending, id));
+      if (descending) {
+        c.or(() -> c.isNotNull(column));
+      }
+      return;
+    }
+    if (descending) {
+      c.lt(column, value);
+    } else {
+      c.gt(column, value);
+    }
+    c.or(
+        () -> {
+          c.eq(column, value);
+          idAfter(c, e, descending, id);
+        });
+    if (!descending) {
+      c.or(() -> c.isNull(column));
+    }
+  }
+
+  private static void idAfter(WhereDeclaration c, Estimate_ e, boolean descending, String id) {
+    if (descending) {
+      c.lt(e.id, id);
+    } else {
+      c.gt(e.id, id);
+    }
+  }
+
+  private static PropertyMetamodel<?> sortColumn(Estimate_ e, EstimateSortKey sort) {
+    return switch (sort) {
+      case ID -> e.id;
+      case TITLE -> e.title;
+      case CUSTOMER_NAME -> e.customerName;
+      case TOTAL_AMOUNT -> e.totalAmount;
+      case UPDATED_AT -> e.updatedAt;
+    };
+  }
+
+  @Override
+  public void insertAll(List<Estimate> estimates) {
+    if (estimates.isEmpty()) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    for (Estimate estimate : estimates) {
+      if (estimate.id == null) {
+        estimate.id = idGenerator.next();
+      }
+      estimate.updatedAt = now;
+      estimate.version = null;
+    }
+    var e = new Estimate_();
+
+    queryDsl.insert(e, settings -> settings.setBatchSize(batchSize)).batch(estimates).execute();
+    for (Estimate estimate : estimates) {
+      estimate.version = 1L;
+    }
+    changeSequence.estimatesChanged(estimates.stream().map(x -> x.id).toList());
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.created(estimates));
+  }
+
+  @Override
+  public int[] updateAll(List<Estimate> estimates) {
+    if (estimates.isEmpty()) {
+      return new int[0];
+    }
+    LocalDateTime now = LocalDateTime.now();
+    // 明細のある見積の合計金額は入力値で上書きせず、現在の値のまま書き戻す。読んでから更新までに明細が変わった場合は
+    // 見積のバージョンが進んでいるため、その行は競合（件数 0）になる
+    Map<String, Integer> itemizedTotals =
+        selectItemizedTotals(estimates.stream().map(x -> x.id).toList());
+    for (Estimate estimate : estimates) {
+      estimate.updatedAt = now;
+      if (itemizedTotals.containsKey(estimate.id)) {
+        estimate.totalAmount = itemizedTotals.get(estimate.id);
+      }
+    }
+    var e = new Estimate_();
+
+    // WHERE ID = ? AND VERSION = ?。競合行は例外にせず件数 0 として返す
+    int[] counts =
+        queryDsl
+            .update(
+                e,
+                settings -> {
+                  settings.setBatchSize(batchSize);
+                  settings.setSuppressOptimisticLockException(true);
+                })
+            .batch(estimates)
+            .execute()
+            .getCounts();
+    List<Estimate> updated = succeeded(estimates, counts);
+    changeSequence.estimatesChanged(updated.stream().map(x -> x.id).toList());
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.updated(updated));
+    return counts;
+  }
+
+  @Override
+  @Transactional
+  public int[] deleteAll(List<Estimate> keys) {
+    if (keys.isEmpty()) {
+      return new int[0];
+    }
+    var e = new Estimate_();
 
-    var _estimate = queryDsl.from(e).where(c -> c.eq(e.id, estimate.id)).fetchOne();
-    _estimate.customerName = estimate.customerName;
-    _estimate.title = estimate.title;
-    _estimate.totalAmount = estimate.totalAmount;
-    queryDsl.update(e).single(estimate).execute();
+    int[] counts =
+        queryDsl
+            .delete(
+                e,
+                settings -> {
+                  settings.setBatchSize(batchSize);
+                  settings.setSuppressOptimisticLockException(true);
+                })
+            .batch(keys)
+            .execute()
+            .getCounts();
+    List<String> deleted = succeeded(keys, counts).stream().map(x -> x.id).toList();
+    recordTombstones(deleted);
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.deleted(deleted));
+    return counts;
+  }
+
+  /** JDBC バッチで反映された行（件数 0 以外。ドライバが件数を返さない場合は反映済みとみなす）。 */
+  private static List<Estimate> succeeded(List<Estimate> estimates, int[] counts) {
+    List<Estimate> result = new ArrayList<>(estimates.size());
+    for (int i = 0; i < estimates.size(); i++) {
+      if (counts[i] != 0) {
+        result.add(estimates.get(i));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> selectVersions(Collection<String> ids) {
+    var e = new Estimate_();
+
+    Map<String, Long> versions = new HashMap<>();
+    List<String> all = List.copyOf(ids);
+    // Oracle の IN リストは 1000 件まで
+    for (int from = 0; from < all.size(); from += MAX_IN_LIST) {
+      List<String> chunk = all.subList(from, Math.min(from + MAX_IN_LIST, all.size()));
+      queryDsl
+          .from(e)
+          .where(c -> c.in(e.id, chunk))
+          .select(e.id, e.version)
+          .fetch()
+          .forEach(t -> versions.put(t.getItem1(), t.getItem2()));
+    }
+    return versions;
+  }
+
+  /** {@code ids} のうち明細のある見積の合計金額（id をキーにする）。 */
+  private Map<String, Integer> selectItemizedTotals(List<String> ids) {
+    var e = new Estimate_();
+    var i = new EstimateItem_();
+
+    Map<String, Integer> totals = new HashMap<>();
+    for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+      List<String> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+      queryDsl
+          .from(e)
+          .where(
+              c -> {
+                c.in(e.id, chunk);
+                c.exists(c.from(i).where(c2 -> c2.eq(i.estimateId, e.id)));
+              })
+          .select(e.id, e.totalAmount)
+          .fetch()
+          .forEach(t -> totals.put(t.getItem1(), t.getItem2()));
+    }
+    return totals;
   }
 
   @Override
@@ -56,4 +721,243 @@ public class EstimateRepositoryImpl implements EstimateRepository {
 
     return queryDsl.from(e).where(c -> c.eq(e.id, id)).fetchOne();
   }
+
+  @Override
+  public Map<String, Estimate> selectByIds(Collection<String> ids) {
+    var e = new Estimate_();
+
+    Map<String, Estimate> found = new HashMap<>();
+    List<String> all = List.copyOf(ids);
+    // Oracle の IN リストは 1000 件まで
+    for (int from = 0; from < all.size(); from += MAX_IN_LIST) {
+      List<String> chunk = all.subList(from, Math.min(from + MAX_IN_LIST, all.size()));
+      queryDsl
+          .from(e)
+          .where(c -> c.in(e.id, chunk))
+          .fetch()
+          .forEach(estimate -> found.put(estimate.id, estimate));
+    }
+    return found;
+  }
+
+  @Override
+  public Estimate selectWithItems(String id) {
+    var e = new Estimate_();
+    var i = new EstimateItem_();
+
+    Estimate found =
+        queryDsl
+            .from(e)
+            .leftJoin(i, on -> on.eq(e.id, i.estimateId))
+            .where(c -> c.eq(e.id, id))
+            .orderBy(c -> c.asc(i.lineNo))
+            .associate(
+                e,
+                i,
+                (estimate, item) -> {
+                  if (estimate.items == null) {
+                    estimate.items = new ArrayList<>();
+                  }
+                  estimate.items.add(item);
+                })
+            .fetchOne();
+    if (found != null && found.items == null) {
+      found.items = List.of();
+    }
+    return found;
+  }
+
+  @Override
+  @Transactional
+  public Estimate applyItemChanges(
+      String estimateId, Long expectedVersion, EstimateItemChanges changes) {
+    Estimate estimate = selectById(estimateId);
+    if (estimate == null) {
+      throw new EstimateNotFoundException(estimateId);
+    }
+    if (expectedVersion != null && !expectedVersion.equals(estimate.version)) {
+      throw new EstimateConflictException("見積が他の更新により変更されています: " + estimateId);
+    }
+
+    // 更新・削除する明細の現在の金額だけを読み、合計金額の差分を求める
+    List<String> touched = new ArrayList<>();
+    changes.update().forEach(item -> touched.add(item.id));
+    changes.delete().forEach(item -> touched.add(item.id));
+    Map<String, EstimateItem> current = selectItems(estimateId, touched);
+    long delta = 0;
+    for (EstimateItem item : changes.update()) {
+      EstimateItem old = existing(current, item.id);
+      item.estimateId = estimateId;
+      item.amount = amount(item);
+      if (item.version == null) {
+        item.version = old.version;
+      }
+      delta += item.amount - old.amount;
+    }
+    for (EstimateItem item : changes.delete()) {
+      EstimateItem old = existing(current, item.id);
+      if (item.version == null) {
+        item.version = old.version;
+      }
+      delta -= old.amount;
+    }
+    for (EstimateItem item : changes.add()) {
+      item.id = idGenerator.next();
+      item.estimateId = estimateId;
+      item.amount = amount(item);
+      item.version = null;
+      delta += item.amount;
+    }
+    // 明細の無い見積の合計金額は入力値のため、最初の明細からは 0 を起点に数える
+    boolean hadItems = !current.isEmpty() || hasItems(estimateId);
+    long base = hadItems && estimate.totalAmount != null ? estimate.totalAmount : 0;
+    int total = toAmount(base + delta);
+
+    writeItems(changes);
+
+    var e = new Estimate_();
+    LocalDateTime now = LocalDateTime.now();
+    int count =
+        queryDsl
+            .update(e)
+            .set(
+                c -> {
+                  c.value(e.totalAmount, total);
+                  c.value(e.updatedAt, now);
+                  c.value(e.version, add(e.version, 1L));
+                })
+            .where(
+                c -> {
+                  c.eq(e.id, estimateId);
+                  c.eq(e.version, estimate.version);
+                })
+            .execute();
+    if (count == 0) {
+      throw new EstimateConflictException("見積が他の更新により変更されています: " + estimateId);
+    }
+    changeSequence.estimatesChanged(List.of(estimateId));
+    estimate.totalAmount = total;
+    estimate.updatedAt = now;
+    estimate.version = estimate.version + 1;
+    dataVersion.bump();
+    eventPublisher.publishEvent(EstimateChangedEvent.updated(List.of(estimate)));
+    return estimate;
+  }
+
+  /** 明細の追加・更新・削除（JDBC バッチ）。バージョンが異なる明細があれば全体を取り消す。 */
+  private void writeItems(EstimateItemChanges changes) {
+    var i = new EstimateItem_();
+
+    if (!changes.add().isEmpty()) {
+      queryDsl
+          .insert(i, settings -> settings.setBatchSize(batchSize))
+          .batch(changes.add())
+          .execute();
+      changes.add().forEach(item -> item.version = 1L);
+    }
+    if (!changes.update().isEmpty()) {
+      int[] counts =
+          queryDsl
+              .update(
+                  i,
+                  settings -> {
+                    settings.setBatchSize(batchSize);
+                    settings.setSuppressOptimisticLockException(true);
+                  })
+              .batch(changes.update())
+              .execute()
+              .getCounts();
+      requireAll(counts);
+    }
+    if (!changes.delete().isEmpty()) {
+      int[] counts =
+          queryDsl
+              .delete(
+                  i,
+                  settings -> {
+                    settings.setBatchSize(batchSize);
+                    settings.setSuppressOptimisticLockException(true);
+                  })
+              .batch(changes.delete())
+              .execute()
+              .getCounts();
+      requireAll(counts);
+    }
+  }
+
+  private static void requireAll(int[] counts) {
+    if (Arrays.stream(counts).anyMatch(c -> c == 0)) {
+      throw new EstimateConflictException("明細が他の更新により変更されています。");
+    }
+  }
+
+  /** 見積の明細のうち {@code ids} のもの（id をキーにする）。 */
+  private Map<String, EstimateItem> selectItems(String estimateId, List<String> ids) {
+    var i = new EstimateItem_();
+
+    Map<String, EstimateItem> items = new HashMap<>();
+    for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+      List<String> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+      queryDsl
+          .from(i)
+          .where(
+              c -> {
+                c.eq(i.estimateId, estimateId);
+                c.in(i.id, chunk);
+              })
+          .fetch()
+          .forEach(item -> items.put(item.id, item));
+    }
+    return items;
+  }
+
+  private static EstimateItem existing(Map<String, EstimateItem> current, String id) {
+    EstimateItem item = current.get(id);
+    if (item == null) {
+      throw new EstimateConflictException("明細が見つかりません（削除された可能性があります）: " + id);
+    }
+    return item;
+  }
+
+  /** 明細が 1 件でもあるか（estimate_item_estimate_ix の先頭 1 件のみ読む）。 */
+  private boolean hasItems(String estimateId) {
+    var i = new EstimateItem_();
+
+    return queryDsl
+            .from(i)
+            .where(c -> c.eq(i.estimateId, estimateId))
+            .select(i.id)
+            .limit(1)
+            .fetchOne()
+        != null;
+  }
+
+  private static int amount(EstimateItem item) {
+    return toAmount((long) item.quantity * item.unitPrice);
+  }
+
+  private static int toAmount(long value) {
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new InvalidEstimateItemException("金額が上限を超えています: " + value);
+    }
+    return (int) value;
+  }
+
+  @Override
+  public long count() {
+    var e = new Estimate_();
+
+    Long total = queryDsl.from(e).select(count()).fetchOne();
+    return total == null ? 0L : total;
+  }
+
+  @Override
+  public long cachedCount() {
+    return countCache.get(this::count);
+  }
+
+  @Override
+  public long dataVersion() {
+    return dataVersion.current();
+  }
 }
@@ -0,0 +1,41 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 保持期間（{@code app.changes.tombstone-retention}）を過ぎた削除の記録を定期的に消す。
+ *
+ * <p>全レプリカで実行されるが、同じ条件の DELETE のため重複しても結果は変わらない。
+ */
+@Component
+public class EstimateTombstonePurger {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateTombstonePurger.class);
+
+  private final EstimateRepository repository;
+  private final Duration retention;
+
+  public EstimateTombstonePurger(
+      EstimateRepository repository,
+      @Value("${app.changes.tombstone-retention:P30D}") Duration retention) {
+    this.repository = repository;
+    this.retention = retention;
+  }
+
+  @Scheduled(cron = "${app.changes.purge-cron:0 30 3 * * *}", zone = "Asia/Tokyo")
+  void purge() {
+    try {
+      int purged = repository.purgeTombstones(LocalDateTime.now().minus(retention));
+      log.info("Purged {} estimate tombstones older than {}", purged, retention);
+    } catch (RuntimeException e) {
+      log.warn("Failed to purge estimate tombstones", e);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.search;
+
+import com.capgemini.estimate.poc.estimate_api.common.search.JapaneseTextNormalizer;
+import com.capgemini.estimate.poc.estimate_api.common.search.NgramTokenizer;
+import com.capgemini.estimate.poc.estimate_api.common.search.PostingList;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSearchHit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * タイトル・顧客名の文字 2-gram 転置索引（メモリ上）。
+ *
+ * <p>見積ごとに連番の文書番号を振り、トークンごとに文書番号の列を {@link PostingList}（差分 + 可変長整数）で持つ。
+ * 更新は旧文書を削除済みにして新しい番号で追加し、削除済みが増えたら {@link #compact()} で詰め直す。
+ *
+ * <p>検索語は空白で区切った語ごとに 2-gram の転置リストの共通部分を取り、正規化済みの文字列に語が含まれることを確かめて
+ * 2-gram の偶然の一致を除く（すべての語を含む見積のみ返す）。読み取りは並行に、書き込みは排他で行う。
+ */
+public class EstimateSearchIndex {
+
+  /** 上位に並ぶ順（一致度の降順、同点は id 順） */
+  static final Comparator<EstimateSearchHit> RANKING =
+      Comparator.comparingDouble(EstimateSearchHit::score)
+          .reversed()
+          .thenComparing(hit -> hit.estimate().id);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Estimate[] docs = new Estimate[1024];
+  private String[] titles = new String[1024];
+  private String[] customers = new String[1024];
+  private int docCount;
+  private final BitSet deleted = new BitSet();
+  private int deletedCount;
+  private final Map<String, Integer> docById = new HashMap<>();
+  private final Map<String, PostingList> postings = new HashMap<>();
+
+  /** 登録・更新する。 */
+  public void put(Estimate estimate) {
+    String title = JapaneseTextNormalizer.normalize(estimate.title);
+    String customer = JapaneseTextNormalizer.normalize(estimate.customerName);
+    Set<String> tokens = NgramTokenizer.tokens(title);
+    tokens.addAll(NgramTokenizer.tokens(customer));
+
+    lock.writeLock().lock();
+    try {
+      removeLocked(estimate.id);
+      int doc = docCount++;
+      if (doc == docs.length) {
+        int capacity = docs.length * 2;
+        docs = Arrays.copyOf(docs, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        customers = Arrays.copyOf(customers, capacity);
+      }
+      docs[doc] = estimate.copy();
+      titles[doc] = title;
+      customers[doc] = customer;
+      docById.put(estimate.id, doc);
+      for (String token : tokens) {
+        postings.computeIfAbsent(token, t -> new PostingList()).add(doc);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** 削除する（存在しなければ何もしない）。 */
+  public void remove(String id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void removeLocked(String id) {
+    Integer doc = docById.remove(id);
+    if (doc == null) {
+      return;
+    }
+    deleted.set(doc);
+    deletedCount++;
+    docs[doc] = null;
+    titles[doc] = null;
+    customers[doc] = null;
+  }
+
+  /**
+   * 検索する。
+   *
+   * @param query 検索語（空白区切りの語はすべて含むものを返す）
+   * @param limit 最大件数
+   * @return 一致度の高い順
+   */
+  public List<EstimateSearchHit> search(String query, int limit) {
+    String normalized = JapaneseTextNormalizer.normalize(query);
+    if (normalized.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    String[] terms = normalized.split(" ");
+
+    lock.readLock().lock();
+    try {
+      int[] candidates = null;
+      for (String term : terms) {
+        int[] matches = candidates(term);
+        candidates = candidates == null ? matches : PostingList.intersect(candidates, matches);
+        if (candidates.length == 0) {
+          return List.of();
+        }
+      }
+      // 下位から捨てる（先頭が最も順位の低いもの）
+      PriorityQueue<EstimateSearchHit> top = new PriorityQueue<>(RANKING.reversed());
+      for (int doc : candidates) {
+        if (deleted.get(doc)) {
+          continue;
+        }
+        double score = score(doc, terms);
+        if (score <= 0) {
+          continue;
+        }
+        EstimateSearchHit hit = new EstimateSearchHit(docs[doc], score);
+        if (top.size() < limit) {
+          top.add(hit);
+        } else if (RANKING.compare(hit, top.peek()) < 0) {
+          top.poll();
+          top.add(hit);
+        }
+      }
+      List<EstimateSearchHit> hits = new ArrayList<>(top.size());
+      for (EstimateSearchHit hit : top) {
+        hits.add(new EstimateSearchHit(hit.estimate().copy(), hit.score()));
+      }
+      hits.sort(RANKING);
+      return hits;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** 語の 2-gram をすべて含む文書。1 文字の語はその文字を含むトークンの和。 */
+  private int[] candidates(String term) {
+    if (term.codePointCount(0, term.length()) == 1) {
+      int[] result = new int[0];
+      for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+        if (entry.getKey().contains(term)) {
+          result = PostingList.union(result, entry.getValue().toArray());
+        }
+      }
+      return result;
+    }
+    List<PostingList> lists = new ArrayList<>();
+    for (String token : NgramTokenizer.wordTokens(term)) {
+      PostingList list = postings.get(token);
+      if (list == null) {
+        return new int[0];
+      }
+      lists.add(list);
+    }
+    // 短い列から順に絞り込む
+    lists.sort(Comparator.comparingInt(PostingList::size));
+    int[] result = lists.get(0).toArray();
+    for (int i = 1; i < lists.size() && result.length > 0; i++) {
+      result = PostingList.intersect(result, lists.get(i).toArray());
+    }
+    return result;
+  }
+
+  /**
+   * 一致度。語ごとにタイトルでの一致を顧客名より、前方一致を途中の一致より高くし、最後に文字列全体に占める一致部分の
+   * 割合（0〜1）を加える。含まれない語があれば 0。
+   */
+  private double score(int doc, String[] terms) {
+    String title = titles[doc];
+    String customer = customers[doc];
+    double score = 0;
+    int matchedChars = 0;
+    for (String term : terms) {
+      int inTitle = title.indexOf(term);
+      if (inTitle >= 0) {
+        score += inTitle == 0 ? 3 : 2;
+      } else {
+        int inCustomer = customer.indexOf(term);
+        if (inCustomer < 0) {
+          return 0;
+        }
+        score += inCustomer == 0 ? 1.5 : 1;
+      }
+      matchedChars += term.length();
+    }
+    return score + Math.min(1.0, (double) matchedChars / (title.length() + customer.length()));
+  }
+
+  /** 登録されている見積の件数。 */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return docById.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** 削除済みのまま残っている文書の数。 */
+  public int deletedCount() {
+    lock.readLock().lock();
+    try {
+      return deletedCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** 転置リストの符号化後のバイト数の合計。 */
+  public long postingBytes() {
+    lock.readLock().lock();
+    try {
+      return postings.values().stream().mapToLong(PostingList::byteSize).sum();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** 削除済みの文書を除いて作り直した索引を返す（この索引は変更しない）。 */
+  public EstimateSearchIndex compact() {
+    EstimateSearchIndex compacted = new EstimateSearchIndex();
+    lock.readLock().lock();
+    try {
+      for (int doc = 0; doc < docCount; doc++) {
+        if (!deleted.get(doc)) {
+          compacted.put(docs[doc]);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return compacted;
+  }
+}
@@ -0,0 +1,143 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.search;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSearchHit;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateChangeCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * {@link EstimateSearchIndex} を保持し、書き込みに追従させるコンポーネント（{@code app.search.enabled=true} の時のみ）。
+ *
+ * <p>このレプリカでの書き込みは {@link EstimateChangedEvent} でコミット直後に反映する。他のレプリカの書き込みは
+ * {@code app.search.refresh-interval} ごとに、前回以降の登録・更新・削除を変更番号で読んで（{@link EstimateChangeCursor}）
+ * 反映する。全件を読み直すのは初回だけ。
+ *
+ * <p>索引への書き込み（コミット直後の反映・差分の反映）と、削除済みの文書を詰め直した索引への差し替えは同じロックの中で
+ * 行うため、詰め直しの最中に反映した書き込みが差し替えで失われることはない。DB の読み出しはロックの外で行う。
+ *
+ * <p>転置リストのバイト数・件数は {@code estimate.search.*} として公開する。
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.enabled", havingValue = "true")
+public class EstimateSearchIndexStore {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateSearchIndexStore.class);
+
+  /** 差分を読む 1 回あたりの行数 */
+  private static final int CHANGE_BATCH_SIZE = 1000;
+
+  private final EstimateRepository repository;
+  private final EstimateChangeCursor changes;
+  private final double compactRatio;
+
+  /** 索引への書き込みと差し替えの排他 */
+  private final Object writeLock = new Object();
+
+  private volatile EstimateSearchIndex index;
+
+  public EstimateSearchIndexStore(
+      EstimateRepository repository,
+      MeterRegistry meterRegistry,
+      @Value("${app.search.compact-ratio:0.2}") double compactRatio) {
+    this.repository = repository;
+    this.changes = new EstimateChangeCursor(repository, CHANGE_BATCH_SIZE);
+    this.compactRatio = compactRatio;
+    Gauge.builder("estimate.search.documents", this, s -> s.index == null ? 0 : s.index.size())
+        .register(meterRegistry);
+    Gauge.builder(
+            "estimate.search.posting.bytes",
+            this,
+            s -> s.index == null ? 0 : s.index.postingBytes())
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /** 検索する。初回の読み込みが終わっていなければ、読み込んでから検索する。 */
+  public List<EstimateSearchHit> search(String query, int limit) {
+    EstimateSearchIndex current = index;
+    if (current == null) {
+      refreshNow();
+      current = index;
+    }
+    return current.search(query, limit);
+  }
+
+  /** コミットされた書き込みを索引に反映する。 */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(EstimateChangedEvent event) {
+    synchronized (writeLock) {
+      EstimateSearchIndex current = index;
+      if (current == null) {
+        // 初回の読み込み中の書き込みは、読み込み後の差分で反映される
+        return;
+      }
+      apply(current, event.saved(), event.deletedIds());
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "PT0S",
+      fixedDelayString = "${app.search.refresh-interval:PT5S}")
+  public void refresh() {
+    try {
+      refreshNow();
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh estimate search index", e);
+    }
+  }
+
+  private synchronized void refreshNow() {
+    if (index == null) {
+      changes.reset();
+      EstimateSearchIndex loaded = loadAll();
+      synchronized (writeLock) {
+        index = loaded;
+      }
+      return;
+    }
+    EstimateChangeCursor.Changes changed = changes.poll();
+    synchronized (writeLock) {
+      EstimateSearchIndex current = index;
+      apply(current, changed.saved(), changed.deletedIds());
+      if (current.deletedCount() > current.size() * compactRatio) {
+        index = current.compact();
+      }
+    }
+  }
+
+  private static void apply(
+      EstimateSearchIndex index, List<Estimate> saved, List<String> deletedIds) {
+    for (Estimate estimate : saved) {
+      index.put(estimate);
+    }
+    for (String id : deletedIds) {
+      index.remove(id);
+    }
+  }
+
+  private EstimateSearchIndex loadAll() {
+    EstimateSearchIndex loaded =
+        repository.streamAll(
+            stream -> {
+              EstimateSearchIndex built = new EstimateSearchIndex();
+              stream.forEach(built::put);
+              return built;
+            });
+    log.info(
+        "Loaded estimate search index: {} documents, {} posting bytes",
+        loaded.size(),
+        loaded.postingBytes());
+    return loaded;
+  }
+}
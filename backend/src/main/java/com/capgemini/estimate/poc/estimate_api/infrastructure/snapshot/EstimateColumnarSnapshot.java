@@ -0,0 +1,555 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.snapshot;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * estimate テーブル全体を列ごとの配列で保持する不変のスナップショット。
+ *
+ * <ul>
+ *   <li>id: UUID 形式なら 2 つの {@code long}。それ以外の形式（インポートで指定された id 等）のみ文字列で保持
+ *   <li>タイトル: UTF-8 のバイト列を 1 本の {@code byte[]} に連結し、行ごとの開始位置を {@code int[]} で保持
+ *   <li>顧客名: 辞書（重複なし）と行ごとの辞書番号（{@code int[]}、null は -1）
+ *   <li>合計金額: {@code int[]} と null のビット集合
+ *   <li>更新日時: UTC とみなしたエポックからのナノ秒（{@code long[]}、null は {@link Long#MIN_VALUE}）
+ *   <li>バージョン: {@code long[]}（null は 0。DB の値は 1 以上）
+ * </ul>
+ * 変更は {@link #merge(Collection, Collection)} で新しいインスタンスを作る（コピーオンライト）。読み取り側は参照を
+ * 1 回読むだけで、ロックを取らずに一貫した内容を参照できる。
+ *
+ * <p>並び順・null の扱いは Oracle と同じ（null は昇順で末尾、降順で先頭。同値は id 順）。ソート列ごとに行番号を昇順に
+ * 並べた索引を持ち、ページの取得はカーソルの位置を二分探索してから条件に合う行を limit 件まで拾うだけにする（一致した行を
+ * 毎回並べ替えない）。索引は初回の参照時に作り、{@code merge} では変更のあった行だけを並べて既存の索引と併合する。
+ */
+public final class EstimateColumnarSnapshot {
+
+  private static final long NULL_TIME = Long.MIN_VALUE;
+
+  private final int size;
+  private final long[] idMsb;
+  private final long[] idLsb;
+  private final Map<Integer, String> irregularIds;
+  private final byte[] titleBytes;
+  private final int[] titleOffsets;
+  private final BitSet titleNulls;
+  private final String[] customerDictionary;
+  private final int[] customerCodes;
+  private final int[] amounts;
+  private final BitSet amountNulls;
+  private final long[] updatedAtNanos;
+  private final long[] versions;
+
+  /** ソート列ごとの行番号の昇順（{@link EstimateSortKey#ordinal()} 順。未作成は null） */
+  private final AtomicReferenceArray<int[]> sortedRows =
+      new AtomicReferenceArray<>(EstimateSortKey.values().length);
+
+  private EstimateColumnarSnapshot(Builder b) {
+    this.size = b.size;
+    this.idMsb = Arrays.copyOf(b.idMsb, b.size);
+    this.idLsb = Arrays.copyOf(b.idLsb, b.size);
+    this.irregularIds = Map.copyOf(b.irregularIds);
+    this.titleBytes = Arrays.copyOf(b.titleBytes, b.titleLength);
+    this.titleOffsets = Arrays.copyOf(b.titleOffsets, b.size + 1);
+    this.titleNulls = (BitSet) b.titleNulls.clone();
+    this.customerDictionary = b.customerDictionary.toArray(String[]::new);
+    this.customerCodes = Arrays.copyOf(b.customerCodes, b.size);
+    this.amounts = Arrays.copyOf(b.amounts, b.size);
+    this.amountNulls = (BitSet) b.amountNulls.clone();
+    this.updatedAtNanos = Arrays.copyOf(b.updatedAtNanos, b.size);
+    this.versions = Arrays.copyOf(b.versions, b.size);
+  }
+
+  public static Builder builder(int expectedRows) {
+    return new Builder(expectedRows);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** 全行を {@link Estimate} にして返す。 */
+  public List<Estimate> toList() {
+    List<Estimate> list = new ArrayList<>(size);
+    for (int row = 0; row < size; row++) {
+      list.add(get(row));
+    }
+    return list;
+  }
+
+  /**
+   * 変更を反映した新しいスナップショットを返す（このインスタンスは変更しない）。
+   *
+   * <p>{@code saved} の id の行は置き換え、無い id は追加する。{@code deletedIds} の行は除く。作成済みのソート索引は
+   * 残った行の並びを保ったまま、変更行を挿入して引き継ぐ。
+   */
+  public EstimateColumnarSnapshot merge(Collection<Estimate> saved, Collection<String> deletedIds) {
+    Set<String> changedIds = new HashSet<>(deletedIds);
+    for (Estimate e : saved) {
+      changedIds.add(e.id);
+    }
+    Builder builder = builder(size + saved.size());
+    int[] newRows = new int[size];
+    for (int row = 0; row < size; row++) {
+      if (changedIds.contains(id(row))) {
+        newRows[row] = -1;
+      } else {
+        newRows[row] = builder.size;
+        builder.add(get(row));
+      }
+    }
+    int kept = builder.size;
+    saved.forEach(builder::add);
+    EstimateColumnarSnapshot merged = builder.build();
+
+    for (EstimateSortKey sort : EstimateSortKey.values()) {
+      int[] sorted = sortedRows.get(sort.ordinal());
+      if (sorted != null) {
+        merged.sortedRows.set(sort.ordinal(), merged.mergeSorted(sort, sorted, newRows, kept));
+      }
+    }
+    return merged;
+  }
+
+  /** 旧索引（旧行番号）を新しい行番号に読み替え、追加行 {@code [kept, size)} を並べて併合する。 */
+  private int[] mergeSorted(EstimateSortKey sort, int[] oldSorted, int[] newRows, int kept) {
+    Comparator<Integer> order = rowOrder(sort, null);
+    Integer[] added = new Integer[size - kept];
+    for (int i = 0; i < added.length; i++) {
+      added[i] = kept + i;
+    }
+    Arrays.sort(added, order);
+
+    int[] merged = new int[size];
+    int count = 0;
+    int a = 0;
+    for (int oldRow : oldSorted) {
+      int row = newRows[oldRow];
+      if (row < 0) {
+        continue;
+      }
+      while (a < added.length && order.compare(added[a], row) < 0) {
+        merged[count++] = added[a++];
+      }
+      merged[count++] = row;
+    }
+    while (a < added.length) {
+      merged[count++] = added[a++];
+    }
+    return merged;
+  }
+
+  /** ソート索引を作っておく（最新化する側で呼び、最初の参照を待たせないため）。 */
+  public void buildSortIndexes() {
+    for (EstimateSortKey sort : EstimateSortKey.values()) {
+      sorted(sort);
+    }
+  }
+
+  /** 条件に合う件数。 */
+  public long count(EstimateFilter filter) {
+    IntPredicate matcher = matcher(filter);
+    long count = 0;
+    for (int row = 0; row < size; row++) {
+      if (matcher.test(row)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * 条件に合う行を {@code sort}（同値は id）順に並べ、{@code after} より後ろを最大 {@code limit} 件返す。
+   * {@code EstimateRepository#selectPage} と同じ結果になる。
+   */
+  public List<Estimate> select(
+      EstimateFilter filter, EstimateSortKey sort, boolean descending, Estimate after, int limit) {
+    int[] sorted = sorted(sort);
+    IntPredicate matcher = matcher(filter);
+
+    // 昇順の索引で after より後ろ（降順なら前）の最初の位置
+    int start;
+    if (after == null) {
+      start = descending ? size - 1 : 0;
+    } else {
+      Comparator<Key> order = Key.ORDER;
+      Key afterKey = new Key(sortValue(after, sort), after.id);
+      int low = 0;
+      int high = size;
+      // 最初に afterKey より大きくなる位置
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int row = sorted[mid];
+        if (order.compare(new Key(sortValue(row, sort), id(row)), afterKey) > 0) {
+          high = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+      if (descending) {
+        // afterKey 未満の最後の位置（afterKey と同じ行は除く）
+        start = low - 1;
+        if (start >= 0
+            && order.compare(new Key(sortValue(sorted[start], sort), id(sorted[start])), afterKey)
+                == 0) {
+          start--;
+        }
+      } else {
+        start = low;
+      }
+    }
+
+    List<Estimate> page = new ArrayList<>(Math.min(limit, size));
+    int step = descending ? -1 : 1;
+    for (int i = start; i >= 0 && i < size && page.size() < limit; i += step) {
+      int row = sorted[i];
+      if (matcher.test(row)) {
+        page.add(get(row));
+      }
+    }
+    return page;
+  }
+
+  /** 保持している配列・辞書の概算バイト数（オブジェクトヘッダ等は除く）。 */
+  public long estimatedBytes() {
+    // id×2, タイトル位置, 顧客番号, 金額, 更新日時, バージョン
+    long bytes = (long) size * (8 + 8 + 4 + 4 + 4 + 8 + 8);
+    bytes += titleBytes.length + 4;
+    bytes += (titleNulls.size() + amountNulls.size()) / 8;
+    for (String customer : customerDictionary) {
+      bytes += 16 + customer.length() * 2L;
+    }
+    for (String id : irregularIds.values()) {
+      bytes += 16 + id.length() * 2L;
+    }
+    return bytes;
+  }
+
+  /** 最も新しい更新日時（行が無い場合は null）。 */
+  public LocalDateTime maxUpdatedAt() {
+    long max = NULL_TIME;
+    for (long t : updatedAtNanos) {
+      max = Math.max(max, t);
+    }
+    return fromNanos(max);
+  }
+
+  Estimate get(int row) {
+    Estimate e = new Estimate();
+    e.id = id(row);
+    e.title = title(row);
+    e.customerName = customerCodes[row] < 0 ? null : customerDictionary[customerCodes[row]];
+    e.totalAmount = amountNulls.get(row) ? null : amounts[row];
+    e.updatedAt = fromNanos(updatedAtNanos[row]);
+    e.version = versions[row] == 0 ? null : versions[row];
+    return e;
+  }
+
+  private String id(int row) {
+    String irregular = irregularIds.get(row);
+    return irregular != null ? irregular : new UUID(idMsb[row], idLsb[row]).toString();
+  }
+
+  private String title(int row) {
+    if (titleNulls.get(row)) {
+      return null;
+    }
+    int from = titleOffsets[row];
+    return new String(titleBytes, from, titleOffsets[row + 1] - from, StandardCharsets.UTF_8);
+  }
+
+  /** 条件の判定（列ごとの配列を参照し、タイトルのみ行ごとに復号する）。 */
+  private IntPredicate matcher(EstimateFilter filter) {
+    boolean[] customerMatch;
+    if (filter.customerNamePrefix() != null) {
+      customerMatch = new boolean[customerDictionary.length];
+      for (int i = 0; i < customerDictionary.length; i++) {
+        customerMatch[i] = customerDictionary[i].startsWith(filter.customerNamePrefix());
+      }
+    } else {
+      customerMatch = null;
+    }
+    return row -> {
+      int code = customerCodes[row];
+      if (customerMatch != null && (code < 0 || !customerMatch[code])) {
+        return false;
+      }
+      if (filter.minTotalAmount() != null
+          && (amountNulls.get(row) || amounts[row] < filter.minTotalAmount())) {
+        return false;
+      }
+      if (filter.maxTotalAmount() != null
+          && (amountNulls.get(row) || amounts[row] > filter.maxTotalAmount())) {
+        return false;
+      }
+      if (filter.titleKeyword() != null) {
+        String title = title(row);
+        return title != null && title.contains(filter.titleKeyword());
+      }
+      return true;
+    };
+  }
+
+  /** {@code sort} の昇順に並べた行番号（初回は全行を並べる）。 */
+  private int[] sorted(EstimateSortKey sort) {
+    int[] sorted = sortedRows.get(sort.ordinal());
+    if (sorted != null) {
+      return sorted;
+    }
+    String[] titles = null;
+    if (sort == EstimateSortKey.TITLE) {
+      // 比較のたびに復号しないよう、先にまとめて復号する
+      titles = new String[size];
+      for (int row = 0; row < size; row++) {
+        titles[row] = title(row);
+      }
+    }
+    Integer[] rows = new Integer[size];
+    for (int row = 0; row < size; row++) {
+      rows[row] = row;
+    }
+    Arrays.sort(rows, rowOrder(sort, titles));
+    sorted = new int[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = rows[i];
+    }
+    // 同時に作られた場合はどちらを採っても同じ内容
+    sortedRows.compareAndSet(sort.ordinal(), null, sorted);
+    return sortedRows.get(sort.ordinal());
+  }
+
+  /** 行番号の昇順の比較（{@link Key#ORDER} と同じ並び。null は末尾、同値は id 順）。 */
+  private Comparator<Integer> rowOrder(EstimateSortKey sort, String[] titles) {
+    Comparator<Integer> byValue =
+        switch (sort) {
+          case ID -> (a, b) -> 0;
+          case TITLE ->
+              (a, b) ->
+                  compareStrings(
+                      titles == null ? title(a) : titles[a], titles == null ? title(b) : titles[b]);
+          case CUSTOMER_NAME ->
+              (a, b) ->
+                  compareStrings(
+                      customerCodes[a] < 0 ? null : customerDictionary[customerCodes[a]],
+                      customerCodes[b] < 0 ? null : customerDictionary[customerCodes[b]]);
+          case TOTAL_AMOUNT ->
+              (a, b) -> {
+                boolean nullA = amountNulls.get(a);
+                boolean nullB = amountNulls.get(b);
+                if (nullA || nullB) {
+                  return Boolean.compare(nullA, nullB);
+                }
+                return Integer.compare(amounts[a], amounts[b]);
+              };
+          case UPDATED_AT ->
+              (a, b) -> {
+                boolean nullA = updatedAtNanos[a] == NULL_TIME;
+                boolean nullB = updatedAtNanos[b] == NULL_TIME;
+                if (nullA || nullB) {
+                  return Boolean.compare(nullA, nullB);
+                }
+                return Long.compare(updatedAtNanos[a], updatedAtNanos[b]);
+              };
+        };
+    return byValue.thenComparing(this::compareIds);
+  }
+
+  /** id の比較。正規形の UUID 同士は 16 進の文字列順と一致する符号なしの数値順で比べる。 */
+  private int compareIds(int a, int b) {
+    if (!irregularIds.containsKey(a) && !irregularIds.containsKey(b)) {
+      int c = Long.compareUnsigned(idMsb[a], idMsb[b]);
+      return c != 0 ? c : Long.compareUnsigned(idLsb[a], idLsb[b]);
+    }
+    return id(a).compareTo(id(b));
+  }
+
+  /** null を最大値とする文字列の比較。 */
+  private static int compareStrings(String a, String b) {
+    if (a == null) {
+      return b == null ? 0 : 1;
+    }
+    return b == null ? -1 : a.compareTo(b);
+  }
+
+  private Comparable<?> sortValue(int row, EstimateSortKey sort) {
+    return switch (sort) {
+      case ID -> null;
+      case TITLE -> title(row);
+      case CUSTOMER_NAME -> customerCodes[row] < 0 ? null : customerDictionary[customerCodes[row]];
+      case TOTAL_AMOUNT -> amountNulls.get(row) ? null : amounts[row];
+      case UPDATED_AT -> fromNanos(updatedAtNanos[row]);
+    };
+  }
+
+  private static Comparable<?> sortValue(Estimate e, EstimateSortKey sort) {
+    return switch (sort) {
+      case ID -> null;
+      case TITLE -> e.title;
+      case CUSTOMER_NAME -> e.customerName;
+      case TOTAL_AMOUNT -> e.totalAmount;
+      case UPDATED_AT -> e.updatedAt;
+    };
+  }
+
+  private static long toNanos(LocalDateTime time) {
+    if (time == null) {
+      return NULL_TIME;
+    }
+    return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+  }
+
+  private static LocalDateTime fromNanos(long nanos) {
+    if (nanos == NULL_TIME) {
+      return null;
+    }
+    return LocalDateTime.ofEpochSecond(
+        Math.floorDiv(nanos, 1_000_000_000L),
+        (int) Math.floorMod(nanos, 1_000_000_000L),
+        ZoneOffset.UTC);
+  }
+
+  /** ソート用のキー（ソート値, id）。 */
+  private record Key(Comparable<?> value, String id) {
+
+    /** 昇順（null は末尾）。降順はその逆順（null が先頭）で、Oracle の既定と一致する。 */
+    static final Comparator<Key> ORDER =
+        (a, b) -> {
+          int c = compareNullsLast(a.value(), b.value());
+          return c != 0 ? c : a.id().compareTo(b.id());
+        };
+
+    @SuppressWarnings("unchecked")
+    private static int compareNullsLast(Comparable<?> a, Comparable<?> b) {
+      if (a == null) {
+        return b == null ? 0 : 1;
+      }
+      if (b == null) {
+        return -1;
+      }
+      return ((Comparable<Object>) a).compareTo(b);
+    }
+  }
+
+  /** スナップショットの組み立て。配列は必要に応じて倍々に拡張する。 */
+  public static final class Builder {
+    private int size;
+    private long[] idMsb;
+    private long[] idLsb;
+    private final Map<Integer, String> irregularIds = new HashMap<>();
+    private byte[] titleBytes;
+    private int titleLength;
+    private int[] titleOffsets;
+    private final BitSet titleNulls = new BitSet();
+    private final List<String> customerDictionary = new ArrayList<>();
+    private final Map<String, Integer> customerIndex = new HashMap<>();
+    private int[] customerCodes;
+    private int[] amounts;
+    private final BitSet amountNulls = new BitSet();
+    private long[] updatedAtNanos;
+    private long[] versions;
+
+    private Builder(int expectedRows) {
+      int capacity = Math.max(expectedRows, 16);
+      idMsb = new long[capacity];
+      idLsb = new long[capacity];
+      titleBytes = new byte[capacity * 32];
+      titleOffsets = new int[capacity + 1];
+      customerCodes = new int[capacity];
+      amounts = new int[capacity];
+      updatedAtNanos = new long[capacity];
+      versions = new long[capacity];
+    }
+
+    public Builder add(Estimate e) {
+      if (size == idMsb.length) {
+        grow();
+      }
+      int row = size++;
+
+      UUID uuid = parseUuid(e.id);
+      if (uuid != null) {
+        idMsb[row] = uuid.getMostSignificantBits();
+        idLsb[row] = uuid.getLeastSignificantBits();
+      } else {
+        irregularIds.put(row, e.id);
+      }
+
+      if (e.title == null) {
+        titleNulls.set(row);
+      } else {
+        byte[] bytes = e.title.getBytes(StandardCharsets.UTF_8);
+        if (titleLength + bytes.length > titleBytes.length) {
+          titleBytes =
+              Arrays.copyOf(
+                  titleBytes, Math.max(titleBytes.length * 2, titleLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, titleBytes, titleLength, bytes.length);
+        titleLength += bytes.length;
+      }
+      titleOffsets[row + 1] = titleLength;
+
+      customerCodes[row] =
+          e.customerName == null
+              ? -1
+              : customerIndex.computeIfAbsent(
+                  e.customerName,
+                  name -> {
+                    customerDictionary.add(name);
+                    return customerDictionary.size() - 1;
+                  });
+
+      if (e.totalAmount == null) {
+        amountNulls.set(row);
+      } else {
+        amounts[row] = e.totalAmount;
+      }
+      updatedAtNanos[row] = toNanos(e.updatedAt);
+      versions[row] = e.version == null ? 0 : e.version;
+      return this;
+    }
+
+    public EstimateColumnarSnapshot build() {
+      return new EstimateColumnarSnapshot(this);
+    }
+
+    private void grow() {
+      int capacity = idMsb.length * 2;
+      idMsb = Arrays.copyOf(idMsb, capacity);
+      idLsb = Arrays.copyOf(idLsb, capacity);
+      titleOffsets = Arrays.copyOf(titleOffsets, capacity + 1);
+      customerCodes = Arrays.copyOf(customerCodes, capacity);
+      amounts = Arrays.copyOf(amounts, capacity);
+      updatedAtNanos = Arrays.copyOf(updatedAtNanos, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+    }
+
+    /** 正規形（小文字・ハイフン区切り）の UUID のみ long 2 つに変換する。それ以外は null。 */
+    private static UUID parseUuid(String id) {
+      if (id == null || id.length() != 36) {
+        return null;
+      }
+      try {
+        UUID uuid = UUID.fromString(id);
+        return uuid.toString().equals(id) ? uuid : null;
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.snapshot;
+
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateChangeCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link EstimateColumnarSnapshot} を保持し、定期的に最新化するコンポーネント（{@code app.snapshot.enabled=true} の時のみ）。
+ *
+ * <p>{@code app.snapshot.refresh-interval} ごとに、前回以降の登録・更新・削除を変更番号で読み
+ * （{@link EstimateChangeCursor}）、変更のあった行だけを差し替えた新しいスナップショットにする。全件を読み直すのは
+ * 初回だけ。読み取り側は {@link #current()} の参照を使うだけで、更新中もブロックされない。
+ *
+ * <p>内容は最大で更新間隔と {@code app.changes.settle-lag} の分だけ遅れる。行数・1 行あたりのバイト数・更新時間は
+ * {@code estimate.snapshot.*} として公開する。
+ */
+@Component
+@ConditionalOnProperty(name = "app.snapshot.enabled", havingValue = "true")
+public class EstimateSnapshotStore {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateSnapshotStore.class);
+
+  /** 差分を読む 1 回あたりの行数 */
+  private static final int CHANGE_BATCH_SIZE = 1000;
+
+  private final EstimateRepository repository;
+  private final EstimateChangeCursor changes;
+  private final Timer refreshTimer;
+
+  private volatile EstimateColumnarSnapshot current;
+
+  public EstimateSnapshotStore(EstimateRepository repository, MeterRegistry meterRegistry) {
+    this.repository = repository;
+    this.changes = new EstimateChangeCursor(repository, CHANGE_BATCH_SIZE);
+    this.refreshTimer = Timer.builder("estimate.snapshot.refresh").register(meterRegistry);
+    Gauge.builder("estimate.snapshot.rows", this, s -> s.current == null ? 0 : s.current.size())
+        .register(meterRegistry);
+    Gauge.builder("estimate.snapshot.bytes.per.row", this, EstimateSnapshotStore::bytesPerRow)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /** 現在のスナップショット。初回の読み込みが終わるまでは null。 */
+  public EstimateColumnarSnapshot current() {
+    return current;
+  }
+
+  @Scheduled(
+      initialDelayString = "PT0S",
+      fixedDelayString = "${app.snapshot.refresh-interval:PT5S}")
+  public void refresh() {
+    try {
+      refreshTimer.record(this::refreshNow);
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh estimate snapshot", e);
+    }
+  }
+
+  private synchronized void refreshNow() {
+    if (current == null) {
+      changes.reset();
+      current = loadAll();
+      return;
+    }
+    EstimateChangeCursor.Changes changed = changes.poll();
+    if (!changed.isEmpty()) {
+      current = current.merge(changed.saved(), changed.deletedIds());
+    }
+  }
+
+  private EstimateColumnarSnapshot loadAll() {
+    int expectedRows = (int) Math.min(repository.cachedCount(), 1 << 24);
+    EstimateColumnarSnapshot snapshot =
+        repository.streamAll(
+            stream -> {
+              EstimateColumnarSnapshot.Builder builder =
+                  EstimateColumnarSnapshot.builder(expectedRows);
+              stream.forEach(builder::add);
+              return builder.build();
+            });
+    snapshot.buildSortIndexes();
+    log.info(
+        "Loaded estimate snapshot: {} rows, ~{} bytes/row",
+        snapshot.size(),
+        Math.round(bytesPerRow(snapshot)));
+    return snapshot;
+  }
+
+  private double bytesPerRow() {
+    EstimateColumnarSnapshot snapshot = current;
+    return snapshot == null ? 0 : bytesPerRow(snapshot);
+  }
+
+  private static double bytesPerRow(EstimateColumnarSnapshot snapshot) {
+    return snapshot.size() == 0 ? 0 : (double) snapshot.estimatedBytes() / snapshot.size();
+  }
+}
@@ -0,0 +1,363 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.stats;
+
+import com.capgemini.estimate.poc.estimate_api.common.redis.RedisLock;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateStats;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateStats.CustomerTotal;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.StatsNotReadyException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 見積の集計値を Redis 上で差分更新するストア。
+ *
+ * <p>{@link EstimateChangedEvent} をコミット後に受け取り、Lua スクリプト 1 回で次のキーを更新する。
+ *
+ * <ul>
+ *   <li>{@code estimate:stats}（hash）: count, sum, reconciledAt
+ *   <li>{@code estimate:stats:rows}（hash）: id → 顧客名と金額（差分計算のための直前の値）
+ *   <li>{@code estimate:stats:amounts}（zset）: id → 金額（最小・最大）
+ *   <li>{@code estimate:stats:customers}（zset）: 顧客名 → 金額の総和（上位 N 件）
+ *   <li>{@code estimate:stats:customer-counts}（hash）: 顧客名 → 件数
+ * </ul>
+ *
+ * <p>差分は直前の値との差から求めるため、同じイベントを 2 回適用しても結果は変わらない。取りこぼし（Redis の一時障害、
+ * 同一 id への同時更新の順序入れ替わり等）は {@code app.stats.reconcile-interval} ごとの再集計で DB に合わせる。
+ * 再集計は別キーに全件を読み込んでから一括で差し替え、読み込み中のイベントは両方に適用する。
+ *
+ * <p>再集計は定期処理（{@code app.stats.check-interval} ごとの確認）でのみ行い、参照（{@link #get}）では行わない。
+ * 差分の適用に失敗した場合は {@code estimate:stats:stale} を立て、次の確認で再集計する（それまでは直前の値を返す）。
+ */
+@Component
+public class EstimateStatsStore {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateStatsStore.class);
+
+  private static final String PREFIX = "estimate:stats";
+  private static final List<String> LIVE_KEYS = keys(PREFIX);
+  private static final List<String> STAGING_KEYS = keys(PREFIX + ":staging");
+  private static final String TOMBSTONES_KEY = PREFIX + ":staging:deleted";
+  private static final String REBUILDING_KEY = PREFIX + ":rebuilding";
+  private static final String LOCK_KEY = PREFIX + ":lock";
+  private static final String STALE_KEY = PREFIX + ":stale";
+  private static final Duration LOCK_TTL = Duration.ofMinutes(30);
+
+  private static final String RECONCILED_AT = "reconciledAt";
+
+  /** 1 回のスクリプト実行で適用する行数 */
+  private static final int CHUNK_ROWS = 1000;
+
+  /**
+   * 行の適用。ARGV[1] は event（本番キーと、再集計中なら読み込み用キーにも適用）または load（読み込み用キーのみ）。
+   * 以降は (操作, id, 顧客名, 金額) の繰り返し。操作は U（登録・更新）/ D（削除）/ L（未登録かつ削除済みでなければ登録）。
+   * rows には顧客名と金額を \x1f 区切りで保持する（顧客名に含まれても末尾の区切りで分割する）。
+   */
+  private static final DefaultRedisScript<Long> APPLY_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local function apply(k, op, id, customer, amount, tomb)
+            local old = redis.call('HGET', k[2], id)
+            if op == 'L' and (old or redis.call('SISMEMBER', tomb, id) == 1) then
+              return
+            end
+            if old then
+              local oc, oa = string.match(old, '^(.*)\\31([^\\31]*)$')
+              redis.call('HINCRBY', k[1], 'count', -1)
+              if oa ~= '' then
+                redis.call('HINCRBY', k[1], 'sum', -tonumber(oa))
+              end
+              redis.call('ZREM', k[3], id)
+              if redis.call('HINCRBY', k[5], oc, -1) <= 0 then
+                redis.call('HDEL', k[5], oc)
+                redis.call('ZREM', k[4], oc)
+              elseif oa ~= '' then
+                redis.call('ZINCRBY', k[4], -tonumber(oa), oc)
+              end
+              redis.call('HDEL', k[2], id)
+            end
+            if op == 'D' then
+              if tomb then
+                redis.call('SADD', tomb, id)
+              end
+              return
+            end
+            redis.call('HSET', k[2], id, customer .. '\\31' .. amount)
+            redis.call('HINCRBY', k[1], 'count', 1)
+            if amount ~= '' then
+              redis.call('HINCRBY', k[1], 'sum', amount)
+              redis.call('ZADD', k[3], amount, id)
+            end
+            redis.call('HINCRBY', k[5], customer, 1)
+            redis.call('ZINCRBY', k[4], amount ~= '' and amount or 0, customer)
+          end
+          local live = {KEYS[1], KEYS[2], KEYS[3], KEYS[4], KEYS[5]}
+          local staging = {KEYS[6], KEYS[7], KEYS[8], KEYS[9], KEYS[10]}
+          local event = ARGV[1] == 'event'
+          local rebuilding = not event or redis.call('EXISTS', KEYS[12]) == 1
+          for i = 2, #ARGV, 4 do
+            if event then
+              apply(live, ARGV[i], ARGV[i + 1], ARGV[i + 2], ARGV[i + 3], nil)
+            end
+            if rebuilding then
+              apply(staging, ARGV[i], ARGV[i + 1], ARGV[i + 2], ARGV[i + 3], KEYS[11])
+            end
+          end
+          return 0
+          """,
+          Long.class);
+
+  /** 読み込み用キーを本番キーへ差し替える。再集計フラグが消えていれば（期限切れ等）何もしない。 */
+  private static final DefaultRedisScript<Long> SWAP_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('EXISTS', KEYS[12]) == 0 then
+            return 0
+          end
+          for i = 1, 5 do
+            if redis.call('EXISTS', KEYS[i + 5]) == 1 then
+              redis.call('RENAME', KEYS[i + 5], KEYS[i])
+            else
+              redis.call('DEL', KEYS[i])
+            end
+          end
+          redis.call('HSET', KEYS[1], 'reconciledAt', ARGV[1])
+          redis.call('DEL', KEYS[11], KEYS[12])
+          return 1
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final EstimateRepository repository;
+  private final RedisLock redisLock;
+  private final Duration reconcileInterval;
+  private final Duration checkInterval;
+
+  public EstimateStatsStore(
+      StringRedisTemplate redisTemplate,
+      EstimateRepository repository,
+      RedisLock redisLock,
+      @Value("${app.stats.reconcile-interval:PT10M}") Duration reconcileInterval,
+      @Value("${app.stats.check-interval:PT10S}") Duration checkInterval) {
+    this.redisTemplate = redisTemplate;
+    this.repository = repository;
+    this.redisLock = redisLock;
+    this.reconcileInterval = reconcileInterval;
+    this.checkInterval = checkInterval;
+  }
+
+  /** コミットされた書き込みを集計に反映する。失敗した場合は次回の定期確認で再集計させる。 */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(EstimateChangedEvent event) {
+    try {
+      List<String> rows = new ArrayList<>();
+      for (Estimate estimate : event.saved()) {
+        addRow(rows, "U", estimate);
+      }
+      for (String id : event.deletedIds()) {
+        rows.addAll(List.of("D", id, "", ""));
+      }
+      apply("event", rows);
+    } catch (RuntimeException e) {
+      log.warn("Failed to apply estimate stats delta; marking stats for reconciliation", e);
+      markStale();
+    }
+  }
+
+  /**
+   * 集計値を返す（Redis の読み出しのみ、件数に依存しない）。差分の適用に失敗していても、再集計が済むまでは直前の値を返す
+   * （{@code reconciledAt} で最後に DB と突き合わせた時刻が分かる）。
+   *
+   * @param top 返す顧客数
+   * @throws StatsNotReadyException まだ一度も集計していない場合（初回の再集計は定期処理で行う）
+   */
+  public EstimateStats get(int top) {
+    List<Object> head =
+        redisTemplate.opsForHash().multiGet(PREFIX, List.of("count", "sum", RECONCILED_AT));
+    if (head.get(2) == null) {
+      throw new StatsNotReadyException(checkInterval);
+    }
+    Set<TypedTuple<String>> min =
+        redisTemplate.opsForZSet().rangeWithScores(LIVE_KEYS.get(2), 0, 0);
+    Set<TypedTuple<String>> max =
+        redisTemplate.opsForZSet().reverseRangeWithScores(LIVE_KEYS.get(2), 0, 0);
+    Set<TypedTuple<String>> customers =
+        redisTemplate.opsForZSet().reverseRangeWithScores(LIVE_KEYS.get(3), 0, top - 1);
+
+    List<CustomerTotal> topCustomers = new ArrayList<>();
+    if (customers != null && !customers.isEmpty()) {
+      List<Object> names = customers.stream().map(t -> (Object) t.getValue()).toList();
+      Iterator<Object> counts =
+          redisTemplate.opsForHash().multiGet(LIVE_KEYS.get(4), names).iterator();
+      for (TypedTuple<String> customer : customers) {
+        topCustomers.add(
+            new CustomerTotal(
+                customer.getValue().isEmpty() ? null : customer.getValue(),
+                parseLong(counts.next()),
+                Math.round(customer.getScore())));
+      }
+    }
+    return new EstimateStats(
+        parseLong(head.get(0)),
+        parseLong(head.get(1)),
+        first(min),
+        first(max),
+        topCustomers,
+        Instant.parse((String) head.get(2)));
+  }
+
+  /**
+   * 未集計・差分の適用に失敗した後・前回から {@code reconcileInterval} が過ぎた場合に、DB の全件から集計し直す
+   * （全レプリカで起動されるが、実行されるのは 1 レプリカのみ）。
+   */
+  @Scheduled(
+      initialDelayString = "${app.stats.reconcile-initial-delay:PT1M}",
+      fixedDelayString = "${app.stats.check-interval:PT10S}")
+  void scheduledReconcile() {
+    Object reconciledAt = redisTemplate.opsForHash().get(PREFIX, RECONCILED_AT);
+    // 他のレプリカが済ませていれば省く
+    if (reconciledAt != null
+        && !Boolean.TRUE.equals(redisTemplate.hasKey(STALE_KEY))
+        && Instant.parse((String) reconciledAt)
+            .isAfter(Instant.now().minus(reconcileInterval))) {
+      return;
+    }
+    reconcile();
+  }
+
+  /** DB の全件から集計し直し、結果を差し替える。他のレプリカが実行中なら何もしない。 */
+  public void reconcile() {
+    String token = redisLock.tryLock(LOCK_KEY, LOCK_TTL);
+    if (token == null) {
+      return;
+    }
+    try {
+      List<String> staging = new ArrayList<>(STAGING_KEYS);
+      staging.add(TOMBSTONES_KEY);
+      redisTemplate.delete(staging);
+      // ここまでの取りこぼしは以下の全件の読み込みに含まれる。以降の失敗は改めて印を付ける
+      redisTemplate.delete(STALE_KEY);
+      // これ以降にコミットされた書き込みは読み込み用キーにも適用される
+      redisTemplate.opsForValue().set(REBUILDING_KEY, "1", LOCK_TTL);
+      long rows =
+          repository.streamAll(
+              stream -> {
+                List<String> chunk = new ArrayList<>();
+                long[] count = {0};
+                stream.forEach(
+                    estimate -> {
+                      addRow(chunk, "L", estimate);
+                      count[0]++;
+                      if (chunk.size() >= CHUNK_ROWS * 4) {
+                        apply("load", chunk);
+                        chunk.clear();
+                      }
+                    });
+                apply("load", chunk);
+                return count[0];
+              });
+      logDrift();
+      Long swapped =
+          redisTemplate.execute(SWAP_SCRIPT, scriptKeys(), Instant.now().toString());
+      if (swapped != null && swapped == 1) {
+        log.info("Reconciled estimate stats: {} rows", rows);
+      } else {
+        log.warn("Estimate stats rebuild expired before swap; keeping previous stats");
+        markStale();
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to reconcile estimate stats", e);
+      markStale();
+      redisTemplate.delete(REBUILDING_KEY);
+    } finally {
+      redisLock.unlock(LOCK_KEY, token);
+    }
+  }
+
+  /** 次の定期確認で再集計させる。 */
+  private void markStale() {
+    try {
+      redisTemplate.opsForValue().set(STALE_KEY, Instant.now().toString());
+    } catch (RuntimeException ignored) {
+      // Redis に届かない場合は reconcileInterval ごとの再集計に任せる
+    }
+  }
+
+  /** 差分更新で DB とずれていた場合に記録する（ずれが頻発するなら取りこぼしの原因を調べる）。 */
+  private void logDrift() {
+    List<Object> live = redisTemplate.opsForHash().multiGet(PREFIX, List.of("count", "sum"));
+    List<Object> rebuilt =
+        redisTemplate.opsForHash().multiGet(STAGING_KEYS.get(0), List.of("count", "sum"));
+    if (live.get(0) != null
+        && (parseLong(live.get(0)) != parseLong(rebuilt.get(0))
+            || parseLong(live.get(1)) != parseLong(rebuilt.get(1)))) {
+      log.info(
+          "Estimate stats drift corrected: count {} -> {}, sum {} -> {}",
+          live.get(0),
+          rebuilt.get(0),
+          live.get(1),
+          rebuilt.get(1));
+    }
+  }
+
+  private void apply(String mode, List<String> rows) {
+    for (int from = 0; from < rows.size(); from += CHUNK_ROWS * 4) {
+      List<String> chunk = rows.subList(from, Math.min(from + CHUNK_ROWS * 4, rows.size()));
+      Object[] args = new Object[chunk.size() + 1];
+      args[0] = mode;
+      for (int i = 0; i < chunk.size(); i++) {
+        args[i + 1] = chunk.get(i);
+      }
+      redisTemplate.execute(APPLY_SCRIPT, scriptKeys(), args);
+    }
+  }
+
+  private static void addRow(List<String> rows, String op, Estimate estimate) {
+    rows.add(op);
+    rows.add(estimate.id);
+    rows.add(estimate.customerName == null ? "" : estimate.customerName);
+    rows.add(estimate.totalAmount == null ? "" : estimate.totalAmount.toString());
+  }
+
+  private static List<String> scriptKeys() {
+    List<String> keys = new ArrayList<>(LIVE_KEYS);
+    keys.addAll(STAGING_KEYS);
+    keys.add(TOMBSTONES_KEY);
+    keys.add(REBUILDING_KEY);
+    return keys;
+  }
+
+  private static List<String> keys(String prefix) {
+    return List.of(
+        prefix,
+        prefix + ":rows",
+        prefix + ":amounts",
+        prefix + ":customers",
+        prefix + ":customer-counts");
+  }
+
+  private static long parseLong(Object value) {
+    return value == null ? 0L : Long.parseLong((String) value);
+  }
+
+  private static Integer first(Set<TypedTuple<String>> tuples) {
+    if (tuples == null || tuples.isEmpty()) {
+      return null;
+    }
+    return tuples.iterator().next().getScore().intValue();
+  }
+}
@@ -0,0 +1,409 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.stream;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 見積の変更を Server-Sent Events で配信する（GET /api/estimates/stream）。
+ *
+ * <p>各レプリカは {@link EstimateChangedEvent} をコミット後に Redis Pub/Sub（{@code estimate:changes}）へ送り、全レプリカが
+ * 受信して自分に接続しているクライアントへ配信する。イベント id は Redis の連番（{@code estimate:changes:seq}）で、
+ * 採番と PUBLISH を 1 つのスクリプトで行うため全レプリカで同じ順に届く。
+ *
+ * <p>直近 {@code app.stream.replay-buffer-size} 件を各レプリカのメモリに保持し、再接続時の {@code Last-Event-ID} 以降を
+ * 再送する。バッファより古い id の場合は {@code reset} イベントを送り、クライアントに一覧の再取得を促す。
+ *
+ * <p>待機中の接続はスレッドを占有しない（非同期リクエスト）。受信したメッセージは専用の 1 スレッドで解釈して接続ごとの
+ * 送信待ちに積み（購読スレッドは他のチャネルと共有のため、そこでは処理しない）、送信は {@code app.stream.sender-threads}
+ * 本のスレッドで接続ごとに順に行う。遅いクライアントが占有するのは 1 スレッドだけで、他の接続の配信は止まらない。
+ * 送信待ちが {@code app.stream.max-pending} 件を超えた接続は切断する（クライアントは Last-Event-ID で再接続し、
+ * 再送か reset を受け取る）。ハートビート（{@code app.stream.heartbeat-interval}）も送信待ちに積む。
+ */
+@Component
+public class EstimateChangeFeed {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateChangeFeed.class);
+
+  private static final String CHANNEL = "estimate:changes";
+  private static final String SEQUENCE_KEY = "estimate:changes:seq";
+
+  /** 1 メッセージに含める見積の上限（大きな一括処理を分割して送る） */
+  private static final int MAX_ITEMS_PER_MESSAGE = 500;
+
+  /** 件数分の連番を確保し、先頭の番号を付けて PUBLISH する。 */
+  private static final DefaultRedisScript<Long> PUBLISH_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local count = tonumber(ARGV[1])
+          local last = redis.call('INCRBY', KEYS[1], count)
+          redis.call('PUBLISH', ARGV[2], string.format('%d', last - count + 1) .. '\\n' .. ARGV[3])
+          return last
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final Duration timeout;
+  private final Duration retry;
+  private final int replayBufferSize;
+  private final int maxPending;
+  private final Counter overflows;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ArrayDeque<Change> replayBuffer = new ArrayDeque<>();
+
+  /** 受信したメッセージの解釈と送信待ちへの積み込み（受信順を保つため 1 スレッド） */
+  private final ExecutorService receiver = Executors.newSingleThreadExecutor(daemon("receiver"));
+
+  /** 接続ごとの送信（1 つの接続を同時に 2 スレッドで送ることはない） */
+  private final ExecutorService sender;
+
+  public EstimateChangeFeed(
+      StringRedisTemplate redisTemplate,
+      ObjectMapper objectMapper,
+      RedisMessageListenerContainer listenerContainer,
+      MeterRegistry meterRegistry,
+      @Value("${app.stream.timeout:PT30M}") Duration timeout,
+      @Value("${app.stream.retry:PT3S}") Duration retry,
+      @Value("${app.stream.replay-buffer-size:1000}") int replayBufferSize,
+      @Value("${app.stream.sender-threads:4}") int senderThreads,
+      @Value("${app.stream.max-pending:2000}") int maxPending) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.timeout = timeout;
+    this.retry = retry;
+    this.replayBufferSize = replayBufferSize;
+    this.maxPending = maxPending;
+    this.sender = Executors.newFixedThreadPool(senderThreads, daemon("sender"));
+    Gauge.builder("estimate.stream.connections", subscribers, Set::size).register(meterRegistry);
+    this.overflows =
+        Counter.builder("estimate.stream.overflows")
+            .description("送信待ちが上限を超えて切断した接続の数")
+            .register(meterRegistry);
+
+    listenerContainer.addMessageListener(
+        (message, pattern) -> {
+          String body = new String(message.getBody(), StandardCharsets.UTF_8);
+          receiver.execute(() -> onMessage(body));
+        },
+        new ChannelTopic(CHANNEL));
+  }
+
+  private static ThreadFactory daemon(String role) {
+    AtomicInteger count = new AtomicInteger();
+    return r -> {
+      Thread thread = new Thread(r, "estimate-change-feed-" + role + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @PreDestroy
+  void shutdown() {
+    receiver.shutdownNow();
+    sender.shutdownNow();
+    subscribers.forEach(s -> s.emitter.complete());
+  }
+
+  /** 接続ごとの {@link SseEmitter} を作る（テストで送信を観察するために差し替える）。 */
+  SseEmitter newEmitter() {
+    return new SseEmitter(timeout.toMillis());
+  }
+
+  /**
+   * 購読を開始する。
+   *
+   * @param lastEventId 前回受信した最後のイベント id（初回接続は null）
+   */
+  public SseEmitter subscribe(Long lastEventId) {
+    SseEmitter emitter = newEmitter();
+    Subscriber subscriber = new Subscriber(emitter, lastEventId == null ? 0 : lastEventId);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> subscribers.remove(subscriber));
+
+    // 再送を積み終えるまで新着を積ませず、再送と新着の順序が入れ替わらないようにする
+    synchronized (subscriber) {
+      subscribers.add(subscriber);
+      subscriber.enqueue(Outgoing.retry(retry));
+      if (lastEventId != null) {
+        replay(subscriber, lastEventId);
+      }
+    }
+    return emitter;
+  }
+
+  private void replay(Subscriber subscriber, long lastEventId) {
+    List<Change> buffered;
+    synchronized (replayBuffer) {
+      buffered = new ArrayList<>(replayBuffer);
+    }
+    if (!buffered.isEmpty() && buffered.get(0).seq() <= lastEventId + 1) {
+      for (Change change : buffered) {
+        subscriber.enqueue(Outgoing.change(change));
+      }
+      return;
+    }
+    String current = redisTemplate.opsForValue().get(SEQUENCE_KEY);
+    if (current != null && Long.parseLong(current) > lastEventId) {
+      // 再送できる範囲を超えて離れていた
+      subscriber.enqueue(Outgoing.RESET);
+    }
+  }
+
+  /** コミットされた書き込みを全レプリカへ送る。 */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChanged(EstimateChangedEvent event) {
+    try {
+      boolean deleted = event.type() == EstimateChangedEvent.Type.DELETED;
+      int size = deleted ? event.deletedIds().size() : event.saved().size();
+      for (int from = 0; from < size; from += MAX_ITEMS_PER_MESSAGE) {
+        int to = Math.min(from + MAX_ITEMS_PER_MESSAGE, size);
+        EstimateChangedEvent chunk =
+            deleted
+                ? EstimateChangedEvent.deleted(event.deletedIds().subList(from, to))
+                : new EstimateChangedEvent(event.type(), event.saved().subList(from, to), List.of());
+        redisTemplate.execute(
+            PUBLISH_SCRIPT,
+            List.of(SEQUENCE_KEY),
+            String.valueOf(to - from),
+            CHANNEL,
+            objectMapper.writeValueAsString(chunk));
+      }
+    } catch (JsonProcessingException | RuntimeException e) {
+      log.warn("Failed to publish estimate change event", e);
+    }
+  }
+
+  /** Pub/Sub で受信した変更をバッファに積み、接続中のクライアントの送信待ちに積む。 */
+  private void onMessage(String message) {
+    List<Change> changes;
+    try {
+      int newline = message.indexOf('\n');
+      long firstSeq = Long.parseLong(message.substring(0, newline));
+      EstimateChangedEvent event =
+          objectMapper.readValue(message.substring(newline + 1), EstimateChangedEvent.class);
+      changes = toChanges(firstSeq, event);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Ignoring malformed estimate change message", e);
+      return;
+    }
+    synchronized (replayBuffer) {
+      for (Change change : changes) {
+        replayBuffer.addLast(change);
+        if (replayBuffer.size() > replayBufferSize) {
+          replayBuffer.removeFirst();
+        }
+      }
+    }
+    for (Subscriber subscriber : subscribers) {
+      for (Change change : changes) {
+        if (!subscriber.enqueue(Outgoing.change(change))) {
+          break;
+        }
+      }
+    }
+  }
+
+  private List<Change> toChanges(long firstSeq, EstimateChangedEvent event)
+      throws JsonProcessingException {
+    String name = event.type().name().toLowerCase(Locale.ROOT);
+    List<Change> changes = new ArrayList<>();
+    long seq = firstSeq;
+    if (event.type() == EstimateChangedEvent.Type.DELETED) {
+      for (String id : event.deletedIds()) {
+        changes.add(new Change(seq++, name, objectMapper.writeValueAsString(Map.of("id", id))));
+      }
+    } else {
+      for (Estimate estimate : event.saved()) {
+        changes.add(new Change(seq++, name, objectMapper.writeValueAsString(estimate)));
+      }
+    }
+    return changes;
+  }
+
+  /** 変化の無い接続が中継機器に切られないよう、コメント行を定期的に送る（切断済みの接続もここで検出する）。 */
+  @Scheduled(fixedDelayString = "${app.stream.heartbeat-interval:PT15S}")
+  void heartbeat() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.enqueue(Outgoing.HEARTBEAT);
+    }
+  }
+
+  /**
+   * 配信する 1 件。
+   *
+   * @param seq イベント id
+   * @param name イベント名（created / updated / deleted）
+   * @param data JSON（created / updated は見積、deleted は {@code {"id": ...}}）
+   */
+  private record Change(long seq, String name, String data) {}
+
+  /**
+   * 接続ごとの送信待ちの 1 件。
+   *
+   * @param change 変更（変更以外は null）
+   * @param event 変更以外のイベント（コメント・reset）
+   */
+  private record Outgoing(Change change, Supplier<SseEmitter.SseEventBuilder> event) {
+
+    static final Outgoing HEARTBEAT =
+        new Outgoing(null, () -> SseEmitter.event().comment("heartbeat"));
+    static final Outgoing RESET =
+        new Outgoing(null, () -> SseEmitter.event().name("reset").data("{}"));
+
+    static Outgoing change(Change change) {
+      return new Outgoing(change, null);
+    }
+
+    static Outgoing retry(Duration retry) {
+      return new Outgoing(
+          null, () -> SseEmitter.event().reconnectTime(retry.toMillis()).comment("connected"));
+    }
+  }
+
+  /**
+   * 接続中のクライアント。送信待ちに積み、送信スレッドが 1 件ずつ順に送る（接続ごとに同時に送るのは 1 スレッドだけ）。
+   * 送信済みの id 以下の変更は送らない。
+   */
+  private final class Subscriber {
+    private final SseEmitter emitter;
+
+    /** 送信待ち・送信中かどうか・切断済みかどうか（このインスタンスで排他） */
+    private final ArrayDeque<Outgoing> pending = new ArrayDeque<>();
+
+    private boolean draining;
+    private boolean closed;
+
+    /** 送信に失敗した（エラーで完了済みのため、切断時に改めて完了させない） */
+    private boolean failed;
+
+    /** 送信済みの最後の id（送信スレッドだけが読み書きする） */
+    private long lastSent;
+
+    Subscriber(SseEmitter emitter, long lastSent) {
+      this.emitter = emitter;
+      this.lastSent = lastSent;
+    }
+
+    /**
+     * 送信待ちに積む。上限を超えたら切断する。
+     *
+     * @return 積めた場合は true、切断済み（または今回切断した）場合は false
+     */
+    boolean enqueue(Outgoing outgoing) {
+      synchronized (this) {
+        if (closed) {
+          return false;
+        }
+        if (pending.size() >= maxPending) {
+          log.info("Disconnecting slow estimate stream subscriber: {} events pending", maxPending);
+          overflows.increment();
+          close();
+          return false;
+        }
+        pending.addLast(outgoing);
+        if (draining) {
+          return true;
+        }
+        draining = true;
+      }
+      sender.execute(this::drain);
+      return true;
+    }
+
+    /** 送信待ちを空になるまで送る（送信スレッドで実行する）。 */
+    private void drain() {
+      while (true) {
+        Outgoing next;
+        synchronized (this) {
+          next = closed ? null : pending.pollFirst();
+          if (next == null) {
+            draining = false;
+            if (closed && !failed) {
+              // 送信中の切断は送信スレッドで完了させる（送信に詰まっている接続の完了待ちで積み込み側を止めない）
+              emitter.complete();
+            }
+            return;
+          }
+        }
+        if (!send(next)) {
+          synchronized (this) {
+            failed = true;
+            close();
+          }
+        }
+      }
+    }
+
+    private boolean send(Outgoing outgoing) {
+      if (outgoing.change() == null) {
+        return trySend(outgoing.event().get());
+      }
+      Change change = outgoing.change();
+      if (change.seq() <= lastSent) {
+        return true;
+      }
+      lastSent = change.seq();
+      return trySend(
+          SseEmitter.event()
+              .id(Long.toString(change.seq()))
+              .name(change.name())
+              .data(change.data()));
+    }
+
+    /** 切断済みにし、購読から外す（呼び出し側で {@code this} を排他していること）。 */
+    private void close() {
+      closed = true;
+      pending.clear();
+      subscribers.remove(this);
+      if (!draining) {
+        draining = true;
+        sender.execute(this::drain);
+      }
+    }
+
+    private boolean trySend(SseEmitter.SseEventBuilder event) {
+      try {
+        emitter.send(event);
+        return true;
+      } catch (IOException | IllegalStateException e) {
+        // 切断済み。完了通知で購読から外れる
+        emitter.completeWithError(e);
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.upload;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSession;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * S3 直接アップロードのセッションを Redis に保持するストア。
+ *
+ * <p>キー構造:
+ * <ul>
+ *   <li>{@code upload:session:{id}}（Hash）: セッション本体
+ *   <li>{@code upload:session:{id}:parts}（Hash）: パート番号 → ETag
+ * </ul>
+ * どちらも {@code app.upload.session-ttl} で失効する。パートはクライアントが並行して登録するため、
+ * 本体とは別の Hash に 1 フィールドずつ書き込む（読み書きの競合が起きない）。
+ */
+@Component
+public class UploadSessionStore {
+
+  private final StringRedisTemplate redisTemplate;
+  private final Duration sessionTtl;
+
+  public UploadSessionStore(
+      StringRedisTemplate redisTemplate,
+      @Value("${app.upload.session-ttl:P1D}") Duration sessionTtl) {
+    this.redisTemplate = redisTemplate;
+    this.sessionTtl = sessionTtl;
+  }
+
+  private String sessionKey(String id) {
+    return "upload:session:" + id;
+  }
+
+  private String partsKey(String id) {
+    return "upload:session:" + id + ":parts";
+  }
+
+  /** セッションを UPLOADING 状態で登録する。 */
+  public void create(UploadSession session) {
+    Map<String, String> values = new HashMap<>();
+    values.put("owner", session.owner());
+    values.put("objectKey", session.objectKey());
+    if (session.contentType() != null) {
+      values.put("contentType", session.contentType());
+    }
+    values.put("size", String.valueOf(session.size()));
+    values.put("mode", session.mode().name());
+    if (session.uploadId() != null) {
+      values.put("uploadId", session.uploadId());
+    }
+    values.put("partSize", String.valueOf(session.partSize()));
+    values.put("partCount", String.valueOf(session.partCount()));
+    values.put("status", UploadSession.Status.UPLOADING.name());
+    values.put("createdAt", String.valueOf(session.createdAt().toEpochMilli()));
+
+    redisTemplate.opsForHash().putAll(sessionKey(session.id()), values);
+    redisTemplate.expire(sessionKey(session.id()), sessionTtl);
+  }
+
+  /** アップロード済みパートの ETag を登録する（同じパートの再アップロードは上書き）。 */
+  public void putPart(String id, int partNumber, String eTag) {
+    redisTemplate.opsForHash().put(partsKey(id), String.valueOf(partNumber), eTag);
+    redisTemplate.expire(partsKey(id), sessionTtl);
+  }
+
+  /** 状態を更新し、不要になったパート一覧を削除する。 */
+  public void finish(String id, UploadSession.Status status) {
+    redisTemplate.opsForHash().put(sessionKey(id), "status", status.name());
+    redisTemplate.delete(partsKey(id));
+  }
+
+  /**
+   * セッションを取得する。
+   *
+   * @param id セッションID
+   * @return セッション。存在しない（期限切れを含む）場合は null
+   */
+  public UploadSession find(String id) {
+    Map<Object, Object> values = redisTemplate.opsForHash().entries(sessionKey(id));
+    if (values.isEmpty()) {
+      return null;
+    }
+    SortedMap<Integer, String> parts = new TreeMap<>();
+    redisTemplate
+        .opsForHash()
+        .entries(partsKey(id))
+        .forEach((k, v) -> parts.put(Integer.parseInt((String) k), (String) v));
+
+    return new UploadSession(
+        id,
+        (String) values.get("owner"),
+        (String) values.get("objectKey"),
+        (String) values.get("contentType"),
+        Long.parseLong((String) values.get("size")),
+        UploadSession.Mode.valueOf((String) values.get("mode")),
+        (String) values.get("uploadId"),
+        Long.parseLong((String) values.get("partSize")),
+        Integer.parseInt((String) values.get("partCount")),
+        parts,
+        UploadSession.Status.valueOf((String) values.get("status")),
+        Instant.ofEpochMilli(Long.parseLong((String) values.get("createdAt"))));
+  }
+}
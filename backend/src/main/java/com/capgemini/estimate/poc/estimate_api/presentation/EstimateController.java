@@ -1,42 +1,326 @@
 package com.capgemini.estimate.poc.estimate_api.presentation;
 
+import com.capgemini.estimate.poc.estimate_api.common.web.FileRangeResponder;
 import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchOperation;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItemChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateImportResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimatePartitionKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSearchHit;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateStats;
+import com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidIdsException;
 import com.capgemini.estimate.poc.estimate_api.usecase.DownloadEstimateExcelUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateBatchUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateChangesUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.DownloadPartitionedEstimateExcelUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateDelimitedExportUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateImportUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateParquetExportUseCase;
 import com.capgemini.estimate.poc.estimate_api.usecase.EstimateUseCase;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.springframework.http.*;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/estimates")
 public class EstimateController {
 
   private final DownloadEstimateExcelUseCase downloadUseCase;
+  private final DownloadPartitionedEstimateExcelUseCase partitionedDownloadUseCase;
+  private final EstimateDelimitedExportUseCase delimitedExportUseCase;
+  private final EstimateParquetExportUseCase parquetExportUseCase;
+  private final EstimateImportUseCase importUseCase;
   private final EstimateUseCase estimateUseCase;
+  private final EstimateBatchUseCase batchUseCase;
+  private final EstimateChangesUseCase changesUseCase;
+  private final FileRangeResponder fileRangeResponder;
 
   public EstimateController(
-      DownloadEstimateExcelUseCase downloadUseCase, EstimateUseCase estimateUseCase) {
+      DownloadEstimateExcelUseCase downloadUseCase,
+      DownloadPartitionedEstimateExcelUseCase partitionedDownloadUseCase,
+      EstimateDelimitedExportUseCase delimitedExportUseCase,
+      EstimateParquetExportUseCase parquetExportUseCase,
+      EstimateImportUseCase importUseCase,
+      EstimateUseCase estimateUseCase,
+      EstimateBatchUseCase batchUseCase,
+      EstimateChangesUseCase changesUseCase,
+      FileRangeResponder fileRangeResponder) {
     this.downloadUseCase = downloadUseCase;
+    this.partitionedDownloadUseCase = partitionedDownloadUseCase;
+    this.delimitedExportUseCase = delimitedExportUseCase;
+    this.parquetExportUseCase = parquetExportUseCase;
+    this.importUseCase = importUseCase;
     this.estimateUseCase = estimateUseCase;
+    this.batchUseCase = batchUseCase;
+    this.changesUseCase = changesUseCase;
+    this.fileRangeResponder = fileRangeResponder;
   }
 
+  /** データバージョン単位でキャッシュした xlsx を返す（Range / If-None-Match 対応）。 */
   @GetMapping("/download")
-  public ResponseEntity<byte[]> downloadExcel() {
-    byte[] file = downloadUseCase.execute();
+  public void downloadExcel(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    if (new ServletWebRequest(request, response).checkNotModified(downloadUseCase.currentETag())) {
+      return;
+    }
+    DownloadEstimateExcelUseCase.Artifact artifact = downloadUseCase.getArtifact();
+    fileRangeResponder.send(
+        request,
+        response,
+        artifact.path(),
+        artifact.eTag(),
+        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+        "estimates.xlsx");
+  }
+
+  /** キャッシュを使わず、最新データから生成しながら直接送出する。 */
+  @GetMapping("/download/stream")
+  public ResponseEntity<StreamingResponseBody> downloadExcelStream() {
+    StreamingResponseBody body = downloadUseCase::execute;
     return ResponseEntity.ok()
         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=estimates.xlsx")
         .contentType(MediaType.APPLICATION_OCTET_STREAM)
-        .body(file);
+        .body(body);
+  }
+
+  /** パーティション（?by=CUSTOMER|ID_RANGE）ごとに並列生成した xlsx を zip で返す。 */
+  @GetMapping("/download/partitioned")
+  public ResponseEntity<StreamingResponseBody> downloadPartitionedExcel(
+      @RequestParam(name = "by", required = false) EstimatePartitionKey by) {
+    StreamingResponseBody body = out -> partitionedDownloadUseCase.execute(by, out);
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=estimates.zip")
+        .contentType(MediaType.parseMediaType("application/zip"))
+        .body(body);
+  }
+
+  /** CSV（?gzip=true で Content-Encoding: gzip） */
+  @GetMapping("/export.csv")
+  public ResponseEntity<StreamingResponseBody> exportCsv(
+      @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+    return delimited(',', gzip, "estimates.csv", "text/csv; charset=UTF-8");
+  }
+
+  /** TSV（?gzip=true で Content-Encoding: gzip） */
+  @GetMapping("/export.tsv")
+  public ResponseEntity<StreamingResponseBody> exportTsv(
+      @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+    return delimited('\t', gzip, "estimates.tsv", "text/tab-separated-values; charset=UTF-8");
   }
 
+  /** Parquet（分析用、Snappy 圧縮） */
+  @GetMapping("/export.parquet")
+  public ResponseEntity<StreamingResponseBody> exportParquet() {
+    StreamingResponseBody body = parquetExportUseCase::execute;
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=estimates.parquet")
+        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+        .body(body);
+  }
+
+  /** xlsx / CSV / TSV を一括で取り込む（id が既存なら更新）。行ごとの検証エラーを結果に含めて返す。 */
+  @PostMapping(path = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public EstimateImportResult importEstimates(@RequestParam("file") MultipartFile file)
+      throws IOException {
+    try (InputStream in = file.getInputStream()) {
+      return importUseCase.execute(file.getOriginalFilename(), in);
+    }
+  }
+
+  private ResponseEntity<StreamingResponseBody> delimited(
+      char delimiter, boolean gzip, String fileName, String contentType) {
+    StreamingResponseBody body = out -> delimitedExportUseCase.execute(out, delimiter, gzip);
+    ResponseEntity.BodyBuilder builder =
+        ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+            .contentType(MediaType.parseMediaType(contentType));
+    if (gzip) {
+      builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return builder.body(body);
+  }
+
+  /**
+   * 全件を件数の上限なしに返す。fields=id,title のように指定すると、その項目だけを DB から読み、返す。
+   *
+   * <p>列指向スナップショットがあればメモリから返すが、レスポンスは全件分の JSON になる。件数が多い場合は limit= の
+   * ページ取得か、ファイルのエクスポート（/download 系）を使うこと。ids= や limit= を付けたリクエストはそれぞれの
+   * ハンドラが受ける。
+   */
   @GetMapping
-  public List<Estimate> getEstimates() {
-    return estimateUseCase.getAllEstimates();
+  public MappingJacksonValue getEstimates(@RequestParam(required = false) String fields) {
+    Set<EstimateField> selected = EstimateField.parse(fields);
+    return project(estimateUseCase.getAllEstimates(selected), selected);
+  }
+
+  /**
+   * id を指定してまとめて取得する。GET /api/estimates?ids=a,b,c[&fields=...] → { "items": [...], "missing": [...] }
+   *
+   * <p>items は指定した順、missing は見つからなかった id。fields= は 1 件取得と同じく出力する項目のみ絞る。
+   * limit= と同時には指定できない（{@link #rejectIdsWithLimit}）。
+   */
+  @GetMapping(params = {"ids", "!limit"})
+  public MappingJacksonValue getEstimatesByIds(
+      @RequestParam List<String> ids, @RequestParam(required = false) String fields) {
+    Set<EstimateField> selected = EstimateField.parse(fields);
+    return project(estimateUseCase.getEstimates(ids), selected);
+  }
+
+  /**
+   * ids= と limit= の両方を指定したリクエストは、どちらの意味にも解釈せず 400 とする（id 指定の一括取得にはページが無く、
+   * ページ取得は ids= で絞り込めない）。
+   */
+  @GetMapping(params = {"ids", "limit"})
+  public MappingJacksonValue rejectIdsWithLimit() {
+    throw new InvalidIdsException("ids と limit は同時に指定できません。");
+  }
+
+  /** URL に収まらない件数向けの一括取得。本文は id の配列（結果は GET ?ids= と同じ）。 */
+  @PostMapping("/lookup")
+  public MappingJacksonValue lookupEstimates(
+      @RequestBody List<String> ids, @RequestParam(required = false) String fields) {
+    Set<EstimateField> selected = EstimateField.parse(fields);
+    return project(estimateUseCase.getEstimates(ids), selected);
   }
 
+  /**
+   * GET /api/estimates?limit=50[&cursor=...][&withTotal=true] → { "items": [...], "next": "...", "total": 123 }
+   *
+   * <p>絞り込み: customerNamePrefix（前方一致）, title（部分一致）, minTotalAmount / maxTotalAmount（範囲）。
+   * ソート: sort=ID|TITLE|CUSTOMER_NAME|TOTAL_AMOUNT|UPDATED_AT, desc=true で降順。
+   * fields=id,title のように指定すると、その項目だけを DB から読み、返す。
+   */
+  @GetMapping(params = {"limit", "!ids"})
+  public MappingJacksonValue getEstimatePage(
+      @RequestParam int limit,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "false") boolean withTotal,
+      @RequestParam(required = false) String customerNamePrefix,
+      @RequestParam(required = false) String title,
+      @RequestParam(required = false) Integer minTotalAmount,
+      @RequestParam(required = false) Integer maxTotalAmount,
+      @RequestParam(defaultValue = "ID") EstimateSortKey sort,
+      @RequestParam(defaultValue = "false") boolean desc,
+      @RequestParam(required = false) String fields) {
+    EstimateFilter filter =
+        new EstimateFilter(customerNamePrefix, title, minTotalAmount, maxTotalAmount);
+    Set<EstimateField> selected = EstimateField.parse(fields);
+    return project(
+        estimateUseCase.getEstimatePage(filter, sort, desc, cursor, limit, withTotal, selected),
+        selected);
+  }
+
+  /**
+   * 登録・更新・削除を Server-Sent Events で通知する（event: created / updated / deleted、id: 連番）。
+   *
+   * <p>再接続時は Last-Event-ID 以降を再送する。再送できないほど離れていた場合は event: reset を送るので、
+   * クライアントは一覧を取り直す。接続中は 15 秒ごとにコメント行を送る。
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(
+      @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+      HttpServletResponse response) {
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    // リバースプロキシ（nginx）にバッファリングさせない
+    response.setHeader("X-Accel-Buffering", "no");
+    return estimateUseCase.subscribeChanges(lastEventId);
+  }
+
+  /**
+   * 差分同期。since を省略すると全件、指定するとその時点以降に更新・削除された見積を返す。
+   *
+   * <p>GET /api/estimates/changes?since=...&limit=500 → { "estimates": [...], "deleted": [{ "id", "deletedAt" }],
+   * "next": "...", "hasMore": false, "reset": false }。hasMore が true の間は next を since にして続きを取得し、false
+   * になったら next を保存して次回の同期に使う。reset が true の場合は since を付けずに全件を取り直す。
+   */
+  @GetMapping("/changes")
+  public EstimateChanges getChanges(
+      @RequestParam(required = false) String since,
+      @RequestParam(defaultValue = "500") int limit) {
+    return changesUseCase.getChanges(since, limit);
+  }
+
+  /**
+   * タイトル・顧客名の全文検索（文字 2-gram の索引を使うため、件数に関係なく部分一致を高速に返す）。
+   *
+   * <p>GET /api/estimates/search?q=サーバ見積&limit=20 → 一致度の高い順の [{ "estimate": {...}, "score": 3.4 }]
+   */
+  @GetMapping("/search")
+  public List<EstimateSearchHit> search(
+      @RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+    return estimateUseCase.search(q, limit);
+  }
+
+  /** 件数・合計・最小・最大と、合計金額の大きい顧客 top 件（集計済みの値を返すため件数に依存しない）。 */
+  @GetMapping("/stats")
+  public EstimateStats getStats(@RequestParam(defaultValue = "10") int top) {
+    return estimateUseCase.getStats(top);
+  }
+
+  /**
+   * ETag はバージョン。If-None-Match が一致すれば 304 を返す。
+   *
+   * <p>fields= を指定するとその項目だけを返す（1 件の読み込みは行単位のキャッシュから返すため、列は絞らない）。
+   */
   @GetMapping("/{id}")
-  public Estimate getEstimate(@PathVariable String id) {
-    return estimateUseCase.getEstimate(id);
+  public ResponseEntity<MappingJacksonValue> getEstimate(
+      @PathVariable String id,
+      @RequestParam(required = false) String fields,
+      WebRequest request) {
+    Set<EstimateField> selected = EstimateField.parse(fields);
+    Estimate estimate = estimateUseCase.getEstimate(id);
+    String eTag = eTag(estimate.version);
+    if (eTag != null && request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(eTag).body(project(estimate, selected));
+  }
+
+  /** 明細（items、表示順）付きで返す。ETag は見積のバージョン（明細の変更でも上がる）。 */
+  @GetMapping("/{id}/items")
+  public ResponseEntity<Estimate> getEstimateWithItems(
+      @PathVariable String id, WebRequest request) {
+    Estimate estimate = estimateUseCase.getEstimateWithItems(id);
+    String eTag = eTag(estimate.version);
+    if (eTag != null && request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(eTag).body(estimate);
+  }
+
+  /**
+   * 明細をまとめて追加・更新・削除し、合計金額を更新した見積（明細なし）を返す。
+   *
+   * <p>PATCH /api/estimates/{id}/items { "add": [...], "update": [...], "delete": [{ "id", "version" }] }。
+   * If-Match があれば、見積がそのバージョンの場合のみ反映する（不一致は 412）。
+   */
+  @PatchMapping("/{id}/items")
+  public ResponseEntity<Estimate> changeItems(
+      @PathVariable String id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody EstimateItemChanges changes) {
+    Estimate estimate = estimateUseCase.changeItems(id, changes, version(ifMatch));
+    return ResponseEntity.ok().eTag(eTag(estimate.version)).body(estimate);
   }
 
   @PostMapping
@@ -44,13 +328,76 @@ public class EstimateController {
     estimateUseCase.insertEstimate(estimate);
   }
 
+  /**
+   * 登録・更新・削除をまとめて 1 トランザクションで行う。
+   *
+   * <p>入力が不正な操作があれば何も反映せず 400、それ以外は 200。どちらも操作ごとの結果を返す。
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<EstimateBatchResult> batch(
+      @RequestBody List<EstimateBatchOperation> operations) {
+    EstimateBatchResult result = batchUseCase.execute(operations);
+    return ResponseEntity.status(result.committed() ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+        .body(result);
+  }
+
+  /** If-Match があれば、そのバージョンの場合のみ削除する（不一致は 412）。 */
   @DeleteMapping("/{id}")
-  public void deleteEstimate(@PathVariable String id) {
-    estimateUseCase.deleteEstimate(id);
+  public void deleteEstimate(
+      @PathVariable String id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    estimateUseCase.deleteEstimate(id, version(ifMatch));
   }
 
+  /**
+   * If-Match（無ければ本文の version）があれば、そのバージョンの場合のみ更新する（不一致は 412）。
+   * 更新後のバージョンを ETag で返す。
+   */
   @PutMapping("/{id}")
-  public void deleteEstimate(@PathVariable String id, @RequestBody Estimate estimate) {
-    estimateUseCase.updateEstimate(estimate);
+  public ResponseEntity<Void> updateEstimate(
+      @PathVariable String id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody Estimate estimate) {
+    Long version = estimateUseCase.updateEstimate(id, estimate, version(ifMatch));
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (version != null) {
+      builder.eTag(eTag(version));
+    }
+    return builder.build();
+  }
+
+  /** 見積を {@code fields} の項目だけで書き出すよう指定する（null なら全項目）。 */
+  private static MappingJacksonValue project(Object body, Set<EstimateField> fields) {
+    MappingJacksonValue value = new MappingJacksonValue(body);
+    if (fields != null) {
+      Set<String> names = new HashSet<>();
+      fields.forEach(field -> names.add(field.jsonName()));
+      value.setFilters(
+          new SimpleFilterProvider()
+              .addFilter(
+                  EstimateField.FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(names)));
+    }
+    return value;
+  }
+
+  private static String eTag(Long version) {
+    return version == null ? null : "\"" + version + "\"";
+  }
+
+  /** If-Match の強い ETag からバージョンを取り出す。未指定・{@code *} は null（無条件）。 */
+  private static Long version(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String value = ifMatch.trim();
+    if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+      try {
+        return Long.valueOf(value.substring(1, value.length() - 1));
+      } catch (NumberFormatException e) {
+        // 下で不一致として扱う
+      }
+    }
+    // このサーバーが発行していない ETag は現在の表現と一致し得ない
+    throw new EstimateConflictException("If-Match が一致しません: " + ifMatch);
   }
 }
@@ -0,0 +1,45 @@
+package com.capgemini.estimate.poc.estimate_api.presentation;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.ExportJobResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ParquetExportResponse;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateExportJobUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateParquetExportUseCase;
+import java.net.URI;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/estimates/exports")
+public class EstimateExportController {
+
+  private final EstimateExportJobUseCase exportJobUseCase;
+  private final EstimateParquetExportUseCase parquetExportUseCase;
+
+  public EstimateExportController(
+      EstimateExportJobUseCase exportJobUseCase,
+      EstimateParquetExportUseCase parquetExportUseCase) {
+    this.exportJobUseCase = exportJobUseCase;
+    this.parquetExportUseCase = parquetExportUseCase;
+  }
+
+  /** POST /api/estimates/exports → 202 { "id": "...", "status": "QUEUED", ... } */
+  @PostMapping
+  public ResponseEntity<ExportJobResponse> createExport() {
+    ExportJobResponse job = exportJobUseCase.submit();
+    return ResponseEntity.accepted()
+        .location(URI.create("/api/estimates/exports/" + job.id()))
+        .body(job);
+  }
+
+  /** GET /api/estimates/exports/{id} → 進捗。完了時は "url" に署名付き URL */
+  @GetMapping("/{id}")
+  public ExportJobResponse getExport(@PathVariable String id) {
+    return exportJobUseCase.getJob(id);
+  }
+
+  /** POST /api/estimates/exports/parquet → CSV バケットへ出力 { "key": "...", "url": "https://signed-url..." } */
+  @PostMapping("/parquet")
+  public ResponseEntity<ParquetExportResponse> publishParquet() {
+    return ResponseEntity.ok(parquetExportUseCase.publish());
+  }
+}
@@ -0,0 +1,70 @@
+package com.capgemini.estimate.poc.estimate_api.presentation;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadPartRequest;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadPartResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSessionRequest;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSessionResponse;
+import com.capgemini.estimate.poc.estimate_api.usecase.UploadSessionUseCase;
+import java.net.URI;
+import java.security.Principal;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * S3 直接アップロードのセッション API。
+ * <p>
+ * - {@code POST /api/uploads}: 開始（単一 PUT なら "url" に署名付き PUT URL）
+ * - {@code GET /api/uploads/{id}/parts/{n}}: パート n の署名付き UploadPart URL
+ * - {@code PUT /api/uploads/{id}/parts/{n}}: アップロードしたパートの ETag を登録
+ * - {@code POST /api/uploads/{id}/complete}: 完了
+ * - {@code DELETE /api/uploads/{id}}: 中止
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+  private final UploadSessionUseCase uploadSessionUseCase;
+
+  public UploadController(UploadSessionUseCase uploadSessionUseCase) {
+    this.uploadSessionUseCase = uploadSessionUseCase;
+  }
+
+  @PostMapping
+  public ResponseEntity<UploadSessionResponse> start(
+      Principal principal, @RequestBody UploadSessionRequest request) {
+    UploadSessionResponse session = uploadSessionUseCase.start(principal.getName(), request);
+    return ResponseEntity.created(URI.create("/api/uploads/" + session.id())).body(session);
+  }
+
+  @GetMapping("/{id}")
+  public UploadSessionResponse get(Principal principal, @PathVariable String id) {
+    return uploadSessionUseCase.get(principal.getName(), id);
+  }
+
+  @GetMapping("/{id}/parts/{partNumber}")
+  public UploadPartResponse partUrl(
+      Principal principal, @PathVariable String id, @PathVariable int partNumber) {
+    return uploadSessionUseCase.partUrl(principal.getName(), id, partNumber);
+  }
+
+  @PutMapping("/{id}/parts/{partNumber}")
+  public ResponseEntity<Void> recordPart(
+      Principal principal,
+      @PathVariable String id,
+      @PathVariable int partNumber,
+      @RequestBody UploadPartRequest request) {
+    uploadSessionUseCase.recordPart(principal.getName(), id, partNumber, request.eTag());
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping("/{id}/complete")
+  public UploadSessionResponse complete(Principal principal, @PathVariable String id) {
+    return uploadSessionUseCase.complete(principal.getName(), id);
+  }
+
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> abort(Principal principal, @PathVariable String id) {
+    uploadSessionUseCase.abort(principal.getName(), id);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -1,5 +1,6 @@
 package com.capgemini.estimate.poc.estimate_api.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -48,6 +49,7 @@ public class SecurityConfig {
    * - 例外: 未認証は 401 を返却（ブラウザリダイレクトはしない）
    * - 許可: `/api/csrf`, `/api/auth/refresh`, `/api/auth/logout` は常に許可
    *   - refresh はフィルタで Cookie をクリアしない特例（リフレッシュ判定に委ねる）
+   *   - ASYNC/ERROR ディスパッチは許可（StreamingResponseBody 完了時の再ディスパッチで 401 を返さないため。認可は初回 REQUEST で済んでいる）
    * - 備考: stateless のため {@link org.springframework.security.web.context.NullSecurityContextRepository} を使用し、毎リクエストで検証する
    */
   @Bean
@@ -68,6 +70,7 @@ public class SecurityConfig {
         .exceptionHandling(ex -> ex
             .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
         .authorizeHttpRequests(auth -> auth
+            .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
             .requestMatchers("/api/csrf", "/api/auth/refresh", "/api/auth/logout", "/api/test/sleep").permitAll()
             .anyRequest().authenticated())
         .addFilterBefore(atCookieAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
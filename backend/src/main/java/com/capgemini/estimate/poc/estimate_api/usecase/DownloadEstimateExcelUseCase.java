@@ -1,51 +1,121 @@
 package com.capgemini.estimate.poc.estimate_api.usecase;
 
-import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
 import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
-import java.io.ByteArrayOutputStream;
-import java.util.List;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.datasource.ReadWriteRoutingDataSource;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportArtifactCache;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * 見積一覧の Excel 出力。
+ *
+ * <p>DB からはカーソルで逐次読み出し、SXSSF のウィンドウ（既定 100 行）を超えた行は一時ファイルへ退避する
+ * （{@link EstimateWorkbookWriter}）。
+ * 出力先ストリームへ直接書き込むため、件数によらずヒープ使用量はほぼ一定になる。
+ *
+ * <p>{@link #getArtifact()} はデータバージョン単位で生成済みファイルを再利用するため、データに変更が無い限り
+ * 再ダウンロードでは生成処理が走らない。
+ *
+ * <p>{@link #execute} はリードレプリカから読む。{@link #getArtifact()} の生成ファイルはデータバージョンに紐付けて
+ * 再利用するため、レプリカの遅延で古い内容が新しいバージョンとして残らないよう、生成の間はスレッドを
+ * {@link ReadWriteRoutingDataSource#pinToPrimary()} して primary から読む。
+ */
 @Service
 public class DownloadEstimateExcelUseCase {
 
+  /** 進捗通知の間隔（行） */
+  private static final int PROGRESS_INTERVAL = 1000;
+
   @Autowired private final EstimateRepository repository;
+  private final ExportArtifactCache artifactCache;
+  private final int rowAccessWindow;
 
-  public DownloadEstimateExcelUseCase(EstimateRepository repository) {
+  public DownloadEstimateExcelUseCase(
+      EstimateRepository repository,
+      ExportArtifactCache artifactCache,
+      @Value("${app.export.excel.row-access-window:100}") int rowAccessWindow) {
     this.repository = repository;
+    this.artifactCache = artifactCache;
+    this.rowAccessWindow = rowAccessWindow;
   }
 
-  public byte[] execute() {
-    List<Estimate> estimates = repository.selectAll();
+  /**
+   * 現在のデータバージョンに対応する xlsx ファイルを返す。未生成であれば生成する。
+   *
+   * @return ローカルディスク上のファイルと、そのバージョンを表す ETag
+   */
+  public Artifact getArtifact() {
+    long version = repository.dataVersion();
+    Path path = artifactCache.getOrCreate("estimates", version, ".xlsx", this::renderOnPrimary);
+    return new Artifact(path, eTag(version));
+  }
 
-    try (Workbook workbook = new XSSFWorkbook();
-        ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+  /** キャッシュするファイルを primary から読んで生成する。元から固定されていたスレッドの固定は解除しない。 */
+  private void renderOnPrimary(OutputStream out) {
+    boolean pinned = ReadWriteRoutingDataSource.isPinnedToPrimary();
+    ReadWriteRoutingDataSource.pinToPrimary();
+    try {
+      execute(out, rows -> {});
+    } finally {
+      if (!pinned) {
+        ReadWriteRoutingDataSource.unpin();
+      }
+    }
+  }
 
-      Sheet sheet = workbook.createSheet("Estimates");
+  /** 現在のデータバージョンに対応する ETag。ファイルを用意せずに再検証（304）するために使う。 */
+  public String currentETag() {
+    return eTag(repository.dataVersion());
+  }
 
-      Row header = sheet.createRow(0);
-      header.createCell(0).setCellValue("見積ID");
-      header.createCell(1).setCellValue("タイトル");
-      header.createCell(2).setCellValue("顧客名");
-      header.createCell(3).setCellValue("合計金額");
+  private String eTag(long version) {
+    return "\"estimates-v" + version + "\"";
+  }
 
-      int index = 1;
-      for (Estimate e : estimates) {
-        Row row = sheet.createRow(index++);
-        row.createCell(0).setCellValue(e.id);
-        row.createCell(1).setCellValue(e.title);
-        row.createCell(2).setCellValue(e.customerName);
-        row.createCell(3).setCellValue(e.totalAmount);
-      }
+  /**
+   * 見積一覧を xlsx として {@code out} に書き出す。{@code out} のクローズは呼び出し側の責務。
+   *
+   * @param out 出力先（HTTP レスポンス等）
+   */
+  @Transactional(readOnly = true)
+  public void execute(OutputStream out) {
+    execute(out, rows -> {});
+  }
 
-      workbook.write(out);
-      return out.toByteArray();
+  /**
+   * 見積一覧を xlsx として {@code out} に書き出し、{@value #PROGRESS_INTERVAL} 行ごとに書き込み済み行数を通知する。
+   *
+   * @param out 出力先
+   * @param onProgress 書き込み済み行数の通知先（非同期ジョブの進捗更新用）
+   */
+  @Transactional(readOnly = true)
+  public void execute(OutputStream out, LongConsumer onProgress) {
+    try (var writer = new EstimateWorkbookWriter(rowAccessWindow)) {
+      repository.streamAll(
+          stream -> {
+            stream.forEach(
+                e -> {
+                  writer.append(e);
+                  if (writer.rows() % PROGRESS_INTERVAL == 0) {
+                    onProgress.accept(writer.rows());
+                  }
+                });
+            return null;
+          });
+      onProgress.accept(writer.rows());
+
+      writer.writeTo(out);
 
     } catch (Exception e) {
       throw new RuntimeException("Excel出力失敗", e);
     }
   }
+
+  /** 生成済みの xlsx ファイル。 */
+  public record Artifact(Path path, String eTag) {}
 }
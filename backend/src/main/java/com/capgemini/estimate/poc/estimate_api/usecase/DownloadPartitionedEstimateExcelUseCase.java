@@ -0,0 +1,183 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimatePartitionKey;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 見積一覧を複数ファイルに分割し、並列に生成して 1 つの zip として出力する。
+ *
+ * <p>パーティション（顧客名 or id 範囲）ごとに専用の {@link ForkJoinPool} 上でワークブックを一時ファイルへ生成し、
+ * 完成した順ではなくパーティション順に zip へ格納する。各ファイルは行数上限に達するとシートを分けるため、
+ * 全体で Excel の 1,048,576 行制限を受けない。並列度は DB 接続を 1 本ずつ使うため、コネクションプールより小さく設定すること。
+ *
+ * <p>パーティション数はキーによらず設定値で頭打ちにする（顧客名は名前順に件数がほぼ均等な範囲へまとめる）。
+ * 各パーティションは別の接続で読むため、開始時の SCN を指定したフラッシュバック問い合わせで同じ時点の内容に揃える
+ * （生成に UNDO の保持期間より長くかかると読み出しに失敗する）。
+ */
+@Service
+public class DownloadPartitionedEstimateExcelUseCase {
+
+  private final EstimateRepository repository;
+  private final ForkJoinPool pool;
+  private final EstimatePartitionKey defaultKey;
+  private final int idRangePartitions;
+  private final int customerPartitions;
+  private final int rowAccessWindow;
+
+  public DownloadPartitionedEstimateExcelUseCase(
+      EstimateRepository repository,
+      @Value("${app.export.partition.parallelism:4}") int parallelism,
+      @Value("${app.export.partition.key:ID_RANGE}") EstimatePartitionKey defaultKey,
+      @Value("${app.export.partition.id-range-partitions:8}") int idRangePartitions,
+      @Value("${app.export.partition.customer-partitions:8}") int customerPartitions,
+      @Value("${app.export.excel.row-access-window:100}") int rowAccessWindow) {
+    this.repository = repository;
+    this.pool = new ForkJoinPool(parallelism);
+    this.defaultKey = defaultKey;
+    this.idRangePartitions = idRangePartitions;
+    this.customerPartitions = customerPartitions;
+    this.rowAccessWindow = rowAccessWindow;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * 分割した xlsx を zip として {@code out} に書き出す。
+   *
+   * @param key パーティションキー（null なら {@code app.export.partition.key}）
+   * @param out 出力先
+   */
+  public void execute(EstimatePartitionKey key, OutputStream out) {
+    Long scn = repository.currentScn();
+    List<Partition> partitions =
+        (key == null ? defaultKey : key) == EstimatePartitionKey.CUSTOMER
+            ? customerPartitions(scn)
+            : idRangePartitions(scn);
+
+    Path workDir = null;
+    List<ForkJoinTask<Path>> tasks = new ArrayList<>();
+    try {
+      Path dir = Files.createTempDirectory("estimate-partitions-");
+      workDir = dir;
+      for (int i = 0; i < partitions.size(); i++) {
+        Partition partition = partitions.get(i);
+        Path file = dir.resolve(String.format("part-%05d.xlsx", i));
+        tasks.add(pool.submit(() -> render(partition, file)));
+      }
+
+      // out のクローズは呼び出し側の責務のため finish() のみ行う
+      ZipOutputStream zip = new ZipOutputStream(out);
+      // xlsx 自体が圧縮済みのため、zip では再圧縮しない
+      zip.setLevel(Deflater.NO_COMPRESSION);
+      for (int i = 0; i < tasks.size(); i++) {
+        Path file = tasks.get(i).join();
+        if (file == null) {
+          continue;
+        }
+        zip.putNextEntry(new ZipEntry(partitions.get(i).fileName()));
+        Files.copy(file, zip);
+        zip.closeEntry();
+        Files.delete(file);
+      }
+      zip.finish();
+    } catch (Exception e) {
+      tasks.forEach(t -> t.cancel(true));
+      throw new RuntimeException("Excel出力失敗", e);
+    } finally {
+      deleteQuietly(workDir);
+    }
+  }
+
+  /** パーティション 1 つ分を一時ファイルに生成する。0 件なら null。 */
+  private Path render(Partition partition, Path file) {
+    try (var writer = new EstimateWorkbookWriter(rowAccessWindow)) {
+      partition.source().apply(
+          stream -> {
+            stream.forEach(writer::append);
+            return null;
+          });
+      if (writer.rows() == 0) {
+        return null;
+      }
+      try (OutputStream out = Files.newOutputStream(file)) {
+        writer.writeTo(out);
+      }
+      return file;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** 顧客名の範囲ごとのパーティション。ファイル名には範囲の先頭の顧客名を付ける。 */
+  private List<Partition> customerPartitions(Long scn) {
+    List<String> boundaries = repository.selectCustomerBoundaries(customerPartitions);
+    List<Partition> partitions = new ArrayList<>();
+    for (int i = 0; i <= boundaries.size(); i++) {
+      String from = i == 0 ? null : boundaries.get(i - 1);
+      String to = i == boundaries.size() ? null : boundaries.get(i);
+      String label = from == null ? "" : "-" + sanitize(from);
+      partitions.add(
+          new Partition(
+              String.format("estimates-customers-%03d%s.xlsx", i + 1, label),
+              mapper -> repository.streamByCustomerRange(from, to, scn, mapper)));
+    }
+    return partitions;
+  }
+
+  private List<Partition> idRangePartitions(Long scn) {
+    List<String> boundaries = repository.selectIdBoundaries(idRangePartitions);
+    List<Partition> partitions = new ArrayList<>();
+    for (int i = 0; i <= boundaries.size(); i++) {
+      String from = i == 0 ? null : boundaries.get(i - 1);
+      String to = i == boundaries.size() ? null : boundaries.get(i);
+      partitions.add(
+          new Partition(
+              String.format("estimates-part-%03d.xlsx", i + 1),
+              mapper -> repository.streamByIdRange(from, to, scn, mapper)));
+    }
+    return partitions;
+  }
+
+  /** zip エントリ名に使えない文字を置き換える。 */
+  private String sanitize(String name) {
+    String sanitized = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_");
+    return sanitized.length() > 100 ? sanitized.substring(0, 100) : sanitized;
+  }
+
+  private void deleteQuietly(Path dir) {
+    if (dir == null) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    } catch (IOException ignored) {
+      // 一時ディレクトリの削除失敗は無視（OS の tmp 掃除に任せる）
+    }
+  }
+
+  /** パーティション（出力ファイル名と読み出し元）。 */
+  private record Partition(
+      String fileName, Function<Function<Stream<Estimate>, Object>, Object> source) {}
+}
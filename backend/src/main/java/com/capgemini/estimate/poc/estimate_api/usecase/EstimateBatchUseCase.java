@@ -0,0 +1,181 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchOperation;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchOperation.Op;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult.Item;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult.Status;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 見積の一括登録・更新・削除。
+ *
+ * <p>操作を種別ごとにまとめ、CREATE → UPDATE → DELETE の順に JDBC バッチで実行する（1 トランザクション）。
+ * 種別をまたいで順序を入れ替えるため、同じ id への操作が 2 つ以上ある場合は不正とする。
+ * 1 件でも入力が不正なら何も書き込まず、全操作の結果（INVALID / SKIPPED）を返す。
+ *
+ * <p>UPDATE / DELETE は id とバージョンを条件に実行し、一致しなかった操作は CONFLICT（存在しなければ NOT_FOUND）
+ * として報告する。他の操作はそのまま反映する。
+ */
+@Service
+public class EstimateBatchUseCase {
+
+  private final EstimateRepository repository;
+  private final int maxOperations;
+
+  public EstimateBatchUseCase(
+      EstimateRepository repository,
+      @Value("${app.batch.max-operations:1000}") int maxOperations) {
+    this.repository = repository;
+    this.maxOperations = maxOperations;
+  }
+
+  @Transactional
+  public EstimateBatchResult execute(List<EstimateBatchOperation> operations) {
+    Item[] items = new Item[operations.size()];
+    if (!validate(operations, items)) {
+      for (int i = 0; i < items.length; i++) {
+        if (items[i] == null) {
+          EstimateBatchOperation op = operations.get(i);
+          items[i] = new Item(i, op.op(), op.id(), Status.SKIPPED, null, null);
+        }
+      }
+      return new EstimateBatchResult(false, Arrays.asList(items));
+    }
+
+    List<Integer> createIndexes = new ArrayList<>();
+    List<Estimate> creates = new ArrayList<>();
+    List<Integer> updateIndexes = new ArrayList<>();
+    List<Estimate> updates = new ArrayList<>();
+    List<Integer> deleteIndexes = new ArrayList<>();
+    List<Estimate> deletes = new ArrayList<>();
+
+    // バージョン指定の無い UPDATE / DELETE は現在のバージョンを対象にする（1 回の IN 検索）
+    Map<String, Long> currentVersions =
+        repository.selectVersions(
+            operations.stream()
+                .filter(op -> op.op() != Op.CREATE && op.version() == null)
+                .map(EstimateBatchOperation::id)
+                .toList());
+    for (int i = 0; i < operations.size(); i++) {
+      EstimateBatchOperation op = operations.get(i);
+      Estimate estimate = op.toEstimate();
+      if (op.op() != Op.CREATE && estimate.version == null) {
+        estimate.version = currentVersions.get(op.id());
+        if (estimate.version == null) {
+          items[i] = new Item(i, op.op(), op.id(), Status.NOT_FOUND, null, null);
+          continue;
+        }
+      }
+      switch (op.op()) {
+        case CREATE -> {
+          createIndexes.add(i);
+          creates.add(estimate);
+        }
+        case UPDATE -> {
+          updateIndexes.add(i);
+          updates.add(estimate);
+        }
+        case DELETE -> {
+          deleteIndexes.add(i);
+          deletes.add(estimate);
+        }
+      }
+    }
+
+    repository.insertAll(creates);
+    for (int j = 0; j < creates.size(); j++) {
+      int i = createIndexes.get(j);
+      items[i] = new Item(i, Op.CREATE, creates.get(j).id, Status.OK, 1L, null);
+    }
+    // 実行後のエンティティのバージョンは Doma が書き換え得るため、期待値を先に控えておく
+    List<Long> expectedVersions = updates.stream().map(x -> x.version).toList();
+    int[] updateCounts = repository.updateAll(updates);
+    record(items, Op.UPDATE, updateIndexes, updates, expectedVersions, updateCounts);
+    record(items, Op.DELETE, deleteIndexes, deletes, null, repository.deleteAll(deletes));
+    return new EstimateBatchResult(true, Arrays.asList(items));
+  }
+
+  /**
+   * 件数 0 の行は、存在するなら CONFLICT、しないなら NOT_FOUND とする。
+   *
+   * @param expectedVersions 実行前のバージョン（UPDATE のみ。成功時はこれに 1 を足した値を返す）
+   */
+  private void record(
+      Item[] items,
+      Op op,
+      List<Integer> indexes,
+      List<Estimate> estimates,
+      List<Long> expectedVersions,
+      int[] counts) {
+    List<String> failed = new ArrayList<>();
+    for (int j = 0; j < counts.length; j++) {
+      if (counts[j] == 0) {
+        failed.add(estimates.get(j).id);
+      }
+    }
+    Map<String, Long> existing = failed.isEmpty() ? Map.of() : repository.selectVersions(failed);
+    for (int j = 0; j < estimates.size(); j++) {
+      int i = indexes.get(j);
+      Estimate estimate = estimates.get(j);
+      if (counts[j] != 0) {
+        Long version = expectedVersions == null ? null : expectedVersions.get(j) + 1;
+        items[i] = new Item(i, op, estimate.id, Status.OK, version, null);
+      } else {
+        Status status = existing.containsKey(estimate.id) ? Status.CONFLICT : Status.NOT_FOUND;
+        items[i] = new Item(i, op, estimate.id, status, null, null);
+      }
+    }
+  }
+
+  /** 入力を検証し、不正な操作の結果を {@code items} に設定する。すべて正常なら true。 */
+  private boolean validate(List<EstimateBatchOperation> operations, Item[] items) {
+    if (operations.size() > maxOperations) {
+      for (int i = 0; i < items.length; i++) {
+        items[i] =
+            invalid(i, operations.get(i), "1 回に指定できる操作は " + maxOperations + " 件までです。");
+      }
+      return false;
+    }
+    boolean valid = true;
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < operations.size(); i++) {
+      EstimateBatchOperation op = operations.get(i);
+      String message = null;
+      if (op == null || op.op() == null) {
+        message = "op を指定してください。";
+      } else if (op.op() != Op.CREATE && (op.id() == null || op.id().isBlank())) {
+        message = "id を指定してください。";
+      } else if (op.op() != Op.DELETE && (op.title() == null || op.title().isBlank())) {
+        message = "タイトルは必須です。";
+      } else if (op.op() != Op.CREATE && !ids.add(op.id())) {
+        message = "同じ id への操作が重複しています。";
+      }
+      if (message != null) {
+        items[i] = invalid(i, op, message);
+        valid = false;
+      }
+    }
+    return valid;
+  }
+
+  private static Item invalid(int index, EstimateBatchOperation op, String message) {
+    return new Item(
+        index,
+        op == null ? null : op.op(),
+        op == null ? null : op.id(),
+        Status.INVALID,
+        null,
+        message);
+  }
+}
@@ -0,0 +1,139 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.common.pagination.PageCursor;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateTombstone;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidPageCursorException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 差分同期（GET /api/estimates/changes?since=）。
+ *
+ * <p>登録・更新・削除には DB のシーケンスから変更番号（{@code change_seq}）が振られ、その順に返す。トークンには次の 2 種類が
+ * ある（どちらも {@link PageCursor} 形式）。
+ *
+ * <ul>
+ *   <li>sync: 前回の同期で追いついた変更番号と、その番号を確定した日時。番号より後ろの更新・削除を返す
+ *   <li>page: 同期の途中。直前のページの最終行の変更番号の続きを、同じ上限の番号まで返す
+ * </ul>
+ *
+ * <p>上限は {@link EstimateRepository#settledChangeSeq()}（それ以下の番号の書き込みはコミット済み）のため、
+ * 採番とコミットの順序が前後しても取りこぼさず、重複して返すこともない。更新は estimate、削除は estimate_tombstone の
+ * {@code change_seq} の索引の範囲走査で読むため、コストは表の件数ではなく変更件数に比例する。
+ */
+@Service
+public class EstimateChangesUseCase {
+
+  private static final String SYNC = "sync";
+  private static final String PAGE = "page";
+
+  private final EstimateRepository repository;
+  private final Duration tombstoneRetention;
+  private final int maxPageSize;
+
+  public EstimateChangesUseCase(
+      EstimateRepository repository,
+      @Value("${app.changes.tombstone-retention:P30D}") Duration tombstoneRetention,
+      @Value("${app.pagination.max-page-size:500}") int maxPageSize) {
+    this.repository = repository;
+    this.tombstoneRetention = tombstoneRetention;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /**
+   * {@code since} 以降の変更を返す。
+   *
+   * @param since 前回のレスポンスの {@code next}（null なら全件を変更番号順に返す）
+   * @param limit 件数（1〜{@code app.pagination.max-page-size} に丸める）
+   */
+  public EstimateChanges getChanges(String since, int limit) {
+    int size = Math.clamp(limit, 1, maxPageSize);
+    LocalDateTime now = LocalDateTime.now();
+
+    long after = 0;
+    Long upper = null;
+    LocalDateTime settledAt = now;
+    boolean full = since == null || since.isEmpty();
+    if (!full) {
+      List<String> token = PageCursor.decode(since, 4);
+      try {
+        if (SYNC.equals(token.get(0)) && token.get(2) == null) {
+          // 更新日時で同期していた頃のトークン。変更番号に読み替えられないため取り直してもらう
+          return new EstimateChanges(List.of(), List.of(), null, false, true);
+        } else if (SYNC.equals(token.get(0))) {
+          after = Long.parseLong(token.get(1));
+          settledAt = LocalDateTime.parse(token.get(2));
+          if (settledAt.isBefore(now.minus(tombstoneRetention))) {
+            // 削除の記録が残っていない期間を含むため、差分では正しく同期できない
+            return new EstimateChanges(List.of(), List.of(), null, false, true);
+          }
+        } else if (PAGE.equals(token.get(0))) {
+          after = Long.parseLong(token.get(1));
+          upper = Long.parseLong(token.get(2));
+          settledAt = LocalDateTime.parse(token.get(3));
+        } else {
+          throw new InvalidPageCursorException(since);
+        }
+      } catch (RuntimeException e) {
+        throw e instanceof InvalidPageCursorException ? e : new InvalidPageCursorException(since);
+      }
+    }
+    if (upper == null) {
+      upper = repository.settledChangeSeq();
+      if (upper <= after) {
+        // 前回の同期より後ろに確定した変更が無い（別のレプリカが先に進んだ番号を返した場合も含む）
+        return new EstimateChanges(List.of(), List.of(), sync(after, settledAt), false, false);
+      }
+      settledAt = now;
+    }
+
+    // それぞれ 1 件多く読み、変更番号順に併合して続きの有無を判定する
+    List<Estimate> rows = repository.selectChangedBetween(after, upper, size + 1);
+    List<EstimateTombstone> tombstones =
+        full ? List.of() : repository.selectTombstonesChangedBetween(after, upper, size + 1);
+    List<Estimate> estimates = new ArrayList<>();
+    List<EstimateTombstone> deleted = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    long last = after;
+    while (i + j < size && (i < rows.size() || j < tombstones.size())) {
+      if (j >= tombstones.size()
+          || (i < rows.size() && rows.get(i).changeSeq < tombstones.get(j).changeSeq)) {
+        Estimate row = rows.get(i++);
+        estimates.add(row);
+        last = row.changeSeq;
+      } else {
+        EstimateTombstone tombstone = tombstones.get(j++);
+        deleted.add(tombstone);
+        last = tombstone.changeSeq;
+      }
+    }
+    boolean hasMore = i < rows.size() || j < tombstones.size();
+    // 削除後に同じ id で再登録された場合などは、後の変更だけを返す
+    Map<String, Long> latest = new HashMap<>();
+    estimates.forEach(row -> latest.merge(row.id, row.changeSeq, Math::max));
+    deleted.forEach(tombstone -> latest.merge(tombstone.id, tombstone.changeSeq, Math::max));
+    estimates.removeIf(row -> !row.changeSeq.equals(latest.get(row.id)));
+    deleted.removeIf(tombstone -> !tombstone.changeSeq.equals(latest.get(tombstone.id)));
+    String next =
+        hasMore
+            ? PageCursor.encode(
+                List.of(PAGE, String.valueOf(last), upper.toString(), settledAt.toString()))
+            : sync(upper, settledAt);
+    return new EstimateChanges(estimates, deleted, next, hasMore, false);
+  }
+
+  private static String sync(long seq, LocalDateTime settledAt) {
+    return PageCursor.encode(Arrays.asList(SYNC, String.valueOf(seq), settledAt.toString(), null));
+  }
+}
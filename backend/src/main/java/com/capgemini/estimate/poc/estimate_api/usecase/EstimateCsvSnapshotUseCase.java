@@ -0,0 +1,155 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3MultipartUploadOutputStream;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+
+/**
+ * CSV バケットへ見積一覧のスナップショットを発行する。
+ *
+ * <p>出力するオブジェクト（いずれも {@code /api/csv/{fileName}} で取得可能）:
+ * <ul>
+ *   <li>{@code estimates.csv}: 全件スナップショット（定期的に DB から作り直す＝コンパクション）</li>
+ *   <li>{@code estimates-delta-{yyyyMMddHHmmss}.csv}: 前回発行以降に追加・更新された行のみ</li>
+ *   <li>{@code estimates-delta-latest.csv}: 直近の差分のコピー</li>
+ * </ul>
+ *
+ * <p>差分は変更番号（{@code change_seq}）で読み、読み終えた番号をハイウォーターマークとして Redis の
+ * {@code csv:snapshot:hwm} に保持する。終点は {@link EstimateRepository#settledChangeSeq()}（それ以下の番号の書き込みは
+ * コミット済み）のため、採番とコミットの順序が前後しても取りこぼさない。削除された行は差分に現れないため、
+ * 全件スナップショットで反映される。
+ */
+@Service
+public class EstimateCsvSnapshotUseCase {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateCsvSnapshotUseCase.class);
+
+  private static final String HWM_KEY = "csv:snapshot:hwm";
+  private static final String FULL_KEY = "estimates.csv";
+  private static final String LATEST_DELTA_KEY = "estimates-delta-latest.csv";
+  private static final DateTimeFormatter KEY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+  /** 差分を DB から 1 回に読む行数 */
+  private static final int CHANGE_BATCH_SIZE = 1000;
+
+  private final EstimateRepository repository;
+  private final EstimateDelimitedExportUseCase delimitedExportUseCase;
+  private final S3Client s3Client;
+  private final StringRedisTemplate redisTemplate;
+  private final String bucketName;
+
+  public EstimateCsvSnapshotUseCase(
+      EstimateRepository repository,
+      EstimateDelimitedExportUseCase delimitedExportUseCase,
+      S3Client s3Client,
+      StringRedisTemplate redisTemplate,
+      @Value("${app.csv.bucket-name}") String bucketName) {
+    this.repository = repository;
+    this.delimitedExportUseCase = delimitedExportUseCase;
+    this.s3Client = s3Client;
+    this.redisTemplate = redisTemplate;
+    this.bucketName = bucketName;
+  }
+
+  /**
+   * 前回発行以降の変更分を発行する。ハイウォーターマーク未設定（初回）の場合は全件スナップショットを作る。
+   */
+  public void publishDelta() {
+    Long after = highWaterMark();
+    if (after == null) {
+      publishFullSnapshot();
+      return;
+    }
+    long upper = repository.settledChangeSeq();
+    if (upper <= after) {
+      return;
+    }
+
+    List<Estimate> first = repository.selectChangedBetween(after, upper, CHANGE_BATCH_SIZE);
+    if (!first.isEmpty()) {
+      String key = "estimates-delta-" + LocalDateTime.now().format(KEY_TIMESTAMP) + ".csv";
+      long[] rows = {0};
+      upload(
+          key,
+          out ->
+              rows[0] =
+                  delimitedExportUseCase.write(
+                      out, ',', false, mapper -> mapper.apply(changedBetween(first, upper))));
+      s3Client.copyObject(
+          CopyObjectRequest.builder()
+              .sourceBucket(bucketName)
+              .sourceKey(key)
+              .destinationBucket(bucketName)
+              .destinationKey(LATEST_DELTA_KEY)
+              .build());
+      log.info(
+          "csv delta published: key={} rows={} afterSeq={} toSeq={}", key, rows[0], after, upper);
+    }
+    redisTemplate.opsForValue().set(HWM_KEY, String.valueOf(upper));
+  }
+
+  /**
+   * 全件スナップショットを作り直し、ハイウォーターマークを進める。
+   *
+   * <p>ハイウォーターマークは読み出し前に確定済みの番号にするため、読み出し中の変更は次の差分にも重ねて含まれる。
+   */
+  public void publishFullSnapshot() {
+    long upper = repository.settledChangeSeq();
+    upload(FULL_KEY, out -> delimitedExportUseCase.write(out, ',', false, repository::streamAll));
+    redisTemplate.opsForValue().set(HWM_KEY, String.valueOf(upper));
+    log.info("csv full snapshot published: key={} hwm={}", FULL_KEY, upper);
+  }
+
+  /** 保持しているハイウォーターマーク。未設定の場合は null。 */
+  private Long highWaterMark() {
+    String stored = redisTemplate.opsForValue().get(HWM_KEY);
+    if (stored == null) {
+      return null;
+    }
+    try {
+      return Long.parseLong(stored);
+    } catch (NumberFormatException e) {
+      // 更新日時で管理していた頃の値。変更番号に読み替えられないため全件から作り直す
+      return null;
+    }
+  }
+
+  /** {@code first} に続けて、上限の番号まで変更番号順に 1 ページずつ読み出すストリーム。 */
+  private Stream<Estimate> changedBetween(List<Estimate> first, long upper) {
+    return Stream.iterate(
+            first,
+            page -> !page.isEmpty(),
+            page ->
+                page.size() < CHANGE_BATCH_SIZE
+                    ? List.of()
+                    : repository.selectChangedBetween(
+                        page.get(page.size() - 1).changeSeq, upper, CHANGE_BATCH_SIZE))
+        .flatMap(List::stream);
+  }
+
+  private void upload(String key, Consumer<OutputStream> writer) {
+    var out =
+        new S3MultipartUploadOutputStream(
+            s3Client, bucketName, key, "text/csv; charset=UTF-8", S3MultipartUploadOutputStream.MIN_PART_SIZE);
+    try {
+      writer.accept(out);
+      out.close();
+    } catch (Exception e) {
+      out.abort();
+      throw new RuntimeException("CSVスナップショット発行失敗: " + key, e);
+    }
+  }
+}
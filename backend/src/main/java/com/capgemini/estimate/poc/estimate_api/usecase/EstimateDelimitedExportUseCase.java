@@ -0,0 +1,110 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.common.csv.DelimitedWriter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 見積一覧の CSV/TSV 出力。
+ *
+ * <p>DB カーソルから読んだ行を {@link DelimitedWriter} でそのまま出力先へ書き出す。中間の {@code List<Estimate>} も
+ * ワークブックも作らないため、xlsx 出力に比べて CPU・メモリともに大幅に軽い。
+ */
+@Service
+public class EstimateDelimitedExportUseCase {
+
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+  private final EstimateRepository repository;
+  private final int bufferSize;
+
+  public EstimateDelimitedExportUseCase(
+      EstimateRepository repository,
+      @Value("${app.export.csv.buffer-chars:16384}") int bufferSize) {
+    this.repository = repository;
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * 見積一覧を UTF-8 の CSV/TSV として {@code out} に書き出す。{@code out} のクローズは呼び出し側の責務。
+   *
+   * @param out 出力先
+   * @param delimiter 区切り文字（{@code ','} / {@code '\t'}）
+   * @param gzip true の場合 gzip 圧縮して書き出す
+   */
+  public void execute(OutputStream out, char delimiter, boolean gzip) {
+    write(out, delimiter, gzip, repository::streamAll);
+  }
+
+  /**
+   * {@code source} が渡すストリームの行を CSV/TSV として書き出す。
+   *
+   * @param source 行の読み出し元（リポジトリのストリーム系メソッド）
+   * @return 書き出した行数（ヘッダを除く）
+   */
+  long write(
+      OutputStream out,
+      char delimiter,
+      boolean gzip,
+      Function<Function<Stream<Estimate>, Object>, Object> source) {
+    try {
+      GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : null;
+      Writer writer =
+          new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8);
+      DelimitedWriter csv = new DelimitedWriter(writer, delimiter, bufferSize);
+
+      long[] rows = {0};
+      writeHeader(csv);
+      source.apply(
+          stream -> {
+            stream.forEach(
+                e -> {
+                  writeRow(csv, e);
+                  rows[0]++;
+                });
+            return null;
+          });
+
+      csv.flush();
+      if (gzipOut != null) {
+        gzipOut.finish();
+      }
+      return rows[0];
+    } catch (IOException e) {
+      throw new UncheckedIOException("CSV出力失敗", e);
+    }
+  }
+
+  private void writeHeader(DelimitedWriter csv) throws IOException {
+    csv.field("id");
+    csv.field("title");
+    csv.field("customer_name");
+    csv.field("total_amount");
+    csv.field("updated_at");
+    csv.endRow();
+  }
+
+  private void writeRow(DelimitedWriter csv, Estimate e) {
+    try {
+      csv.field(e.id);
+      csv.field(e.title);
+      csv.field(e.customerName);
+      csv.field(e.totalAmount);
+      csv.field(e.updatedAt == null ? null : e.updatedAt.toString());
+      csv.endRow();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.common.s3.PresignedUrlOptions;
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3MultipartUploadOutputStream;
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3UrlSigner;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ExportJob;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ExportJobResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.ExportJobNotFoundException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportJobQueue;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportJobStore;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * 見積一覧 Excel の非同期エクスポート。
+ *
+ * <p>リクエストスレッドではジョブを登録して Redis Stream に積むだけで即時に返す。
+ * 実際の生成は {@link com.capgemini.estimate.poc.estimate_api.infrastructure.export.EstimateExportWorker}
+ * が {@link #run(String, String)} を呼び出して行い、結果は S3 へマルチパートアップロードする。
+ */
+@Service
+public class EstimateExportJobUseCase {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateExportJobUseCase.class);
+
+  private static final String CONTENT_TYPE =
+      "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+  private final ExportJobStore jobStore;
+  private final ExportJobQueue jobQueue;
+  private final DownloadEstimateExcelUseCase excelUseCase;
+  private final EstimateRepository repository;
+  private final S3Client s3Client;
+  private final S3UrlSigner s3UrlSigner;
+  private final String bucketName;
+  private final int partSizeBytes;
+  private final long urlExpiryMinutes;
+
+  public EstimateExportJobUseCase(
+      ExportJobStore jobStore,
+      ExportJobQueue jobQueue,
+      DownloadEstimateExcelUseCase excelUseCase,
+      EstimateRepository repository,
+      S3Client s3Client,
+      S3UrlSigner s3UrlSigner,
+      @Value("${app.export.bucket-name:${app.csv.bucket-name}}") String bucketName,
+      @Value("${app.export.jobs.part-size-mb:8}") int partSizeMb,
+      @Value("${app.export.jobs.url-expiry-minutes:15}") long urlExpiryMinutes) {
+    this.jobStore = jobStore;
+    this.jobQueue = jobQueue;
+    this.excelUseCase = excelUseCase;
+    this.repository = repository;
+    this.s3Client = s3Client;
+    this.s3UrlSigner = s3UrlSigner;
+    this.bucketName = bucketName;
+    this.partSizeBytes = partSizeMb * 1024 * 1024;
+    this.urlExpiryMinutes = urlExpiryMinutes;
+  }
+
+  /** ジョブを受け付け、キューへ投入する。 */
+  public ExportJobResponse submit() {
+    String jobId = UUID.randomUUID().toString();
+    ExportJob job = jobStore.create(jobId);
+    jobQueue.enqueue(jobId);
+    return ExportJobResponse.of(job, null);
+  }
+
+  /**
+   * ジョブの状態を返す。完了済みであれば署名付きダウンロード URL を含める。
+   *
+   * @throws ExportJobNotFoundException ジョブが存在しない（期限切れを含む）場合
+   */
+  public ExportJobResponse getJob(String jobId) {
+    ExportJob job = jobStore.find(jobId);
+    if (job == null) {
+      throw new ExportJobNotFoundException(jobId);
+    }
+    String url = null;
+    if (job.status() == ExportJob.Status.SUCCEEDED) {
+      url =
+          s3UrlSigner
+              .generatePresignedUrl(
+                  job.objectKey(), PresignedUrlOptions.of(bucketName, urlExpiryMinutes))
+              .toString();
+    }
+    return ExportJobResponse.of(job, url);
+  }
+
+  /**
+   * ジョブを実行する（ワーカースレッドから呼ばれる）。
+   *
+   * <p>実行前にジョブの実行権（{@link ExportJobStore#tryLease}）を取得し、他のワーカーが保持していれば実行しない。
+   * 完了済み・失敗済みのジョブ（再配信されたもの）は何もしない。実行中に実行権を失った場合（延長が間に合わず
+   * 他のワーカーが引き継いだ場合）は、アップロードを中止して状態は引き継いだワーカーに任せる。
+   *
+   * @param jobId ジョブID
+   * @param owner 実行するワーカー（コンシューマ名）
+   * @return 処理を終えた（完了・失敗・対象外）場合は true。他のワーカーが実行中の場合は false
+   */
+  public boolean run(String jobId, String owner) {
+    if (!jobStore.tryLease(jobId, owner)) {
+      log.info("export job is running on another worker: jobId={}", jobId);
+      return false;
+    }
+    try {
+      ExportJob job = jobStore.find(jobId);
+      if (job != null
+          && job.status() != ExportJob.Status.SUCCEEDED
+          && job.status() != ExportJob.Status.FAILED) {
+        render(jobId, owner);
+      }
+      return true;
+    } finally {
+      jobStore.releaseLease(jobId, owner);
+    }
+  }
+
+  private void render(String jobId, String owner) {
+    String objectKey = "exports/" + jobId + "/estimates.xlsx";
+    jobStore.markRunning(jobId, repository.count());
+
+    var out =
+        new S3MultipartUploadOutputStream(s3Client, bucketName, objectKey, CONTENT_TYPE, partSizeBytes);
+    long[] rows = {0};
+    boolean[] leaseLost = {false};
+    try {
+      excelUseCase.execute(
+          out,
+          written -> {
+            if (!jobStore.tryLease(jobId, owner)) {
+              leaseLost[0] = true;
+              throw new IllegalStateException("export job lease lost: " + jobId);
+            }
+            rows[0] = written;
+            jobStore.updateProgress(jobId, written);
+          });
+      out.close();
+      jobStore.markSucceeded(jobId, objectKey, rows[0]);
+    } catch (Exception e) {
+      out.abort();
+      if (leaseLost[0]) {
+        log.warn("export job taken over by another worker: jobId={}", jobId);
+        return;
+      }
+      log.warn("export job failed: jobId={}", jobId, e);
+      jobStore.markFailed(jobId, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,364 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.common.csv.DelimitedReader;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateImportResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateImportResult.RowError;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidImportFileException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * xlsx / CSV / TSV から見積を一括で取り込むユースケース。
+ *
+ * <p>xlsx は POI のイベント API（SAX）、CSV/TSV は {@link DelimitedReader} で 1 行ずつ読み、ファイル全体を
+ * メモリに展開しない。{@code app.import.batch-size} 行たまるごとに並列で検証し、正常な行だけを 1 回の JDBC
+ * バッチで MERGE（id が既存なら更新、無ければ登録）する。バッチごとに 1 つのトランザクションで書き込んでコミットし、
+ * 書き込みに失敗したバッチはロールバックして、その行をすべて行エラーとして報告する（残りのバッチの取り込みは続ける）。
+ *
+ * <p>各シート（CSV はファイル）の先頭行はヘッダとして扱い、列名で項目を対応付ける。エクスポートと同じ列名
+ * （{@code id, title, customer_name, total_amount} または {@code 見積ID, タイトル, 顧客名, 合計金額}）を受け付け、
+ * それ以外の列は無視する。id が空の行は新規登録になる。
+ */
+@Component
+public class EstimateImportUseCase {
+
+  private static final Logger log = LoggerFactory.getLogger(EstimateImportUseCase.class);
+
+  /** VARCHAR2(255) はバイト長の制限のため、UTF-8 換算で判定する */
+  private static final int MAX_TEXT_BYTES = 255;
+
+  private static final int MAX_ID_LENGTH = 36;
+
+  private static final Map<String, Column> HEADERS =
+      Map.of(
+          "id", Column.ID,
+          "見積id", Column.ID,
+          "title", Column.TITLE,
+          "タイトル", Column.TITLE,
+          "customer_name", Column.CUSTOMER_NAME,
+          "顧客名", Column.CUSTOMER_NAME,
+          "total_amount", Column.TOTAL_AMOUNT,
+          "合計金額", Column.TOTAL_AMOUNT);
+
+  private final EstimateRepository repository;
+  private final TransactionTemplate transaction;
+  private final int batchSize;
+  private final int maxErrors;
+  private final int bufferChars;
+
+  public EstimateImportUseCase(
+      EstimateRepository repository,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.import.batch-size:1000}") int batchSize,
+      @Value("${app.import.max-errors:1000}") int maxErrors,
+      @Value("${app.export.csv.buffer-chars:16384}") int bufferChars) {
+    this.repository = repository;
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxErrors = maxErrors;
+    this.bufferChars = bufferChars;
+  }
+
+  /**
+   * ファイルを取り込む。形式はファイル名の拡張子で判定する（.xlsx / .tsv / それ以外は CSV）。
+   *
+   * @param fileName アップロードされたファイル名
+   * @param in ファイルの内容（呼び出し側で close する）
+   */
+  public EstimateImportResult execute(String fileName, InputStream in) throws IOException {
+    String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+    ImportSession session = new ImportSession();
+    if (name.endsWith(".xlsx")) {
+      readXlsx(in, session);
+    } else {
+      readDelimited(in, name.endsWith(".tsv") ? '\t' : ',', session);
+    }
+    session.flush();
+    return session.result();
+  }
+
+  private void readDelimited(InputStream in, char delimiter, ImportSession session)
+      throws IOException {
+    DelimitedReader reader =
+        new DelimitedReader(
+            new InputStreamReader(in, StandardCharsets.UTF_8), delimiter, bufferChars);
+    long line = reader.line();
+    List<String> fields;
+    while ((fields = next(reader)) != null) {
+      session.accept(null, line, fields);
+      line = reader.line();
+    }
+  }
+
+  private static List<String> next(DelimitedReader reader) {
+    try {
+      return reader.next();
+    } catch (IOException e) {
+      throw new InvalidImportFileException(e.getMessage(), e);
+    }
+  }
+
+  /** OPC パッケージはランダムアクセスが必要なため、一時ファイルへ書き出してから開く（全体をヒープに載せない）。 */
+  private void readXlsx(InputStream in, ImportSession session) throws IOException {
+    Path file = Files.createTempFile("estimate-import-", ".xlsx");
+    try {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+      try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+        XSSFReader reader = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+        StylesTable styles = reader.getStylesTable();
+        DataFormatter formatter = new DataFormatter(Locale.ROOT);
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+          try (InputStream sheet = sheets.next()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(
+                new XSSFSheetXMLHandler(
+                    styles,
+                    null,
+                    strings,
+                    new SheetRows(session, sheets.getSheetName()),
+                    formatter,
+                    false));
+            parser.parse(new InputSource(sheet));
+          }
+        }
+      } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+        throw new InvalidImportFileException("xlsx ファイルを読み込めません: " + e.getMessage(), e);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private enum Column {
+    ID,
+    TITLE,
+    CUSTOMER_NAME,
+    TOTAL_AMOUNT
+  }
+
+  /** ヘッダで対応付けた 1 行分の生の値。 */
+  private record RawRow(
+      String sheet, long row, String id, String title, String customerName, String totalAmount) {}
+
+  /** 検証結果。{@code estimate} と {@code error} のどちらか一方が設定される。 */
+  private record Validated(RawRow raw, Estimate estimate, RowError error) {}
+
+  /** 取り込み 1 回分の状態（ヘッダの対応、未書き込みの行、件数、エラー）。 */
+  private final class ImportSession {
+    private final List<RawRow> pending = new ArrayList<>(batchSize);
+    private final List<RowError> errors = new ArrayList<>();
+    private String headerSheet;
+    private Map<Column, Integer> columns;
+    private long totalRows;
+    private long imported;
+    private long failed;
+
+    /** 1 行を受け取る。シートの先頭行ならヘッダとして解釈する。 */
+    void accept(String sheet, long row, List<String> cells) {
+      if (columns == null || !Objects.equals(headerSheet, sheet)) {
+        header(sheet, cells);
+        return;
+      }
+      if (cells.stream().allMatch(c -> c == null || c.isBlank())) {
+        return;
+      }
+      totalRows++;
+      pending.add(
+          new RawRow(
+              sheet,
+              row,
+              cell(cells, Column.ID),
+              cell(cells, Column.TITLE),
+              cell(cells, Column.CUSTOMER_NAME),
+              cell(cells, Column.TOTAL_AMOUNT)));
+      if (pending.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    /** たまった行を並列で検証し、正常な行を 1 つのトランザクションでまとめて書き込む。 */
+    void flush() {
+      if (pending.isEmpty()) {
+        return;
+      }
+      List<Validated> results =
+          pending.parallelStream().map(EstimateImportUseCase::validate).toList();
+      pending.clear();
+
+      List<Validated> valid = new ArrayList<>(results.size());
+      for (Validated result : results) {
+        if (result.error() == null) {
+          valid.add(result);
+        } else {
+          reject(result.error());
+        }
+      }
+      if (valid.isEmpty()) {
+        return;
+      }
+      List<Estimate> estimates = valid.stream().map(Validated::estimate).toList();
+      try {
+        transaction.executeWithoutResult(status -> repository.upsertAll(estimates));
+        imported += estimates.size();
+      } catch (DataAccessException | EstimateConflictException e) {
+        // バッチ全体がロールバックされているため、どの行も取り込まれていない
+        log.warn("取り込みのバッチの書き込みに失敗しました（{} 行）", valid.size(), e);
+        String message = "書き込みに失敗したため、同じバッチの行とともに取り込みませんでした。";
+        for (Validated result : valid) {
+          reject(new RowError(result.raw().sheet(), result.raw().row(), message));
+        }
+      }
+    }
+
+    private void reject(RowError error) {
+      failed++;
+      if (errors.size() < maxErrors) {
+        errors.add(error);
+      }
+    }
+
+    EstimateImportResult result() {
+      return new EstimateImportResult(
+          totalRows, imported, failed, List.copyOf(errors), failed > errors.size());
+    }
+
+    private void header(String sheet, List<String> cells) {
+      Map<Column, Integer> mapping = new HashMap<>();
+      for (int i = 0; i < cells.size(); i++) {
+        String name = cells.get(i);
+        Column column = name == null ? null : HEADERS.get(name.trim().toLowerCase(Locale.ROOT));
+        if (column != null) {
+          mapping.putIfAbsent(column, i);
+        }
+      }
+      if (!mapping.containsKey(Column.TITLE)) {
+        throw new InvalidImportFileException(
+            (sheet == null ? "" : "シート「" + sheet + "」: ")
+                + "ヘッダ行に title（タイトル）列がありません。");
+      }
+      headerSheet = sheet;
+      columns = mapping;
+    }
+
+    private String cell(List<String> cells, Column column) {
+      Integer index = columns.get(column);
+      if (index == null || index >= cells.size()) {
+        return null;
+      }
+      String value = cells.get(index);
+      return value == null || value.isBlank() ? null : value.trim();
+    }
+  }
+
+  /** 1 行分の検証と変換。状態を持たないため並列に呼び出してよい。 */
+  private static Validated validate(RawRow raw) {
+    if (raw.title() == null) {
+      return invalid(raw, "タイトルは必須です。");
+    }
+    if (utf8Length(raw.title()) > MAX_TEXT_BYTES) {
+      return invalid(raw, "タイトルが長すぎます（最大 " + MAX_TEXT_BYTES + " バイト）。");
+    }
+    if (raw.customerName() != null && utf8Length(raw.customerName()) > MAX_TEXT_BYTES) {
+      return invalid(raw, "顧客名が長すぎます（最大 " + MAX_TEXT_BYTES + " バイト）。");
+    }
+    if (raw.id() != null && raw.id().length() > MAX_ID_LENGTH) {
+      return invalid(raw, "見積ID が長すぎます（最大 " + MAX_ID_LENGTH + " 文字）。");
+    }
+    Integer totalAmount = null;
+    if (raw.totalAmount() != null) {
+      try {
+        totalAmount = new BigDecimal(raw.totalAmount().replace(",", "")).intValueExact();
+      } catch (ArithmeticException | NumberFormatException e) {
+        return invalid(raw, "合計金額は整数で指定してください: " + raw.totalAmount());
+      }
+      if (totalAmount < 0) {
+        return invalid(raw, "合計金額は 0 以上で指定してください: " + raw.totalAmount());
+      }
+    }
+
+    Estimate estimate = new Estimate();
+    estimate.id = raw.id();
+    estimate.title = raw.title();
+    estimate.customerName = raw.customerName();
+    estimate.totalAmount = totalAmount;
+    return new Validated(raw, estimate, null);
+  }
+
+  private static Validated invalid(RawRow raw, String message) {
+    return new Validated(raw, null, new RowError(raw.sheet(), raw.row(), message));
+  }
+
+  private static int utf8Length(String value) {
+    return value.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  /** xlsx の 1 シート分の行を {@link ImportSession} へ渡す SAX ハンドラ。 */
+  private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+    private final ImportSession session;
+    private final String sheetName;
+    private final List<String> cells = new ArrayList<>();
+
+    SheetRows(ImportSession session, String sheetName) {
+      this.session = session;
+      this.sheetName = sheetName;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+      cells.clear();
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+      session.accept(sheetName, rowNum + 1L, cells);
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+      int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+      while (cells.size() < column) {
+        cells.add(null);
+      }
+      cells.add(formattedValue);
+    }
+  }
+}
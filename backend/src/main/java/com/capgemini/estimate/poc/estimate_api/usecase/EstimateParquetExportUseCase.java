@@ -0,0 +1,148 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.apache.parquet.schema.LogicalTypeAnnotation.stringType;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+
+import com.capgemini.estimate.poc.estimate_api.common.parquet.StreamOutputFile;
+import com.capgemini.estimate.poc.estimate_api.common.s3.PresignedUrlOptions;
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3MultipartUploadOutputStream;
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3UrlSigner;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ParquetExportResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Types;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * 見積一覧の Parquet 出力（分析用）。
+ *
+ * <p>DB カーソルから読んだ行を行グループ単位でバッファし、列ごとにエンコード・Snappy 圧縮して書き出す。
+ * {@code customer_name} は辞書エンコード、{@code total_amount} は INT32 列とする。
+ * {@link #publish()} は CSV バケット（{@code app.csv.bucket-name}）へマルチパートアップロードする。
+ */
+@Service
+public class EstimateParquetExportUseCase {
+
+  private static final MessageType SCHEMA =
+      Types.buildMessage()
+          .required(BINARY).as(stringType()).named("id")
+          .optional(BINARY).as(stringType()).named("title")
+          .optional(BINARY).as(stringType()).named("customer_name")
+          .optional(INT32).named("total_amount")
+          .named("estimate");
+
+  private static final DateTimeFormatter KEY_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final EstimateRepository repository;
+  private final S3Client s3Client;
+  private final S3UrlSigner s3UrlSigner;
+  private final String bucketName;
+  private final long rowGroupSizeBytes;
+  private final long urlExpiryMinutes;
+
+  public EstimateParquetExportUseCase(
+      EstimateRepository repository,
+      S3Client s3Client,
+      S3UrlSigner s3UrlSigner,
+      @Value("${app.csv.bucket-name}") String bucketName,
+      @Value("${app.export.parquet.row-group-size-mb:32}") long rowGroupSizeMb,
+      @Value("${app.csv.url-expiry-minutes:10}") long urlExpiryMinutes) {
+    this.repository = repository;
+    this.s3Client = s3Client;
+    this.s3UrlSigner = s3UrlSigner;
+    this.bucketName = bucketName;
+    this.rowGroupSizeBytes = rowGroupSizeMb * 1024 * 1024;
+    this.urlExpiryMinutes = urlExpiryMinutes;
+  }
+
+  /**
+   * 見積一覧を Parquet として {@code out} に書き出す。{@code out} のクローズは呼び出し側の責務。
+   *
+   * @param out 出力先
+   */
+  public void execute(OutputStream out) {
+    SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+
+    try (ParquetWriter<Group> writer =
+        ExampleParquetWriter.builder(new StreamOutputFile(out))
+            .withType(SCHEMA)
+            .withCompressionCodec(CompressionCodecName.SNAPPY)
+            .withRowGroupSize(rowGroupSizeBytes)
+            .withDictionaryEncoding(false)
+            .withDictionaryEncoding("customer_name", true)
+            .build()) {
+
+      repository.streamAll(
+          stream -> {
+            stream.forEach(e -> write(writer, groups, e));
+            return null;
+          });
+
+    } catch (IOException e) {
+      throw new UncheckedIOException("Parquet出力失敗", e);
+    }
+  }
+
+  /**
+   * Parquet を生成して CSV バケットへアップロードする。
+   *
+   * @return オブジェクトキーと署名付き GET URL
+   */
+  public ParquetExportResponse publish() {
+    String key = "analytics/estimates/estimates-" + LocalDateTime.now().format(KEY_TIMESTAMP) + ".parquet";
+
+    var out =
+        new S3MultipartUploadOutputStream(
+            s3Client,
+            bucketName,
+            key,
+            "application/vnd.apache.parquet",
+            S3MultipartUploadOutputStream.MIN_PART_SIZE);
+    try {
+      execute(out);
+      out.close();
+    } catch (IOException | RuntimeException e) {
+      out.abort();
+      throw new RuntimeException("Parquetアップロード失敗", e);
+    }
+
+    String url =
+        s3UrlSigner
+            .generatePresignedUrl(key, PresignedUrlOptions.of(bucketName, urlExpiryMinutes))
+            .toString();
+    return new ParquetExportResponse(key, url);
+  }
+
+  private void write(ParquetWriter<Group> writer, SimpleGroupFactory groups, Estimate e) {
+    Group group = groups.newGroup().append("id", e.id);
+    if (e.title != null) {
+      group.append("title", e.title);
+    }
+    if (e.customerName != null) {
+      group.append("customer_name", e.customerName);
+    }
+    if (e.totalAmount != null) {
+      group.append("total_amount", e.totalAmount);
+    }
+    try {
+      writer.write(group);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -1,37 +1,352 @@
 package com.capgemini.estimate.poc.estimate_api.usecase;
 
+import com.capgemini.estimate.poc.estimate_api.common.pagination.PageCursor;
 import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItem;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItemChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateMultiGetResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimatePage;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSearchHit;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateStats;
 import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.EstimateNotFoundException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidEstimateItemException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidIdsException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidPageCursorException;
+import com.capgemini.estimate.poc.estimate_api.exception.SearchDisabledException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.search.EstimateSearchIndexStore;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.snapshot.EstimateColumnarSnapshot;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.snapshot.EstimateSnapshotStore;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.stats.EstimateStatsStore;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.stream.EstimateChangeFeed;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Component
 public class EstimateUseCase {
 
   @Autowired private final EstimateRepository repository;
 
-  public EstimateUseCase(EstimateRepository repository) {
+  /** メモリ上のスナップショット（{@code app.snapshot.enabled=true} の場合のみ存在） */
+  private final ObjectProvider<EstimateSnapshotStore> snapshotStore;
+
+  /** 差分更新している集計値 */
+  private final EstimateStatsStore statsStore;
+
+  /** タイトル・顧客名の全文検索索引（{@code app.search.enabled=true} の場合のみ存在） */
+  private final ObjectProvider<EstimateSearchIndexStore> searchIndexStore;
+
+  /** 変更通知（Server-Sent Events） */
+  private final EstimateChangeFeed changeFeed;
+
+  /** 1 ページの最大件数 */
+  private final int maxPageSize;
+
+  /** 集計で返す顧客数の上限 */
+  private final int maxStatsTop;
+
+  /** 1 回の明細変更で指定できる行数の上限 */
+  private final int maxItemChanges;
+
+  /** 一括取得で指定できる id 数の上限 */
+  private final int maxMultiGetIds;
+
+  public EstimateUseCase(
+      EstimateRepository repository,
+      ObjectProvider<EstimateSnapshotStore> snapshotStore,
+      EstimateStatsStore statsStore,
+      ObjectProvider<EstimateSearchIndexStore> searchIndexStore,
+      EstimateChangeFeed changeFeed,
+      @Value("${app.pagination.max-page-size:500}") int maxPageSize,
+      @Value("${app.stats.max-top:100}") int maxStatsTop,
+      @Value("${app.items.max-changes:2000}") int maxItemChanges,
+      @Value("${app.multi-get.max-ids:1000}") int maxMultiGetIds) {
     this.repository = repository;
+    this.snapshotStore = snapshotStore;
+    this.statsStore = statsStore;
+    this.searchIndexStore = searchIndexStore;
+    this.changeFeed = changeFeed;
+    this.maxPageSize = maxPageSize;
+    this.maxStatsTop = maxStatsTop;
+    this.maxItemChanges = maxItemChanges;
+    this.maxMultiGetIds = maxMultiGetIds;
+  }
+
+  /**
+   * 全件を返す。
+   *
+   * @param fields 読む項目（null なら全項目。DB から読む場合はそれ以外の列を SELECT しない）
+   */
+  @Transactional(readOnly = true)
+  public List<Estimate> getAllEstimates(Set<EstimateField> fields) {
+    EstimateColumnarSnapshot snapshot = snapshot();
+    return snapshot != null ? snapshot.toList() : repository.selectAll(fields);
   }
 
-  public List<Estimate> getAllEstimates() {
-    return repository.selectAll();
+  /**
+   * 絞り込み・ソートしたキーセットページングで 1 ページ分を返す。
+   *
+   * <p>カーソルにはソート列・方向と直前ページ最終行の {@code (ソート値, id)} を入れる。ソート指定と合わない
+   * カーソルは不正として扱う。
+   *
+   * @param filter 絞り込み条件
+   * @param sort ソート列
+   * @param descending 降順か
+   * @param cursor 前ページのレスポンスの {@code next}（先頭ページは null）
+   * @param limit 件数（1〜{@code app.pagination.max-page-size} に丸める）
+   * @param withTotal 総件数を含めるか（条件なしの場合はキャッシュ値）
+   * @param fields 読む項目（null なら全項目。DB から読む場合はそれ以外の列を SELECT しない）
+   */
+  @Transactional(readOnly = true)
+  public EstimatePage getEstimatePage(
+      EstimateFilter filter,
+      EstimateSortKey sort,
+      boolean descending,
+      String cursor,
+      int limit,
+      boolean withTotal,
+      Set<EstimateField> fields) {
+    int size = Math.clamp(limit, 1, maxPageSize);
+    Estimate after =
+        cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor, sort, descending);
+
+    // 1 件多く読み、次ページの有無を判定する
+    EstimateColumnarSnapshot snapshot = snapshot();
+    List<Estimate> rows =
+        snapshot != null
+            ? snapshot.select(filter, sort, descending, after, size + 1)
+            : repository.selectPage(filter, sort, descending, after, size + 1, fields);
+    String next = null;
+    if (rows.size() > size) {
+      rows = rows.subList(0, size);
+      next = encodeCursor(rows.get(size - 1), sort, descending);
+    }
+    Long total = null;
+    if (withTotal && snapshot != null) {
+      total = snapshot.count(filter);
+    } else if (withTotal) {
+      total = filter.isEmpty() ? repository.cachedCount() : repository.count(filter);
+    }
+    return new EstimatePage(rows, next, total);
   }
 
+  /**
+   * 件数・合計・最小・最大と、合計金額の大きい顧客 {@code top} 件を返す。
+   *
+   * <p>書き込みのたびに差分更新している値を読むだけで、テーブルは走査しない（定期的に DB と突き合わせる）。
+   * 初回の集計が終わるまでは {@code StatsNotReadyException}（503）とする。
+   */
+  public EstimateStats getStats(int top) {
+    return statsStore.get(Math.clamp(top, 1, maxStatsTop));
+  }
+
+  /**
+   * タイトル・顧客名を全文検索し、一致度の高い順に返す。
+   *
+   * <p>幅（全角・半角）とカタカナ・ひらがなの違いは無視する。空白で区切った語はすべて含むものを返す。
+   *
+   * @param limit 件数（1〜{@code app.pagination.max-page-size} に丸める）
+   */
+  public List<EstimateSearchHit> search(String query, int limit) {
+    EstimateSearchIndexStore store = searchIndexStore.getIfAvailable();
+    if (store == null) {
+      throw new SearchDisabledException();
+    }
+    return store.search(query, Math.clamp(limit, 1, maxPageSize));
+  }
+
+  /**
+   * 見積の登録・更新・削除の通知を購読する（全レプリカの書き込みが届く）。
+   *
+   * @param lastEventId 再接続時に受け取った最後のイベント id（それ以降を再送する。初回は null）
+   */
+  public SseEmitter subscribeChanges(Long lastEventId) {
+    return changeFeed.subscribe(lastEventId);
+  }
+
+  /** スナップショットが有効かつ読み込み済みならそれを返す。それ以外は null（DB を参照する）。 */
+  private EstimateColumnarSnapshot snapshot() {
+    EstimateSnapshotStore store = snapshotStore.getIfAvailable();
+    return store == null ? null : store.current();
+  }
+
+  private static String encodeCursor(Estimate last, EstimateSortKey sort, boolean descending) {
+    String value =
+        switch (sort) {
+          case ID -> last.id;
+          case TITLE -> last.title;
+          case CUSTOMER_NAME -> last.customerName;
+          case TOTAL_AMOUNT -> last.totalAmount == null ? null : last.totalAmount.toString();
+          case UPDATED_AT -> last.updatedAt == null ? null : last.updatedAt.toString();
+        };
+    return PageCursor.encode(
+        Arrays.asList(sort.name(), descending ? "desc" : "asc", value, last.id));
+  }
+
+  private static Estimate decodeCursor(String cursor, EstimateSortKey sort, boolean descending) {
+    List<String> values = PageCursor.decode(cursor, 4);
+    if (!sort.name().equals(values.get(0))
+        || !(descending ? "desc" : "asc").equals(values.get(1))
+        || values.get(3) == null) {
+      throw new InvalidPageCursorException(cursor);
+    }
+    Estimate after = new Estimate();
+    after.id = values.get(3);
+    String value = values.get(2);
+    try {
+      switch (sort) {
+        case ID -> {}
+        case TITLE -> after.title = value;
+        case CUSTOMER_NAME -> after.customerName = value;
+        case TOTAL_AMOUNT -> after.totalAmount = value == null ? null : Integer.valueOf(value);
+        case UPDATED_AT -> after.updatedAt = value == null ? null : LocalDateTime.parse(value);
+      }
+    } catch (RuntimeException e) {
+      throw new InvalidPageCursorException(cursor);
+    }
+    return after;
+  }
+
+  /** 読み込んだ値を共有キャッシュへ入れるため、レプリカの遅延した値を入れないよう primary から読む。 */
   public Estimate getEstimate(String id) {
-    return repository.selectById(id);
+    Estimate estimate = repository.selectById(id);
+    if (estimate == null) {
+      throw new EstimateNotFoundException(id);
+    }
+    return estimate;
+  }
+
+  /**
+   * id を指定してまとめて返す（キャッシュにない分は IN 検索でまとめて読む）。
+   *
+   * @param ids 見積 id（この順で返す。空文字は無視し、重複は 1 件にまとめる）
+   */
+  public EstimateMultiGetResult getEstimates(List<String> ids) {
+    Set<String> requested = new LinkedHashSet<>();
+    for (String id : ids) {
+      if (id != null && !id.isBlank()) {
+        requested.add(id.trim());
+      }
+    }
+    if (requested.size() > maxMultiGetIds) {
+      throw new InvalidIdsException("一度に取得できる見積は " + maxMultiGetIds + " 件までです。");
+    }
+    if (requested.isEmpty()) {
+      return new EstimateMultiGetResult(List.of(), List.of());
+    }
+    Map<String, Estimate> found = repository.selectByIds(requested);
+    List<Estimate> items = new ArrayList<>(found.size());
+    List<String> missing = new ArrayList<>();
+    for (String id : requested) {
+      Estimate estimate = found.get(id);
+      if (estimate != null) {
+        items.add(estimate);
+      } else {
+        missing.add(id);
+      }
+    }
+    return new EstimateMultiGetResult(items, missing);
+  }
+
+  /** 明細（表示順）付きで返す。見積と明細は 1 回の SELECT で読む。 */
+  @Transactional(readOnly = true)
+  public Estimate getEstimateWithItems(String id) {
+    Estimate estimate = repository.selectWithItems(id);
+    if (estimate == null) {
+      throw new EstimateNotFoundException(id);
+    }
+    return estimate;
+  }
+
+  /**
+   * 明細を追加・更新・削除し、見積の合計金額を差分で更新する。
+   *
+   * @param expectedVersion If-Match の見積のバージョン（null なら無条件）
+   * @return 更新後の見積（明細は含まない）
+   */
+  public Estimate changeItems(String id, EstimateItemChanges changes, Long expectedVersion) {
+    validate(changes);
+    return repository.applyItemChanges(id, expectedVersion, changes);
+  }
+
+  private void validate(EstimateItemChanges changes) {
+    if (changes.isEmpty()) {
+      throw new InvalidEstimateItemException("変更する明細がありません。");
+    }
+    int size = changes.add().size() + changes.update().size() + changes.delete().size();
+    if (size > maxItemChanges) {
+      throw new InvalidEstimateItemException("一度に変更できる明細は " + maxItemChanges + " 行までです。");
+    }
+    for (EstimateItem item : changes.add()) {
+      validateContent(item);
+    }
+    Set<String> ids = new HashSet<>();
+    for (EstimateItem item : changes.update()) {
+      validateId(item, ids);
+      validateContent(item);
+    }
+    for (EstimateItem item : changes.delete()) {
+      validateId(item, ids);
+    }
+  }
+
+  private static void validateId(EstimateItem item, Set<String> ids) {
+    if (item.id == null || item.id.isBlank()) {
+      throw new InvalidEstimateItemException("更新・削除する明細には id が必要です。");
+    }
+    if (!ids.add(item.id)) {
+      throw new InvalidEstimateItemException("同じ明細が複数回指定されています: " + item.id);
+    }
+  }
+
+  private static void validateContent(EstimateItem item) {
+    if (item.description == null || item.description.isBlank()) {
+      throw new InvalidEstimateItemException("明細の内容は必須です。");
+    }
+    if (item.lineNo == null || item.quantity == null || item.unitPrice == null) {
+      throw new InvalidEstimateItemException("明細の行番号・数量・単価は必須です。");
+    }
   }
 
   public void insertEstimate(Estimate estimate) {
     repository.insert(estimate);
   }
 
-  public void deleteEstimate(String id) {
-    repository.delete(id);
+  /**
+   * 削除する。
+   *
+   * @param expectedVersion If-Match のバージョン（null なら無条件）
+   */
+  public void deleteEstimate(String id, Long expectedVersion) {
+    repository.delete(id, expectedVersion);
   }
 
-  public void updateEstimate(Estimate estimate) {
+  /**
+   * 更新する。期待するバージョンは If-Match、無ければ本文の {@code version} を使い、どちらも無ければ無条件に更新する。
+   *
+   * @return 更新後のバージョン（無条件更新の場合は null）
+   */
+  public Long updateEstimate(String id, Estimate estimate, Long expectedVersion) {
+    estimate.id = id;
+    if (expectedVersion != null) {
+      estimate.version = expectedVersion;
+    }
     repository.update(estimate);
+    return estimate.version;
   }
 }
@@ -0,0 +1,77 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * 見積一覧のワークブックを 1 行ずつ組み立てるヘルパ。
+ *
+ * <p>SXSSF のウィンドウを超えた行は一時ファイルへ退避される。1 シートが Excel の行数上限に達したら
+ * 「Estimates (2)」のように次のシートへ自動で切り替える。{@link #close()} で一時ファイルを削除する。
+ */
+final class EstimateWorkbookWriter implements AutoCloseable {
+
+  /** 1 シートに書けるデータ行数（ヘッダ行を除く） */
+  static final int MAX_DATA_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+  private final SXSSFWorkbook workbook;
+  private Sheet sheet;
+  private int sheetRow;
+  private long rows;
+
+  EstimateWorkbookWriter(int rowAccessWindow) {
+    this.workbook = new SXSSFWorkbook(rowAccessWindow);
+    this.workbook.setCompressTempFiles(true);
+  }
+
+  /** 1 行追記する。 */
+  void append(Estimate e) {
+    if (sheet == null || sheetRow > MAX_DATA_ROWS_PER_SHEET) {
+      nextSheet();
+    }
+    Row row = sheet.createRow(sheetRow++);
+    row.createCell(0).setCellValue(e.id);
+    row.createCell(1).setCellValue(e.title);
+    row.createCell(2).setCellValue(e.customerName);
+    if (e.totalAmount != null) {
+      row.createCell(3).setCellValue(e.totalAmount);
+    }
+    rows++;
+  }
+
+  /** 追記済みのデータ行数。 */
+  long rows() {
+    return rows;
+  }
+
+  /** ワークブックを書き出す。1 行も無い場合もヘッダのみのシートを出力する。 */
+  void writeTo(OutputStream out) throws IOException {
+    if (sheet == null) {
+      nextSheet();
+    }
+    workbook.write(out);
+  }
+
+  @Override
+  public void close() throws IOException {
+    workbook.dispose();
+    workbook.close();
+  }
+
+  private void nextSheet() {
+    int index = workbook.getNumberOfSheets();
+    sheet = workbook.createSheet(index == 0 ? "Estimates" : "Estimates (" + (index + 1) + ")");
+
+    Row header = sheet.createRow(0);
+    header.createCell(0).setCellValue("見積ID");
+    header.createCell(1).setCellValue("タイトル");
+    header.createCell(2).setCellValue("顧客名");
+    header.createCell(3).setCellValue("合計金額");
+    sheetRow = 1;
+  }
+}
@@ -0,0 +1,288 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import com.capgemini.estimate.poc.estimate_api.common.s3.PresignedUrlOptions;
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3UrlSigner;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadPartResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSession;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSessionRequest;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSessionResponse;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidUploadRequestException;
+import com.capgemini.estimate.poc.estimate_api.exception.UploadSessionConflictException;
+import com.capgemini.estimate.poc.estimate_api.exception.UploadSessionNotFoundException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.upload.UploadSessionStore;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+/**
+ * S3 への直接アップロード（ブラウザ → S3）のセッション管理。
+ *
+ * <p>ファイル本体は API サーバを経由しない。サーバは次の小さな処理のみを行う。
+ * <ol>
+ *   <li>開始: サイズがパートサイズ以下なら署名付き PUT URL を返す。超える場合は CreateMultipartUpload を行い、
+ *       パートサイズとパート数を返す
+ *   <li>パートごと: 署名付き UploadPart URL を返し、クライアントが報告した ETag を Redis に記録する
+ *   <li>完了: 記録済みの全パートで CompleteMultipartUpload し、結合後のサイズを確認する（単一 PUT はオブジェクトの
+ *       存在とサイズを確認）。マルチパートのサイズが申告と異なる場合はオブジェクトを削除してセッションを中止する
+ * </ol>
+ * ブラウザから ETag を読むには、バケットの CORS 設定で {@code ETag} を ExposeHeaders に含める必要がある。
+ * 放置されたマルチパートアップロードはバケットのライフサイクルルール（AbortIncompleteMultipartUpload）で掃除する。
+ */
+@Service
+public class UploadSessionUseCase {
+
+  /** S3 のパート数上限 */
+  private static final int MAX_PARTS = 10_000;
+
+  private static final long MIB = 1024L * 1024L;
+
+  private final UploadSessionStore sessionStore;
+  private final S3Client s3Client;
+  private final S3UrlSigner s3UrlSigner;
+  private final String bucketName;
+  private final String keyPrefix;
+  private final long partSizeBytes;
+  private final long maxSizeBytes;
+  private final long urlExpiryMinutes;
+
+  public UploadSessionUseCase(
+      UploadSessionStore sessionStore,
+      S3Client s3Client,
+      S3UrlSigner s3UrlSigner,
+      @Value("${app.upload.bucket-name:${app.csv.bucket-name}}") String bucketName,
+      @Value("${app.upload.key-prefix:uploads/}") String keyPrefix,
+      @Value("${app.upload.part-size-mb:16}") long partSizeMb,
+      @Value("${app.upload.max-size-mb:5120}") long maxSizeMb,
+      @Value("${app.upload.url-expiry-minutes:15}") long urlExpiryMinutes) {
+    this.sessionStore = sessionStore;
+    this.s3Client = s3Client;
+    this.s3UrlSigner = s3UrlSigner;
+    this.bucketName = bucketName;
+    this.keyPrefix = keyPrefix;
+    this.partSizeBytes = Math.max(partSizeMb * MIB, 5 * MIB);
+    this.maxSizeBytes = maxSizeMb * MIB;
+    this.urlExpiryMinutes = urlExpiryMinutes;
+  }
+
+  /** アップロードを開始する。 */
+  public UploadSessionResponse start(String owner, UploadSessionRequest request) {
+    if (request.fileName() == null || request.fileName().isBlank()) {
+      throw new InvalidUploadRequestException("ファイル名を指定してください。");
+    }
+    if (request.size() <= 0 || request.size() > maxSizeBytes) {
+      throw new InvalidUploadRequestException(
+          "ファイルサイズは 1〜" + maxSizeBytes + " バイトで指定してください。");
+    }
+
+    String id = UUID.randomUUID().toString();
+    String objectKey = keyPrefix + id + "/" + sanitize(request.fileName());
+    UploadSession session;
+    String url = null;
+    if (request.size() <= partSizeBytes) {
+      session =
+          newSession(
+              id, owner, objectKey, request, UploadSession.Mode.SINGLE, null, request.size(), 1);
+      url =
+          s3UrlSigner
+              .generatePresignedPutUrl(objectKey, request.contentType(), options())
+              .toString();
+    } else {
+      // パート数の上限に収まるよう、必要なら 1 MiB 単位でパートサイズを引き上げる
+      long minPartSize = (request.size() + MAX_PARTS - 1) / MAX_PARTS;
+      long partSize = Math.max(partSizeBytes, (minPartSize + MIB - 1) / MIB * MIB);
+      int partCount = (int) ((request.size() + partSize - 1) / partSize);
+      String uploadId =
+          s3Client
+              .createMultipartUpload(
+                  b -> b.bucket(bucketName).key(objectKey).contentType(request.contentType()))
+              .uploadId();
+      session =
+          newSession(
+              id,
+              owner,
+              objectKey,
+              request,
+              UploadSession.Mode.MULTIPART,
+              uploadId,
+              partSize,
+              partCount);
+    }
+    sessionStore.create(session);
+    return UploadSessionResponse.of(session, url);
+  }
+
+  /** セッションの状態を返す。 */
+  public UploadSessionResponse get(String owner, String id) {
+    return UploadSessionResponse.of(find(owner, id), null);
+  }
+
+  /** 指定パートの署名付き UploadPart URL を返す。 */
+  public UploadPartResponse partUrl(String owner, String id, int partNumber) {
+    UploadSession session = uploading(owner, id, UploadSession.Mode.MULTIPART);
+    checkPartNumber(session, partNumber);
+    String url =
+        s3UrlSigner
+            .generatePresignedUploadPartUrl(
+                session.objectKey(), session.uploadId(), partNumber, options())
+            .toString();
+    return new UploadPartResponse(partNumber, url);
+  }
+
+  /** クライアントがアップロードしたパートの ETag を記録する。 */
+  public void recordPart(String owner, String id, int partNumber, String eTag) {
+    UploadSession session = uploading(owner, id, UploadSession.Mode.MULTIPART);
+    checkPartNumber(session, partNumber);
+    if (eTag == null || eTag.isBlank()) {
+      throw new InvalidUploadRequestException("ETag を指定してください。");
+    }
+    sessionStore.putPart(id, partNumber, eTag);
+  }
+
+  /**
+   * アップロードを完了する。
+   *
+   * @throws UploadSessionConflictException 未登録のパートがある場合、単一 PUT のオブジェクトが無い場合、
+   *     またはアップロードされたサイズが申告と異なる場合
+   */
+  public UploadSessionResponse complete(String owner, String id) {
+    UploadSession session = find(owner, id);
+    if (session.status() == UploadSession.Status.COMPLETED) {
+      return UploadSessionResponse.of(session, null);
+    }
+    if (session.status() != UploadSession.Status.UPLOADING) {
+      throw new UploadSessionConflictException("アップロードは中止されています: " + id);
+    }
+
+    if (session.mode() == UploadSession.Mode.SINGLE) {
+      verifySingleUpload(session);
+    } else {
+      List<CompletedPart> parts = new ArrayList<>(session.partCount());
+      for (int n = 1; n <= session.partCount(); n++) {
+        String eTag = session.parts().get(n);
+        if (eTag == null) {
+          throw new UploadSessionConflictException("パート " + n + " が登録されていません。");
+        }
+        parts.add(CompletedPart.builder().partNumber(n).eTag(eTag).build());
+      }
+      s3Client.completeMultipartUpload(
+          b ->
+              b.bucket(bucketName)
+                  .key(session.objectKey())
+                  .uploadId(session.uploadId())
+                  .multipartUpload(m -> m.parts(parts)));
+      verifyMultipartUpload(session);
+    }
+    sessionStore.finish(id, UploadSession.Status.COMPLETED);
+    return UploadSessionResponse.of(find(owner, id), null);
+  }
+
+  /** アップロードを中止する（マルチパートの場合はアップロード済みパートも破棄される）。 */
+  public void abort(String owner, String id) {
+    UploadSession session = find(owner, id);
+    if (session.status() != UploadSession.Status.UPLOADING) {
+      return;
+    }
+    if (session.mode() == UploadSession.Mode.MULTIPART) {
+      s3Client.abortMultipartUpload(
+          b -> b.bucket(bucketName).key(session.objectKey()).uploadId(session.uploadId()));
+    }
+    sessionStore.finish(id, UploadSession.Status.ABORTED);
+  }
+
+  private void verifySingleUpload(UploadSession session) {
+    HeadObjectResponse head;
+    try {
+      head = s3Client.headObject(b -> b.bucket(bucketName).key(session.objectKey()));
+    } catch (NoSuchKeyException e) {
+      throw new UploadSessionConflictException("ファイルがまだアップロードされていません。");
+    }
+    if (head.contentLength() != session.size()) {
+      throw new UploadSessionConflictException(
+          "アップロードされたサイズ（" + head.contentLength() + "）が申告と異なります。");
+    }
+  }
+
+  /**
+   * 結合後のオブジェクトのサイズを確認する。パートの ETag はクライアントの申告のため、パートの欠けや過不足は結合して
+   * 初めてわかる。申告と異なる場合は、不完全なファイルを残さないようオブジェクトを削除してセッションを中止する。
+   */
+  private void verifyMultipartUpload(UploadSession session) {
+    long size =
+        s3Client.headObject(b -> b.bucket(bucketName).key(session.objectKey())).contentLength();
+    if (size != session.size()) {
+      s3Client.deleteObject(b -> b.bucket(bucketName).key(session.objectKey()));
+      sessionStore.finish(session.id(), UploadSession.Status.ABORTED);
+      throw new UploadSessionConflictException(
+          "アップロードされたサイズ（" + size + "）が申告と異なるため、アップロードを中止しました。");
+    }
+  }
+
+  /** 他のユーザーのセッションは存在しないものとして扱う。 */
+  private UploadSession find(String owner, String id) {
+    UploadSession session = sessionStore.find(id);
+    if (session == null || !session.owner().equals(owner)) {
+      throw new UploadSessionNotFoundException(id);
+    }
+    return session;
+  }
+
+  private UploadSession uploading(String owner, String id, UploadSession.Mode mode) {
+    UploadSession session = find(owner, id);
+    if (session.status() != UploadSession.Status.UPLOADING) {
+      throw new UploadSessionConflictException("アップロードは終了しています: " + id);
+    }
+    if (session.mode() != mode) {
+      throw new UploadSessionConflictException("マルチパートアップロードではありません: " + id);
+    }
+    return session;
+  }
+
+  private static void checkPartNumber(UploadSession session, int partNumber) {
+    if (partNumber < 1 || partNumber > session.partCount()) {
+      throw new InvalidUploadRequestException(
+          "パート番号は 1〜" + session.partCount() + " で指定してください。");
+    }
+  }
+
+  private UploadSession newSession(
+      String id,
+      String owner,
+      String objectKey,
+      UploadSessionRequest request,
+      UploadSession.Mode mode,
+      String uploadId,
+      long partSize,
+      int partCount) {
+    return new UploadSession(
+        id,
+        owner,
+        objectKey,
+        request.contentType(),
+        request.size(),
+        mode,
+        uploadId,
+        partSize,
+        partCount,
+        new TreeMap<>(),
+        UploadSession.Status.UPLOADING,
+        Instant.now());
+  }
+
+  private PresignedUrlOptions options() {
+    return PresignedUrlOptions.of(bucketName, urlExpiryMinutes);
+  }
+
+  /** パス区切りと制御文字を除き、キーの階層を変えられないようにする。 */
+  private static String sanitize(String fileName) {
+    String name = fileName.replaceAll("[\\\\/\\p{Cntrl}]", "_").trim();
+    return name.isEmpty() || name.equals(".") || name.equals("..") ? "file" : name;
+  }
+}
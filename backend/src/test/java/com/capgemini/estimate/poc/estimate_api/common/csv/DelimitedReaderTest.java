@@ -0,0 +1,69 @@
+package com.capgemini.estimate.poc.estimate_api.common.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** {@code DelimitedReader} の単体テスト。 */
+class DelimitedReaderTest {
+
+  /** 通常の値と空フィールドを読み出し、終端で null を返す。CRLF と LF の両方を行末として扱う。 */
+  @Test
+  void plainValues_areReadPerLine() throws Exception {
+    DelimitedReader r = new DelimitedReader(new StringReader("a,b,,100\r\nc,d\n"), ',', 16);
+
+    assertThat(r.next()).containsExactly("a", "b", "", "100");
+    assertThat(r.next()).containsExactly("c", "d");
+    assertThat(r.next()).isNull();
+  }
+
+  /** クォート内の区切り文字・改行・"" を解釈する。バッファ境界をまたいでも正しく読める。 */
+  @Test
+  void quotedValues_areUnescaped() throws Exception {
+    DelimitedReader r =
+        new DelimitedReader(
+            new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\"\r\nnext\r\n"), ',', 16);
+
+    assertThat(r.next()).containsExactly("a,b", "say \"hi\"", "line1\nline2");
+    assertThat(r.line()).isEqualTo(3);
+    assertThat(r.next()).containsExactly("next");
+    assertThat(r.next()).isNull();
+  }
+
+  /** 先頭の BOM は読み飛ばし、TSV も読める。 */
+  @Test
+  void bomAndTab_areHandled() throws Exception {
+    DelimitedReader r = new DelimitedReader(new StringReader("\uFEFFid\ttitle\n"), '\t', 16);
+
+    assertThat(r.next()).containsExactly("id", "title");
+  }
+
+  /** DelimitedWriter で書いた内容をそのまま読み戻せる。 */
+  @Test
+  void roundTrip_withDelimitedWriter() throws Exception {
+    StringWriter sw = new StringWriter();
+    DelimitedWriter w = new DelimitedWriter(sw, ',', 64);
+    w.field("x,\"y\"");
+    w.field((String) null);
+    w.field(42);
+    w.endRow();
+    w.flush();
+
+    List<String> fields = new DelimitedReader(new StringReader(sw.toString()), ',', 64).next();
+
+    assertThat(fields).containsExactly("x,\"y\"", "", "42");
+  }
+
+  /** クォートが閉じられないまま終端に達した場合は IOException。 */
+  @Test
+  void unterminatedQuote_throws() {
+    DelimitedReader r = new DelimitedReader(new StringReader("\"abc"), ',', 16);
+
+    assertThrows(IOException.class, r::next);
+  }
+}
@@ -0,0 +1,94 @@
+package com.capgemini.estimate.poc.estimate_api.common.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+/** {@code DelimitedWriter} の単体テスト。 */
+class DelimitedWriterTest {
+
+  /** 特殊文字を含まない値はそのまま、null は空フィールドになる。 */
+  @Test
+  void plainValues_areWrittenAsIs() throws Exception {
+    StringWriter sw = new StringWriter();
+    DelimitedWriter w = new DelimitedWriter(sw, ',', 64);
+
+    w.field("id-1");
+    w.field("サーバ見積");
+    w.field((String) null);
+    w.field(100000);
+    w.endRow();
+    w.flush();
+
+    assertThat(sw.toString()).isEqualTo("id-1,サーバ見積,,100000\r\n");
+  }
+
+  /** 区切り文字・改行・ダブルクォートを含む値はクォートし、" は "" に置き換える。 */
+  @Test
+  void specialCharacters_areQuoted() throws Exception {
+    StringWriter sw = new StringWriter();
+    DelimitedWriter w = new DelimitedWriter(sw, ',', 64);
+
+    w.field("a,b");
+    w.field("say \"hi\"");
+    w.field("line1\nline2");
+    w.endRow();
+    w.flush();
+
+    assertThat(sw.toString()).isEqualTo("\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\"\r\n");
+  }
+
+  /** TSV ではカンマはクォート不要、タブはクォート対象。 */
+  @Test
+  void tsv_quotesOnlyTabs() throws Exception {
+    StringWriter sw = new StringWriter();
+    DelimitedWriter w = new DelimitedWriter(sw, '\t', 64);
+
+    w.field("a,b");
+    w.field("c\td");
+    w.endRow();
+    w.flush();
+
+    assertThat(sw.toString()).isEqualTo("a,b\t\"c\td\"\r\n");
+  }
+
+  /** 整数は 0・負数・境界値も正しく書き出す。 */
+  @Test
+  void integers_includingBoundaries() throws Exception {
+    StringWriter sw = new StringWriter();
+    DelimitedWriter w = new DelimitedWriter(sw, ',', 16);
+
+    w.field(0);
+    w.field(-42);
+    w.field(Integer.MAX_VALUE);
+    w.field(Integer.MIN_VALUE);
+    w.field(1_000_000);
+    w.field((Integer) null);
+    w.endRow();
+    w.flush();
+
+    assertThat(sw.toString()).isEqualTo("0,-42,2147483647,-2147483648,1000000,\r\n");
+  }
+
+  /** バッファより長い出力も欠落なく書き出す。 */
+  @Test
+  void outputLongerThanBuffer_isDrained() throws Exception {
+    StringWriter sw = new StringWriter();
+    DelimitedWriter w = new DelimitedWriter(sw, ',', 16);
+    String longValue = "x".repeat(100);
+
+    w.field(longValue);
+    w.endRow();
+    w.flush();
+
+    assertThat(sw.toString()).isEqualTo(longValue + "\r\n");
+  }
+
+  /** ダブルクォートは区切り文字に使えない。 */
+  @Test
+  void quoteDelimiter_isRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new DelimitedWriter(new StringWriter(), '"', 16));
+  }
+}
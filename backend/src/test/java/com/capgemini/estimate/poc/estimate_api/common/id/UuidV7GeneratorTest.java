@@ -0,0 +1,60 @@
+package com.capgemini.estimate.poc.estimate_api.common.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/** {@code UuidV7Generator} の単体テスト。 */
+class UuidV7GeneratorTest {
+
+  private static final long NOW = 1_700_000_000_000L;
+
+  /** バージョン 7・RFC 9562 のバリアントで、先頭 48 ビットにミリ秒時刻が入る。 */
+  @Test
+  void next_hasVersion7AndTimestamp() {
+    UuidV7Generator generator = new UuidV7Generator(() -> NOW, new Random(1));
+
+    UUID uuid = generator.nextUuid();
+
+    assertThat(uuid.version()).isEqualTo(7);
+    assertThat(uuid.variant()).isEqualTo(2);
+    assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(NOW);
+  }
+
+  /** 同一ミリ秒内・時計の後退時も、文字列の辞書順が生成順と一致する。 */
+  @Test
+  void next_isMonotonicAsString() {
+    AtomicLong clock = new AtomicLong(NOW);
+    UuidV7Generator generator = new UuidV7Generator(clock::get, new Random(1));
+
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      ids.add(generator.next());
+    }
+    clock.set(NOW - 1000);
+    ids.add(generator.next());
+    clock.set(NOW + 10);
+    ids.add(generator.next());
+
+    assertThat(ids).isSorted().doesNotHaveDuplicates();
+  }
+
+  /** 連番が溢れたら時刻部分を繰り上げる。 */
+  @Test
+  void counterOverflow_carriesIntoTimestamp() {
+    UuidV7Generator generator = new UuidV7Generator(() -> NOW, new Random(1));
+
+    UUID last = null;
+    for (int i = 0; i <= 4096; i++) {
+      last = generator.nextUuid();
+    }
+
+    assertThat(last.getMostSignificantBits() >>> 16).isEqualTo(NOW + 1);
+    assertThat(last.getMostSignificantBits() & 0xFFF).isZero();
+  }
+}
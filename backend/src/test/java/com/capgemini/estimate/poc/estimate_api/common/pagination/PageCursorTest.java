@@ -0,0 +1,40 @@
+package com.capgemini.estimate.poc.estimate_api.common.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidPageCursorException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** {@code PageCursor} の単体テスト。 */
+class PageCursorTest {
+
+  /** エンコードした値をそのまま復元できる（区切り文字や null を含んでもよい）。 */
+  @Test
+  void encodeThenDecode_roundTrips() {
+    List<String> values = Arrays.asList("株式会社A:本社", null, "", "550e8400-e29b-41d4-a716-446655440000");
+
+    String cursor = PageCursor.encode(values);
+
+    assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    assertThat(PageCursor.decode(cursor, 4)).containsExactlyElementsOf(values);
+  }
+
+  /** Base64 として不正な文字列は InvalidPageCursorException。 */
+  @Test
+  void malformedCursor_throws() {
+    assertThrows(InvalidPageCursorException.class, () -> PageCursor.decode("***", 1));
+    assertThrows(
+        InvalidPageCursorException.class, () -> PageCursor.decode("bm90LWEtY3Vyc29y", 1));
+  }
+
+  /** 値の個数が期待と異なる場合は InvalidPageCursorException。 */
+  @Test
+  void unexpectedSize_throws() {
+    String cursor = PageCursor.encode(List.of("a", "b"));
+
+    assertThrows(InvalidPageCursorException.class, () -> PageCursor.decode(cursor, 1));
+  }
+}
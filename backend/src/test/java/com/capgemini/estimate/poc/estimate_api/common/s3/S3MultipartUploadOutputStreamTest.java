@@ -0,0 +1,140 @@
+package com.capgemini.estimate.poc.estimate_api.common.s3;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/** {@code S3MultipartUploadOutputStream} の単体テスト。S3Client をモックして送信内容を検証する。 */
+class S3MultipartUploadOutputStreamTest {
+
+  private static final int PART = S3MultipartUploadOutputStream.MIN_PART_SIZE;
+
+  /** 1 パートに満たないデータは PutObject 1 回で送信される。 */
+  @Test
+  void close_smallPayload_usesPutObject() throws Exception {
+    S3Client s3 = mock(S3Client.class);
+
+    try (var out = new S3MultipartUploadOutputStream(s3, "b", "k", "text/plain", PART)) {
+      out.write(new byte[] {1, 2, 3});
+    }
+
+    verify(s3).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    verify(s3, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+  }
+
+  /** パートサイズを超えるとマルチパートに切り替わり、クローズで残りを送って完了する。 */
+  @Test
+  void close_largePayload_uploadsPartsAndCompletes() throws Exception {
+    S3Client s3 = mockMultipart();
+
+    try (var out = new S3MultipartUploadOutputStream(s3, "b", "k", "text/plain", PART)) {
+      out.write(new byte[PART]);
+      out.write(new byte[PART]);
+      out.write(1);
+    }
+
+    verify(s3, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+        ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    verify(s3).completeMultipartUpload(complete.capture());
+    assertThat(complete.getValue().uploadId()).isEqualTo("upload-1");
+    assertThat(complete.getValue().multipartUpload().parts())
+        .extracting(p -> p.partNumber())
+        .containsExactly(1, 2, 3);
+  }
+
+  /** abort はマルチパートを破棄し、以降の書き込みは失敗する。 */
+  @Test
+  void abort_discardsMultipartUpload() throws Exception {
+    S3Client s3 = mockMultipart();
+    var out = new S3MultipartUploadOutputStream(s3, "b", "k", "text/plain", PART);
+    out.write(new byte[PART + 1]);
+
+    out.abort();
+
+    verify(s3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    assertThrows(java.io.IOException.class, () -> out.write(1));
+  }
+
+  /** 完了に失敗したクローズはマルチパートを破棄してから失敗し、その後の abort は何もしない。 */
+  @Test
+  void close_completeFails_abortsMultipartUpload() throws Exception {
+    S3Client s3 = mockMultipart();
+    when(s3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+        .thenThrow(SdkClientException.create("接続が切れました"));
+    var out = new S3MultipartUploadOutputStream(s3, "b", "k", "text/plain", PART);
+    out.write(new byte[PART + 1]);
+
+    assertThrows(SdkClientException.class, out::close);
+    out.abort();
+
+    ArgumentCaptor<AbortMultipartUploadRequest> abort =
+        ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+    verify(s3, times(1)).abortMultipartUpload(abort.capture());
+    assertThat(abort.getValue().uploadId()).isEqualTo("upload-1");
+  }
+
+  /** クローズ時の最終パートの送信に失敗した場合も、マルチパートを破棄する。 */
+  @Test
+  void close_lastPartFails_abortsMultipartUpload() throws Exception {
+    S3Client s3 = mockMultipart();
+    var out = new S3MultipartUploadOutputStream(s3, "b", "k", "text/plain", PART);
+    out.write(new byte[PART + 1]);
+    when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenThrow(SdkClientException.create("接続が切れました"));
+
+    assertThrows(SdkClientException.class, out::close);
+
+    verify(s3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+  }
+
+  /** 完了したアップロードは、その後 abort を呼んでも破棄しない。 */
+  @Test
+  void abort_afterComplete_doesNothing() throws Exception {
+    S3Client s3 = mockMultipart();
+    var out = new S3MultipartUploadOutputStream(s3, "b", "k", "text/plain", PART);
+    out.write(new byte[PART + 1]);
+    out.close();
+
+    out.abort();
+
+    verify(s3, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+  }
+
+  /** 最小パートサイズ未満は指定できない。 */
+  @Test
+  void constructor_rejectsTooSmallPartSize() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new S3MultipartUploadOutputStream(mock(S3Client.class), "b", "k", "t", PART - 1));
+  }
+
+  private S3Client mockMultipart() {
+    S3Client s3 = mock(S3Client.class);
+    when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+    when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+    return s3;
+  }
+}
@@ -3,14 +3,21 @@ package com.capgemini.estimate.poc.estimate_api.common.s3;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
 import java.net.URL;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 /**
  * {@code S3UrlSigner}の単体テスト。
@@ -41,4 +48,51 @@ class S3UrlSignerTest {
     // 返却URLの検証
     assertThat(actual).isEqualTo(expected);
   }
+
+  /** PUT 用の署名リクエストにバケット・キー・Content-Type・有効期限が設定されることを検証する。 */
+  @Test
+  void testGeneratePresignedPutUrl_UsesBucketKeyContentTypeAndExpiry() throws Exception {
+    S3Presigner presigner = mock(S3Presigner.class);
+    PresignedPutObjectRequest presigned = mock(PresignedPutObjectRequest.class);
+    URL expected = URI.create("https://my-test-bucket.s3.amazonaws.com/uploads/a.csv").toURL();
+    when(presigned.url()).thenReturn(expected);
+    when(presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenReturn(presigned);
+
+    S3UrlSigner signer = new S3UrlSigner(presigner);
+    URL actual =
+        signer.generatePresignedPutUrl(
+            "uploads/a.csv", "text/csv", PresignedUrlOptions.of("my-test-bucket", 15));
+
+    ArgumentCaptor<PutObjectPresignRequest> captor =
+        ArgumentCaptor.forClass(PutObjectPresignRequest.class);
+    verify(presigner).presignPutObject(captor.capture());
+    assertThat(actual).isEqualTo(expected);
+    assertThat(captor.getValue().signatureDuration()).isEqualTo(Duration.ofMinutes(15));
+    assertThat(captor.getValue().putObjectRequest().bucket()).isEqualTo("my-test-bucket");
+    assertThat(captor.getValue().putObjectRequest().key()).isEqualTo("uploads/a.csv");
+    assertThat(captor.getValue().putObjectRequest().contentType()).isEqualTo("text/csv");
+  }
+
+  /** UploadPart 用の署名リクエストにアップロード ID とパート番号が設定されることを検証する。 */
+  @Test
+  void testGeneratePresignedUploadPartUrl_UsesUploadIdAndPartNumber() throws Exception {
+    S3Presigner presigner = mock(S3Presigner.class);
+    PresignedUploadPartRequest presigned = mock(PresignedUploadPartRequest.class);
+    URL expected = URI.create("https://my-test-bucket.s3.amazonaws.com/uploads/big.csv").toURL();
+    when(presigned.url()).thenReturn(expected);
+    when(presigner.presignUploadPart(any(UploadPartPresignRequest.class))).thenReturn(presigned);
+
+    S3UrlSigner signer = new S3UrlSigner(presigner);
+    URL actual =
+        signer.generatePresignedUploadPartUrl(
+            "uploads/big.csv", "upload-1", 3, PresignedUrlOptions.of("my-test-bucket", 10));
+
+    ArgumentCaptor<UploadPartPresignRequest> captor =
+        ArgumentCaptor.forClass(UploadPartPresignRequest.class);
+    verify(presigner).presignUploadPart(captor.capture());
+    assertThat(actual).isEqualTo(expected);
+    assertThat(captor.getValue().uploadPartRequest().uploadId()).isEqualTo("upload-1");
+    assertThat(captor.getValue().uploadPartRequest().partNumber()).isEqualTo(3);
+    assertThat(captor.getValue().uploadPartRequest().key()).isEqualTo("uploads/big.csv");
+  }
 }
@@ -0,0 +1,36 @@
+package com.capgemini.estimate.poc.estimate_api.common.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/** {@code JapaneseTextNormalizer} と {@code NgramTokenizer} の単体テスト。 */
+class JapaneseTextNormalizerTest {
+
+  /** 全角英数字・半角カナ・カタカナの違いを吸収する。 */
+  @Test
+  void normalize_foldsWidthAndKana() {
+    assertThat(JapaneseTextNormalizer.normalize("ｻｰﾊﾞ見積　ＡＢＣ"))
+        .isEqualTo(JapaneseTextNormalizer.normalize("さーば見積 abc"))
+        .isEqualTo("さーば見積 abc");
+  }
+
+  /** 空白の連続は 1 つにまとめ、前後の空白は除く。null は空文字列。 */
+  @Test
+  void normalize_collapsesWhitespace() {
+    assertThat(JapaneseTextNormalizer.normalize("  株式会社A \t 本社 ")).isEqualTo("株式会社a 本社");
+    assertThat(JapaneseTextNormalizer.normalize(null)).isEmpty();
+  }
+
+  /** 語ごとに 2-gram へ分割し、語をまたぐ 2-gram は作らない。1 文字の語はそのまま。 */
+  @Test
+  void tokens_areBigramsPerWord() {
+    assertThat(NgramTokenizer.tokens("見積書 a")).containsExactly("見積", "積書", "a");
+  }
+
+  /** サロゲートペアの文字も 1 文字として扱う。 */
+  @Test
+  void tokens_handleSurrogatePairs() {
+    assertThat(NgramTokenizer.tokens("𠮷野家")).containsExactly("𠮷野", "野家");
+  }
+}
@@ -0,0 +1,53 @@
+package com.capgemini.estimate.poc.estimate_api.common.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/** {@code PostingList} の単体テスト。 */
+class PostingListTest {
+
+  /** 追加した番号を昇順のまま復元できる（差分が 7 ビットを超える場合も含む）。 */
+  @Test
+  void addThenToArray_roundTrips() {
+    PostingList list = new PostingList();
+    int[] ids = {0, 1, 5, 200, 70_000, 70_001, 5_000_000};
+    for (int id : ids) {
+      list.add(id);
+    }
+
+    assertThat(list.toArray()).containsExactly(ids);
+    assertThat(list.size()).isEqualTo(ids.length);
+  }
+
+  /** 番号が密な列は 1 件 1 バイトで保持する。 */
+  @Test
+  void denseIds_useOneBytePerEntry() {
+    PostingList list = new PostingList();
+    for (int id = 0; id < 1000; id++) {
+      list.add(id);
+    }
+
+    assertThat(list.byteSize()).isEqualTo(1000);
+  }
+
+  /** 直前以下の番号は追加できない。 */
+  @Test
+  void add_rejectsNonIncreasing() {
+    PostingList list = new PostingList();
+    list.add(3);
+
+    assertThrows(IllegalArgumentException.class, () -> list.add(3));
+  }
+
+  /** 共通部分と和。 */
+  @Test
+  void intersectAndUnion() {
+    int[] a = {1, 3, 5, 7};
+    int[] b = {3, 4, 5, 8};
+
+    assertThat(PostingList.intersect(a, b)).containsExactly(3, 5);
+    assertThat(PostingList.union(a, b)).containsExactly(1, 3, 4, 5, 7, 8);
+  }
+}
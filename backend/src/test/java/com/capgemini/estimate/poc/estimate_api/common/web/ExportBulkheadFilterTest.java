@@ -0,0 +1,100 @@
+package com.capgemini.estimate.poc.estimate_api.common.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/** {@code ExportBulkheadFilter} の単体テスト。 */
+class ExportBulkheadFilterTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private ExportBulkheadFilter filter(int maxConcurrent, int maxQueue) {
+    return new ExportBulkheadFilter(
+        registry, List.of("/api/estimates/download/**"), maxConcurrent, maxQueue, Duration.ofMillis(50), 7);
+  }
+
+  /** 対象外のパスは制限されず、そのまま後続へ渡る。 */
+  @Test
+  void nonMatchingPath_isNotLimited() throws Exception {
+    ExportBulkheadFilter filter = filter(0, 0);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/estimates"), response, chain);
+
+    assertThat(chain.getRequest()).isNotNull();
+    assertThat(response.getStatus()).isEqualTo(200);
+  }
+
+  /** 枠が空いていれば通し、処理後に枠を返却する。 */
+  @Test
+  void withinLimit_passesAndReleasesPermit() throws Exception {
+    ExportBulkheadFilter filter = filter(1, 0);
+
+    for (int i = 0; i < 3; i++) {
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      filter.doFilter(
+          new MockHttpServletRequest("GET", "/api/estimates/download/stream"), response, new MockFilterChain());
+      assertThat(response.getStatus()).isEqualTo(200);
+    }
+    assertThat(registry.get("export.bulkhead.permits.in.use").gauge().value()).isZero();
+  }
+
+  /** 枠が埋まっていて待機列も無い場合は 429 + Retry-After を返す。 */
+  @Test
+  void saturated_rejectsWith429AndRetryAfter() throws Exception {
+    ExportBulkheadFilter filter = filter(1, 0);
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    FilterChain blocking =
+        (req, res) -> {
+          entered.countDown();
+          try {
+            finish.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        };
+
+    Thread first =
+        new Thread(
+            () -> {
+              try {
+                filter.doFilter(
+                    new MockHttpServletRequest("GET", "/api/estimates/download/stream"),
+                    new MockHttpServletResponse(),
+                    blocking);
+              } catch (Exception e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    first.start();
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    AtomicInteger chainCalls = new AtomicInteger();
+    filter.doFilter(
+        new MockHttpServletRequest("GET", "/api/estimates/download/stream"),
+        rejected,
+        (req, res) -> chainCalls.incrementAndGet());
+
+    finish.countDown();
+    first.join();
+
+    assertThat(rejected.getStatus()).isEqualTo(429);
+    assertThat(rejected.getHeader("Retry-After")).isEqualTo("7");
+    assertThat(chainCalls.get()).isZero();
+    assertThat(registry.get("export.bulkhead.rejected").counter().count()).isEqualTo(1.0);
+  }
+}
@@ -0,0 +1,137 @@
+package com.capgemini.estimate.poc.estimate_api.common.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/** {@code FileRangeResponder} の単体テスト。10 バイトのファイルを送出し、状態コード・ヘッダ・本文を確認する。 */
+class FileRangeResponderTest {
+
+  private static final String ETAG = "\"v7\"";
+  private static final String CONTENT = "0123456789";
+
+  @TempDir Path tempDir;
+
+  private final FileRangeResponder responder = new FileRangeResponder();
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    file = Files.writeString(tempDir.resolve("estimates.xlsx"), CONTENT, StandardCharsets.UTF_8);
+  }
+
+  private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    responder.send(request, response, file, ETAG, "application/octet-stream", "estimates.xlsx");
+    return response;
+  }
+
+  private static MockHttpServletRequest request() {
+    return new MockHttpServletRequest("GET", "/api/estimates/download");
+  }
+
+  /** 条件なしのリクエストは全体を 200 で返す。 */
+  @Test
+  void send_plainRequest_returnsWholeFile() throws Exception {
+    MockHttpServletResponse response = send(request());
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    assertThat(response.getContentLengthLong()).isEqualTo(10);
+    assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+  }
+
+  /** 単一範囲の Range は 206 と Content-Range で、その範囲だけを返す。 */
+  @Test
+  void send_singleRange_returnsPartialContent() throws Exception {
+    MockHttpServletRequest request = request();
+    request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+    MockHttpServletResponse response = send(request);
+
+    assertThat(response.getStatus()).isEqualTo(206);
+    assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+    assertThat(response.getContentLengthLong()).isEqualTo(4);
+    assertThat(response.getContentAsString()).isEqualTo("2345");
+  }
+
+  /** ファイルの末尾より後ろから始まる範囲は 416 とし、Content-Range にファイルの長さを返す。 */
+  @Test
+  void send_unsatisfiableRange_returns416() throws Exception {
+    MockHttpServletRequest request = request();
+    request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+
+    MockHttpServletResponse response = send(request);
+
+    assertThat(response.getStatus()).isEqualTo(416);
+    assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    assertThat(response.getContentAsByteArray()).isEmpty();
+  }
+
+  /** If-Range の ETag が一致しなければ Range を無視して全体を 200 で返す。 */
+  @Test
+  void send_ifRangeMismatch_returnsWholeFile() throws Exception {
+    MockHttpServletRequest request = request();
+    request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+    request.addHeader(HttpHeaders.IF_RANGE, "\"v6\"");
+
+    MockHttpServletResponse response = send(request);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+    assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+  }
+
+  /** If-Range の ETag が一致すれば Range に従う。 */
+  @Test
+  void send_ifRangeMatch_returnsPartialContent() throws Exception {
+    MockHttpServletRequest request = request();
+    request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+    request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+    MockHttpServletResponse response = send(request);
+
+    assertThat(response.getStatus()).isEqualTo(206);
+    assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+    assertThat(response.getContentAsString()).isEqualTo("789");
+  }
+
+  /** If-None-Match の ETag（弱い比較を含む）が一致すれば、本文なしの 304 を返す。 */
+  @Test
+  void send_ifNoneMatch_returnsNotModified() throws Exception {
+    MockHttpServletRequest request = request();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v6\", W/" + ETAG);
+
+    MockHttpServletResponse response = send(request);
+
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    assertThat(response.getContentAsByteArray()).isEmpty();
+  }
+
+  /** sendfile が使える場合は本文を書かず、送出する範囲をリクエスト属性で Tomcat に渡す。 */
+  @Test
+  void send_sendfileSupported_delegatesToContainer() throws Exception {
+    MockHttpServletRequest request = request();
+    request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+    request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+    MockHttpServletResponse response = send(request);
+
+    assertThat(response.getStatus()).isEqualTo(206);
+    assertThat(response.getContentAsByteArray()).isEmpty();
+    assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename"))
+        .isEqualTo(file.toAbsolutePath().toString());
+    assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(2L);
+    assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(6L);
+  }
+}
@@ -0,0 +1,16 @@
+package com.capgemini.estimate.poc.estimate_api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** テスト用の ObjectMapper。アプリと同じく Boot の既定の設定に {@link JacksonConfig} を加える。 */
+public final class TestObjectMapper {
+
+  private TestObjectMapper() {}
+
+  public static ObjectMapper create() {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+    new JacksonConfig().lenientFilterProvider().customize(builder);
+    return builder.build();
+  }
+}
@@ -0,0 +1,33 @@
+package com.capgemini.estimate.poc.estimate_api.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+/** {@code EstimateField} の単体テスト。 */
+class EstimateFieldTest {
+
+  /** JSON の項目名のカンマ区切りを解釈する（前後の空白と空要素は無視する）。 */
+  @Test
+  void parse_readsJsonNames() {
+    assertThat(EstimateField.parse("id, title,,customerName"))
+        .containsExactly(EstimateField.ID, EstimateField.TITLE, EstimateField.CUSTOMER_NAME);
+  }
+
+  /** 未指定・空は null（全項目）。 */
+  @Test
+  void parse_blank_returnsNull() {
+    assertThat(EstimateField.parse(null)).isNull();
+    assertThat(EstimateField.parse("")).isNull();
+    assertThat(EstimateField.parse(" , ")).isNull();
+  }
+
+  /** 知らない項目名（列名・enum 名を含む）は InvalidFieldsException。 */
+  @Test
+  void parse_unknownName_throws() {
+    assertThrows(InvalidFieldsException.class, () -> EstimateField.parse("id,customer_name"));
+    assertThrows(InvalidFieldsException.class, () -> EstimateField.parse("TITLE"));
+  }
+}
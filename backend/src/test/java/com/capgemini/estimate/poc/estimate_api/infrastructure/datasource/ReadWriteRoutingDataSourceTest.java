@@ -0,0 +1,104 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@code ReadWriteRoutingDataSource} の単体テスト。
+ *
+ * <p>primary とレプリカの代わりに 2 つの H2 インメモリ DB を使い、どちらに接続したかを DB ごとに異なる値の表で判定する。
+ */
+class ReadWriteRoutingDataSourceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private JdbcTemplate jdbc;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  void setUp() {
+    DataSource primary = database("primary");
+    DataSource replica = database("replica");
+    DataSource routing = new ReadWriteRoutingDataSource(primary, replica, meterRegistry).lazy();
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+    jdbc = new JdbcTemplate(routing);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReadWriteRoutingDataSource.unpin();
+  }
+
+  private static DataSource database(String name) {
+    DataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate init = new JdbcTemplate(dataSource);
+    init.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(16))");
+    init.execute("DELETE FROM marker");
+    init.update("INSERT INTO marker VALUES (?)", name);
+    return dataSource;
+  }
+
+  private String connectedTo() {
+    return jdbc.queryForObject("SELECT name FROM marker", String.class);
+  }
+
+  private double routed(String target, String reason) {
+    return meterRegistry
+        .get("datasource.routing")
+        .tag("target", target)
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+
+  /** 読み取り専用トランザクションはレプリカへ送る。 */
+  @Test
+  void readOnlyTransaction_usesReplica() {
+    assertThat(readOnly.execute(status -> connectedTo())).isEqualTo("replica");
+    assertThat(routed("replica", "read-only")).isEqualTo(1);
+  }
+
+  /** 読み書きトランザクションとトランザクション外の SQL は primary へ送る。 */
+  @Test
+  void readWriteTransactionAndAutoCommit_usePrimary() {
+    assertThat(readWrite.execute(status -> connectedTo())).isEqualTo("primary");
+    assertThat(connectedTo()).isEqualTo("primary");
+    assertThat(routed("primary", "read-write")).isEqualTo(2);
+  }
+
+  /** primary に固定したスレッドでは、読み取り専用トランザクションも primary へ送る。 */
+  @Test
+  void pinnedThread_readsFromPrimary() {
+    ReadWriteRoutingDataSource.pinToPrimary();
+
+    assertThat(readOnly.execute(status -> connectedTo())).isEqualTo("primary");
+    assertThat(routed("primary", "read-your-writes")).isEqualTo(1);
+
+    ReadWriteRoutingDataSource.unpin();
+    assertThat(readOnly.execute(status -> connectedTo())).isEqualTo("replica");
+  }
+
+  /** 書き込みは primary にだけ反映され、レプリカからは見えない（遅延の代わり）。 */
+  @Test
+  void writes_goToPrimaryOnly() {
+    readWrite.executeWithoutResult(
+        status -> jdbc.update("INSERT INTO marker VALUES (?)", "written"));
+
+    String count = "SELECT COUNT(*) FROM marker";
+    assertThat(readOnly.execute(status -> jdbc.queryForObject(count, Integer.class))).isEqualTo(1);
+    assertThat(readWrite.execute(status -> jdbc.queryForObject(count, Integer.class))).isEqualTo(2);
+  }
+}
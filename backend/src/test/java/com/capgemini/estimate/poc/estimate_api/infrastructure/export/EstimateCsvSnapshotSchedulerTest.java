@@ -0,0 +1,71 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.common.redis.RedisLock;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateCsvSnapshotUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** {@code EstimateCsvSnapshotScheduler} の単体テスト。 */
+class EstimateCsvSnapshotSchedulerTest {
+
+  private EstimateCsvSnapshotUseCase useCase;
+  private RedisLock redisLock;
+  private EstimateCsvSnapshotScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    useCase = mock(EstimateCsvSnapshotUseCase.class);
+    redisLock = mock(RedisLock.class);
+    scheduler = new EstimateCsvSnapshotScheduler(useCase, redisLock);
+  }
+
+  /** 差分と全件は別のロックで排他する。差分の実行中でも全件は実行される。 */
+  @Test
+  void fullSnapshot_runsWhileDeltaLockIsHeld() {
+    when(redisLock.tryLock(eq(EstimateCsvSnapshotScheduler.DELTA_LOCK_KEY), any())).thenReturn(null);
+    when(redisLock.tryLock(eq(EstimateCsvSnapshotScheduler.FULL_LOCK_KEY), any()))
+        .thenReturn("full-token");
+
+    scheduler.publishDelta();
+    scheduler.publishFullSnapshot();
+
+    verify(useCase, never()).publishDelta();
+    verify(useCase).publishFullSnapshot();
+    verify(redisLock).unlock(EstimateCsvSnapshotScheduler.FULL_LOCK_KEY, "full-token");
+  }
+
+  /** 全件の実行中でも差分は実行される。 */
+  @Test
+  void delta_runsWhileFullLockIsHeld() {
+    when(redisLock.tryLock(eq(EstimateCsvSnapshotScheduler.DELTA_LOCK_KEY), any()))
+        .thenReturn("delta-token");
+    when(redisLock.tryLock(eq(EstimateCsvSnapshotScheduler.FULL_LOCK_KEY), any())).thenReturn(null);
+
+    scheduler.publishFullSnapshot();
+    scheduler.publishDelta();
+
+    verify(useCase, never()).publishFullSnapshot();
+    verify(useCase).publishDelta();
+    verify(redisLock).unlock(EstimateCsvSnapshotScheduler.DELTA_LOCK_KEY, "delta-token");
+  }
+
+  /** 発行に失敗しても例外を外へ出さず、ロックは解放する。 */
+  @Test
+  void failure_releasesLock() {
+    when(redisLock.tryLock(eq(EstimateCsvSnapshotScheduler.DELTA_LOCK_KEY), any()))
+        .thenReturn("delta-token");
+    doThrow(new IllegalStateException("s3 down")).when(useCase).publishDelta();
+
+    scheduler.publishDelta();
+
+    verify(redisLock).unlock(EstimateCsvSnapshotScheduler.DELTA_LOCK_KEY, "delta-token");
+  }
+}
@@ -0,0 +1,177 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.common.redis.RedisLock;
+import com.capgemini.estimate.poc.estimate_api.exception.ExportNotReadyException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.stubbing.Answer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * {@code ExportArtifactCache} の単体テスト。
+ *
+ * <p>Redis ロックと S3 はモックにし、ロックを取れたレプリカだけが生成すること、他のレプリカの生成物は S3 から取得すること、
+ * 待ち時間を過ぎたら 503 用の例外にすることを確認する。
+ */
+class ExportArtifactCacheTest {
+
+  private static final String LOCK_KEY = "export:artifact:lock:estimates:7";
+  private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+  @TempDir Path cacheDir;
+
+  private RedisLock redisLock;
+  private S3Client s3Client;
+  private ExportArtifactCache cache;
+  private final AtomicInteger renders = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() {
+    redisLock = mock(RedisLock.class);
+    s3Client = mock(S3Client.class);
+    cache = cache(Duration.ofSeconds(10));
+  }
+
+  private ExportArtifactCache cache(Duration waitTimeout) {
+    return new ExportArtifactCache(
+        redisLock, s3Client, cacheDir, "bucket", Duration.ofMinutes(10), waitTimeout, RETRY_AFTER);
+  }
+
+  private Path getOrCreate(ExportArtifactCache cache) {
+    return cache.getOrCreate(
+        "estimates",
+        7,
+        ".xlsx",
+        out -> {
+          renders.incrementAndGet();
+          out.write("rendered".getBytes(StandardCharsets.UTF_8));
+        });
+  }
+
+  private static NoSuchKeyException noSuchKey() {
+    return NoSuchKeyException.builder().message("not found").build();
+  }
+
+  /** S3 のオブジェクトの内容を {@code toFile} の変換へ流す回答。 */
+  private static Answer<Object> objectInS3(String content) {
+    return invocation -> {
+      ResponseTransformer<GetObjectResponse, ?> transformer = invocation.getArgument(1);
+      return transformer.transform(
+          GetObjectResponse.builder().build(),
+          AbortableInputStream.create(
+              new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))));
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object getObject() {
+    return s3Client.getObject(any(GetObjectRequest.class), any(ResponseTransformer.class));
+  }
+
+  /** 誰も生成していなければロックを取って生成し、S3 に置いてロックを解放する。2 回目はローカルのファイルを返す。 */
+  @Test
+  void getOrCreate_notRenderedYet_rendersOnceUnderLock() throws Exception {
+    when(getObject()).thenThrow(noSuchKey());
+    when(redisLock.tryLock(LOCK_KEY, Duration.ofMinutes(10))).thenReturn("token");
+
+    Path first = getOrCreate(cache);
+    Path second = getOrCreate(cache);
+
+    assertThat(second).isEqualTo(first).isEqualTo(cacheDir.resolve("estimates-v7.xlsx"));
+    assertThat(Files.readString(first)).isEqualTo("rendered");
+    assertThat(renders).hasValue(1);
+    verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    verify(redisLock).unlock(LOCK_KEY, "token");
+  }
+
+  /** 他のレプリカが生成済みなら S3 から取得し、ロックも生成もしない。 */
+  @Test
+  void getOrCreate_renderedOnAnotherReplica_isDownloadedFromS3() throws Exception {
+    when(getObject()).thenAnswer(objectInS3("from another replica"));
+
+    Path file = getOrCreate(cache);
+
+    assertThat(Files.readString(file)).isEqualTo("from another replica");
+    assertThat(renders).hasValue(0);
+    verify(redisLock, never()).tryLock(anyString(), any());
+  }
+
+  /** ロックを他のレプリカが持っている間は待ち、その生成物が S3 に置かれたら取得する。 */
+  @Test
+  void getOrCreate_lockHeldByAnotherReplica_waitsForItsArtifact() throws Exception {
+    when(getObject()).thenThrow(noSuchKey()).thenAnswer(objectInS3("from another replica"));
+    when(redisLock.tryLock(LOCK_KEY, Duration.ofMinutes(10))).thenReturn(null);
+
+    Path file = getOrCreate(cache);
+
+    assertThat(Files.readString(file)).isEqualTo("from another replica");
+    assertThat(renders).hasValue(0);
+    verify(redisLock, times(1)).tryLock(LOCK_KEY, Duration.ofMinutes(10));
+    verify(redisLock, never()).unlock(anyString(), anyString());
+  }
+
+  /** 待ち時間を過ぎても他のレプリカの生成が終わらなければ、Retry-After 付きの例外にする。 */
+  @Test
+  void getOrCreate_waitTimeout_throwsNotReady() {
+    when(getObject()).thenThrow(noSuchKey());
+    when(redisLock.tryLock(LOCK_KEY, Duration.ofMinutes(10))).thenReturn(null);
+
+    ExportNotReadyException e =
+        assertThrows(
+            ExportNotReadyException.class, () -> getOrCreate(cache(Duration.ofMillis(100))));
+
+    assertThat(e.getRetryAfter()).isEqualTo(RETRY_AFTER);
+    assertThat(renders).hasValue(0);
+    assertThat(cacheDir.resolve("estimates-v7.xlsx")).doesNotExist();
+  }
+
+  /** 生成に失敗した場合はロックを解放し、S3 にもローカルにも何も残さない。 */
+  @Test
+  void getOrCreate_renderFailure_releasesLockAndLeavesNothing() throws Exception {
+    when(getObject()).thenThrow(noSuchKey());
+    when(redisLock.tryLock(LOCK_KEY, Duration.ofMinutes(10))).thenReturn("token");
+
+    assertThrows(
+        UncheckedIOException.class,
+        () ->
+            cache.getOrCreate(
+                "estimates",
+                7,
+                ".xlsx",
+                out -> {
+                  throw new IOException("disk full");
+                }));
+
+    verify(redisLock).unlock(LOCK_KEY, "token");
+    verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    try (var files = Files.list(cacheDir)) {
+      assertThat(files).isEmpty();
+    }
+  }
+}
@@ -0,0 +1,325 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.config.TestObjectMapper;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * {@code CachingEstimateRepository} のテスト。
+ *
+ * <p>L2 の予約と条件付きの書き込み（Lua）を確認するため、Redis はコンテナで起動する。DB（委譲先）はモックにし、
+ * 読み出し中に他のレプリカの書き込みがコミットされた状況は、委譲先の応答の中で L2 のキーを消して再現する。
+ * Docker が無い環境ではスキップする。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CachingEstimateRepositoryTest {
+
+  @Container
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  private LettuceConnectionFactory connectionFactory;
+  private StringRedisTemplate redisTemplate;
+  private ObjectMapper objectMapper;
+  private EstimateRepositoryImpl delegate;
+  private CachingEstimateRepository repository;
+  private MessageListener invalidationListener;
+
+  @BeforeEach
+  void setUp() {
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    redisTemplate = new StringRedisTemplate(connectionFactory);
+    redisTemplate.afterPropertiesSet();
+    redisTemplate.execute(
+        (RedisCallback<Object>)
+            connection -> {
+              connection.serverCommands().flushAll();
+              return null;
+            });
+
+    objectMapper = TestObjectMapper.create();
+    delegate = mock(EstimateRepositoryImpl.class);
+    RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    repository =
+        new CachingEstimateRepository(
+            delegate,
+            redisTemplate,
+            objectMapper,
+            listenerContainer,
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(10),
+            Duration.ofSeconds(10));
+    ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+    verify(listenerContainer).addMessageListener(listener.capture(), any(Topic.class));
+    invalidationListener = listener.getValue();
+  }
+
+  @AfterEach
+  void tearDown() {
+    repository.shutdown();
+    connectionFactory.destroy();
+  }
+
+  private static Estimate estimate(String id, String title, long version) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = title;
+    e.version = version;
+    return e;
+  }
+
+  private String l2(String id) {
+    return redisTemplate.opsForValue().get("estimate:cache:" + id);
+  }
+
+  private void putL2(String id, Estimate estimate) throws Exception {
+    redisTemplate
+        .opsForValue()
+        .set("estimate:cache:" + id, objectMapper.writeValueAsString(estimate));
+  }
+
+  /** L2 のミスは DB から読んで L2 に書き込み、以降は L1 から返す（DB は 1 回だけ）。 */
+  @Test
+  void selectById_miss_loadsOnceAndFillsL2() throws Exception {
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "見積", 1));
+
+    assertThat(repository.selectById("E1").title).isEqualTo("見積");
+    assertThat(repository.selectById("E1").title).isEqualTo("見積");
+
+    verify(delegate, times(1)).selectById("E1");
+    assertThat(objectMapper.readValue(l2("E1"), Estimate.class).version).isEqualTo(1);
+  }
+
+  /** L2 には {@code fields=}（{@code @JsonFilter}）に関係なく全項目を書き込み、読み戻すと元の値になる。 */
+  @Test
+  void selectById_fillsL2WithAllProperties() throws Exception {
+    Estimate e1 = estimate("E1", "見積", 3);
+    e1.customerName = "顧客A";
+    e1.totalAmount = 100;
+    e1.updatedAt = LocalDateTime.of(2025, 4, 1, 9, 0);
+    when(delegate.selectById("E1")).thenReturn(e1);
+
+    repository.selectById("E1");
+
+    List<String> names = new ArrayList<>();
+    JsonNode json = objectMapper.readTree(l2("E1"));
+    json.fieldNames().forEachRemaining(names::add);
+    assertThat(names)
+        .containsExactlyInAnyOrder(
+            "id", "title", "customerName", "totalAmount", "updatedAt", "version");
+    Estimate cached = objectMapper.readValue(l2("E1"), Estimate.class);
+    assertThat(cached).usingRecursiveComparison().isEqualTo(e1);
+  }
+
+  /** DB を読んでいる間に書き込みで L2 が消された場合、読み出した古い値は L2 に書き込まない。 */
+  @Test
+  void selectById_invalidatedDuringLoad_doesNotFillStaleValue() {
+    when(delegate.selectById("E1"))
+        .thenAnswer(
+            invocation -> {
+              // 他のレプリカの書き込みがコミットされ、L2 を削除した
+              redisTemplate.delete("estimate:cache:E1");
+              return estimate("E1", "古い値", 1);
+            });
+
+    assertThat(repository.selectById("E1").title).isEqualTo("古い値");
+
+    assertThat(l2("E1")).isNull();
+  }
+
+  /** 他のスレッドが予約中のキーはミスとして DB から読み、予約を上書きしない。 */
+  @Test
+  void selectById_leasedByOther_readsDbWithoutFilling() {
+    redisTemplate.opsForValue().set("estimate:cache:E1", "lease:other");
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "見積", 1));
+
+    assertThat(repository.selectById("E1").title).isEqualTo("見積");
+
+    assertThat(l2("E1")).isEqualTo("lease:other");
+  }
+
+  /** 存在しない id は予約を残さない（次の読み出しで予約待ちにならない）。 */
+  @Test
+  void selectById_notFound_releasesLease() {
+    assertThat(repository.selectById("E404")).isNull();
+
+    assertThat(l2("E404")).isNull();
+  }
+
+  /** 読めない L2 の値は捨てて DB から読み直す。 */
+  @Test
+  void selectById_unreadableL2_fallsBackToDb() throws Exception {
+    redisTemplate.opsForValue().set("estimate:cache:E1", "{not json");
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "見積", 1));
+
+    assertThat(repository.selectById("E1").title).isEqualTo("見積");
+    verify(delegate).selectById("E1");
+  }
+
+  /** L1・L2・DB を順に使い、DB には L2 のミス分だけを 1 回で問い合わせる。 */
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  void selectByIds_usesL1ThenL2ThenDb() throws Exception {
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "L1", 1));
+    repository.selectById("E1");
+    redisTemplate.delete("estimate:cache:E1");
+    putL2("E2", estimate("E2", "L2", 1));
+    when(delegate.selectByIds(any()))
+        .thenReturn(Map.of("E3", estimate("E3", "DB", 1)));
+
+    Map<String, Estimate> found = repository.selectByIds(List.of("E1", "E2", "E3", "E4"));
+
+    assertThat(found).containsOnlyKeys("E1", "E2", "E3");
+    assertThat(found.get("E1").title).isEqualTo("L1");
+    assertThat(found.get("E2").title).isEqualTo("L2");
+    assertThat(found.get("E3").title).isEqualTo("DB");
+    ArgumentCaptor<Collection> requested = ArgumentCaptor.forClass(Collection.class);
+    verify(delegate).selectByIds(requested.capture());
+    assertThat((Collection<String>) requested.getValue()).containsExactlyInAnyOrder("E3", "E4");
+    assertThat(l2("E3")).isNotNull();
+    assertThat(l2("E4")).isNull();
+  }
+
+  /** Redis が {@code command} を実行した回数（{@code INFO commandstats}）。 */
+  private long calls(String command) {
+    Properties stats =
+        redisTemplate.execute(
+            (RedisCallback<Properties>)
+                connection -> connection.serverCommands().info("commandstats"));
+    Matcher matcher =
+        Pattern.compile("calls=(\\d+)").matcher(stats.getProperty("cmdstat_" + command, ""));
+    return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+  }
+
+  /** L1 にない id は L2 を MGET 1 回で読み、L2 にもない分だけを DB から 1 回で読む。2 回目は L1 から返す。 */
+  @Test
+  void selectByIds_readsL2WithSingleMget() throws Exception {
+    putL2("E1", estimate("E1", "L2", 1));
+    putL2("E2", estimate("E2", "L2", 1));
+    when(delegate.selectByIds(any())).thenReturn(Map.of("E3", estimate("E3", "DB", 1)));
+    redisTemplate.execute(
+        (RedisCallback<Object>)
+            connection -> {
+              connection.serverCommands().resetConfigStats();
+              return null;
+            });
+
+    assertThat(repository.selectByIds(List.of("E1", "E2", "E3")))
+        .containsOnlyKeys("E1", "E2", "E3");
+    assertThat(repository.selectByIds(List.of("E3", "E2", "E1")))
+        .containsOnlyKeys("E1", "E2", "E3");
+
+    assertThat(calls("mget")).isEqualTo(1);
+    assertThat(calls("get")).isZero();
+    verify(delegate, times(1)).selectByIds(any());
+  }
+
+  /** まとめて読んでいる間に消されたキーだけは L2 に書き込まない。 */
+  @Test
+  void selectByIds_invalidatedDuringLoad_skipsOnlyThatKey() {
+    when(delegate.selectByIds(any()))
+        .thenAnswer(
+            invocation -> {
+              redisTemplate.delete("estimate:cache:E2");
+              Map<String, Estimate> rows = new HashMap<>();
+              rows.put("E1", estimate("E1", "見積1", 1));
+              rows.put("E2", estimate("E2", "古い値", 1));
+              return rows;
+            });
+
+    assertThat(repository.selectByIds(List.of("E1", "E2"))).containsOnlyKeys("E1", "E2");
+
+    assertThat(l2("E1")).isNotNull();
+    assertThat(l2("E2")).isNull();
+  }
+
+  /** 書き込みは L2 と L1 を破棄し、次の読み出しで DB から読み直す。 */
+  @Test
+  void update_evictsBothLevels() {
+    when(delegate.selectById("E1"))
+        .thenReturn(estimate("E1", "更新前", 1), estimate("E1", "更新後", 2));
+    repository.selectById("E1");
+    assertThat(l2("E1")).isNotNull();
+
+    repository.update(estimate("E1", "更新後", 1));
+
+    assertThat(l2("E1")).isNull();
+    assertThat(repository.selectById("E1").title).isEqualTo("更新後");
+    verify(delegate, times(2)).selectById("E1");
+  }
+
+  /** 返したインスタンスを書き換えてもキャッシュには影響しない。 */
+  @Test
+  void selectById_returnsCopy() {
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "見積", 1));
+
+    repository.selectById("E1").title = "書き換え";
+
+    assertThat(repository.selectById("E1").title).isEqualTo("見積");
+    verify(delegate, never()).selectByIds(any());
+  }
+
+  /** 他のレプリカからの無効化の通知で L1 から破棄する（専用のスレッドで処理するため、反映を待って確かめる）。 */
+  @Test
+  void invalidationMessage_evictsL1() {
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "見積", 1));
+    repository.selectById("E1");
+    // 他のレプリカの書き込みで L2 は削除済み
+    redisTemplate.delete("estimate:cache:E1");
+    when(delegate.selectById("E1")).thenReturn(estimate("E1", "更新後", 2));
+
+    invalidationListener.onMessage(
+        new DefaultMessage(
+            CachingEstimateRepository.INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+            "E1".getBytes(StandardCharsets.UTF_8)),
+        null);
+
+    await()
+        .atMost(Duration.ofSeconds(5))
+        .until(() -> repository.selectById("E1").title.equals("更新後"));
+    verify(delegate, times(2)).selectById("E1");
+  }
+}
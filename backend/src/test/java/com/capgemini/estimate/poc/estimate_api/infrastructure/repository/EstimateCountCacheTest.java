@@ -0,0 +1,103 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.infrastructure.datasource.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@code EstimateCountCache} の単体テスト。
+ *
+ * <p>primary とレプリカの代わりに行数の異なる 2 つの H2 インメモリ DB を {@link ReadWriteRoutingDataSource} で振り分け、
+ * どちらで数えたかを件数で判定する（レプリカは primary より 1 件遅れている）。Redis はモック。
+ */
+class EstimateCountCacheTest {
+
+  private static final String KEY = "estimate:total-count:v7";
+
+  private ValueOperations<String, String> values;
+  private JdbcTemplate jdbc;
+  private TransactionTemplate readOnly;
+  private EstimateCountCache countCache;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    DataSource routing =
+        new ReadWriteRoutingDataSource(database(2), database(1), new SimpleMeterRegistry()).lazy();
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+    jdbc = new JdbcTemplate(routing);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    values = mock(ValueOperations.class);
+    when(redisTemplate.opsForValue()).thenReturn(values);
+    EstimateDataVersion dataVersion = mock(EstimateDataVersion.class);
+    when(dataVersion.current()).thenReturn(7L);
+    countCache = new EstimateCountCache(redisTemplate, dataVersion, transactionManager);
+  }
+
+  private static DataSource database(int rows) {
+    DataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate init = new JdbcTemplate(dataSource);
+    init.execute("CREATE TABLE estimate (id VARCHAR(36))");
+    for (int i = 0; i < rows; i++) {
+      init.update("INSERT INTO estimate VALUES (?)", "E" + i);
+    }
+    return dataSource;
+  }
+
+  private long count() {
+    return jdbc.queryForObject("SELECT COUNT(*) FROM estimate", Long.class);
+  }
+
+  /** 読み取り専用トランザクション（レプリカに接続済み）の中からでも、件数は primary で数えて保存する。 */
+  @Test
+  void get_inReadOnlyTransaction_countsOnPrimary() {
+    long[] result = new long[2];
+    readOnly.executeWithoutResult(
+        status -> {
+          result[0] = count();
+          result[1] = countCache.get(this::count);
+        });
+
+    assertThat(result[0]).isEqualTo(1);
+    assertThat(result[1]).isEqualTo(2);
+    verify(values).set(KEY, "2", Duration.ofHours(1));
+  }
+
+  /** キャッシュにあれば数えない。 */
+  @Test
+  void get_cached_doesNotCount() {
+    when(values.get(KEY)).thenReturn("5");
+
+    long count =
+        countCache.get(
+            () -> {
+              throw new AssertionError("数え直さない");
+            });
+
+    assertThat(count).isEqualTo(5);
+    verify(values, never()).set(anyString(), anyString(), eq(Duration.ofHours(1)));
+  }
+}
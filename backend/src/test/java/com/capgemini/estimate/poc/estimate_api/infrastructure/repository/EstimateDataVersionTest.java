@@ -0,0 +1,85 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@code EstimateDataVersion} の単体テスト。
+ *
+ * <p>トランザクションは H2 インメモリ DB の {@link DataSourceTransactionManager} で張り、INCR の時点を Redis のモックで確認する。
+ */
+class EstimateDataVersionTest {
+
+  private static final String KEY = "estimate:data-version";
+
+  private ValueOperations<String, String> values;
+  private EstimateDataVersion dataVersion;
+  private TransactionTemplate transaction;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    values = mock(ValueOperations.class);
+    when(redisTemplate.opsForValue()).thenReturn(values);
+    dataVersion = new EstimateDataVersion(redisTemplate);
+    transaction =
+        new TransactionTemplate(
+            new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:mem:data-version;DB_CLOSE_DELAY=-1", "sa", "")));
+  }
+
+  /** トランザクション外では即座に進める。 */
+  @Test
+  void bump_withoutTransaction_incrementsImmediately() {
+    dataVersion.bump();
+
+    verify(values).increment(KEY);
+  }
+
+  /** トランザクション中はコミットまで進めない（コミット前の内容が新しいバージョンでキャッシュされないように）。 */
+  @Test
+  void bump_inTransaction_incrementsAfterCommit() {
+    transaction.executeWithoutResult(
+        status -> {
+          dataVersion.bump();
+          dataVersion.bump();
+          verify(values, never()).increment(KEY);
+        });
+
+    verify(values, times(2)).increment(KEY);
+  }
+
+  /** ロールバックした場合は進めない。 */
+  @Test
+  void bump_rolledBack_doesNotIncrement() {
+    transaction.executeWithoutResult(
+        status -> {
+          dataVersion.bump();
+          status.setRollbackOnly();
+        });
+
+    verify(values, never()).increment(KEY);
+  }
+
+  /** 未初期化のバージョンは 0。 */
+  @Test
+  void current_uninitialized_isZero() {
+    assertThat(dataVersion.current()).isZero();
+
+    when(values.get(KEY)).thenReturn("42");
+    assertThat(dataVersion.current()).isEqualTo(42);
+  }
+}
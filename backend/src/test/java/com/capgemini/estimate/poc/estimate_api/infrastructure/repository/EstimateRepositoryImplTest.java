@@ -0,0 +1,619 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItem;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateItemChanges;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate_;
+import com.capgemini.estimate.poc.estimate_api.exception.EstimateConflictException;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidEstimateItemException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seasar.doma.jdbc.criteria.QueryDsl;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** {@code EstimateRepositoryImpl} のテスト。H2（{@link EstimateTestDatabase}）上で SQL ごと確認する。 */
+class EstimateRepositoryImplTest {
+
+  private static final LocalDateTime T1 = LocalDateTime.of(2025, 4, 1, 9, 0);
+  private static final LocalDateTime T2 = LocalDateTime.of(2025, 4, 2, 9, 0);
+
+  private EstimateTestDatabase database;
+  private EstimateRepositoryImpl repository;
+
+  @BeforeEach
+  void setUp() {
+    database = new EstimateTestDatabase();
+    repository = database.repository();
+  }
+
+  private void insert(
+      String id, String title, String customerName, Integer amount, LocalDateTime updatedAt) {
+    database
+        .jdbc()
+        .update(
+            "INSERT INTO estimate (id, title, customer_name, total_amount, updated_at)"
+                + " VALUES (?, ?, ?, ?, ?)",
+            id,
+            title,
+            customerName,
+            amount,
+            Timestamp.valueOf(updatedAt));
+  }
+
+  /** ソート列の値が同じ行・null の行を混ぜたデータ。 */
+  private void givenPagingRows() {
+    insert("E01", "b", "顧客A", 300, T1);
+    insert("E02", "a", null, 100, T2);
+    insert("E03", "b", "顧客A", null, T1);
+    insert("E04", "c", "顧客B", 100, T2);
+    insert("E05", "a", null, null, T1);
+    insert("E06", "b", "顧客B", 300, T2);
+    insert("E07", "c", "顧客A", 200, T1);
+  }
+
+  /** Oracle の並び（null は最大値。昇順で末尾、降順で先頭）に id を第 2 キーとして加えた期待順序。 */
+  private static <T extends Comparable<? super T>> Comparator<Estimate> oracleOrder(
+      Function<Estimate, T> key, boolean descending) {
+    Comparator<Estimate> order =
+        Comparator.comparing(key, Comparator.nullsLast(Comparator.<T>naturalOrder()))
+            .thenComparing(e -> e.id);
+    return descending ? order.reversed() : order;
+  }
+
+  private static Comparator<Estimate> expectedOrder(EstimateSortKey sort, boolean descending) {
+    return switch (sort) {
+      case ID -> oracleOrder(e -> e.id, descending);
+      case TITLE -> oracleOrder(e -> e.title, descending);
+      case CUSTOMER_NAME -> oracleOrder(e -> e.customerName, descending);
+      case TOTAL_AMOUNT -> oracleOrder(e -> e.totalAmount, descending);
+      case UPDATED_AT -> oracleOrder(e -> e.updatedAt, descending);
+    };
+  }
+
+  /** 前ページの最終行をカーソルにして最後までたどった id の並び。 */
+  private List<String> walk(
+      EstimateFilter filter, EstimateSortKey sort, boolean descending, int limit) {
+    List<String> ids = new ArrayList<>();
+    Estimate after = null;
+    for (int guard = 0; guard < 100; guard++) {
+      List<Estimate> page = repository.selectPage(filter, sort, descending, after, limit, null);
+      page.forEach(e -> ids.add(e.id));
+      if (page.size() < limit) {
+        return ids;
+      }
+      after = page.get(page.size() - 1);
+    }
+    throw new AssertionError("ページングが終わりません: " + ids);
+  }
+
+  /** どのソート列・方向・ページサイズでも、重複も欠落もなく全件を期待順にたどれる（null・同値を含む）。 */
+  @Test
+  void selectPage_keysetWalk_matchesFullOrderForEverySortAndDirection() {
+    givenPagingRows();
+    List<Estimate> all = repository.selectAll();
+
+    for (EstimateSortKey sort : EstimateSortKey.values()) {
+      for (boolean descending : new boolean[] {false, true}) {
+        List<String> expected =
+            all.stream().sorted(expectedOrder(sort, descending)).map(e -> e.id).toList();
+        for (int limit = 1; limit <= 3; limit++) {
+          assertThat(walk(EstimateFilter.NONE, sort, descending, limit))
+              .as("sort=%s desc=%s limit=%d", sort, descending, limit)
+              .containsExactlyElementsOf(expected);
+        }
+      }
+    }
+  }
+
+  /** カーソル行の値が null の場合、昇順では残りの null 行だけ、降順では残りの null 行の後に非 null の行が続く。 */
+  @Test
+  void selectPage_cursorOnNullValue() {
+    givenPagingRows();
+    Estimate cursor = new Estimate();
+    cursor.id = "E02";
+    cursor.customerName = null;
+
+    assertThat(
+            repository.selectPage(
+                EstimateFilter.NONE, EstimateSortKey.CUSTOMER_NAME, false, cursor, 10, null))
+        .extracting(e -> e.id)
+        .containsExactly("E05");
+    assertThat(
+            repository.selectPage(
+                EstimateFilter.NONE, EstimateSortKey.CUSTOMER_NAME, true, cursor, 10, null))
+        .extracting(e -> e.id)
+        .containsExactly("E06", "E04", "E07", "E03", "E01");
+  }
+
+  /** 同値の行は id で並び、カーソルの次の id から再開する。 */
+  @Test
+  void selectPage_tiesResumeById() {
+    givenPagingRows();
+    Estimate cursor = new Estimate();
+    cursor.id = "E01";
+    cursor.totalAmount = 300;
+
+    assertThat(
+            repository.selectPage(
+                EstimateFilter.NONE, EstimateSortKey.TOTAL_AMOUNT, false, cursor, 10, null))
+        .extracting(e -> e.id)
+        .containsExactly("E06", "E03", "E05");
+    assertThat(
+            repository.selectPage(
+                EstimateFilter.NONE, EstimateSortKey.TOTAL_AMOUNT, true, cursor, 10, null))
+        .extracting(e -> e.id)
+        .containsExactly("E07", "E04", "E02");
+  }
+
+  /** 絞り込みとカーソルを併用しても、条件に合う行だけを順にたどれる。 */
+  @Test
+  void selectPage_filterWithCursor() {
+    givenPagingRows();
+    EstimateFilter filter = new EstimateFilter("顧客", null, 100, 300);
+
+    assertThat(walk(filter, EstimateSortKey.TOTAL_AMOUNT, true, 2))
+        .containsExactly("E06", "E01", "E07", "E04");
+    assertThat(repository.count(filter)).isEqualTo(4);
+  }
+
+  /** fields を指定した全件の読み込みは、指定した列と id だけを SELECT する（他の列は読まないため null）。 */
+  @Test
+  void selectAll_withFields_selectsOnlyRequestedColumns() {
+    givenPagingRows();
+
+    List<Estimate> rows = repository.selectAll(EnumSet.of(EstimateField.TITLE));
+
+    assertThat(rows).hasSize(7);
+    assertThat(rows).extracting(e -> e.id).doesNotContainNull();
+    assertThat(rows).extracting(e -> e.title).doesNotContainNull();
+    assertThat(rows)
+        .allSatisfy(
+            e -> {
+              assertThat(e.customerName).isNull();
+              assertThat(e.totalAmount).isNull();
+              assertThat(e.updatedAt).isNull();
+              assertThat(e.version).isNull();
+            });
+  }
+
+  /** fields を指定したページの読み込みは、指定した列にソート列（カーソル用）と id を加えて SELECT する。 */
+  @Test
+  void selectPage_withFields_selectsRequestedAndSortColumns() {
+    givenPagingRows();
+
+    List<Estimate> page =
+        repository.selectPage(
+            EstimateFilter.NONE,
+            EstimateSortKey.TOTAL_AMOUNT,
+            false,
+            null,
+            3,
+            EnumSet.of(EstimateField.CUSTOMER_NAME));
+
+    assertThat(page).extracting(e -> e.id).containsExactly("E02", "E04", "E07");
+    assertThat(page).extracting(e -> e.totalAmount).containsExactly(100, 100, 200);
+    assertThat(page).extracting(e -> e.customerName).containsExactly(null, "顧客B", "顧客A");
+    assertThat(page)
+        .allSatisfy(
+            e -> {
+              assertThat(e.title).isNull();
+              assertThat(e.updatedAt).isNull();
+              assertThat(e.version).isNull();
+            });
+    // 絞った行でもカーソルにして続きを読める
+    assertThat(
+            repository.selectPage(
+                EstimateFilter.NONE,
+                EstimateSortKey.TOTAL_AMOUNT,
+                false,
+                page.get(2),
+                10,
+                EnumSet.of(EstimateField.CUSTOMER_NAME)))
+        .extracting(e -> e.id)
+        .containsExactly("E01", "E06", "E03", "E05");
+  }
+
+  /** 1000 件を超える id は 1000 件ずつの IN 検索に分けて読み、どの塊の行も欠けない（Oracle の IN リストの上限）。 */
+  @Test
+  void selectByIds_moreThanInListLimit_readsInChunks() {
+    List<Object[]> rows = new ArrayList<>();
+    for (int n = 0; n < 2100; n++) {
+      rows.add(new Object[] {String.format("E%04d", n), "見積" + n});
+    }
+    database.jdbc().batchUpdate("INSERT INTO estimate (id, title) VALUES (?, ?)", rows);
+    List<String> ids = new ArrayList<>();
+    for (int n = 0; n < 2500; n++) {
+      ids.add(String.format("E%04d", n));
+    }
+    QueryDsl queryDsl = spy(database.queryDsl());
+
+    Map<String, Estimate> found = database.repository(queryDsl).selectByIds(ids);
+
+    assertThat(found).hasSize(2100).containsKeys("E0000", "E0999", "E1000", "E1999", "E2099");
+    assertThat(found).doesNotContainKey("E2100");
+    verify(queryDsl, times(3)).from(any(Estimate_.class));
+  }
+
+  private long changeSeq(String table, String id) {
+    return database
+        .jdbc()
+        .queryForObject("SELECT change_seq FROM " + table + " WHERE id = ?", Long.class, id);
+  }
+
+  /** 変更番号が {@code after} より後ろの削除の記録の id（確定済みの上限まで）。 */
+  private List<String> tombstonesAfter(long after) {
+    return repository
+        .selectTombstonesChangedBetween(after, repository.settledChangeSeq(), 10)
+        .stream()
+        .map(t -> t.id)
+        .toList();
+  }
+
+  /** id 範囲の境界は件数がほぼ均等になる位置の id（昇順）で、件数より多く分けても空の範囲は作らない。 */
+  @Test
+  void selectIdBoundaries_splitsIntoEvenRanges() {
+    for (int i = 10; i >= 1; i--) {
+      insert(String.format("E%02d", i), "a", null, 100, T1);
+    }
+
+    assertThat(repository.selectIdBoundaries(4)).containsExactly("E04", "E07", "E09");
+    assertThat(repository.selectIdBoundaries(2)).containsExactly("E06");
+    assertThat(repository.selectIdBoundaries(20)).hasSize(9).startsWith("E02").endsWith("E10");
+    assertThat(repository.selectIdBoundaries(1)).isEmpty();
+  }
+
+  /** 範囲ごとに読み出した id（{@code boundaries} で区切った各範囲を順に読み、範囲ごとにまとめる）。 */
+  private List<List<String>> idsByRange(List<String> boundaries, RangeReader reader) {
+    List<List<String>> ranges = new ArrayList<>();
+    for (int i = 0; i <= boundaries.size(); i++) {
+      String from = i == 0 ? null : boundaries.get(i - 1);
+      String to = i == boundaries.size() ? null : boundaries.get(i);
+      ranges.add(reader.read(from, to, stream -> stream.map(e -> e.id).toList()));
+    }
+    return ranges;
+  }
+
+  private interface RangeReader {
+    List<String> read(String from, String to, Function<Stream<Estimate>, List<String>> mapper);
+  }
+
+  /** 顧客名の境界は 1 社を 2 つの範囲に分けず、顧客名未設定の見積は最後の範囲に顧客名・id 順で入る。 */
+  @Test
+  void selectCustomerBoundaries_keepsEachCustomerInOneRange() {
+    insert("E01", "a", "顧客A", 100, T1);
+    insert("E02", "a", "顧客A", 100, T1);
+    insert("E03", "a", "顧客A", 100, T1);
+    insert("E04", "a", "顧客A", 100, T1);
+    insert("E05", "a", "顧客B", 100, T1);
+    insert("E06", "a", "顧客C", 100, T1);
+    insert("E08", "a", "顧客D", 100, T1);
+    insert("E07", "a", "顧客D", 100, T1);
+    insert("E09", "a", null, 100, T1);
+    insert("E00", "a", null, 100, T1);
+
+    List<String> boundaries = repository.selectCustomerBoundaries(4);
+
+    assertThat(boundaries).containsExactly("顧客B", "顧客D");
+    assertThat(
+            idsByRange(
+                boundaries,
+                (from, to, mapper) -> repository.streamByCustomerRange(from, to, null, mapper)))
+        .containsExactly(
+            List.of("E01", "E02", "E03", "E04"),
+            List.of("E05", "E06"),
+            List.of("E07", "E08", "E00", "E09"));
+    assertThat(repository.selectCustomerBoundaries(1)).isEmpty();
+  }
+
+  /** id の範囲を順に読むと、全件を id 順に 1 回ずつ読む。 */
+  @Test
+  void streamByIdRange_readsEachRowOnce() {
+    for (int i = 1; i <= 5; i++) {
+      insert("E0" + i, "a", null, 100, T1);
+    }
+
+    assertThat(
+            idsByRange(
+                repository.selectIdBoundaries(2),
+                (from, to, mapper) -> repository.streamByIdRange(from, to, null, mapper)))
+        .containsExactly(List.of("E01", "E02", "E03"), List.of("E04", "E05"));
+  }
+
+  /** 更新した行は新しい変更番号になり、変更番号順（更新の順）に読める。上限の番号より後ろは読まない。 */
+  @Test
+  void selectChangedBetween_returnsRowsInChangeOrder() {
+    insert("E1", "a", null, 100, T1);
+    insert("E2", "b", null, 200, T1);
+    Estimate e1 = repository.selectById("E1");
+    e1.title = "更新";
+    repository.update(e1);
+    long settled = repository.settledChangeSeq();
+    insert("E3", "c", null, 300, T1);
+
+    assertThat(repository.selectChangedBetween(0, settled, 10))
+        .extracting(e -> e.id)
+        .containsExactly("E2", "E1");
+    long afterE2 = changeSeq("estimate", "E2");
+    assertThat(repository.selectChangedBetween(afterE2, settled, 10))
+        .extracting(e -> e.id)
+        .containsExactly("E1");
+    assertThat(repository.selectChangedBetween(0, settled, 1))
+        .extracting(e -> e.id)
+        .containsExactly("E2");
+  }
+
+  /** トランザクション中の書き込みにはコミット直前に番号を振るため、その間に確定した上限より必ず後ろになる。 */
+  @Test
+  void changeSeq_isAssignedAtCommit() {
+    insert("E1", "a", null, 100, T1);
+    long[] settledDuringTransaction = new long[1];
+
+    new TransactionTemplate(database.transactionManager())
+        .executeWithoutResult(
+            status -> {
+              Estimate e1 = repository.selectById("E1");
+              e1.title = "更新";
+              repository.update(e1);
+              // コミット前に他の同期が読んだ上限
+              settledDuringTransaction[0] = repository.settledChangeSeq();
+            });
+
+    assertThat(changeSeq("estimate", "E1")).isGreaterThan(settledDuringTransaction[0]);
+    assertThat(
+            repository.selectChangedBetween(
+                settledDuringTransaction[0], repository.settledChangeSeq(), 10))
+        .extracting(e -> e.id)
+        .containsExactly("E1");
+  }
+
+  /** ロールバックした書き込みは番号を振らず、差分にも現れない。 */
+  @Test
+  void changeSeq_rolledBack_isNotReturned() {
+    insert("E1", "a", null, 100, T1);
+    long before = repository.settledChangeSeq();
+
+    new TransactionTemplate(database.transactionManager())
+        .executeWithoutResult(
+            status -> {
+              Estimate e1 = repository.selectById("E1");
+              e1.title = "更新";
+              repository.update(e1);
+              status.setRollbackOnly();
+            });
+
+    assertThat(repository.selectChangedBetween(before, repository.settledChangeSeq(), 10))
+        .isEmpty();
+  }
+
+  /** 削除は削除の記録として変更番号順に読め、再度の削除では番号と日時が更新される。 */
+  @Test
+  void delete_recordsTombstoneWithChangeSeq() {
+    insert("E1", "a", null, 100, T1);
+    insert("E2", "b", null, 200, T1);
+    long before = repository.settledChangeSeq();
+
+    repository.delete("E2", null);
+    repository.delete("E1", null);
+    long first = changeSeq("estimate_tombstone", "E2");
+
+    assertThat(tombstonesAfter(before)).containsExactly("E2", "E1");
+
+    // 再登録してから再び削除
+    insert("E2", "b", null, 200, T1);
+    repository.delete("E2", null);
+
+    assertThat(changeSeq("estimate_tombstone", "E2")).isGreaterThan(first);
+    assertThat(tombstonesAfter(before)).containsExactly("E1", "E2");
+  }
+
+  /** 保持期間を過ぎた削除の記録だけを消す。 */
+  @Test
+  void purgeTombstones_deletesOnlyOlderRecords() {
+    database
+        .jdbc()
+        .update(
+            "INSERT INTO estimate_tombstone (id, deleted_at) VALUES (?, ?)",
+            "OLD",
+            Timestamp.valueOf(T1));
+    database
+        .jdbc()
+        .update(
+            "INSERT INTO estimate_tombstone (id, deleted_at) VALUES (?, ?)",
+            "NEW",
+            Timestamp.valueOf(T2));
+
+    assertThat(repository.purgeTombstones(T2)).isEqualTo(1);
+
+    assertThat(tombstonesAfter(0)).containsExactly("NEW");
+  }
+
+  private static EstimateItem item(int lineNo, String description, int quantity, int unitPrice) {
+    EstimateItem item = new EstimateItem();
+    item.lineNo = lineNo;
+    item.description = description;
+    item.quantity = quantity;
+    item.unitPrice = unitPrice;
+    return item;
+  }
+
+  private static EstimateItemChanges add(EstimateItem... items) {
+    return new EstimateItemChanges(List.of(items), null, null);
+  }
+
+  private Integer storedTotal(String id) {
+    return database
+        .jdbc()
+        .queryForObject("SELECT total_amount FROM estimate WHERE id = ?", Integer.class, id);
+  }
+
+  private List<String> itemDescriptions(String estimateId) {
+    return database
+        .jdbc()
+        .queryForList(
+            "SELECT description FROM estimate_item WHERE estimate_id = ? ORDER BY line_no",
+            String.class,
+            estimateId);
+  }
+
+  /** 明細の無い見積の合計金額は入力値のため、最初の明細は 0 を起点に数える。 */
+  @Test
+  void applyItemChanges_firstItems_startFromZero() {
+    insert("E1", "a", null, 999, T1);
+
+    Estimate updated =
+        repository.applyItemChanges("E1", 1L, add(item(1, "作業", 2, 100), item(2, "機材", 1, 50)));
+
+    assertThat(updated.totalAmount).isEqualTo(250);
+    assertThat(updated.version).isEqualTo(2);
+    assertThat(storedTotal("E1")).isEqualTo(250);
+    assertThat(itemDescriptions("E1")).containsExactly("作業", "機材");
+  }
+
+  /** 追加・更新・削除の金額の差分を合計金額に加える。 */
+  @Test
+  void applyItemChanges_addUpdateDelete_adjustsTotal() {
+    insert("E1", "a", null, null, T1);
+    EstimateItem work = item(1, "作業", 2, 100);
+    EstimateItem equipment = item(2, "機材", 1, 50);
+    repository.applyItemChanges("E1", null, add(work, equipment));
+
+    EstimateItem changedWork = item(1, "作業（増）", 3, 100);
+    changedWork.id = work.id;
+    EstimateItem removed = new EstimateItem();
+    removed.id = equipment.id;
+    Estimate updated =
+        repository.applyItemChanges(
+            "E1",
+            2L,
+            new EstimateItemChanges(
+                List.of(item(3, "交通費", 1, 1000)), List.of(changedWork), List.of(removed)));
+
+    assertThat(updated.totalAmount).isEqualTo(1300);
+    assertThat(updated.version).isEqualTo(3);
+    assertThat(storedTotal("E1")).isEqualTo(1300);
+    assertThat(itemDescriptions("E1")).containsExactly("作業（増）", "交通費");
+    assertThat(changedWork.version).isEqualTo(2);
+  }
+
+  /** 明細のバージョンが古ければ競合（412）とし、トランザクション全体を取り消す。 */
+  @Test
+  void applyItemChanges_staleItemVersion_conflictsAndRollsBack() {
+    insert("E1", "a", null, null, T1);
+    EstimateItem work = item(1, "作業", 2, 100);
+    repository.applyItemChanges("E1", null, add(work));
+
+    EstimateItem stale = item(1, "作業（古い版から）", 5, 100);
+    stale.id = work.id;
+    stale.version = work.version - 1;
+    EstimateItemChanges changes =
+        new EstimateItemChanges(List.of(item(2, "機材", 1, 50)), List.of(stale), null);
+    TransactionTemplate transaction = new TransactionTemplate(database.transactionManager());
+
+    assertThrows(
+        EstimateConflictException.class,
+        () ->
+            transaction.executeWithoutResult(
+                status -> repository.applyItemChanges("E1", 2L, changes)));
+
+    assertThat(storedTotal("E1")).isEqualTo(200);
+    assertThat(itemDescriptions("E1")).containsExactly("作業");
+  }
+
+  /** 明細の金額・合計金額が上限を超える場合は、明細を書き込む前に不正な指定とする。 */
+  @Test
+  void applyItemChanges_amountOverflow_isRejected() {
+    insert("E1", "a", null, null, T1);
+
+    assertThrows(
+        InvalidEstimateItemException.class,
+        () -> repository.applyItemChanges("E1", null, add(item(1, "作業", 100_000, 100_000))));
+
+    repository.applyItemChanges("E1", null, add(item(1, "作業", 2, 1_000_000_000)));
+    assertThrows(
+        InvalidEstimateItemException.class,
+        () -> repository.applyItemChanges("E1", null, add(item(2, "機材", 1, 1_000_000_000))));
+    assertThat(storedTotal("E1")).isEqualTo(2_000_000_000);
+    assertThat(itemDescriptions("E1")).containsExactly("作業");
+  }
+
+  /** 明細のある見積の合計金額は、見積の更新で入力値に上書きしない（明細の無い見積は上書きする）。 */
+  @Test
+  void update_itemizedEstimate_keepsTotal() {
+    insert("E1", "a", null, null, T1);
+    insert("E2", "b", null, 100, T1);
+    repository.applyItemChanges("E1", null, add(item(1, "作業", 2, 100)));
+
+    Estimate e1 = repository.selectById("E1");
+    e1.title = "更新1";
+    e1.totalAmount = 1;
+    repository.update(e1);
+    Estimate e2 = repository.selectById("E2");
+    e2.totalAmount = 300;
+    repository.update(e2);
+
+    assertThat(e1.totalAmount).isEqualTo(200);
+    assertThat(e1.version).isEqualTo(3);
+    assertThat(repository.selectById("E1").title).isEqualTo("更新1");
+    assertThat(storedTotal("E1")).isEqualTo(200);
+    assertThat(storedTotal("E2")).isEqualTo(300);
+  }
+
+  /** 明細のある見積のバージョンが異なる場合は、合計金額を残す分岐でも競合になる。 */
+  @Test
+  void update_itemizedEstimateWithStaleVersion_conflicts() {
+    insert("E1", "a", null, null, T1);
+    repository.applyItemChanges("E1", null, add(item(1, "作業", 2, 100)));
+
+    Estimate stale = repository.selectById("E1");
+    stale.version = 1L;
+
+    assertThrows(EstimateConflictException.class, () -> repository.update(stale));
+  }
+
+  /** まとめての更新・取り込みでも、明細のある見積の合計金額は上書きしない。 */
+  @Test
+  void updateAllAndUpsertAll_itemizedEstimate_keepTotal() {
+    insert("E1", "a", null, null, T1);
+    insert("E2", "b", null, 100, T1);
+    repository.applyItemChanges("E1", null, add(item(1, "作業", 2, 100)));
+
+    Estimate e1 = repository.selectById("E1");
+    e1.totalAmount = 1;
+    Estimate e2 = repository.selectById("E2");
+    e2.totalAmount = 300;
+    int[] counts = repository.updateAll(List.of(e1, e2));
+
+    assertThat(counts).containsExactly(1, 1);
+    assertThat(e1.totalAmount).isEqualTo(200);
+    assertThat(storedTotal("E1")).isEqualTo(200);
+    assertThat(storedTotal("E2")).isEqualTo(300);
+
+    Estimate imported = new Estimate();
+    imported.id = "E1";
+    imported.title = "取り込み";
+    imported.totalAmount = 5;
+    repository.upsertAll(List.of(imported));
+
+    assertThat(storedTotal("E1")).isEqualTo(200);
+    assertThat(repository.selectById("E1").title).isEqualTo("取り込み");
+  }
+}
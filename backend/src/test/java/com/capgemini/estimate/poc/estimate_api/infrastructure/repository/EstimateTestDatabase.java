@@ -0,0 +1,137 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.repository;
+
+import static org.mockito.Mockito.mock;
+
+import com.capgemini.estimate.poc.estimate_api.common.id.RandomUuidGenerator;
+import java.time.Duration;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.Naming;
+import org.seasar.doma.jdbc.criteria.QueryDsl;
+import org.seasar.doma.jdbc.dialect.Dialect;
+import org.seasar.doma.jdbc.dialect.H2Dialect;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+/**
+ * リポジトリのテスト用 DB（H2 インメモリ、Oracle 互換モード）。
+ *
+ * <p>インスタンスごとに別の DB を作り、{@code db/init/01-seed.sql} と同じ表を用意する。Oracle と同じく null を最大値として
+ * 並べる（{@code DEFAULT_NULL_ORDERING=HIGH}）。Doma の設定は本番の {@code DomaConfig} に合わせ、方言だけ H2 にする。
+ */
+public class EstimateTestDatabase implements Config {
+
+  private final DataSource dataSource;
+  private final DataSource actualDataSource;
+  private final Dialect dialect = new H2Dialect();
+
+  public EstimateTestDatabase() {
+    this.actualDataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:"
+                + UUID.randomUUID()
+                + ";MODE=Oracle;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+            "sa",
+            "");
+    this.dataSource = new TransactionAwareDataSourceProxy(actualDataSource);
+    createSchema();
+  }
+
+  private void createSchema() {
+    JdbcTemplate jdbc = jdbc();
+    jdbc.execute("CREATE SEQUENCE estimate_change_seq START WITH 1");
+    jdbc.execute(
+        """
+        CREATE TABLE estimate (
+          id            VARCHAR2(36)  PRIMARY KEY,
+          title         VARCHAR2(255) NOT NULL,
+          customer_name VARCHAR2(255),
+          total_amount  NUMBER,
+          updated_at    TIMESTAMP     DEFAULT SYSTIMESTAMP NOT NULL,
+          version       NUMBER(19)    DEFAULT 1 NOT NULL,
+          change_seq    NUMBER(19)    DEFAULT NEXT VALUE FOR estimate_change_seq NOT NULL
+        )""");
+    jdbc.execute(
+        """
+        CREATE TABLE estimate_tombstone (
+          id            VARCHAR2(36)  PRIMARY KEY,
+          deleted_at    TIMESTAMP     NOT NULL,
+          change_seq    NUMBER(19)    DEFAULT NEXT VALUE FOR estimate_change_seq NOT NULL
+        )""");
+    jdbc.execute(
+        """
+        CREATE TABLE estimate_item (
+          id            VARCHAR2(36)  PRIMARY KEY,
+          estimate_id   VARCHAR2(36)  NOT NULL REFERENCES estimate (id) ON DELETE CASCADE,
+          line_no       NUMBER(9)     NOT NULL,
+          description   VARCHAR2(255) NOT NULL,
+          quantity      NUMBER(9)     NOT NULL,
+          unit_price    NUMBER(10)    NOT NULL,
+          amount        NUMBER(10)    NOT NULL,
+          version       NUMBER(19)    DEFAULT 1 NOT NULL
+        )""");
+  }
+
+  @Override
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  @Override
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  @Override
+  public Naming getNaming() {
+    return Naming.SNAKE_UPPER_CASE;
+  }
+
+  public QueryDsl queryDsl() {
+    return new QueryDsl(this);
+  }
+
+  public JdbcTemplate jdbc() {
+    return new JdbcTemplate(dataSource);
+  }
+
+  public DataSourceTransactionManager transactionManager() {
+    return new DataSourceTransactionManager(actualDataSource);
+  }
+
+  /**
+   * データバージョン・件数キャッシュ・イベントはモックにしたリポジトリ（JDBC バッチは 2 行ずつ）。変更番号は猶予なしで、
+   * 呼び出し時点の番号をそのまま確定済みとして扱う。
+   */
+  public EstimateRepositoryImpl repository() {
+    return repository(queryDsl());
+  }
+
+  /** {@link #repository()} と同じ設定で、{@code queryDsl}（SQL の発行を確かめるスパイなど）を使うリポジトリ。 */
+  public EstimateRepositoryImpl repository(QueryDsl queryDsl) {
+    return new EstimateRepositoryImpl(
+        queryDsl,
+        this,
+        mock(EstimateDataVersion.class),
+        mock(EstimateCountCache.class),
+        new RandomUuidGenerator(),
+        mock(ApplicationEventPublisher.class),
+        new EstimateChangeSequence(this, Duration.ZERO),
+        2);
+  }
+
+  /** 見積を 1 行直接登録する。 */
+  public void insert(String id, String title, String customerName, Integer totalAmount) {
+    jdbc()
+        .update(
+            "INSERT INTO estimate (id, title, customer_name, total_amount) VALUES (?, ?, ?, ?)",
+            id,
+            title,
+            customerName,
+            totalAmount);
+  }
+}
@@ -0,0 +1,94 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateRepositoryImpl;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateTestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code EstimateSearchIndexStore} のテスト。
+ *
+ * <p>H2（{@link EstimateTestDatabase}）上の実リポジトリから差分を取り込む。詰め直しの割合は 0 にして、削除のあった
+ * 差分の反映のたびに索引を作り直す。
+ */
+class EstimateSearchIndexStoreTest {
+
+  private EstimateTestDatabase database;
+  private EstimateRepositoryImpl repository;
+  private EstimateSearchIndexStore store;
+
+  @BeforeEach
+  void setUp() {
+    database = new EstimateTestDatabase();
+    repository = spy(database.repository());
+    database.insert("E1", "サーバ見積", "顧客A", 100);
+    database.insert("E2", "ネットワーク見積", "顧客B", 200);
+    store = new EstimateSearchIndexStore(repository, new SimpleMeterRegistry(), 0.0);
+    store.refresh();
+  }
+
+  private List<String> search(String query) {
+    return store.search(query, 10).stream().map(hit -> hit.estimate().id).toList();
+  }
+
+  private static Estimate estimate(String id, String title) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = title;
+    e.version = 1L;
+    return e;
+  }
+
+  /** 他のレプリカでの削除と同数の登録（件数が変わらない）も差分として反映する。 */
+  @Test
+  void refresh_deleteAndInsertWithSameCount() {
+    repository.delete("E1", null);
+    database.insert("E3", "サーバ構築", "顧客C", 300);
+
+    store.refresh();
+
+    assertThat(search("サーバ")).containsExactly("E3");
+    assertThat(search("見積")).containsExactly("E2");
+  }
+
+  /** 差分の反映中（DB の読み出し中）にコミットされた書き込みは、詰め直した索引にも残る。 */
+  @Test
+  void refresh_writesDuringRefreshSurviveCompaction() {
+    repository.delete("E2", null);
+    doAnswer(
+            invocation -> {
+              // 差分を読んでいる間に、このレプリカで書き込みがコミットされた
+              store.onChanged(EstimateChangedEvent.created(List.of(estimate("E9", "サーバ追加"))));
+              return invocation.callRealMethod();
+            })
+        .when(repository)
+        .selectTombstonesChangedBetween(anyLong(), anyLong(), anyInt());
+
+    store.refresh();
+
+    assertThat(search("サーバ")).containsExactlyInAnyOrder("E1", "E9");
+    assertThat(search("ネットワーク")).isEmpty();
+  }
+
+  /** 詰め直した後の書き込みは、差し替えた新しい索引に反映される。 */
+  @Test
+  void onChanged_afterCompaction_updatesNewIndex() {
+    repository.delete("E2", null);
+    store.refresh();
+
+    store.onChanged(EstimateChangedEvent.created(List.of(estimate("E9", "サーバ追加"))));
+    store.onChanged(EstimateChangedEvent.deleted(List.of("E1")));
+
+    assertThat(search("サーバ")).containsExactly("E9");
+  }
+}
@@ -0,0 +1,83 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSearchHit;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** {@code EstimateSearchIndex} の単体テスト。 */
+class EstimateSearchIndexTest {
+
+  private EstimateSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new EstimateSearchIndex();
+    index.put(estimate("1", "サーバ見積書", "株式会社A"));
+    index.put(estimate("2", "ネットワーク構築", "サーバ販売株式会社"));
+    index.put(estimate("3", "保守契約（ｻｰﾊﾞ見積）", "株式会社B"));
+    index.put(estimate("4", "見積サーバ", "株式会社C"));
+  }
+
+  /** 幅・カナの違いを無視して部分一致し、タイトルの前方一致が最上位になる。 */
+  @Test
+  void search_matchesSubstringIgnoringWidthAndKana() {
+    assertThat(ids(index.search("サーバ見積", 10))).containsExactly("1", "3");
+  }
+
+  /** 2-gram がすべて含まれても、語として連続していなければ一致としない。 */
+  @Test
+  void search_excludesBigramFalsePositives() {
+    // 4 は「見積」「サーバ」を含むが「サーバ見積」は含まない
+    assertThat(ids(index.search("サーバ見積", 10))).doesNotContain("4");
+  }
+
+  /** タイトルでの一致を顧客名での一致より上位にする。空白区切りの語はすべて含むものを返す。 */
+  @Test
+  void search_ranksTitleAboveCustomerAndRequiresAllTerms() {
+    assertThat(ids(index.search("サーバ", 10)).get(3)).isEqualTo("2");
+    assertThat(ids(index.search("株式会社a サーバ", 10))).containsExactly("1");
+  }
+
+  /** 1 文字の検索語は、その文字を含む見積を返す。 */
+  @Test
+  void search_singleCharacter() {
+    assertThat(ids(index.search("Ｂ", 10))).containsExactly("3");
+  }
+
+  /** 更新・削除は検索結果に即時に反映され、詰め直しても結果は変わらない。 */
+  @Test
+  void putAndRemove_areReflected() {
+    index.put(estimate("1", "ストレージ見積書", "株式会社A"));
+    index.remove("3");
+
+    assertThat(ids(index.search("サーバ見積", 10))).isEmpty();
+    assertThat(index.deletedCount()).isEqualTo(2);
+
+    EstimateSearchIndex compacted = index.compact();
+    assertThat(compacted.deletedCount()).isZero();
+    assertThat(compacted.size()).isEqualTo(3);
+    assertThat(ids(compacted.search("ストレージ", 10))).containsExactly("1");
+  }
+
+  /** 件数の上限を超える場合は上位のみ返す。 */
+  @Test
+  void search_limitsResults() {
+    assertThat(index.search("株式会社", 2)).hasSize(2);
+  }
+
+  private static List<String> ids(List<EstimateSearchHit> hits) {
+    return hits.stream().map(hit -> hit.estimate().id).toList();
+  }
+
+  private static Estimate estimate(String id, String title, String customerName) {
+    Estimate estimate = new Estimate();
+    estimate.id = id;
+    estimate.title = title;
+    estimate.customerName = customerName;
+    return estimate;
+  }
+}
@@ -0,0 +1,211 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateFilter;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+/** {@code EstimateColumnarSnapshot} の単体テスト。 */
+class EstimateColumnarSnapshotTest {
+
+  private static Estimate estimate(String id, String title, String customer, Integer amount) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = title;
+    e.customerName = customer;
+    e.totalAmount = amount;
+    e.updatedAt = LocalDateTime.of(2025, 4, 1, 9, 30, 15, 123_456_000);
+    return e;
+  }
+
+  private static EstimateColumnarSnapshot snapshot(Estimate... rows) {
+    EstimateColumnarSnapshot.Builder builder = EstimateColumnarSnapshot.builder(1);
+    for (Estimate row : rows) {
+      builder.add(row);
+    }
+    return builder.build();
+  }
+
+  private static final String ID_1 = "550e8400-e29b-41d4-a716-446655440001";
+  private static final String ID_2 = "550e8400-e29b-41d4-a716-446655440002";
+  private static final String ID_3 = "550e8400-e29b-41d4-a716-446655440003";
+
+  /** 列ごとに格納した値（UUID 以外の id・null を含む）を元どおりに復元できる。 */
+  @Test
+  void toList_restoresAllColumns() {
+    EstimateColumnarSnapshot snapshot =
+        snapshot(
+            estimate(ID_1, "2025年度 サーバ見積", "株式会社A", 100000),
+            estimate("legacy-0001", "NW更改案件", null, null),
+            estimate(ID_2, "保守", "株式会社A", 0));
+
+    List<Estimate> rows = snapshot.toList();
+
+    assertThat(rows).hasSize(3);
+    assertThat(rows.get(0))
+        .usingRecursiveComparison()
+        .isEqualTo(estimate(ID_1, "2025年度 サーバ見積", "株式会社A", 100000));
+    assertThat(rows.get(1))
+        .usingRecursiveComparison()
+        .isEqualTo(estimate("legacy-0001", "NW更改案件", null, null));
+    assertThat(rows.get(2).customerName).isSameAs(rows.get(0).customerName);
+  }
+
+  /** merge は同じ id の行を置き換え、新しい id を追加し、削除した id を除き、元のインスタンスは変更しない。 */
+  @Test
+  void merge_replacesAppendsAndDeletesWithoutMutatingOriginal() {
+    EstimateColumnarSnapshot original =
+        snapshot(
+            estimate(ID_1, "a", "A", 1),
+            estimate(ID_2, "b", "B", 2),
+            estimate("legacy", "x", null, 0));
+
+    EstimateColumnarSnapshot merged =
+        original.merge(
+            List.of(estimate(ID_2, "b2", "B", 20), estimate(ID_3, "c", "C", 3)), List.of("legacy"));
+
+    assertThat(merged.toList()).extracting(e -> e.title).containsExactlyInAnyOrder("a", "b2", "c");
+    assertThat(original.toList()).extracting(e -> e.title).containsExactly("a", "b", "x");
+  }
+
+  /** 削除と同数の登録があっても（件数が変わらなくても）削除した行は残らない。 */
+  @Test
+  void merge_deleteAndInsertSameCount() {
+    EstimateColumnarSnapshot original = snapshot(estimate(ID_1, "a", "A", 1));
+
+    EstimateColumnarSnapshot merged =
+        original.merge(List.of(estimate(ID_2, "b", "B", 2)), List.of(ID_1));
+
+    assertThat(merged.size()).isEqualTo(1);
+    assertThat(merged.toList()).extracting(e -> e.id).containsExactly(ID_2);
+  }
+
+  /**
+   * ソート索引によるページ送りが、全行を並べ替えた結果と一致する（null・同値・UUID 以外の id を含む）。merge で引き継いだ
+   * 索引でも同じ。
+   */
+  @Test
+  void select_sortIndexMatchesFullSortBeforeAndAfterMerge() {
+    Random random = new Random(42);
+    List<Estimate> rows = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      rows.add(randomEstimate(random, i));
+    }
+    EstimateColumnarSnapshot snapshot = snapshot(rows.toArray(Estimate[]::new));
+    snapshot.buildSortIndexes();
+    assertWalksMatch(snapshot, rows);
+
+    List<Estimate> saved = new ArrayList<>();
+    List<String> deleted = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Estimate replaced = randomEstimate(random, i * 3);
+      replaced.id = rows.get(i * 3).id;
+      saved.add(replaced);
+      deleted.add(rows.get(i * 3 + 1).id);
+    }
+    for (int i = 60; i < 70; i++) {
+      saved.add(randomEstimate(random, i));
+    }
+    EstimateColumnarSnapshot merged = snapshot.merge(saved, deleted);
+
+    Map<String, Estimate> expected = new HashMap<>();
+    rows.forEach(e -> expected.put(e.id, e));
+    deleted.forEach(expected::remove);
+    saved.forEach(e -> expected.put(e.id, e));
+    assertWalksMatch(merged, List.copyOf(expected.values()));
+  }
+
+  private static Estimate randomEstimate(Random random, int i) {
+    String id =
+        i % 7 == 0
+            ? String.format("legacy-%04d", i)
+            : new UUID(random.nextLong(), random.nextLong()).toString();
+    Estimate e =
+        estimate(
+            id,
+            random.nextInt(5) == 0 ? null : "見積" + random.nextInt(4),
+            random.nextInt(4) == 0 ? null : "顧客" + random.nextInt(3),
+            random.nextInt(4) == 0 ? null : random.nextInt(3) * 100);
+    e.updatedAt =
+        random.nextInt(5) == 0 ? null : LocalDateTime.of(2025, 4, 1 + random.nextInt(3), 9, 0);
+    return e;
+  }
+
+  private static void assertWalksMatch(EstimateColumnarSnapshot snapshot, List<Estimate> rows) {
+    for (EstimateSortKey sort : EstimateSortKey.values()) {
+      for (boolean descending : new boolean[] {false, true}) {
+        List<String> expected =
+            rows.stream().sorted(expectedOrder(sort, descending)).map(e -> e.id).toList();
+        for (int limit : new int[] {1, 7, 100}) {
+          List<String> walked = new ArrayList<>();
+          Estimate after = null;
+          while (true) {
+            List<Estimate> page =
+                snapshot.select(EstimateFilter.NONE, sort, descending, after, limit);
+            page.forEach(e -> walked.add(e.id));
+            if (page.size() < limit) {
+              break;
+            }
+            after = page.get(page.size() - 1);
+          }
+          assertThat(walked)
+              .as("sort=%s desc=%s limit=%d", sort, descending, limit)
+              .containsExactlyElementsOf(expected);
+        }
+      }
+    }
+  }
+
+  /** Oracle の並び（null は最大値）に id を第 2 キーとして加えた期待順序。 */
+  private static Comparator<Estimate> expectedOrder(EstimateSortKey sort, boolean descending) {
+    Comparator<Estimate> order =
+        switch (sort) {
+          case ID -> Comparator.comparing(e -> e.id);
+          case TITLE -> nullsLast(e -> e.title);
+          case CUSTOMER_NAME -> nullsLast(e -> e.customerName);
+          case TOTAL_AMOUNT -> nullsLast(e -> e.totalAmount);
+          case UPDATED_AT -> nullsLast(e -> e.updatedAt);
+        };
+    order = order.thenComparing(e -> e.id);
+    return descending ? order.reversed() : order;
+  }
+
+  private static <T extends Comparable<? super T>> Comparator<Estimate> nullsLast(
+      Function<Estimate, T> key) {
+    return Comparator.comparing(key, Comparator.nullsLast(Comparator.<T>naturalOrder()));
+  }
+
+  /** 絞り込み・ソート・キーセットの結果が Oracle と同じ並び（null は昇順で末尾）になる。 */
+  @Test
+  void select_filtersSortsAndPagesLikeOracle() {
+    EstimateColumnarSnapshot snapshot =
+        snapshot(
+            estimate(ID_1, "サーバ見積", "株式会社A", 300),
+            estimate(ID_2, "NW見積", "株式会社AB", null),
+            estimate(ID_3, "保守", "株式会社B", 100));
+    EstimateFilter filter = new EstimateFilter("株式会社A", null, null, null);
+
+    List<Estimate> firstPage =
+        snapshot.select(filter, EstimateSortKey.TOTAL_AMOUNT, false, null, 1);
+    List<Estimate> secondPage =
+        snapshot.select(filter, EstimateSortKey.TOTAL_AMOUNT, false, firstPage.get(0), 10);
+
+    assertThat(firstPage).extracting(e -> e.id).containsExactly(ID_1);
+    assertThat(secondPage).extracting(e -> e.id).containsExactly(ID_2);
+    assertThat(snapshot.select(EstimateFilter.NONE, EstimateSortKey.TOTAL_AMOUNT, true, null, 10))
+        .extracting(e -> e.id)
+        .containsExactly(ID_2, ID_1, ID_3);
+    assertThat(snapshot.count(new EstimateFilter(null, "見積", 200, null))).isEqualTo(1);
+  }
+}
@@ -0,0 +1,71 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateRepositoryImpl;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateTestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** {@code EstimateSnapshotStore} のテスト。H2（{@link EstimateTestDatabase}）上の実リポジトリから差分を取り込む。 */
+class EstimateSnapshotStoreTest {
+
+  private EstimateTestDatabase database;
+  private EstimateRepositoryImpl repository;
+  private EstimateSnapshotStore store;
+
+  @BeforeEach
+  void setUp() {
+    database = new EstimateTestDatabase();
+    repository = database.repository();
+    database.insert("E1", "見積1", "顧客A", 100);
+    database.insert("E2", "見積2", "顧客B", 200);
+    store = new EstimateSnapshotStore(repository, new SimpleMeterRegistry());
+    store.refresh();
+  }
+
+  /** 削除と同数の登録で件数が変わらない場合も、削除した行を除き登録した行を加える。 */
+  @Test
+  void refresh_deleteAndInsertWithSameCount() {
+    repository.delete("E1", null);
+    database.insert("E3", "見積3", "顧客C", 300);
+
+    store.refresh();
+
+    assertThat(store.current().toList())
+        .extracting(e -> e.id)
+        .containsExactlyInAnyOrder("E2", "E3");
+  }
+
+  /** 更新は行を置き換え、変更の無い間はスナップショットを作り直さない。 */
+  @Test
+  void refresh_updatesChangedRowsOnly() {
+    Estimate e2 = repository.selectById("E2");
+    e2.title = "更新2";
+    repository.update(e2);
+
+    store.refresh();
+    EstimateColumnarSnapshot refreshed = store.current();
+    store.refresh();
+
+    assertThat(store.current()).isSameAs(refreshed);
+    assertThat(refreshed.toList())
+        .extracting(e -> e.title)
+        .containsExactlyInAnyOrder("見積1", "更新2");
+  }
+
+  /** 削除後に同じ id で再登録された行は残る。 */
+  @Test
+  void refresh_deleteThenRecreate_keepsRow() {
+    repository.delete("E1", null);
+    database.insert("E1", "再登録", null, 0);
+
+    store.refresh();
+
+    assertThat(store.current().toList())
+        .extracting(e -> e.title)
+        .containsExactlyInAnyOrder("再登録", "見積2");
+  }
+}
@@ -0,0 +1,179 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.common.redis.RedisLock;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateStats;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.exception.StatsNotReadyException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * {@code EstimateStatsStore} のテスト。
+ *
+ * <p>集計の Lua スクリプトを実行するため、Redis はコンテナで起動する。DB はモックにし、全件の読み込みは {@link #rows} を返す。
+ * 差分の適用の失敗は、Redis のスクリプト実行を 1 回だけ失敗させて再現する。Docker が無い環境ではスキップする。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EstimateStatsStoreTest {
+
+  @Container
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  private LettuceConnectionFactory connectionFactory;
+  private StringRedisTemplate redisTemplate;
+  private EstimateRepository repository;
+  private EstimateStatsStore store;
+  private final List<Estimate> rows = new ArrayList<>();
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    redisTemplate = spy(new StringRedisTemplate(connectionFactory));
+    redisTemplate.afterPropertiesSet();
+    redisTemplate.execute(
+        (RedisCallback<Object>)
+            connection -> {
+              connection.serverCommands().flushAll();
+              return null;
+            });
+
+    repository = mock(EstimateRepository.class);
+    when(repository.streamAll(any()))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<Function<Stream<Estimate>, Object>>getArgument(0)
+                    .apply(List.copyOf(rows).stream()));
+    store =
+        new EstimateStatsStore(
+            redisTemplate,
+            repository,
+            new RedisLock(redisTemplate),
+            Duration.ofMinutes(10),
+            Duration.ofSeconds(10));
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionFactory.destroy();
+  }
+
+  private static Estimate estimate(String id, String customerName, Integer totalAmount) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = "見積" + id;
+    e.customerName = customerName;
+    e.totalAmount = totalAmount;
+    return e;
+  }
+
+  /** 次のスクリプト実行（差分の適用）を 1 回だけ失敗させる。 */
+  private void failNextScript() {
+    doThrow(new RedisSystemException("Redis が一時的に応答しません", null))
+        .doCallRealMethod()
+        .when(redisTemplate)
+        .execute(any(RedisScript.class), anyList(), any(Object[].class));
+  }
+
+  /** 初回の再集計が終わるまでは 503 とし、参照の中では DB を全件読まない。 */
+  @Test
+  void get_beforeFirstReconcile_isNotReadyWithoutReadingDb() {
+    rows.add(estimate("E1", "顧客A", 100));
+
+    StatsNotReadyException e = assertThrows(StatsNotReadyException.class, () -> store.get(10));
+
+    assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(10));
+    verify(repository, never()).streamAll(any());
+  }
+
+  /** 定期処理が初回の再集計を行い、以降の書き込みは差分で反映する。 */
+  @Test
+  void scheduledReconcile_thenDeltas() {
+    rows.add(estimate("E1", "顧客A", 100));
+    rows.add(estimate("E2", "顧客B", 300));
+    store.scheduledReconcile();
+
+    store.onChanged(EstimateChangedEvent.created(List.of(estimate("E3", "顧客A", 50))));
+    store.onChanged(EstimateChangedEvent.deleted(List.of("E2")));
+    EstimateStats stats = store.get(10);
+
+    assertThat(stats.count()).isEqualTo(2);
+    assertThat(stats.totalAmount()).isEqualTo(150);
+    assertThat(stats.minTotalAmount()).isEqualTo(50);
+    assertThat(stats.maxTotalAmount()).isEqualTo(100);
+    assertThat(stats.topCustomers())
+        .extracting(EstimateStats.CustomerTotal::customerName)
+        .containsExactly("顧客A");
+    assertThat(stats.reconciledAt()).isNotNull();
+    verify(repository, times(1)).streamAll(any());
+  }
+
+  /** 差分の適用に失敗しても参照は直前の値を返し、次の定期確認で（間隔の途中でも）再集計する。 */
+  @Test
+  void onChangedFailure_keepsLastValuesUntilScheduledReconcile() {
+    rows.add(estimate("E1", "顧客A", 100));
+    store.scheduledReconcile();
+
+    rows.add(estimate("E2", "顧客B", 300));
+    failNextScript();
+    store.onChanged(EstimateChangedEvent.created(List.of(estimate("E2", "顧客B", 300))));
+
+    EstimateStats stale = store.get(10);
+    assertThat(stale.count()).isEqualTo(1);
+    assertThat(stale.reconciledAt()).isNotNull();
+    verify(repository, times(1)).streamAll(any());
+
+    store.scheduledReconcile();
+
+    EstimateStats reconciled = store.get(10);
+    assertThat(reconciled.count()).isEqualTo(2);
+    assertThat(reconciled.totalAmount()).isEqualTo(400);
+    verify(repository, times(2)).streamAll(any());
+  }
+
+  /** 再集計から間もなく、差分の適用にも失敗していなければ、定期確認は DB を読まない。 */
+  @Test
+  void scheduledReconcile_recentAndNotStale_skips() {
+    rows.add(estimate("E1", "顧客A", 100));
+    store.scheduledReconcile();
+
+    store.scheduledReconcile();
+
+    verify(repository, times(1)).streamAll(any());
+  }
+}
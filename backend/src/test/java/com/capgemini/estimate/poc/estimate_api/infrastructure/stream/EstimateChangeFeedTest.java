@@ -0,0 +1,253 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.capgemini.estimate.poc.estimate_api.config.TestObjectMapper;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * {@code EstimateChangeFeed} の単体テスト。
+ *
+ * <p>Redis はモックにし、Pub/Sub の受信は購読コンテナに登録されたリスナーを直接呼んで再現する。接続は送信したイベント id を
+ * 記録する {@link SseEmitter} に差し替え、遅いクライアントは送信をラッチで止めて再現する（送信スレッド 2 本、送信待ちの上限 5 件）。
+ */
+class EstimateChangeFeedTest {
+
+  private static final Pattern EVENT_ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+  private static final Pattern EVENT_DATA = Pattern.compile("^data:(.*)$", Pattern.MULTILINE);
+
+  private final ObjectMapper objectMapper = TestObjectMapper.create();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final Queue<RecordingEmitter> emitters = new ArrayDeque<>();
+  private EstimateChangeFeed feed;
+  private MessageListener listener;
+
+  @BeforeEach
+  void setUp() {
+    RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    feed =
+        new EstimateChangeFeed(
+            mock(StringRedisTemplate.class),
+            objectMapper,
+            listenerContainer,
+            meterRegistry,
+            Duration.ofMinutes(30),
+            Duration.ofSeconds(3),
+            1000,
+            2,
+            5) {
+          @Override
+          SseEmitter newEmitter() {
+            return emitters.remove();
+          }
+        };
+    ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass(MessageListener.class);
+    verify(listenerContainer).addMessageListener(captor.capture(), any(Topic.class));
+    listener = captor.getValue();
+  }
+
+  @AfterEach
+  void tearDown() {
+    feed.shutdown();
+  }
+
+  private RecordingEmitter subscribe(RecordingEmitter emitter, Long lastEventId) {
+    emitters.add(emitter);
+    feed.subscribe(lastEventId);
+    return emitter;
+  }
+
+  /** 連番 {@code seq} の削除 1 件を Pub/Sub から受信する。 */
+  private void receive(long seq) throws IOException {
+    receive(seq, EstimateChangedEvent.deleted(List.of("E" + seq)));
+  }
+
+  /** 連番 {@code seq} から始まる変更を Pub/Sub から受信する。 */
+  private void receive(long seq, EstimateChangedEvent event) throws IOException {
+    String body = seq + "\n" + objectMapper.writeValueAsString(event);
+    listener.onMessage(
+        new DefaultMessage(
+            "estimate:changes".getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8)),
+        null);
+  }
+
+  private double connections() {
+    return meterRegistry.get("estimate.stream.connections").gauge().value();
+  }
+
+  /** 送信に詰まった接続があっても、他の接続には遅れずに届く（詰まった接続には解消後に順に届く）。 */
+  @Test
+  void slowSubscriber_doesNotDelayOthers() throws IOException {
+    RecordingEmitter slow = subscribe(RecordingEmitter.blocked(), null);
+    RecordingEmitter fast = subscribe(new RecordingEmitter(null), null);
+
+    receive(1);
+    receive(2);
+    receive(3);
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> fast.ids.size() == 3);
+    assertThat(fast.ids).containsExactly(1L, 2L, 3L);
+    assertThat(slow.ids).isEmpty();
+
+    slow.release.countDown();
+    await().atMost(Duration.ofSeconds(5)).until(() -> slow.ids.size() == 3);
+    assertThat(slow.ids).containsExactly(1L, 2L, 3L);
+  }
+
+  /** 送信待ちが上限を超えた接続は切断し、他の接続には全件届く。 */
+  @Test
+  void pendingOverflow_disconnectsSlowSubscriber() throws IOException {
+    RecordingEmitter slow = subscribe(RecordingEmitter.blocked(), null);
+    RecordingEmitter fast = subscribe(new RecordingEmitter(null), null);
+
+    for (long seq = 1; seq <= 10; seq++) {
+      receive(seq);
+    }
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> fast.ids.size() == 10);
+    await().atMost(Duration.ofSeconds(5)).until(() -> connections() == 1);
+    assertThat(meterRegistry.get("estimate.stream.overflows").counter().count()).isEqualTo(1);
+
+    slow.release.countDown();
+    await().atMost(Duration.ofSeconds(5)).until(() -> slow.completed);
+    assertThat(slow.ids).isEmpty();
+  }
+
+  /** 再接続時は Last-Event-ID より後をバッファから順に再送し、続けて新着を送る（重複なし）。 */
+  @Test
+  void subscribe_withLastEventId_replaysThenContinues() throws IOException {
+    // 受信はリスナーとは別のスレッドで処理するため、先に繋いだ接続に届くまで（バッファに積まれるまで）待つ
+    RecordingEmitter first = subscribe(new RecordingEmitter(null), null);
+    receive(1);
+    receive(2);
+    receive(3);
+    await().atMost(Duration.ofSeconds(5)).until(() -> first.ids.size() == 3);
+
+    RecordingEmitter emitter = subscribe(new RecordingEmitter(null), 1L);
+    receive(4);
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> emitter.ids.size() == 3);
+    assertThat(emitter.ids).containsExactly(2L, 3L, 4L);
+  }
+
+  /** 送信に失敗した接続は、ハートビートで購読から外す。 */
+  @Test
+  void heartbeat_removesBrokenSubscriber() {
+    RecordingEmitter broken = new RecordingEmitter(null);
+    subscribe(broken, null);
+    subscribe(new RecordingEmitter(null), null);
+    broken.broken = true;
+
+    feed.heartbeat();
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> connections() == 1);
+  }
+
+  /** 登録・更新の通知は {@code fields=}（{@code @JsonFilter}）に関係なく見積の全項目を送る。 */
+  @Test
+  void created_sendsAllProperties() throws IOException {
+    RecordingEmitter emitter = subscribe(new RecordingEmitter(null), null);
+    Estimate estimate = new Estimate();
+    estimate.id = "E1";
+    estimate.title = "見積1";
+    estimate.customerName = "顧客A";
+    estimate.totalAmount = 100;
+    estimate.updatedAt = LocalDateTime.of(2025, 4, 1, 9, 0);
+    estimate.version = 1L;
+
+    receive(1, EstimateChangedEvent.created(List.of(estimate)));
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> emitter.data.size() == 1);
+    List<String> names = new ArrayList<>();
+    objectMapper.readTree(emitter.data.get(0)).fieldNames().forEachRemaining(names::add);
+    assertThat(names)
+        .containsExactlyInAnyOrder(
+            "id", "title", "customerName", "totalAmount", "updatedAt", "version");
+  }
+
+  /** 送信したイベント id とデータを記録する接続。{@code release} があれば、最初の送信をその解除まで止める。 */
+  private static final class RecordingEmitter extends SseEmitter {
+    final List<Long> ids = new CopyOnWriteArrayList<>();
+    final List<String> data = new CopyOnWriteArrayList<>();
+    final CountDownLatch release;
+    volatile boolean broken;
+    volatile boolean completed;
+
+    RecordingEmitter(CountDownLatch release) {
+      this.release = release;
+    }
+
+    static RecordingEmitter blocked() {
+      return new RecordingEmitter(new CountDownLatch(1));
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      try {
+        if (release != null && !release.await(10, TimeUnit.SECONDS)) {
+          throw new IOException("送信がタイムアウトしました");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+      if (broken) {
+        throw new IOException("切断されています");
+      }
+      String text =
+          builder.build().stream()
+              .map(data -> data.getData().toString())
+              .collect(Collectors.joining());
+      Matcher matcher = EVENT_ID.matcher(text);
+      if (matcher.find()) {
+        ids.add(Long.parseLong(matcher.group(1)));
+      }
+      Matcher dataMatcher = EVENT_DATA.matcher(text);
+      if (dataMatcher.find()) {
+        data.add(dataMatcher.group(1));
+      }
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+
+    @Override
+    public void completeWithError(Throwable ex) {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.capgemini.estimate.poc.estimate_api.infrastructure.upload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSession;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * {@code UploadSessionStore} のテスト。
+ *
+ * <p>Redis はコンテナで起動し、書き込んだセッションを読み戻して確認する。Docker が無い環境ではスキップする。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UploadSessionStoreTest {
+
+  @Container
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  private static final Duration SESSION_TTL = Duration.ofHours(1);
+
+  private LettuceConnectionFactory connectionFactory;
+  private StringRedisTemplate redisTemplate;
+  private UploadSessionStore store;
+
+  @BeforeEach
+  void setUp() {
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    redisTemplate = new StringRedisTemplate(connectionFactory);
+    redisTemplate.afterPropertiesSet();
+    redisTemplate.execute(
+        (RedisCallback<Object>)
+            connection -> {
+              connection.serverCommands().flushAll();
+              return null;
+            });
+    store = new UploadSessionStore(redisTemplate, SESSION_TTL);
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionFactory.destroy();
+  }
+
+  private static UploadSession session(String id, UploadSession.Mode mode, String uploadId) {
+    return new UploadSession(
+        id,
+        "alice",
+        "uploads/" + id + "/estimates.csv",
+        mode == UploadSession.Mode.SINGLE ? null : "text/csv",
+        12_345L,
+        mode,
+        uploadId,
+        5_242_880L,
+        mode == UploadSession.Mode.SINGLE ? 1 : 12,
+        new TreeMap<>(),
+        UploadSession.Status.UPLOADING,
+        Instant.now().truncatedTo(ChronoUnit.MILLIS));
+  }
+
+  /** 登録したセッションをそのまま読み戻せ、本体には TTL が付く。 */
+  @Test
+  void create_find_roundTrips() {
+    UploadSession session = session("S1", UploadSession.Mode.MULTIPART, "upload-1");
+
+    store.create(session);
+
+    assertThat(store.find("S1")).isEqualTo(session);
+    assertThat(redisTemplate.getExpire("upload:session:S1")).isPositive();
+  }
+
+  /** null の項目（単一 PUT の Content-Type・アップロード ID）は null のまま読み戻せる。 */
+  @Test
+  void create_withoutOptionalFields_roundTrips() {
+    UploadSession session = session("S1", UploadSession.Mode.SINGLE, null);
+
+    store.create(session);
+
+    assertThat(store.find("S1")).isEqualTo(session);
+  }
+
+  /** パートはパート番号の数値順に並び、同じパートの再登録は上書きする。 */
+  @Test
+  void putPart_ordersByPartNumberAndOverwrites() {
+    store.create(session("S1", UploadSession.Mode.MULTIPART, "upload-1"));
+
+    store.putPart("S1", 10, "\"e10\"");
+    store.putPart("S1", 2, "\"old\"");
+    store.putPart("S1", 2, "\"e2\"");
+
+    UploadSession found = store.find("S1");
+    assertThat(found.parts()).containsExactly(entry(2, "\"e2\""), entry(10, "\"e10\""));
+    assertThat(redisTemplate.getExpire("upload:session:S1:parts")).isPositive();
+  }
+
+  /** 終了時は状態を更新し、パートの一覧を削除する。 */
+  @Test
+  void finish_updatesStatusAndDropsParts() {
+    store.create(session("S1", UploadSession.Mode.MULTIPART, "upload-1"));
+    store.putPart("S1", 1, "\"e1\"");
+
+    store.finish("S1", UploadSession.Status.ABORTED);
+
+    UploadSession found = store.find("S1");
+    assertThat(found.status()).isEqualTo(UploadSession.Status.ABORTED);
+    assertThat(found.parts()).isEmpty();
+    assertThat(redisTemplate.hasKey("upload:session:S1:parts")).isFalse();
+  }
+
+  /** 存在しない（期限切れを含む）セッションは null。 */
+  @Test
+  void find_unknownSession_returnsNull() {
+    assertThat(store.find("missing")).isNull();
+  }
+}
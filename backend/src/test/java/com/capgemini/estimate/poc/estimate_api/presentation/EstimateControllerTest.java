@@ -0,0 +1,173 @@
+package com.capgemini.estimate.poc.estimate_api.presentation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.capgemini.estimate.poc.estimate_api.common.web.FileRangeResponder;
+import com.capgemini.estimate.poc.estimate_api.config.TestObjectMapper;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateField;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateMultiGetResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimatePage;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateSortKey;
+import com.capgemini.estimate.poc.estimate_api.exception.GlobalExceptionHandler;
+import com.capgemini.estimate.poc.estimate_api.usecase.DownloadEstimateExcelUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.DownloadPartitionedEstimateExcelUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateBatchUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateChangesUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateDelimitedExportUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateImportUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateParquetExportUseCase;
+import com.capgemini.estimate.poc.estimate_api.usecase.EstimateUseCase;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * {@code EstimateController} の単体テスト。
+ *
+ * <p>ユースケースはモックにし、アプリと同じ設定の ObjectMapper で書き出したレスポンスの JSON を確認する。
+ */
+class EstimateControllerTest {
+
+  private final ObjectMapper objectMapper = TestObjectMapper.create();
+  private EstimateUseCase estimateUseCase;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    estimateUseCase = mock(EstimateUseCase.class);
+    EstimateController controller =
+        new EstimateController(
+            mock(DownloadEstimateExcelUseCase.class),
+            mock(DownloadPartitionedEstimateExcelUseCase.class),
+            mock(EstimateDelimitedExportUseCase.class),
+            mock(EstimateParquetExportUseCase.class),
+            mock(EstimateImportUseCase.class),
+            estimateUseCase,
+            mock(EstimateBatchUseCase.class),
+            mock(EstimateChangesUseCase.class),
+            mock(FileRangeResponder.class));
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .build();
+  }
+
+  private static Estimate estimate(String id) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = "見積 " + id;
+    e.customerName = "顧客A";
+    e.totalAmount = 100;
+    e.updatedAt = LocalDateTime.of(2025, 4, 1, 9, 0);
+    e.version = 1L;
+    return e;
+  }
+
+  private JsonNode getJson(String uri) throws Exception {
+    String body =
+        mockMvc
+            .perform(get(uri))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(body);
+  }
+
+  private static List<String> fieldNames(JsonNode node) {
+    List<String> names = new ArrayList<>();
+    node.fieldNames().forEachRemaining(names::add);
+    return names;
+  }
+
+  /** fields= を指定したページは、items の見積だけを指定した項目に絞り、ページの next / total はそのまま返す。 */
+  @Test
+  void getEstimatePage_withFields_filtersItemsButNotEnvelope() throws Exception {
+    when(estimateUseCase.getEstimatePage(
+            any(),
+            eq(EstimateSortKey.ID),
+            anyBoolean(),
+            any(),
+            anyInt(),
+            eq(true),
+            eq(EnumSet.of(EstimateField.ID, EstimateField.TITLE))))
+        .thenReturn(new EstimatePage(List.of(estimate("E1"), estimate("E2")), "next-cursor", 5L));
+
+    JsonNode page = getJson("/api/estimates?limit=2&withTotal=true&fields=id,title");
+
+    assertThat(fieldNames(page)).containsExactlyInAnyOrder("items", "next", "total");
+    assertThat(page.get("next").asText()).isEqualTo("next-cursor");
+    assertThat(page.get("total").asLong()).isEqualTo(5);
+    assertThat(page.get("items")).hasSize(2);
+    for (JsonNode item : page.get("items")) {
+      assertThat(fieldNames(item)).containsExactlyInAnyOrder("id", "title");
+    }
+  }
+
+  /** fields= を指定しなければ全項目を返す。 */
+  @Test
+  void getEstimatePage_withoutFields_writesAllProperties() throws Exception {
+    when(estimateUseCase.getEstimatePage(
+            any(), any(), anyBoolean(), any(), anyInt(), anyBoolean(), isNull()))
+        .thenReturn(new EstimatePage(List.of(estimate("E1")), null, null));
+
+    JsonNode page = getJson("/api/estimates?limit=1");
+
+    assertThat(fieldNames(page.get("items").get(0)))
+        .containsExactlyInAnyOrder(
+            "id", "title", "customerName", "totalAmount", "updatedAt", "version");
+  }
+
+  /** 1 件取得の fields= は出力だけを絞り、続けて行う他のリクエストの出力には影響しない。 */
+  @Test
+  void getEstimate_withFields_filtersOnlyThatResponse() throws Exception {
+    when(estimateUseCase.getEstimate("E1")).thenReturn(estimate("E1"));
+
+    assertThat(fieldNames(getJson("/api/estimates/E1?fields=version")))
+        .containsExactly("version");
+    assertThat(fieldNames(getJson("/api/estimates/E1")))
+        .containsExactlyInAnyOrder(
+            "id", "title", "customerName", "totalAmount", "updatedAt", "version");
+  }
+
+  /** ids= だけを指定すれば id 指定の一括取得になる。 */
+  @Test
+  void getEstimatesByIds_withoutLimit_returnsRequestedEstimates() throws Exception {
+    when(estimateUseCase.getEstimates(List.of("E2", "X1")))
+        .thenReturn(new EstimateMultiGetResult(List.of(estimate("E2")), List.of("X1")));
+
+    JsonNode result = getJson("/api/estimates?ids=E2,X1&fields=id");
+
+    assertThat(result.get("items")).hasSize(1);
+    assertThat(fieldNames(result.get("items").get(0))).containsExactly("id");
+    assertThat(result.get("missing").get(0).asText()).isEqualTo("X1");
+  }
+
+  /** ids= と limit= の両方を指定したリクエストは、どちらとしても処理せず 400 とする。 */
+  @Test
+  void getEstimates_idsWithLimit_isRejected() throws Exception {
+    mockMvc.perform(get("/api/estimates?ids=E1&limit=10")).andExpect(status().isBadRequest());
+
+    verifyNoInteractions(estimateUseCase);
+  }
+}
@@ -0,0 +1,91 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.datasource.ReadWriteRoutingDataSource;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportArtifactCache;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code DownloadEstimateExcelUseCase} の単体テスト。
+ *
+ * <p>リポジトリと生成物のキャッシュはモックにし、キャッシュは渡された生成処理をその場で呼ぶ。読み出しの時点で
+ * スレッドが primary に固定されていたかを記録して、読み出し先を確認する。
+ */
+class DownloadEstimateExcelUseCaseTest {
+
+  private EstimateRepository repository;
+  private DownloadEstimateExcelUseCase useCase;
+  private final List<Boolean> pinnedWhileReading = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(EstimateRepository.class);
+    when(repository.dataVersion()).thenReturn(7L);
+    when(repository.streamAll(any()))
+        .thenAnswer(
+            invocation -> {
+              pinnedWhileReading.add(ReadWriteRoutingDataSource.isPinnedToPrimary());
+              Function<Stream<Estimate>, ?> mapper = invocation.getArgument(0);
+              return mapper.apply(Stream.empty());
+            });
+    ExportArtifactCache artifactCache = mock(ExportArtifactCache.class);
+    when(artifactCache.getOrCreate(anyString(), anyLong(), anyString(), any()))
+        .thenAnswer(
+            invocation -> {
+              ExportArtifactCache.Renderer renderer = invocation.getArgument(3);
+              renderer.render(new ByteArrayOutputStream());
+              return Path.of("estimates-v7.xlsx");
+            });
+    useCase = new DownloadEstimateExcelUseCase(repository, artifactCache, 100);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReadWriteRoutingDataSource.unpin();
+  }
+
+  /** キャッシュするファイルは primary から読んで生成し、生成後は固定を解除する。 */
+  @Test
+  void getArtifact_readsFromPrimaryWhileRendering() {
+    DownloadEstimateExcelUseCase.Artifact artifact = useCase.getArtifact();
+
+    assertThat(artifact.eTag()).isEqualTo("\"estimates-v7\"");
+    assertThat(pinnedWhileReading).containsExactly(true);
+    assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isFalse();
+  }
+
+  /** 既に primary に固定されていたスレッド（書き込み直後のリクエスト）の固定は解除しない。 */
+  @Test
+  void getArtifact_alreadyPinnedThread_staysPinned() {
+    ReadWriteRoutingDataSource.pinToPrimary();
+
+    useCase.getArtifact();
+
+    assertThat(pinnedWhileReading).containsExactly(true);
+    assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isTrue();
+  }
+
+  /** 直接の出力はスレッドを固定しない（読み取り専用トランザクションでレプリカから読む）。 */
+  @Test
+  void execute_doesNotPinToPrimary() {
+    useCase.execute(new ByteArrayOutputStream());
+
+    assertThat(pinnedWhileReading).containsExactly(false);
+  }
+}
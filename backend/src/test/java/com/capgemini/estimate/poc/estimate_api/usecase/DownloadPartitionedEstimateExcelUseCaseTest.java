@@ -0,0 +1,222 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimatePartitionKey;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+/**
+ * {@code DownloadPartitionedEstimateExcelUseCase} の単体テスト。
+ *
+ * <p>リポジトリはモックにし、パーティションの組み立て・zip への格納順・失敗時の中止を、出力した zip と xlsx を読み戻して
+ * 確認する。
+ */
+class DownloadPartitionedEstimateExcelUseCaseTest {
+
+  private static final Long SCN = 4242L;
+
+  private EstimateRepository repository;
+  private DownloadPartitionedEstimateExcelUseCase useCase;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(EstimateRepository.class);
+    when(repository.currentScn()).thenReturn(SCN);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (useCase != null) {
+      useCase.shutdown();
+    }
+  }
+
+  private DownloadPartitionedEstimateExcelUseCase useCase(int parallelism) {
+    useCase =
+        new DownloadPartitionedEstimateExcelUseCase(
+            repository, parallelism, EstimatePartitionKey.ID_RANGE, 3, 2, 100);
+    return useCase;
+  }
+
+  private static Estimate estimate(String id) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = "見積 " + id;
+    e.customerName = "顧客A";
+    e.totalAmount = 100;
+    return e;
+  }
+
+  /** 範囲の端（null は無制限）に一致する引数。 */
+  private static String bound(String value) {
+    return value == null ? isNull() : eq(value);
+  }
+
+  /** {@code ids} の見積を読み出す前に {@code before} を実行する回答。 */
+  private static Answer<Object> rows(int mapperIndex, Runnable before, String... ids) {
+    return invocation -> {
+      before.run();
+      Function<Stream<Estimate>, ?> mapper = invocation.getArgument(mapperIndex);
+      return mapper.apply(Stream.of(ids).map(id -> estimate(id)));
+    };
+  }
+
+  private void givenIdRange(String from, String to, Runnable before, String... ids) {
+    when(repository.streamByIdRange(bound(from), bound(to), eq(SCN), any()))
+        .thenAnswer(rows(3, before, ids));
+  }
+
+  private void givenIdRange(String from, String to, String... ids) {
+    givenIdRange(from, to, () -> {}, ids);
+  }
+
+  /** zip のエントリ名（格納順）と、各 xlsx の 1 列目（id）の値。 */
+  private static Map<String, List<String>> unzip(byte[] zip) throws IOException {
+    Map<String, List<String>> entries = new LinkedHashMap<>();
+    try (var in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+      for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+        try (var workbook = new XSSFWorkbook(new ByteArrayInputStream(in.readAllBytes()))) {
+          Sheet sheet = workbook.getSheetAt(0);
+          List<String> ids = new ArrayList<>();
+          for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+            ids.add(sheet.getRow(i).getCell(0).getStringCellValue());
+          }
+          entries.put(entry.getName(), ids);
+        }
+      }
+    }
+    return entries;
+  }
+
+  /** id の境界から範囲を組み立て、開始時の SCN で読み、0 件の範囲はファイルにしない。 */
+  @Test
+  void execute_idRange_buildsRangesFromBoundariesAtOneScn() throws Exception {
+    when(repository.selectIdBoundaries(3)).thenReturn(List.of("E04", "E07"));
+    givenIdRange(null, "E04", "E01", "E02", "E03");
+    givenIdRange("E04", "E07");
+    givenIdRange("E07", null, "E07", "E08");
+    var out = new ByteArrayOutputStream();
+
+    useCase(2).execute(null, out);
+
+    assertThat(unzip(out.toByteArray()))
+        .containsExactly(
+            Map.entry("estimates-part-001.xlsx", List.of("E01", "E02", "E03")),
+            Map.entry("estimates-part-003.xlsx", List.of("E07", "E08")));
+    verify(repository).currentScn();
+  }
+
+  /** 顧客名のパーティションは設定の上限までの範囲にまとめ、範囲の先頭の顧客名をファイル名に付ける。 */
+  @Test
+  void execute_customer_groupsCustomersIntoCappedRanges() throws Exception {
+    when(repository.selectCustomerBoundaries(2)).thenReturn(List.of("顧客B/東"));
+    when(repository.streamByCustomerRange(isNull(), eq("顧客B/東"), eq(SCN), any()))
+        .thenAnswer(rows(3, () -> {}, "E01", "E02"));
+    when(repository.streamByCustomerRange(eq("顧客B/東"), isNull(), eq(SCN), any()))
+        .thenAnswer(rows(3, () -> {}, "E03"));
+    var out = new ByteArrayOutputStream();
+
+    useCase(2).execute(EstimatePartitionKey.CUSTOMER, out);
+
+    assertThat(unzip(out.toByteArray()))
+        .containsExactly(
+            Map.entry("estimates-customers-001.xlsx", List.of("E01", "E02")),
+            Map.entry("estimates-customers-002-顧客B_東.xlsx", List.of("E03")));
+  }
+
+  /** 後ろのパーティションが先に完成しても、zip にはパーティション順に格納する。 */
+  @Test
+  void execute_partitionsFinishingOutOfOrder_areZippedInPartitionOrder() throws Exception {
+    CountDownLatch lastStarted = new CountDownLatch(1);
+    when(repository.selectIdBoundaries(3)).thenReturn(List.of("E02", "E03"));
+    givenIdRange(null, "E02", () -> await(lastStarted), "E01");
+    givenIdRange("E02", "E03", "E02");
+    givenIdRange("E03", null, lastStarted::countDown, "E03");
+    var out = new ByteArrayOutputStream();
+
+    useCase(3).execute(null, out);
+
+    assertThat(unzip(out.toByteArray()).keySet())
+        .containsExactly(
+            "estimates-part-001.xlsx", "estimates-part-002.xlsx", "estimates-part-003.xlsx");
+  }
+
+  /** 1 つのパーティションの失敗は全体の失敗として伝える。 */
+  @Test
+  void execute_partitionFailure_fails() {
+    when(repository.selectIdBoundaries(3)).thenReturn(List.of("E02", "E03"));
+    givenIdRange(null, "E02", "E01");
+    when(repository.streamByIdRange(eq("E02"), eq("E03"), eq(SCN), any()))
+        .thenThrow(new IllegalStateException("db down"));
+    givenIdRange("E03", null, "E03");
+
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class, () -> useCase(3).execute(null, new ByteArrayOutputStream()));
+
+    assertThat(e).hasRootCauseMessage("db down");
+  }
+
+  /** 出力先への書き込みに失敗した場合（クライアントの切断など）は、まだ始まっていないパーティションを読まない。 */
+  @Test
+  void execute_outputFailure_cancelsPendingPartitions() {
+    CountDownLatch release = new CountDownLatch(1);
+    when(repository.selectIdBoundaries(3)).thenReturn(List.of("E02", "E03"));
+    givenIdRange(null, "E02", "E01");
+    givenIdRange("E02", "E03", () -> await(release), "E02");
+    givenIdRange("E03", null, "E03");
+    OutputStream disconnected =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("connection reset");
+          }
+        };
+
+    try {
+      assertThrows(RuntimeException.class, () -> useCase(1).execute(null, disconnected));
+    } finally {
+      release.countDown();
+    }
+
+    verify(repository, after(500).never()).streamByIdRange(eq("E03"), isNull(), eq(SCN), any());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
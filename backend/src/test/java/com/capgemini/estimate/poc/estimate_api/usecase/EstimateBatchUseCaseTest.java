@@ -0,0 +1,148 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchOperation;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchOperation.Op;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult.Item;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateBatchResult.Status;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateTestDatabase;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code EstimateBatchUseCase} のテスト。
+ *
+ * <p>H2（{@link EstimateTestDatabase}）上の実リポジトリで、操作ごとの結果と DB に残った内容を突き合わせる。JDBC バッチは
+ * 2 行ずつなので、3 件以上の操作はバッチをまたぐ。
+ */
+class EstimateBatchUseCaseTest {
+
+  private EstimateTestDatabase database;
+  private EstimateBatchUseCase useCase;
+
+  @BeforeEach
+  void setUp() {
+    database = new EstimateTestDatabase();
+    useCase = new EstimateBatchUseCase(database.repository(), 1000);
+    database.insert("E1", "見積1", "顧客A", 100);
+    database.insert("E2", "見積2", "顧客B", 200);
+    database.insert("E3", "見積3", "顧客C", 300);
+  }
+
+  private static EstimateBatchOperation create(String title) {
+    return new EstimateBatchOperation(Op.CREATE, null, title, null, 0, null);
+  }
+
+  private static EstimateBatchOperation update(String id, String title, Long version) {
+    return new EstimateBatchOperation(Op.UPDATE, id, title, null, 0, version);
+  }
+
+  private static EstimateBatchOperation delete(String id, Long version) {
+    return new EstimateBatchOperation(Op.DELETE, id, null, null, null, version);
+  }
+
+  private String storedTitle(String id) {
+    List<String> titles =
+        database.jdbc().queryForList("SELECT title FROM estimate WHERE id = ?", String.class, id);
+    return titles.isEmpty() ? null : titles.get(0);
+  }
+
+  private Long storedVersion(String id) {
+    return database
+        .jdbc()
+        .queryForObject("SELECT version FROM estimate WHERE id = ?", Long.class, id);
+  }
+
+  private long count() {
+    return database.jdbc().queryForObject("SELECT COUNT(*) FROM estimate", Long.class);
+  }
+
+  /** 失敗した操作があっても他の操作は反映し、操作ごとの結果をリクエストの順に返す。 */
+  @Test
+  void execute_partialFailure_appliesOtherOperations() {
+    EstimateBatchResult result =
+        useCase.execute(
+            List.of(
+                update("E1", "更新1", 1L),
+                update("E2", "更新2", 5L),
+                create("新規"),
+                delete("E9", 1L),
+                update("E8", "更新8", null),
+                delete("E3", 1L)));
+
+    assertThat(result.committed()).isTrue();
+    assertThat(result.items())
+        .extracting(Item::index, Item::status)
+        .containsExactly(
+            tuple(0, Status.OK),
+            tuple(1, Status.CONFLICT),
+            tuple(2, Status.OK),
+            tuple(3, Status.NOT_FOUND),
+            tuple(4, Status.NOT_FOUND),
+            tuple(5, Status.OK));
+    assertThat(storedTitle("E1")).isEqualTo("更新1");
+    assertThat(storedTitle("E2")).isEqualTo("見積2");
+    assertThat(storedTitle("E3")).isNull();
+    assertThat(storedTitle(result.items().get(2).id())).isEqualTo("新規");
+  }
+
+  /** 古いバージョンを指定した UPDATE / DELETE は CONFLICT とし、行は変えない。 */
+  @Test
+  void execute_staleVersion_conflicts() {
+    useCase.execute(List.of(update("E1", "更新1", 1L)));
+
+    EstimateBatchResult result =
+        useCase.execute(List.of(update("E1", "再更新", 1L), delete("E2", 3L)));
+
+    assertThat(result.committed()).isTrue();
+    assertThat(result.items())
+        .extracting(Item::status)
+        .containsExactly(Status.CONFLICT, Status.CONFLICT);
+    assertThat(result.items()).extracting(Item::version).containsOnlyNulls();
+    assertThat(storedTitle("E1")).isEqualTo("更新1");
+    assertThat(storedTitle("E2")).isEqualTo("見積2");
+  }
+
+  /** 入力が不正な操作が 1 件でもあれば何も書き込まず、残りの操作は SKIPPED とする。 */
+  @Test
+  void execute_invalidOperation_writesNothing() {
+    EstimateBatchResult result =
+        useCase.execute(
+            List.of(create("新規"), update("E1", " ", 1L), delete("E2", 1L), delete("E2", 1L)));
+
+    assertThat(result.committed()).isFalse();
+    assertThat(result.items())
+        .extracting(Item::status)
+        .containsExactly(Status.SKIPPED, Status.INVALID, Status.SKIPPED, Status.INVALID);
+    assertThat(count()).isEqualTo(3);
+    assertThat(storedTitle("E1")).isEqualTo("見積1");
+  }
+
+  private void assertVersionsStored(EstimateBatchResult result) {
+    for (Item item : result.items()) {
+      assertThat(item.status()).isEqualTo(Status.OK);
+      assertThat(item.version()).isEqualTo(storedVersion(item.id()));
+    }
+  }
+
+  /** 返すバージョンは DB に保存されたバージョンと一致する（指定あり・指定なし・登録のいずれも）。 */
+  @Test
+  void execute_returnedVersion_matchesStoredVersion() {
+    EstimateBatchResult first =
+        useCase.execute(
+            List.of(update("E1", "更新1", 1L), update("E2", "更新2", null), create("新規")));
+
+    assertVersionsStored(first);
+    assertThat(first.items()).extracting(Item::version).containsExactly(2L, 2L, 1L);
+
+    EstimateBatchResult second =
+        useCase.execute(List.of(update("E1", "再更新1", null), update("E2", "再更新2", 2L)));
+
+    assertVersionsStored(second);
+    assertThat(second.items()).extracting(Item::version).containsExactly(3L, 3L);
+  }
+}
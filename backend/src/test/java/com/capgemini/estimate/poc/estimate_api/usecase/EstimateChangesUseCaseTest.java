@@ -0,0 +1,145 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.capgemini.estimate.poc.estimate_api.common.pagination.PageCursor;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateChanges;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidPageCursorException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateRepositoryImpl;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateTestDatabase;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code EstimateChangesUseCase} のテスト。
+ *
+ * <p>H2（{@link EstimateTestDatabase}）上の実リポジトリで、変更番号による全件・差分・ページ送りと削除の伝達を確認する。
+ */
+class EstimateChangesUseCaseTest {
+
+  private EstimateTestDatabase database;
+  private EstimateRepositoryImpl repository;
+  private EstimateChangesUseCase useCase;
+
+  @BeforeEach
+  void setUp() {
+    database = new EstimateTestDatabase();
+    repository = database.repository();
+    useCase = new EstimateChangesUseCase(repository, Duration.ofDays(30), 500);
+    database.insert("E1", "見積1", "顧客A", 100);
+    database.insert("E2", "見積2", "顧客B", 200);
+  }
+
+  private void update(String id, String title) {
+    Estimate estimate = repository.selectById(id);
+    estimate.title = title;
+    repository.update(estimate);
+  }
+
+  /** since なしは全件を返し、その後の同期は変更のあった行と削除だけを返す（前回分は重ねて返さない）。 */
+  @Test
+  void getChanges_fullThenIncremental() {
+    EstimateChanges full = useCase.getChanges(null, 100);
+    assertThat(full.estimates()).extracting(e -> e.id).containsExactly("E1", "E2");
+    assertThat(full.deleted()).isEmpty();
+    assertThat(full.hasMore()).isFalse();
+    assertThat(full.reset()).isFalse();
+
+    update("E1", "更新1");
+    repository.delete("E2", null);
+    database.insert("E3", "見積3", null, 300);
+
+    EstimateChanges changes = useCase.getChanges(full.next(), 100);
+    assertThat(changes.estimates()).extracting(e -> e.id).containsExactly("E1", "E3");
+    assertThat(changes.estimates().get(0).title).isEqualTo("更新1");
+    assertThat(changes.deleted()).extracting(t -> t.id).containsExactly("E2");
+    assertThat(changes.hasMore()).isFalse();
+
+    EstimateChanges none = useCase.getChanges(changes.next(), 100);
+    assertThat(none.estimates()).isEmpty();
+    assertThat(none.deleted()).isEmpty();
+    assertThat(none.next()).isNotNull();
+  }
+
+  /** 件数を超える変更はページに分けて返し、たどると更新と削除を変更順に欠落なく受け取れる。 */
+  @Test
+  void getChanges_pagesThroughUpdatesAndDeletes() {
+    String since = useCase.getChanges(null, 100).next();
+    update("E2", "更新2");
+    repository.delete("E1", null);
+    database.insert("E3", "見積3", null, 300);
+
+    List<String> received = new ArrayList<>();
+    EstimateChanges page;
+    do {
+      page = useCase.getChanges(since, 1);
+      page.estimates().forEach(e -> received.add("upsert:" + e.id));
+      page.deleted().forEach(t -> received.add("delete:" + t.id));
+      since = page.next();
+    } while (page.hasMore());
+
+    assertThat(received).containsExactly("upsert:E2", "delete:E1", "upsert:E3");
+  }
+
+  /** ページ送り中に書き込まれた行は、そのページ送りでは返さず次の同期で返す。 */
+  @Test
+  void getChanges_writesDuringPaging_areReturnedOnNextSync() {
+    EstimateChanges first = useCase.getChanges(null, 1);
+    assertThat(first.hasMore()).isTrue();
+    update("E1", "更新1");
+
+    EstimateChanges second = useCase.getChanges(first.next(), 1);
+    assertThat(second.estimates()).extracting(e -> e.id).containsExactly("E2");
+    assertThat(second.hasMore()).isFalse();
+
+    EstimateChanges next = useCase.getChanges(second.next(), 100);
+    assertThat(next.estimates()).extracting(e -> e.id).containsExactly("E1");
+  }
+
+  /** 同じ範囲で削除と再登録があった id は、後の変更（再登録）だけを返す。 */
+  @Test
+  void getChanges_deleteThenRecreate_returnsOnlyLatest() {
+    String since = useCase.getChanges(null, 100).next();
+    repository.delete("E1", null);
+    database.insert("E1", "再登録", null, 0);
+
+    EstimateChanges changes = useCase.getChanges(since, 100);
+
+    assertThat(changes.estimates()).extracting(e -> e.id).containsExactly("E1");
+    assertThat(changes.estimates().get(0).title).isEqualTo("再登録");
+    assertThat(changes.deleted()).isEmpty();
+  }
+
+  /** 削除の記録の保持期間より古いトークン、更新日時で同期していた頃のトークンは reset を返す。 */
+  @Test
+  void getChanges_expiredOrLegacyToken_requestsReset() {
+    String expired =
+        PageCursor.encode(
+            Arrays.asList("sync", "1", LocalDateTime.now().minusDays(31).toString(), null));
+    String legacy =
+        PageCursor.encode(Arrays.asList("sync", LocalDateTime.now().toString(), null, null));
+
+    for (String since : List.of(expired, legacy)) {
+      EstimateChanges changes = useCase.getChanges(since, 100);
+      assertThat(changes.reset()).isTrue();
+      assertThat(changes.estimates()).isEmpty();
+      assertThat(changes.next()).isNull();
+    }
+  }
+
+  /** 形式の不正なトークンは 400 とする。 */
+  @Test
+  void getChanges_invalidToken_isRejected() {
+    assertThrows(InvalidPageCursorException.class, () -> useCase.getChanges("xxx", 100));
+    assertThrows(
+        InvalidPageCursorException.class,
+        () -> useCase.getChanges(PageCursor.encode(List.of("page", "a", "b", "c")), 100));
+  }
+}
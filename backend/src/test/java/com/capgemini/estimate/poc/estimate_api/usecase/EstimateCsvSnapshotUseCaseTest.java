@@ -0,0 +1,198 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * {@code EstimateCsvSnapshotUseCase} の単体テスト。リポジトリ・S3・Redis をモックし、発行先とハイウォーターマーク
+ * （変更番号）を確認する。差分は 1 回 1000 行ずつ読む。
+ */
+class EstimateCsvSnapshotUseCaseTest {
+
+  private static final String HWM_KEY = "csv:snapshot:hwm";
+
+  private EstimateRepository repository;
+  private S3Client s3;
+  private ValueOperations<String, String> values;
+  private EstimateCsvSnapshotUseCase useCase;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    repository = mock(EstimateRepository.class);
+    s3 = mock(S3Client.class);
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    values = mock(ValueOperations.class);
+    when(redisTemplate.opsForValue()).thenReturn(values);
+    useCase =
+        new EstimateCsvSnapshotUseCase(
+            repository,
+            new EstimateDelimitedExportUseCase(repository, 1024),
+            s3,
+            redisTemplate,
+            "bucket");
+  }
+
+  private static Estimate estimate(String id, long changeSeq) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = "見積 " + id;
+    e.totalAmount = 100;
+    e.changeSeq = changeSeq;
+    return e;
+  }
+
+  private static Stream<Estimate> rows(String... ids) {
+    return Stream.of(ids).map(id -> estimate(id, 1));
+  }
+
+  /** 変更番号 {@code fromSeq}〜{@code toSeq} の行（id は {@code E{番号}}）。 */
+  private static List<Estimate> changed(long fromSeq, long toSeq) {
+    return LongStream.rangeClosed(fromSeq, toSeq)
+        .mapToObj(seq -> estimate("E" + seq, seq))
+        .toList();
+  }
+
+  private String uploaded(ArgumentCaptor<RequestBody> body) throws Exception {
+    try (var in = body.getValue().contentStreamProvider().newStream()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private void givenAllRows(String... ids) {
+    when(repository.streamAll(any()))
+        .thenAnswer(
+            invocation ->
+                invocation.<Function<Stream<Estimate>, ?>>getArgument(0).apply(rows(ids)));
+  }
+
+  /** 初回（ハイウォーターマーク未設定）は全件スナップショットを作り、読み出し前に確定済みの変更番号を保持する。 */
+  @Test
+  void publishDelta_withoutHighWaterMark_publishesFullSnapshot() throws Exception {
+    when(repository.settledChangeSeq()).thenReturn(42L);
+    givenAllRows("E1", "E2");
+
+    useCase.publishDelta();
+
+    ArgumentCaptor<PutObjectRequest> put = ArgumentCaptor.forClass(PutObjectRequest.class);
+    ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+    verify(s3).putObject(put.capture(), body.capture());
+    assertThat(put.getValue().key()).isEqualTo("estimates.csv");
+    assertThat(uploaded(body)).contains("E1").contains("E2");
+    verify(values).set(HWM_KEY, "42");
+  }
+
+  /** 更新日時で保持していた頃のハイウォーターマークは読み替えられないため、全件スナップショットを作り直す。 */
+  @Test
+  void publishDelta_legacyTimestampHighWaterMark_publishesFullSnapshot() {
+    when(values.get(HWM_KEY)).thenReturn(LocalDateTime.now().minusMinutes(10).toString());
+    when(repository.settledChangeSeq()).thenReturn(42L);
+    givenAllRows("E1");
+
+    useCase.publishDelta();
+
+    ArgumentCaptor<PutObjectRequest> put = ArgumentCaptor.forClass(PutObjectRequest.class);
+    verify(s3).putObject(put.capture(), any(RequestBody.class));
+    assertThat(put.getValue().key()).isEqualTo("estimates.csv");
+    verify(repository, never()).selectChangedBetween(anyLong(), anyLong(), anyInt());
+    verify(values).set(HWM_KEY, "42");
+  }
+
+  /** 変更があれば変更番号順にページを読み継いで差分を発行し、latest へ複写して確定済みの番号まで進める。 */
+  @Test
+  void publishDelta_withChanges_publishesDeltaAndLatest() throws Exception {
+    when(values.get(HWM_KEY)).thenReturn("10");
+    when(repository.settledChangeSeq()).thenReturn(2000L);
+    when(repository.selectChangedBetween(eq(10L), eq(2000L), anyInt()))
+        .thenReturn(changed(11, 1010));
+    when(repository.selectChangedBetween(eq(1010L), eq(2000L), anyInt()))
+        .thenReturn(changed(1500, 1500));
+
+    useCase.publishDelta();
+
+    ArgumentCaptor<PutObjectRequest> put = ArgumentCaptor.forClass(PutObjectRequest.class);
+    ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+    verify(s3).putObject(put.capture(), body.capture());
+    assertThat(put.getValue().key()).startsWith("estimates-delta-").endsWith(".csv");
+    String csv = uploaded(body);
+    assertThat(csv.lines()).hasSize(1 + 1001);
+    assertThat(csv).contains("E11,").contains("E1010,").contains("E1500,");
+    verify(repository, times(2)).selectChangedBetween(anyLong(), anyLong(), anyInt());
+    ArgumentCaptor<CopyObjectRequest> copy = ArgumentCaptor.forClass(CopyObjectRequest.class);
+    verify(s3).copyObject(copy.capture());
+    assertThat(copy.getValue().sourceKey()).isEqualTo(put.getValue().key());
+    assertThat(copy.getValue().destinationKey()).isEqualTo("estimates-delta-latest.csv");
+    verify(values).set(HWM_KEY, "2000");
+  }
+
+  /** 変更が無ければ何もアップロードせず、ハイウォーターマークだけ進める。 */
+  @Test
+  void publishDelta_withoutChanges_onlyAdvancesHighWaterMark() {
+    when(values.get(HWM_KEY)).thenReturn("10");
+    when(repository.settledChangeSeq()).thenReturn(20L);
+    when(repository.selectChangedBetween(eq(10L), eq(20L), anyInt())).thenReturn(List.of());
+
+    useCase.publishDelta();
+
+    verify(s3, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    verify(s3, never()).copyObject(any(CopyObjectRequest.class));
+    verify(values).set(HWM_KEY, "20");
+  }
+
+  /** 前回以降に確定した変更番号が無ければ DB を読まず、ハイウォーターマークも書き換えない。 */
+  @Test
+  void publishDelta_nothingSettled_doesNothing() {
+    when(values.get(HWM_KEY)).thenReturn("10");
+    when(repository.settledChangeSeq()).thenReturn(10L);
+
+    useCase.publishDelta();
+
+    verify(repository, never()).selectChangedBetween(anyLong(), anyLong(), anyInt());
+    verify(s3, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    verify(values, never()).set(eq(HWM_KEY), anyString());
+  }
+
+  /** 発行に失敗した場合はハイウォーターマークを進めない（次回同じ範囲をやり直す）。 */
+  @Test
+  void publishDelta_uploadFailure_keepsHighWaterMark() {
+    when(values.get(HWM_KEY)).thenReturn("10");
+    when(repository.settledChangeSeq()).thenReturn(2000L);
+    when(repository.selectChangedBetween(eq(10L), eq(2000L), anyInt()))
+        .thenReturn(changed(11, 1010));
+    when(repository.selectChangedBetween(eq(1010L), eq(2000L), anyInt()))
+        .thenThrow(new IllegalStateException("db down"));
+
+    assertThrows(RuntimeException.class, () -> useCase.publishDelta());
+
+    verify(s3, never()).copyObject(any(CopyObjectRequest.class));
+    verify(values, never()).set(eq(HWM_KEY), anyString());
+  }
+}
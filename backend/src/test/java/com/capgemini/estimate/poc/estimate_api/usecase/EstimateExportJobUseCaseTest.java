@@ -0,0 +1,306 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3UrlSigner;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ExportJob;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ExportJobResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.EstimateExportWorker;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportArtifactCache;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportJobQueue;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.export.ExportJobStore;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * {@code EstimateExportJobUseCase} の結合テスト。
+ *
+ * <p>S3 の代わりに MinIO、ジョブの状態とキューに Redis をコンテナで起動し、受付 → ワーカーによる生成 →
+ * マルチパートアップロード → 署名付き URL からのダウンロードまでを通しで確認する。DB（リポジトリ）のみモックする。
+ * Docker が無い環境ではスキップする。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EstimateExportJobUseCaseTest {
+
+  private static final String BUCKET = "export-it";
+
+  @Container
+  private static final MinIOContainer minio =
+      new MinIOContainer("minio/minio:RELEASE.2024-01-16T16-07-38Z");
+
+  @Container
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  /** 実行権の期限（ハートビートはこの 1/3 間隔） */
+  private static final Duration LEASE_TTL = Duration.ofSeconds(1);
+
+  private LettuceConnectionFactory connectionFactory;
+  private StringRedisTemplate redisTemplate;
+  private S3Client s3;
+  private S3Presigner presigner;
+  private EstimateRepository repository;
+  private ExportJobQueue jobQueue;
+  private ExportJobStore jobStore;
+  private EstimateExportJobUseCase useCase;
+  private EstimateExportWorker worker;
+
+  @BeforeEach
+  void setUp() {
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    redisTemplate = new StringRedisTemplate(connectionFactory);
+    redisTemplate.execute(
+        (RedisCallback<Object>)
+            connection -> {
+              connection.serverCommands().flushAll();
+              return null;
+            });
+
+    var credentials =
+        StaticCredentialsProvider.create(
+            AwsBasicCredentials.create(minio.getUserName(), minio.getPassword()));
+    var pathStyle = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+    s3 =
+        S3Client.builder()
+            .endpointOverride(URI.create(minio.getS3URL()))
+            .credentialsProvider(credentials)
+            .region(Region.AP_NORTHEAST_1)
+            .serviceConfiguration(pathStyle)
+            .build();
+    presigner =
+        S3Presigner.builder()
+            .endpointOverride(URI.create(minio.getS3URL()))
+            .credentialsProvider(credentials)
+            .region(Region.AP_NORTHEAST_1)
+            .serviceConfiguration(pathStyle)
+            .build();
+    if (s3.listBuckets().buckets().stream().noneMatch(b -> b.name().equals(BUCKET))) {
+      s3.createBucket(b -> b.bucket(BUCKET));
+    }
+
+    repository = mock(EstimateRepository.class);
+    jobQueue = new ExportJobQueue(redisTemplate);
+    jobStore = new ExportJobStore(redisTemplate, LEASE_TTL);
+    var excelUseCase =
+        new DownloadEstimateExcelUseCase(repository, mock(ExportArtifactCache.class), 100);
+    useCase =
+        new EstimateExportJobUseCase(
+            jobStore,
+            jobQueue,
+            excelUseCase,
+            repository,
+            s3,
+            new S3UrlSigner(presigner),
+            BUCKET,
+            5,
+            15);
+    worker = new EstimateExportWorker(jobQueue, jobStore, useCase, 1, Duration.ofMinutes(15));
+  }
+
+  @AfterEach
+  void tearDown() {
+    worker.stop();
+    presigner.close();
+    s3.close();
+    connectionFactory.destroy();
+  }
+
+  private void givenEstimates(int count) {
+    when(repository.count()).thenReturn((long) count);
+    when(repository.streamAll(any()))
+        .thenAnswer(
+            invocation -> {
+              Function<Stream<Estimate>, ?> mapper = invocation.getArgument(0);
+              return mapper.apply(IntStream.rangeClosed(1, count).mapToObj(this::estimate));
+            });
+  }
+
+  private Estimate estimate(int i) {
+    Estimate e = new Estimate();
+    e.id = String.format("E%05d", i);
+    e.title = "見積 " + i;
+    e.customerName = "顧客 " + (i % 7);
+    e.totalAmount = i * 100;
+    return e;
+  }
+
+  private ExportJobResponse awaitFinished(String jobId) {
+    return await()
+        .atMost(Duration.ofSeconds(60))
+        .until(
+            () -> useCase.getJob(jobId),
+            job ->
+                job.status() == ExportJob.Status.SUCCEEDED
+                    || job.status() == ExportJob.Status.FAILED);
+  }
+
+  /** 受付したジョブをワーカーが処理し、署名付き URL から生成された xlsx を取得できる。 */
+  @Test
+  void submittedJob_isRenderedToS3AndDownloadableViaSignedUrl() throws Exception {
+    givenEstimates(2500);
+    worker.start();
+
+    ExportJobResponse submitted = useCase.submit();
+    assertThat(submitted.status()).isEqualTo(ExportJob.Status.QUEUED);
+    assertThat(submitted.url()).isNull();
+
+    ExportJobResponse finished = awaitFinished(submitted.id());
+    assertThat(finished.status()).isEqualTo(ExportJob.Status.SUCCEEDED);
+    assertThat(finished.rows()).isEqualTo(2500);
+    assertThat(finished.totalRows()).isEqualTo(2500);
+    assertThat(finished.url()).isNotNull();
+
+    HttpResponse<InputStream> download =
+        HttpClient.newHttpClient()
+            .send(
+                HttpRequest.newBuilder(URI.create(finished.url())).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+    assertThat(download.statusCode()).isEqualTo(200);
+    try (InputStream body = download.body();
+        XSSFWorkbook workbook = new XSSFWorkbook(body)) {
+      Sheet sheet = workbook.getSheetAt(0);
+      assertThat(sheet.getLastRowNum()).isEqualTo(2500);
+      assertThat(sheet.getRow(1).getCell(0).getStringCellValue()).isEqualTo("E00001");
+      assertThat(sheet.getRow(2500).getCell(3).getNumericCellValue()).isEqualTo(250000);
+    }
+  }
+
+  /** 生成に失敗したジョブは FAILED になり、S3 には何も残らない。 */
+  @Test
+  void failedJob_isMarkedFailedAndLeavesNoObject() {
+    when(repository.count()).thenReturn(1L);
+    when(repository.streamAll(any())).thenThrow(new IllegalStateException("db down"));
+    worker.start();
+
+    ExportJobResponse submitted = useCase.submit();
+    ExportJobResponse finished = awaitFinished(submitted.id());
+
+    assertThat(finished.status()).isEqualTo(ExportJob.Status.FAILED);
+    assertThat(finished.url()).isNull();
+    assertThat(finished.error()).isNotBlank();
+    assertThrows(
+        NoSuchKeyException.class,
+        () ->
+            s3.headObject(
+                HeadObjectRequest.builder()
+                    .bucket(BUCKET)
+                    .key("exports/" + submitted.id() + "/estimates.xlsx")
+                    .build()));
+  }
+
+  /** 完了済みジョブが再配信されても再生成しない。 */
+  @Test
+  void run_alreadySucceededJob_isNoop() {
+    givenEstimates(3);
+    ExportJobResponse submitted = useCase.submit();
+
+    assertThat(useCase.run(submitted.id(), "worker-1")).isTrue();
+    assertThat(useCase.run(submitted.id(), "worker-1")).isTrue();
+
+    ExportJobResponse job = useCase.getJob(submitted.id());
+    assertThat(job.status()).isEqualTo(ExportJob.Status.SUCCEEDED);
+    verify(repository, times(1)).streamAll(any());
+  }
+
+  /** 他のワーカーが実行権を保持しているジョブは実行せず、false を返して ACK させない。 */
+  @Test
+  void run_jobOwnedByAnotherWorker_isSkipped() {
+    givenEstimates(3);
+    ExportJobResponse submitted = useCase.submit();
+    jobStore.markRunning(submitted.id(), 3);
+    assertThat(jobStore.tryLease(submitted.id(), "worker-1")).isTrue();
+
+    assertThat(useCase.run(submitted.id(), "worker-2")).isFalse();
+
+    assertThat(useCase.getJob(submitted.id()).status()).isEqualTo(ExportJob.Status.RUNNING);
+    verify(repository, never()).streamAll(any());
+  }
+
+  /** 実行中のワーカーが落ちて実行権が切れた RUNNING のジョブは、引き継いだワーカーが実行し直す。 */
+  @Test
+  void run_runningJobWithExpiredLease_isTakenOver() {
+    givenEstimates(3);
+    ExportJobResponse submitted = useCase.submit();
+    jobStore.markRunning(submitted.id(), 3);
+    assertThat(jobStore.tryLease(submitted.id(), "worker-1")).isTrue();
+    redisTemplate.delete("export:job:" + submitted.id() + ":owner");
+
+    assertThat(useCase.run(submitted.id(), "worker-2")).isTrue();
+
+    assertThat(useCase.getJob(submitted.id()).status()).isEqualTo(ExportJob.Status.SUCCEEDED);
+    assertThat(jobStore.tryLease(submitted.id(), "worker-3")).isTrue();
+  }
+
+  /** 処理が引き継ぎの閾値より長くかかっても、ハートビートで配信と実行権が延長され、他のワーカーに引き継がれない。 */
+  @Test
+  void worker_longRunningJob_isNotReclaimedByAnotherWorker() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(repository.count()).thenReturn(3L);
+    when(repository.streamAll(any()))
+        .thenAnswer(
+            invocation -> {
+              release.await(30, TimeUnit.SECONDS);
+              Function<Stream<Estimate>, ?> mapper = invocation.getArgument(0);
+              return mapper.apply(IntStream.rangeClosed(1, 3).mapToObj(this::estimate));
+            });
+    worker.start();
+    ExportJobResponse submitted = useCase.submit();
+    await()
+        .atMost(Duration.ofSeconds(10))
+        .until(() -> useCase.getJob(submitted.id()).status() == ExportJob.Status.RUNNING);
+
+    Thread.sleep(LEASE_TTL.multipliedBy(3).toMillis());
+
+    assertThat(jobQueue.claimStale("intruder", LEASE_TTL)).isNull();
+    assertThat(jobStore.tryLease(submitted.id(), "intruder")).isFalse();
+
+    release.countDown();
+    ExportJobResponse finished = awaitFinished(submitted.id());
+    assertThat(finished.status()).isEqualTo(ExportJob.Status.SUCCEEDED);
+    assertThat(finished.rows()).isEqualTo(3);
+  }
+}
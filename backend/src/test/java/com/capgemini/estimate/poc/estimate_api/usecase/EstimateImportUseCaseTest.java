@@ -0,0 +1,238 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.spy;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateImportResult;
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateImportResult.RowError;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidImportFileException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateRepositoryImpl;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateTestDatabase;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@code EstimateImportUseCase} のテスト。
+ *
+ * <p>H2（{@link EstimateTestDatabase}）上の実リポジトリへ取り込み、登録・更新された行と検証エラーの行を確認する。
+ * 取り込みのバッチは 2 行にして、複数回の書き込みにまたがるようにする。
+ */
+class EstimateImportUseCaseTest {
+
+  private EstimateTestDatabase database;
+  private JdbcTemplate jdbc;
+
+  @BeforeEach
+  void setUp() {
+    database = new EstimateTestDatabase();
+    jdbc = database.jdbc();
+    database.insert("E1", "既存1", "顧客A", 100);
+    database.insert("E2", "既存2", "顧客B", 200);
+  }
+
+  private EstimateImportUseCase useCase(int maxErrors) {
+    return new EstimateImportUseCase(
+        database.repository(), database.transactionManager(), 2, maxErrors, 1024);
+  }
+
+  private EstimateImportResult importCsv(EstimateImportUseCase useCase, String csv)
+      throws Exception {
+    return useCase.execute(
+        "estimates.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private Map<String, Object> row(String id) {
+    return jdbc.queryForMap(
+        "SELECT title, customer_name, total_amount, version FROM estimate WHERE id = ?", id);
+  }
+
+  private long count() {
+    return jdbc.queryForObject("SELECT COUNT(*) FROM estimate", Long.class);
+  }
+
+  /** 既存の id は更新（バージョンが進む）、新しい id と id 空欄は登録、不正な行は取り込まずに行番号付きで返す。 */
+  @Test
+  void csv_upsertsValidRowsAndRejectsInvalidOnes() throws Exception {
+    String csv =
+        """
+        id,title,customer_name,total_amount
+        E1,更新1,顧客A2,"1,500"
+        E3,新規3,,300
+        ,新規（id なし）,顧客C,
+        E4,,顧客D,400
+        E5,金額不正,顧客E,12.5
+        E6,金額負,顧客F,-1
+        E2,更新2,顧客B,250
+        """;
+
+    EstimateImportResult result = importCsv(useCase(100), csv);
+
+    assertThat(result.totalRows()).isEqualTo(7);
+    assertThat(result.imported()).isEqualTo(4);
+    assertThat(result.failed()).isEqualTo(3);
+    assertThat(result.errorsTruncated()).isFalse();
+    assertThat(result.errors()).extracting(RowError::row).containsExactly(5L, 6L, 7L);
+    assertThat(result.errors()).extracting(RowError::sheet).containsOnlyNulls();
+
+    // 更新: 2 行（E1, E2）。登録: 2 行（E3 と id なし）
+    assertThat(count()).isEqualTo(4);
+    assertThat(row("E1"))
+        .containsEntry("TITLE", "更新1")
+        .containsEntry("CUSTOMER_NAME", "顧客A2");
+    assertThat(((Number) row("E1").get("TOTAL_AMOUNT")).intValue()).isEqualTo(1500);
+    assertThat(((Number) row("E1").get("VERSION")).longValue()).isEqualTo(2);
+    assertThat(((Number) row("E2").get("VERSION")).longValue()).isEqualTo(2);
+    assertThat(((Number) row("E3").get("VERSION")).longValue()).isEqualTo(1);
+    assertThat(row("E3").get("CUSTOMER_NAME")).isNull();
+    assertThat(
+            jdbc.queryForObject(
+                "SELECT COUNT(*) FROM estimate WHERE title = '新規（id なし）' AND id IS NOT NULL",
+                Long.class))
+        .isEqualTo(1);
+    assertThat(jdbc.queryForList("SELECT id FROM estimate WHERE id IN ('E4', 'E5', 'E6')"))
+        .isEmpty();
+  }
+
+  /** 同じファイルを 2 回取り込むと、2 回目はすべて更新になる（行は増えない）。 */
+  @Test
+  void csv_reimport_updatesOnly() throws Exception {
+    String csv =
+        """
+        id,title
+        E3,新規3
+        E4,新規4
+        E5,新規5
+        """;
+
+    importCsv(useCase(100), csv);
+    EstimateImportResult second = importCsv(useCase(100), csv);
+
+    assertThat(second.imported()).isEqualTo(3);
+    assertThat(count()).isEqualTo(5);
+    assertThat(((Number) row("E5").get("VERSION")).longValue()).isEqualTo(2);
+  }
+
+  /** エラーは上限件数までしか返さず、省略したことを示す。件数は全件を数える。 */
+  @Test
+  void csv_errorsBeyondLimit_areTruncated() throws Exception {
+    String csv =
+        """
+        id,title,total_amount
+        E3,,1
+        E4,,2
+        E5,,3
+        """;
+
+    EstimateImportResult result = importCsv(useCase(1), csv);
+
+    assertThat(result.failed()).isEqualTo(3);
+    assertThat(result.errors()).hasSize(1);
+    assertThat(result.errorsTruncated()).isTrue();
+    assertThat(count()).isEqualTo(2);
+  }
+
+  /** 書き込みに失敗したバッチはロールバックして行エラーとして返し、残りのバッチの取り込みは続ける。 */
+  @Test
+  void csv_failedBatch_isRolledBackAndReportedAsRowErrors() throws Exception {
+    EstimateRepositoryImpl repository = spy(database.repository());
+    doCallRealMethod()
+        .doAnswer(
+            invocation -> {
+              invocation.callRealMethod();
+              throw new DataIntegrityViolationException("ORA-00001");
+            })
+        .doCallRealMethod()
+        .when(repository)
+        .upsertAll(any());
+    var useCase =
+        new EstimateImportUseCase(repository, database.transactionManager(), 2, 100, 1024);
+    String csv =
+        """
+        id,title
+        E1,更新1
+        E3,新規3
+        E4,新規4
+        E5,新規5
+        E6,新規6
+        E2,更新2
+        """;
+
+    EstimateImportResult result = importCsv(useCase, csv);
+
+    assertThat(result.totalRows()).isEqualTo(6);
+    assertThat(result.imported()).isEqualTo(4);
+    assertThat(result.failed()).isEqualTo(2);
+    assertThat(result.errors()).extracting(RowError::row).containsExactly(4L, 5L);
+    assertThat(jdbc.queryForList("SELECT id FROM estimate ORDER BY id", String.class))
+        .containsExactly("E1", "E2", "E3", "E6");
+    assertThat(row("E2")).containsEntry("TITLE", "更新2");
+  }
+
+  /** タイトル列の無いファイルは取り込まない。 */
+  @Test
+  void csv_withoutTitleHeader_isRejected() {
+    assertThrows(
+        InvalidImportFileException.class,
+        () -> importCsv(useCase(100), "id,customer_name\nE1,顧客A\n"));
+    assertThat(row("E1")).containsEntry("TITLE", "既存1");
+  }
+
+  /** xlsx は日本語の列名も受け付け、シートごとに先頭行をヘッダとして扱う。エラーにはシート名を付ける。 */
+  @Test
+  void xlsx_importsEverySheet() throws Exception {
+    byte[] xlsx;
+    try (XSSFWorkbook workbook = new XSSFWorkbook();
+        ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      sheet(
+          workbook,
+          "一覧1",
+          List.of("見積ID", "タイトル", "顧客名", "合計金額"),
+          List.of("E1", "更新1", "顧客A", "100"),
+          List.of("E3", "新規3", "顧客C", "300"));
+      sheet(
+          workbook,
+          "一覧2",
+          List.of("タイトル", "見積ID"),
+          List.of("新規4", "E4"),
+          List.of("", "E5"));
+      workbook.write(out);
+      xlsx = out.toByteArray();
+    }
+
+    EstimateImportResult result =
+        useCase(100).execute("estimates.xlsx", new ByteArrayInputStream(xlsx));
+
+    assertThat(result.totalRows()).isEqualTo(4);
+    assertThat(result.imported()).isEqualTo(3);
+    assertThat(result.failed()).isEqualTo(1);
+    assertThat(result.errors()).containsExactly(new RowError("一覧2", 3, "タイトルは必須です。"));
+    assertThat(count()).isEqualTo(4);
+    assertThat(row("E4")).containsEntry("TITLE", "新規4");
+  }
+
+  @SafeVarargs
+  private static void sheet(XSSFWorkbook workbook, String name, List<String>... rows) {
+    Sheet sheet = workbook.createSheet(name);
+    for (int r = 0; r < rows.length; r++) {
+      Row row = sheet.createRow(r);
+      for (int c = 0; c < rows[r].size(); c++) {
+        if (!rows[r].get(c).isEmpty()) {
+          row.createCell(c).setCellValue(rows[r].get(c));
+        }
+      }
+    }
+  }
+}
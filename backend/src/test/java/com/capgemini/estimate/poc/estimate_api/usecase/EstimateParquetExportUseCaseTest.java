@@ -0,0 +1,183 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.common.s3.PresignedUrlOptions;
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3UrlSigner;
+import com.capgemini.estimate.poc.estimate_api.domain.model.Estimate;
+import com.capgemini.estimate.poc.estimate_api.domain.model.ParquetExportResponse;
+import com.capgemini.estimate.poc.estimate_api.domain.repository.EstimateRepository;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.LocalInputFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/** {@code EstimateParquetExportUseCase} の単体テスト。書き出した Parquet を読み戻して内容と列の符号化を確認する。 */
+class EstimateParquetExportUseCaseTest {
+
+  @TempDir Path tempDir;
+
+  private EstimateRepository repository;
+  private S3Client s3;
+  private S3UrlSigner signer;
+  private EstimateParquetExportUseCase useCase;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(EstimateRepository.class);
+    s3 = mock(S3Client.class);
+    signer = mock(S3UrlSigner.class);
+    useCase = new EstimateParquetExportUseCase(repository, s3, signer, "bucket", 32, 10);
+  }
+
+  private void givenEstimates(Estimate... estimates) {
+    when(repository.streamAll(any()))
+        .thenAnswer(
+            invocation -> {
+              Function<Stream<Estimate>, ?> mapper = invocation.getArgument(0);
+              return mapper.apply(Stream.of(estimates));
+            });
+  }
+
+  private static Estimate estimate(String id, String title, String customerName, Integer amount) {
+    Estimate e = new Estimate();
+    e.id = id;
+    e.title = title;
+    e.customerName = customerName;
+    e.totalAmount = amount;
+    return e;
+  }
+
+  private InputFile export() throws Exception {
+    var out = new ByteArrayOutputStream();
+    useCase.execute(out);
+    Path file = tempDir.resolve("estimates.parquet");
+    Files.write(file, out.toByteArray());
+    return new LocalInputFile(file);
+  }
+
+  private static List<Group> read(InputFile file) throws Exception {
+    List<Group> rows = new ArrayList<>();
+    try (ParquetReader<Group> reader =
+        new ParquetReader.Builder<Group>(file) {
+          @Override
+          protected ReadSupport<Group> getReadSupport() {
+            return new GroupReadSupport();
+          }
+        }.build()) {
+      for (Group row = reader.read(); row != null; row = reader.read()) {
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  /** 全行が順序どおりに書き出され、null の項目は欠損値になる。 */
+  @Test
+  void execute_writesAllRowsWithNulls() throws Exception {
+    givenEstimates(
+        estimate("E1", "見積1", "顧客A", 1000),
+        estimate("E2", null, null, null),
+        estimate("E3", "見積3", "顧客A", 0));
+
+    List<Group> rows = read(export());
+
+    assertThat(rows).hasSize(3);
+    assertThat(rows.get(0).getString("id", 0)).isEqualTo("E1");
+    assertThat(rows.get(0).getString("title", 0)).isEqualTo("見積1");
+    assertThat(rows.get(0).getString("customer_name", 0)).isEqualTo("顧客A");
+    assertThat(rows.get(0).getInteger("total_amount", 0)).isEqualTo(1000);
+    assertThat(rows.get(1).getString("id", 0)).isEqualTo("E2");
+    assertThat(rows.get(1).getFieldRepetitionCount("title")).isZero();
+    assertThat(rows.get(1).getFieldRepetitionCount("customer_name")).isZero();
+    assertThat(rows.get(1).getFieldRepetitionCount("total_amount")).isZero();
+    assertThat(rows.get(2).getInteger("total_amount", 0)).isZero();
+  }
+
+  /** Snappy 圧縮で、辞書エンコードは customer_name 列だけに使う。列統計も書き出される。 */
+  @Test
+  void execute_usesSnappyAndDictionaryOnlyForCustomerName() throws Exception {
+    givenEstimates(
+        estimate("E1", "見積1", "顧客A", 100),
+        estimate("E2", "見積2", "顧客A", 300),
+        estimate("E3", "見積3", "顧客B", 200));
+
+    try (ParquetFileReader reader = ParquetFileReader.open(export())) {
+      assertThat(reader.getRecordCount()).isEqualTo(3);
+      List<ColumnChunkMetaData> columns = reader.getFooter().getBlocks().get(0).getColumns();
+      for (ColumnChunkMetaData column : columns) {
+        String name = column.getPath().toDotString();
+        assertThat(column.getCodec()).as(name).isEqualTo(CompressionCodecName.SNAPPY);
+        assertThat(column.hasDictionaryPage()).as(name).isEqualTo(name.equals("customer_name"));
+      }
+      Statistics<?> amount =
+          columns.stream()
+              .filter(c -> c.getPath().toDotString().equals("total_amount"))
+              .findFirst()
+              .orElseThrow()
+              .getStatistics();
+      assertThat(amount.genericGetMin()).isEqualTo(100);
+      assertThat(amount.genericGetMax()).isEqualTo(300);
+    }
+  }
+
+  /** 0 件でもスキーマだけの有効なファイルを出力する。 */
+  @Test
+  void execute_empty_writesValidFile() throws Exception {
+    givenEstimates();
+
+    assertThat(read(export())).isEmpty();
+  }
+
+  /** publish はバケットへアップロードし、キーと署名付き URL を返す。 */
+  @Test
+  void publish_uploadsAndReturnsKeyAndUrl() throws Exception {
+    givenEstimates(estimate("E1", "見積1", "顧客A", 100));
+    when(signer.generatePresignedUrl(any(), eq(PresignedUrlOptions.of("bucket", 10))))
+        .thenReturn(URI.create("https://signed.example/estimates.parquet").toURL());
+
+    ParquetExportResponse response = useCase.publish();
+
+    assertThat(response.key()).startsWith("analytics/estimates/estimates-").endsWith(".parquet");
+    assertThat(response.url()).isEqualTo("https://signed.example/estimates.parquet");
+    verify(s3).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+  }
+
+  /** 生成に失敗した場合はアップロードせずに例外とし、URL も発行しない。 */
+  @Test
+  void publish_failure_doesNotUploadOrSign() {
+    when(repository.streamAll(any())).thenThrow(new IllegalStateException("db down"));
+
+    assertThrows(RuntimeException.class, () -> useCase.publish());
+
+    verify(s3, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    verify(signer, never()).generatePresignedUrl(any(), any());
+  }
+}
@@ -0,0 +1,93 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import com.capgemini.estimate.poc.estimate_api.domain.model.EstimateMultiGetResult;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidIdsException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.repository.EstimateTestDatabase;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.stats.EstimateStatsStore;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.stream.EstimateChangeFeed;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * {@code EstimateUseCase} のテスト。
+ *
+ * <p>H2（{@link EstimateTestDatabase}）上の実リポジトリで、id を指定した一括取得を確認する（1 回の上限は 3 件）。
+ */
+class EstimateUseCaseTest {
+
+  private EstimateUseCase useCase;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    EstimateTestDatabase database = new EstimateTestDatabase();
+    useCase =
+        new EstimateUseCase(
+            database.repository(),
+            mock(ObjectProvider.class),
+            mock(EstimateStatsStore.class),
+            mock(ObjectProvider.class),
+            mock(EstimateChangeFeed.class),
+            500,
+            100,
+            2000,
+            3);
+    database.insert("E1", "見積1", "顧客A", 100);
+    database.insert("E2", "見積2", "顧客B", 200);
+    database.insert("E3", "見積3", "顧客C", 300);
+  }
+
+  /** 見つかった見積は指定した順に返し、見つからなかった id も指定した順に返す。 */
+  @Test
+  void getEstimates_keepsRequestedOrderAndReportsMissing() {
+    EstimateMultiGetResult result = useCase.getEstimates(List.of("E3", "X1", "E1", "X2"));
+
+    assertThat(result.items()).extracting(e -> e.id).containsExactly("E3", "E1");
+    assertThat(result.items()).extracting(e -> e.title).containsExactly("見積3", "見積1");
+    assertThat(result.missing()).containsExactly("X1", "X2");
+  }
+
+  /** 重複した id は最初の位置の 1 件にまとめ、前後の空白は取り除く。 */
+  @Test
+  void getEstimates_collapsesDuplicates() {
+    EstimateMultiGetResult result = useCase.getEstimates(List.of("E2", "E1", " E2 ", "E1"));
+
+    assertThat(result.items()).extracting(e -> e.id).containsExactly("E2", "E1");
+    assertThat(result.missing()).isEmpty();
+  }
+
+  /** null・空文字・空白だけの id は無視し、上限の件数にも数えない。 */
+  @Test
+  void getEstimates_ignoresBlankIds() {
+    EstimateMultiGetResult result =
+        useCase.getEstimates(Arrays.asList("", "E1", null, " ", "E2", "\t", "E3"));
+
+    assertThat(result.items()).extracting(e -> e.id).containsExactly("E1", "E2", "E3");
+    assertThat(result.missing()).isEmpty();
+  }
+
+  /** 空白だけの指定は DB を読まずに空の結果を返す。 */
+  @Test
+  void getEstimates_onlyBlankIds_returnsEmpty() {
+    EstimateMultiGetResult result = useCase.getEstimates(Arrays.asList("", null, " "));
+
+    assertThat(result.items()).isEmpty();
+    assertThat(result.missing()).isEmpty();
+  }
+
+  /** 重複をまとめた後の件数が上限を超える場合は不正とする。 */
+  @Test
+  void getEstimates_tooManyIds_isRejected() {
+    assertThat(useCase.getEstimates(List.of("E1", "E2", "E3", "E1")).items()).hasSize(3);
+
+    assertThrows(
+        InvalidIdsException.class, () -> useCase.getEstimates(List.of("E1", "E2", "E3", "X1")));
+  }
+}
@@ -0,0 +1,197 @@
+package com.capgemini.estimate.poc.estimate_api.usecase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.capgemini.estimate.poc.estimate_api.common.s3.S3UrlSigner;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSession;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSessionRequest;
+import com.capgemini.estimate.poc.estimate_api.domain.model.UploadSessionResponse;
+import com.capgemini.estimate.poc.estimate_api.exception.InvalidUploadRequestException;
+import com.capgemini.estimate.poc.estimate_api.exception.UploadSessionConflictException;
+import com.capgemini.estimate.poc.estimate_api.exception.UploadSessionNotFoundException;
+import com.capgemini.estimate.poc.estimate_api.infrastructure.upload.UploadSessionStore;
+import java.net.URI;
+import java.time.Instant;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * {@code UploadSessionUseCase} の単体テスト。
+ *
+ * <p>セッションストアと S3 はモックにする。パートサイズは 5 MiB（S3 の下限）なので、5 MiB を超えるファイルはマルチパートになる。
+ */
+class UploadSessionUseCaseTest {
+
+  private static final long MIB = 1024L * 1024L;
+  private static final String OWNER = "alice";
+
+  private UploadSessionStore sessionStore;
+  private S3Client s3Client;
+  private S3UrlSigner s3UrlSigner;
+  private UploadSessionUseCase useCase;
+
+  @BeforeEach
+  void setUp() {
+    sessionStore = mock(UploadSessionStore.class);
+    s3Client = mock(S3Client.class);
+    s3UrlSigner = mock(S3UrlSigner.class);
+    useCase =
+        new UploadSessionUseCase(
+            sessionStore, s3Client, s3UrlSigner, "bucket", "uploads/", 5, 100, 15);
+  }
+
+  private static UploadSession session(
+      UploadSession.Mode mode, long size, int partCount, SortedMap<Integer, String> parts) {
+    return new UploadSession(
+        "S1",
+        OWNER,
+        "uploads/S1/estimates.csv",
+        "text/csv",
+        size,
+        mode,
+        mode == UploadSession.Mode.MULTIPART ? "upload-1" : null,
+        5 * MIB,
+        partCount,
+        parts,
+        UploadSession.Status.UPLOADING,
+        Instant.now());
+  }
+
+  /** 3 パートのマルチパートアップロード（12 MiB）。全パートの ETag が登録済み。 */
+  private UploadSession givenMultipart() {
+    SortedMap<Integer, String> parts = new TreeMap<>();
+    parts.put(1, "\"e1\"");
+    parts.put(2, "\"e2\"");
+    parts.put(3, "\"e3\"");
+    UploadSession session = session(UploadSession.Mode.MULTIPART, 12 * MIB, 3, parts);
+    when(sessionStore.find("S1")).thenReturn(session);
+    return session;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenUploadedSize(long size) {
+    when(s3Client.headObject(any(Consumer.class)))
+        .thenReturn(HeadObjectResponse.builder().contentLength(size).build());
+  }
+
+  /** パートサイズ以下のファイルは単一 PUT とし、署名付き PUT URL を返す。 */
+  @Test
+  void start_smallFile_returnsPresignedPutUrl() throws Exception {
+    when(s3UrlSigner.generatePresignedPutUrl(anyString(), any(), any()))
+        .thenReturn(URI.create("https://s3.example/put").toURL());
+
+    UploadSessionResponse response =
+        useCase.start(OWNER, new UploadSessionRequest("estimates.csv", "text/csv", MIB));
+
+    assertThat(response.mode()).isEqualTo(UploadSession.Mode.SINGLE);
+    assertThat(response.partCount()).isEqualTo(1);
+    assertThat(response.url()).isEqualTo("https://s3.example/put");
+    assertThat(response.objectKey()).startsWith("uploads/").endsWith("/estimates.csv");
+  }
+
+  /** パートサイズを超えるファイルはマルチパートを開始し、パートサイズとパート数を返す。 */
+  @Test
+  @SuppressWarnings("unchecked")
+  void start_largeFile_startsMultipartUpload() {
+    when(s3Client.createMultipartUpload(any(Consumer.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+
+    UploadSessionResponse response =
+        useCase.start(OWNER, new UploadSessionRequest("a/../b.csv", "text/csv", 12 * MIB));
+
+    ArgumentCaptor<UploadSession> created = ArgumentCaptor.forClass(UploadSession.class);
+    verify(sessionStore).create(created.capture());
+    assertThat(created.getValue().uploadId()).isEqualTo("upload-1");
+    assertThat(response.mode()).isEqualTo(UploadSession.Mode.MULTIPART);
+    assertThat(response.partSize()).isEqualTo(5 * MIB);
+    assertThat(response.partCount()).isEqualTo(3);
+    assertThat(response.url()).isNull();
+    assertThat(response.objectKey()).endsWith("/a_.._b.csv");
+  }
+
+  /** 上限を超えるサイズは受け付けない。 */
+  @Test
+  void start_tooLarge_isRejected() {
+    assertThrows(
+        InvalidUploadRequestException.class,
+        () -> useCase.start(OWNER, new UploadSessionRequest("big.csv", null, 101 * MIB)));
+  }
+
+  /** 他のユーザーのセッションは存在しないものとして扱う。 */
+  @Test
+  void complete_otherOwner_isNotFound() {
+    givenMultipart();
+
+    assertThrows(UploadSessionNotFoundException.class, () -> useCase.complete("bob", "S1"));
+  }
+
+  /** 未登録のパートがあれば完了しない。 */
+  @Test
+  @SuppressWarnings("unchecked")
+  void complete_missingPart_conflicts() {
+    SortedMap<Integer, String> parts = new TreeMap<>();
+    parts.put(1, "\"e1\"");
+    parts.put(3, "\"e3\"");
+    when(sessionStore.find("S1"))
+        .thenReturn(session(UploadSession.Mode.MULTIPART, 12 * MIB, 3, parts));
+
+    assertThrows(UploadSessionConflictException.class, () -> useCase.complete(OWNER, "S1"));
+
+    verify(s3Client, never()).completeMultipartUpload(any(Consumer.class));
+    verify(sessionStore, never()).finish(anyString(), any());
+  }
+
+  /** 結合後のサイズが申告と一致すれば完了にする。 */
+  @Test
+  @SuppressWarnings("unchecked")
+  void complete_multipartWithDeclaredSize_completes() {
+    givenMultipart();
+    givenUploadedSize(12 * MIB);
+
+    useCase.complete(OWNER, "S1");
+
+    verify(s3Client).completeMultipartUpload(any(Consumer.class));
+    verify(sessionStore).finish("S1", UploadSession.Status.COMPLETED);
+    verify(s3Client, never()).deleteObject(any(Consumer.class));
+  }
+
+  /** 結合後のサイズが申告と異なれば、オブジェクトを削除してセッションを中止する。 */
+  @Test
+  @SuppressWarnings("unchecked")
+  void complete_multipartWithWrongSize_deletesObjectAndAborts() {
+    givenMultipart();
+    givenUploadedSize(12 * MIB - 1);
+
+    assertThrows(UploadSessionConflictException.class, () -> useCase.complete(OWNER, "S1"));
+
+    verify(s3Client).deleteObject(any(Consumer.class));
+    verify(sessionStore).finish("S1", UploadSession.Status.ABORTED);
+    verify(sessionStore, never()).finish("S1", UploadSession.Status.COMPLETED);
+  }
+
+  /** 単一 PUT のサイズが申告と異なれば完了しない（再アップロードできるようセッションは残す）。 */
+  @Test
+  void complete_singleWithWrongSize_conflicts() {
+    when(sessionStore.find("S1"))
+        .thenReturn(session(UploadSession.Mode.SINGLE, MIB, 1, new TreeMap<>()));
+    givenUploadedSize(MIB + 1);
+
+    assertThrows(UploadSessionConflictException.class, () -> useCase.complete(OWNER, "S1"));
+
+    verify(sessionStore, never()).finish(anyString(), any());
+  }
+}
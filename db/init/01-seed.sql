@@ -23,7 +23,8 @@ CREATE TABLESPACE app_idx
 CREATE USER app_owner
   IDENTIFIED BY "OwnerPwd!"
   DEFAULT   TABLESPACE app_data
-  QUOTA UNLIMITED ON app_data;
+  QUOTA UNLIMITED ON app_data
+  QUOTA UNLIMITED ON app_idx;
 
 CREATE USER app_runtime
   IDENTIFIED BY "RuntimePwd!"
@@ -37,6 +38,9 @@ GRANT CREATE SESSION,
 
 GRANT CREATE SESSION TO app_runtime;
 
+/* 分割エクスポートで全パーティションを同じ SCN で読む（フラッシュバック問い合わせ） */
+GRANT EXECUTE ON DBMS_FLASHBACK TO app_runtime;
+
 /* DML 専用ロール */
 CREATE ROLE app_dml;
 GRANT app_dml TO app_runtime;
@@ -51,25 +55,74 @@ CONNECT app_owner/OwnerPwd!@&PDB_CONN
 /* シーケンス */
 CREATE SEQUENCE estimate_seq START WITH 1 NOCACHE;
 
+/* 変更番号（差分同期の順序）。RAC でもインスタンス間で番号の大小が採番順と一致するよう ORDER にする */
+CREATE SEQUENCE estimate_change_seq START WITH 1 CACHE 100 ORDER;
+
 /* サンプルテーブル */
 CREATE TABLE estimate (
-  id            VARCHAR2(36)  PRIMARY KEY,
+  id            VARCHAR2(36)  PRIMARY KEY,  -- UUID 文字列（既定は時刻順の v7。app.id.generator 参照）
   title         VARCHAR2(255) NOT NULL,
   customer_name VARCHAR2(255),
-  total_amount  NUMBER
+  total_amount  NUMBER,
+  updated_at    TIMESTAMP     DEFAULT SYSTIMESTAMP NOT NULL,
+  version       NUMBER(19)    DEFAULT 1 NOT NULL,
+  change_seq    NUMBER(19)    DEFAULT estimate_change_seq.NEXTVAL NOT NULL  -- アプリがコミット直前に振り直す
 ) 
 TABLESPACE app_data
 STORAGE ( INITIAL 64K NEXT 64K )  -- 任意：小容量向け
 ;
 
+/* 差分 CSV スナップショット（updated_at による範囲検索）と一覧の更新日時順ソート用 */
+CREATE INDEX estimate_updated_at_ix ON estimate (updated_at, id) TABLESPACE app_idx;
+
+/* 差分同期（GET /api/estimates/changes）の変更番号順の範囲走査用 */
+CREATE INDEX estimate_change_seq_ix ON estimate (change_seq) TABLESPACE app_idx;
+
+/* 一覧の絞り込み・ソート用（キーセットページングの (列, id) 順に合わせる） */
+CREATE INDEX estimate_customer_ix ON estimate (customer_name, id) TABLESPACE app_idx;
+CREATE INDEX estimate_amount_ix   ON estimate (total_amount, id)  TABLESPACE app_idx;
+CREATE INDEX estimate_title_ix    ON estimate (title, id)         TABLESPACE app_idx;
+
+/* 削除の記録（差分同期 GET /api/estimates/changes で削除を伝える。保持期間を過ぎたものは定期削除） */
+CREATE TABLE estimate_tombstone (
+  id            VARCHAR2(36)  PRIMARY KEY,
+  deleted_at    TIMESTAMP     NOT NULL,
+  change_seq    NUMBER(19)    DEFAULT estimate_change_seq.NEXTVAL NOT NULL
+)
+TABLESPACE app_data;
+
+/* 保持期間を過ぎた記録の削除用 */
+CREATE INDEX estimate_tombstone_deleted_at_ix ON estimate_tombstone (deleted_at, id) TABLESPACE app_idx;
+CREATE INDEX estimate_tombstone_change_seq_ix ON estimate_tombstone (change_seq) TABLESPACE app_idx;
+
+/* 見積の明細（見積の削除で一緒に消える。estimate.total_amount は明細の金額の合計を差分で維持する） */
+CREATE TABLE estimate_item (
+  id            VARCHAR2(36)  PRIMARY KEY,
+  estimate_id   VARCHAR2(36)  NOT NULL REFERENCES estimate (id) ON DELETE CASCADE,
+  line_no       NUMBER(9)     NOT NULL,
+  description   VARCHAR2(255) NOT NULL,
+  quantity      NUMBER(9)     NOT NULL,
+  unit_price    NUMBER(10)    NOT NULL,
+  amount        NUMBER(10)    NOT NULL,
+  version       NUMBER(19)    DEFAULT 1 NOT NULL
+)
+TABLESPACE app_data;
+
+/* 見積ごとの明細を表示順に読む（明細付きの取得）。外部キーの索引も兼ねる */
+CREATE INDEX estimate_item_estimate_ix ON estimate_item (estimate_id, line_no) TABLESPACE app_idx;
+
 /* 権限をロールへ集約 */
 GRANT SELECT, INSERT, UPDATE, DELETE ON estimate    TO app_dml;
+GRANT SELECT, INSERT, UPDATE, DELETE ON estimate_tombstone TO app_dml;
+GRANT SELECT, INSERT, UPDATE, DELETE ON estimate_item TO app_dml;
 GRANT SELECT ON estimate_seq                        TO app_dml;
+GRANT SELECT ON estimate_change_seq                 TO app_dml;
+GRANT FLASHBACK ON estimate                         TO app_dml;
 
 /* サンプルデータ */
-INSERT INTO estimate VALUES
+INSERT INTO estimate (id, title, customer_name, total_amount) VALUES
   ('550e8400-e29b-41d4-a716-446655440000', '2025年度 サーバ見積', '株式会社A', 100000);
-INSERT INTO estimate VALUES
+INSERT INTO estimate (id, title, customer_name, total_amount) VALUES
   ('550e8400-e29b-41d4-a716-446655440001', 'NW更改案件',          '株式会社B', 200000);
 COMMIT;
 